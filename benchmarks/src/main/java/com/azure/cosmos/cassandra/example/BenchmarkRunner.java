@@ -0,0 +1,63 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks selected on the command line with the {@link GCProfiler GC profiler} enabled, so that every
+ * result reports allocations per operation as {@code gc.alloc.rate.norm}.
+ * <p>
+ * This accepts the same command line as JMH's own {@link Main}; for example, {@code java -jar benchmarks.jar
+ * UserRepositoryBenchmark -p payloadSize=0}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Entry point to the benchmarks.
+     *
+     * @param args JMH command line arguments.
+     *
+     * @throws CommandLineOptionException If the command line cannot be parsed.
+     * @throws IOException                If JMH cannot list benchmarks or profilers.
+     * @throws RunnerException            If a benchmark fails.
+     */
+    public static void main(final String[] args) throws CommandLineOptionException, IOException, RunnerException {
+
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        if (commandLine.shouldHelp()
+            || commandLine.shouldList()
+            || commandLine.shouldListWithParams()
+            || commandLine.shouldListProfilers()
+            || commandLine.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        final boolean gcProfilerRequested = commandLine.getProfilers().stream().anyMatch(profiler ->
+            "gc".equals(profiler.getKlass()) || GCProfiler.class.getName().equals(profiler.getKlass()));
+
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+        if (!gcProfilerRequested) {
+            options.addProfiler(GCProfiler.class);
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,524 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.StatementRegistry.Operation;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.DefaultProtocolVersion;
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinition;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.PrepareRequest;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.detach.AttachmentPoint;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metrics.Metrics;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.type.codec.TypeCodecs;
+import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.driver.api.core.type.reflect.GenericType;
+import com.datastax.oss.driver.internal.core.cql.DefaultColumnDefinition;
+import com.datastax.oss.driver.internal.core.cql.DefaultColumnDefinitions;
+import com.datastax.oss.driver.internal.core.cql.DefaultPreparedStatement;
+import com.datastax.oss.driver.internal.core.cql.DefaultRow;
+import com.datastax.oss.protocol.internal.ProtocolConstants;
+import com.datastax.oss.protocol.internal.response.result.ColumnSpec;
+import com.datastax.oss.protocol.internal.response.result.RawType;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link CqlSession} stand-in that prepares, binds, and answers the statements of a {@link UserRepository user
+ * repository} in process, so that client-side code paths can be benchmarked reproducibly without a database.
+ * <p>
+ * Prepared statements are real driver {@link DefaultPreparedStatement prepared statements} with column definitions
+ * matching the user table, so that binding encodes values with the driver's codecs exactly as it would against a live
+ * session. Each request completes immediately. Inserts return an empty result; selects by ID echo the bound IDs back as
+ * rows with a fixed name and city, so that row mapping decodes real column values. Execution info is not available
+ * from results.
+ * <p>
+ * This class builds on internal driver classes and is therefore pinned to the driver version declared in the
+ * benchmark module's POM.
+ */
+final class InProcessCqlSession implements CqlSession {
+
+    private static final AttachmentPoint ATTACHMENT_POINT = new AttachmentPoint() {
+        @NonNull
+        @Override
+        public CodecRegistry getCodecRegistry() {
+            return CodecRegistry.DEFAULT;
+        }
+
+        @NonNull
+        @Override
+        public ProtocolVersion getProtocolVersion() {
+            return DefaultProtocolVersion.V4;
+        }
+    };
+
+    private static final RawType BIGINT = RawType.PRIMITIVES.get(ProtocolConstants.DataType.BIGINT);
+    private static final RawType VARCHAR = RawType.PRIMITIVES.get(ProtocolConstants.DataType.VARCHAR);
+
+    private static final ColumnDefinitions NO_COLUMNS = DefaultColumnDefinitions.valueOf(Collections.emptyList());
+
+    private final String keyspace;
+    private final String table;
+    private final Map<String, Operation> operations = new HashMap<>();
+    private final ColumnDefinitions userColumns;
+    private final ColumnDefinitions countColumns;
+    private final ByteBuffer name;
+    private final ByteBuffer city;
+    private final AtomicLong preparedCount = new AtomicLong();
+    private final CompletableFuture<Void> closeFuture = new CompletableFuture<>();
+
+    /**
+     * Initializes a new in-process session that answers the statements of a user repository for the given table.
+     *
+     * @param keyspace Keyspace name.
+     * @param table    Table name.
+     * @param name     The name returned for every user selected.
+     * @param city     The city returned for every user selected.
+     */
+    InProcessCqlSession(
+        @NonNull final String keyspace,
+        @NonNull final String table,
+        @NonNull final String name,
+        @NonNull final String city) {
+
+        this.keyspace = keyspace;
+        this.table = table;
+
+        for (final Operation operation : Operation.values()) {
+            this.operations.put(operation.getQuery(keyspace + "." + table), operation);
+        }
+
+        this.userColumns = this.columns(
+            this.column("user_id", VARCHAR),
+            this.column("user_name", VARCHAR),
+            this.column("user_bcity", VARCHAR));
+
+        this.countColumns = this.columns(this.column("coun", BIGINT));
+        this.name = TypeCodecs.TEXT.encode(name, DefaultProtocolVersion.V4);
+        this.city = TypeCodecs.TEXT.encode(city, DefaultProtocolVersion.V4);
+    }
+
+    // region Methods
+
+    /**
+     * Creates a row of the user table, as it would be returned by a select.
+     *
+     * @param id The user's ID.
+     *
+     * @return A row with the {@code user_id}, {@code user_name}, and {@code user_bcity} columns.
+     */
+    @NonNull
+    Row newUserRow(@NonNull final String id) {
+        return this.newUserRow(TypeCodecs.TEXT.encode(id, DefaultProtocolVersion.V4));
+    }
+
+    /**
+     * Gets the number of statements prepared by this session.
+     *
+     * @return The number of statements prepared.
+     */
+    long getPreparedCount() {
+        return this.preparedCount.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <RequestT extends Request, ResultT> ResultT execute(
+        @NonNull final RequestT request,
+        @NonNull final GenericType<ResultT> resultType) {
+
+        if (resultType.equals(Statement.SYNC)) {
+            return (ResultT) new SyncResult(this.answer((Statement<?>) request));
+        }
+        if (resultType.equals(Statement.ASYNC)) {
+            return (ResultT) CompletableFuture.completedFuture(new AsyncResult(this.answer((Statement<?>) request)));
+        }
+        if (resultType.equals(PrepareRequest.SYNC)) {
+            return (ResultT) this.newPreparedStatement((PrepareRequest) request);
+        }
+        if (resultType.equals(PrepareRequest.ASYNC)) {
+            return (ResultT) CompletableFuture.completedFuture(this.newPreparedStatement((PrepareRequest) request));
+        }
+
+        throw new UnsupportedOperationException("unsupported request type: " + resultType);
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return "in-process";
+    }
+
+    @NonNull
+    @Override
+    public Metadata getMetadata() {
+        throw new UnsupportedOperationException("metadata is not available in process");
+    }
+
+    @Override
+    public boolean isSchemaMetadataEnabled() {
+        return false;
+    }
+
+    @NonNull
+    @Override
+    public CompletionStage<Metadata> setSchemaMetadataEnabled(final Boolean newValue) {
+        throw new UnsupportedOperationException("metadata is not available in process");
+    }
+
+    @NonNull
+    @Override
+    public CompletionStage<Metadata> refreshSchemaAsync() {
+        throw new UnsupportedOperationException("metadata is not available in process");
+    }
+
+    @NonNull
+    @Override
+    public CompletionStage<Boolean> checkSchemaAgreementAsync() {
+        return CompletableFuture.completedFuture(true);
+    }
+
+    @NonNull
+    @Override
+    public DriverContext getContext() {
+        throw new UnsupportedOperationException("a driver context is not available in process");
+    }
+
+    @NonNull
+    @Override
+    public Optional<CqlIdentifier> getKeyspace() {
+        return Optional.of(CqlIdentifier.fromCql(this.keyspace));
+    }
+
+    @NonNull
+    @Override
+    public Optional<Metrics> getMetrics() {
+        return Optional.empty();
+    }
+
+    @NonNull
+    @Override
+    public CompletionStage<Void> closeFuture() {
+        return this.closeFuture;
+    }
+
+    @NonNull
+    @Override
+    public CompletionStage<Void> closeAsync() {
+        this.closeFuture.complete(null);
+        return this.closeFuture;
+    }
+
+    @NonNull
+    @Override
+    public CompletionStage<Void> forceCloseAsync() {
+        return this.closeAsync();
+    }
+
+    @Override
+    public String toString() {
+        return "InProcessCqlSession(table=" + this.keyspace + "." + this.table
+            + ", prepared=" + this.preparedCount.get() + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private ColumnDefinition column(final String column, final RawType type) {
+        final ColumnSpec spec = new ColumnSpec(this.keyspace, this.table, column, 0, type);
+        return new DefaultColumnDefinition(spec, ATTACHMENT_POINT);
+    }
+
+    private ColumnDefinitions columns(final ColumnDefinition... columns) {
+        return DefaultColumnDefinitions.valueOf(Arrays.asList(columns));
+    }
+
+    private ColumnDefinitions getVariableDefinitions(final Operation operation) {
+        switch (operation) {
+            case INSERT_USER:
+                return this.columns(
+                    this.column("user_bcity", VARCHAR),
+                    this.column("user_id", VARCHAR),
+                    this.column("user_name", VARCHAR));
+            case INSERT_USER_WITH_PAYLOAD:
+                return this.columns(
+                    this.column("user_bcity", VARCHAR),
+                    this.column("user_id", VARCHAR),
+                    this.column("user_name", VARCHAR),
+                    this.column("user_payload", VARCHAR));
+            case SELECT_USER:
+                return this.columns(this.column("user_id", VARCHAR));
+            case SELECT_USERS:
+                return this.columns(this.column("user_id", new RawType.RawList(VARCHAR)));
+            case SELECT_USER_COUNT:
+                return NO_COLUMNS;
+            case COUNT_USERS_IN_RANGE:
+            case SELECT_USERS_IN_RANGE:
+                return this.columns(
+                    this.column("partition key token", BIGINT),
+                    this.column("partition key token", BIGINT));
+            case COUNT_USERS_FROM_TOKEN:
+            case SELECT_USERS_FROM_TOKEN:
+                return this.columns(this.column("partition key token", BIGINT));
+            default:
+                throw new IllegalArgumentException("unsupported operation: " + operation);
+        }
+    }
+
+    private static List<Integer> getPartitionKeyIndices(final Operation operation) {
+        switch (operation) {
+            case INSERT_USER:
+            case INSERT_USER_WITH_PAYLOAD:
+                return Collections.singletonList(1);
+            case SELECT_USER:
+            case SELECT_USERS:
+                return Collections.singletonList(0);
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    private ColumnDefinitions getResultDefinitions(final Operation operation) {
+        switch (operation) {
+            case INSERT_USER:
+            case INSERT_USER_WITH_PAYLOAD:
+                return NO_COLUMNS;
+            case SELECT_USER_COUNT:
+            case COUNT_USERS_IN_RANGE:
+            case COUNT_USERS_FROM_TOKEN:
+                return this.countColumns;
+            default:
+                return this.userColumns;
+        }
+    }
+
+    private Page answer(final Statement<?> statement) {
+
+        if (!(statement instanceof BoundStatement)) {
+            // DDL and other simple statements succeed without effect
+            return new Page(NO_COLUMNS, Collections.emptyList());
+        }
+
+        final BoundStatement bound = (BoundStatement) statement;
+        final Operation operation = this.operations.get(bound.getPreparedStatement().getQuery());
+
+        if (operation == null) {
+            throw new UnsupportedOperationException("unsupported query: " + bound.getPreparedStatement().getQuery());
+        }
+
+        switch (operation) {
+            case SELECT_USER:
+                return new Page(this.userColumns, Collections.singletonList(this.newUserRow(bound.getBytesUnsafe(0))));
+            case SELECT_USERS:
+                return new Page(this.userColumns, this.newUserRows(bound.getList(0, String.class)));
+            case SELECT_USER_COUNT:
+            case COUNT_USERS_IN_RANGE:
+            case COUNT_USERS_FROM_TOKEN:
+                return new Page(this.countColumns, Collections.singletonList(new DefaultRow(
+                    this.countColumns,
+                    Collections.singletonList(TypeCodecs.BIGINT.encodePrimitive(0L, DefaultProtocolVersion.V4)),
+                    ATTACHMENT_POINT)));
+            default:
+                return new Page(this.getResultDefinitions(operation), Collections.emptyList());
+        }
+    }
+
+    private Row newUserRow(final ByteBuffer id) {
+        return new DefaultRow(
+            this.userColumns,
+            Arrays.asList(id, this.name.duplicate(), this.city.duplicate()),
+            ATTACHMENT_POINT);
+    }
+
+    private List<Row> newUserRows(final List<String> ids) {
+        final List<Row> rows = new ArrayList<>(ids.size());
+        for (final String id : ids) {
+            rows.add(this.newUserRow(id));
+        }
+        return rows;
+    }
+
+    private PreparedStatement newPreparedStatement(final PrepareRequest request) {
+
+        final Operation operation = this.operations.get(request.getQuery());
+
+        if (operation == null) {
+            throw new UnsupportedOperationException("unsupported query: " + request.getQuery());
+        }
+
+        final ByteBuffer id = ByteBuffer.wrap(request.getQuery().getBytes(StandardCharsets.UTF_8));
+        this.preparedCount.incrementAndGet();
+
+        return new DefaultPreparedStatement(
+            id,
+            request.getQuery(),
+            this.getVariableDefinitions(operation),
+            getPartitionKeyIndices(operation),
+            null,
+            this.getResultDefinitions(operation),
+            CqlIdentifier.fromCql(this.keyspace),
+            Collections.emptyMap(),
+            request.getExecutionProfileNameForBoundStatements(),
+            request.getExecutionProfileForBoundStatements(),
+            request.getRoutingKeyspaceForBoundStatements(),
+            request.getRoutingKeyForBoundStatements(),
+            request.getRoutingTokenForBoundStatements(),
+            request.getCustomPayloadForBoundStatements(),
+            request.areBoundStatementsIdempotent(),
+            request.getTimeoutForBoundStatements(),
+            request.getPagingStateForBoundStatements(),
+            request.getPageSizeForBoundStatements(),
+            request.getConsistencyLevelForBoundStatements(),
+            request.getSerialConsistencyLevelForBoundStatements(),
+            request.areBoundStatementsTracing(),
+            CodecRegistry.DEFAULT,
+            DefaultProtocolVersion.V4);
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * The single page of rows returned by a request.
+     */
+    private static final class Page {
+
+        private final ColumnDefinitions columns;
+        private final List<Row> rows;
+
+        Page(final ColumnDefinitions columns, final List<Row> rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * A synchronous result set over a single {@link Page page}.
+     */
+    private static final class SyncResult implements ResultSet {
+
+        private final Page page;
+
+        SyncResult(final Page page) {
+            this.page = page;
+        }
+
+        @NonNull
+        @Override
+        public ColumnDefinitions getColumnDefinitions() {
+            return this.page.columns;
+        }
+
+        @Override
+        public ExecutionInfo getExecutionInfo() {
+            return null;
+        }
+
+        @NonNull
+        @Override
+        public List<ExecutionInfo> getExecutionInfos() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isFullyFetched() {
+            return true;
+        }
+
+        @Override
+        public int getAvailableWithoutFetching() {
+            return this.page.rows.size();
+        }
+
+        @NonNull
+        @Override
+        public Iterator<Row> iterator() {
+            return this.page.rows.iterator();
+        }
+
+        @Override
+        public boolean wasApplied() {
+            return true;
+        }
+    }
+
+    /**
+     * An asynchronous result set over a single {@link Page page}.
+     */
+    private static final class AsyncResult implements AsyncResultSet {
+
+        private final Page page;
+
+        AsyncResult(final Page page) {
+            this.page = page;
+        }
+
+        @NonNull
+        @Override
+        public ColumnDefinitions getColumnDefinitions() {
+            return this.page.columns;
+        }
+
+        @Override
+        public ExecutionInfo getExecutionInfo() {
+            return null;
+        }
+
+        @Override
+        public int remaining() {
+            return this.page.rows.size();
+        }
+
+        @NonNull
+        @Override
+        public Iterable<Row> currentPage() {
+            return this.page.rows;
+        }
+
+        @Override
+        public boolean hasMorePages() {
+            return false;
+        }
+
+        @NonNull
+        @Override
+        public CompletionStage<AsyncResultSet> fetchNextPage() {
+            throw new IllegalStateException("no more pages");
+        }
+
+        @Override
+        public boolean wasApplied() {
+            return true;
+        }
+    }
+
+    // endregion
+}
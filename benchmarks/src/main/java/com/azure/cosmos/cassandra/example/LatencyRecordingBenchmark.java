@@ -0,0 +1,132 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.HdrHistogram.Histogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the structures that record the outcome of each operation during a load test: the {@link LatencyRecorder
+ * latency recorder} and the {@link UserIdStore store} of written IDs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LatencyRecordingBenchmark {
+
+    /**
+     * Expected interval between operations in nanoseconds; zero disables coordinated omission correction.
+     */
+    @SuppressWarnings("checkstyle:VisibilityModifier")  // JMH injects parameter values into public fields
+    @Param({ "0", "1000000" })
+    public long expectedIntervalNanos;
+
+    private LatencyRecorder recorder;
+
+    // region Methods
+
+    /**
+     * Creates a new recorder for each iteration, so that histograms do not carry over between iterations.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        this.recorder = new LatencyRecorder("benchmark", this.expectedIntervalNanos);
+    }
+
+    /**
+     * Records a latency from a single thread.
+     *
+     * @param latencies The calling thread's source of latencies.
+     */
+    @Benchmark
+    public void record(final Latencies latencies) {
+        this.recorder.record(latencies.next());
+    }
+
+    /**
+     * Records a latency from each of four threads at once.
+     *
+     * @param latencies The calling thread's source of latencies.
+     */
+    @Benchmark
+    @Threads(4)
+    public void recordContended(final Latencies latencies) {
+        this.recorder.record(latencies.next());
+    }
+
+    /**
+     * Records a latency and then harvests the latencies recorded since the last harvest, as a metrics reporter does at
+     * the end of each interval.
+     *
+     * @param latencies The calling thread's source of latencies.
+     *
+     * @return The interval histogram.
+     */
+    @Benchmark
+    public Histogram recordAndHarvest(final Latencies latencies) {
+        this.recorder.record(latencies.next());
+        return this.recorder.getIntervalHistogram();
+    }
+
+    /**
+     * Appends {@value UserIdStore#CHUNK_CAPACITY} IDs to a new store, filling one chunk.
+     *
+     * @return The store.
+     */
+    @Benchmark
+    @OperationsPerInvocation(UserIdStore.CHUNK_CAPACITY)
+    public UserIdStore appendIds() {
+        final UserIdStore store = new UserIdStore(1024L * 1024L);
+        for (long i = 0; i < UserIdStore.CHUNK_CAPACITY; i++) {
+            store.append(i, ~i);
+        }
+        return store;
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * A benchmark thread's source of latencies spread across several orders of magnitude.
+     */
+    @State(Scope.Thread)
+    public static class Latencies {
+
+        private long state = 0x9E3779B97F4A7C15L;
+
+        /**
+         * Gets the next latency.
+         *
+         * @return A latency between 100 microseconds and about 6.7 seconds.
+         */
+        long next() {
+            // xorshift
+            this.state ^= this.state << 13;
+            this.state ^= this.state >>> 7;
+            this.state ^= this.state << 17;
+            return 100_000L << ((this.state >>> 1) % 17);
+        }
+    }
+
+    // endregion
+}
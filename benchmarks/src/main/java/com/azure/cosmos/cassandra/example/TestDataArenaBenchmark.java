@@ -0,0 +1,121 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks generating {@link TestDataArena test data} and reading it back, as load generators and the read-back
+ * verifier do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TestDataArenaBenchmark {
+
+    private static final int RECORD_COUNT = 1 << 14;
+
+    /**
+     * Size of the payload generated for each user; zero generates users without a payload.
+     */
+    @SuppressWarnings("checkstyle:VisibilityModifier")  // JMH injects parameter values into public fields
+    @Param({ "0", "1024" })
+    public int payloadSize;
+
+    private TestDataArena arena;
+
+    // region Methods
+
+    /**
+     * Generates the arena read by the read benchmarks.
+     */
+    @Setup
+    public void setUp() {
+        this.arena = TestDataArena.generate(RECORD_COUNT, 1024, this.payloadSize, 42L);
+    }
+
+    /**
+     * Generates an arena of {@value #RECORD_COUNT} users, including their name and city dictionaries.
+     *
+     * @return The arena.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public TestDataArena generate() {
+        return TestDataArena.generate(RECORD_COUNT, 1024, this.payloadSize, 42L);
+    }
+
+    /**
+     * Reads the ID, name, city, and payload of the next user from the arena, as a load generator does before each
+     * write.
+     *
+     * @param cursor    The calling thread's position in the arena.
+     * @param blackhole A sink for the values read.
+     */
+    @Benchmark
+    public void readRecord(final Cursor cursor, final Blackhole blackhole) {
+        final int n = cursor.next();
+        blackhole.consume(this.arena.getId(n));
+        blackhole.consume(this.arena.getName(n));
+        blackhole.consume(this.arena.getCity(n));
+        blackhole.consume(this.arena.getPayload(n));
+    }
+
+    /**
+     * Reconstructs the expected user from the bits of its ID, as the read-back verifier does for each user read.
+     *
+     * @param cursor The calling thread's position in the arena.
+     *
+     * @return The expected user.
+     */
+    @Benchmark
+    public User newUser(final Cursor cursor) {
+        final int n = cursor.next();
+        return this.arena.newUser(this.arena.getIdMostSignificantBits(n), this.arena.getIdLeastSignificantBits(n));
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * A benchmark thread's position in the arena.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        /**
+         * Advances to the next record, wrapping around at the end of the arena.
+         *
+         * @return The index of the next record.
+         */
+        int next() {
+            this.index = (this.index + 1) & (RECORD_COUNT - 1);
+            return this.index;
+        }
+    }
+
+    // endregion
+}
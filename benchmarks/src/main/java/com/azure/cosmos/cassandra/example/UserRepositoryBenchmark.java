@@ -0,0 +1,199 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.StatementRegistry.Operation;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the bind, execute, and row-mapping paths of {@link UserRepository} against an {@link InProcessCqlSession
+ * in-process session}.
+ * <p>
+ * Because requests complete in process, these benchmarks measure only the client-side cost of each operation: statement
+ * lookup and binding, value encoding, future composition, and row decoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserRepositoryBenchmark {
+
+    private static final int RECORD_COUNT = 1 << 14;
+    private static final int BATCH_SIZE = 16;
+
+    /**
+     * Size of the payload written with each user; zero writes users without a payload.
+     */
+    @SuppressWarnings("checkstyle:VisibilityModifier")  // JMH injects parameter values into public fields
+    @Param({ "0", "1024" })
+    public int payloadSize;
+
+    private TestDataArena arena;
+    private List<String> ids;
+    private InProcessCqlSession session;
+    private StatementRegistry statements;
+    private UserRepository repository;
+    private Row row;
+
+    // region Methods
+
+    /**
+     * Prepares statements and generates the users written and read.
+     */
+    @Setup
+    public void setUp() {
+        this.arena = TestDataArena.generate(RECORD_COUNT, 1024, this.payloadSize, 42L);
+        this.ids = new ArrayList<>(RECORD_COUNT + BATCH_SIZE);
+        for (int n = 0; n < RECORD_COUNT + BATCH_SIZE; n++) {
+            this.ids.add(this.arena.getId(n % RECORD_COUNT));
+        }
+        this.session = new InProcessCqlSession("benchmark", "user", this.arena.getName(0), this.arena.getCity(0));
+        this.statements = new StatementRegistry("benchmark", "user");
+        this.repository = new UserRepository(this.session, this.statements);
+        this.repository.prepareStatements();
+        this.row = this.session.newUserRow(this.arena.getId(0));
+    }
+
+    /**
+     * Closes the in-process session.
+     */
+    @TearDown
+    public void tearDown() {
+        this.session.close();
+    }
+
+    /**
+     * Binds an insert statement, encoding its values.
+     *
+     * @param cursor The calling thread's position in the test data.
+     *
+     * @return The bound statement.
+     */
+    @Benchmark
+    public BoundStatement bindInsert(final Cursor cursor) {
+        final int n = cursor.next();
+        final String payload = this.arena.getPayload(n);
+        return payload == null
+            ? this.statements.bind(Operation.INSERT_USER, this.arena.getCity(n), this.arena.getId(n),
+                this.arena.getName(n))
+            : this.statements.bind(Operation.INSERT_USER_WITH_PAYLOAD, this.arena.getCity(n), this.arena.getId(n),
+                this.arena.getName(n), payload);
+    }
+
+    /**
+     * Inserts a user synchronously.
+     *
+     * @param cursor The calling thread's position in the test data.
+     *
+     * @return The result of the insert.
+     */
+    @Benchmark
+    public ResultSet insertUser(final Cursor cursor) {
+        final int n = cursor.next();
+        return this.repository.insertUser(
+            this.arena.getId(n),
+            this.arena.getName(n),
+            this.arena.getCity(n),
+            this.arena.getPayload(n));
+    }
+
+    /**
+     * Inserts a user asynchronously, waiting for the result.
+     *
+     * @param cursor The calling thread's position in the test data.
+     *
+     * @return The result of the insert.
+     */
+    @Benchmark
+    public AsyncResultSet insertUserAsync(final Cursor cursor) {
+        final int n = cursor.next();
+        return this.repository.insertUserAsync(
+            this.arena.getId(n),
+            this.arena.getName(n),
+            this.arena.getCity(n),
+            this.arena.getPayload(n)).toCompletableFuture().join();
+    }
+
+    /**
+     * Converts a row of the user table to a {@link User user}, decoding each column.
+     *
+     * @return The user.
+     */
+    @Benchmark
+    public User mapRow() {
+        return UserRepository.toUser(this.row);
+    }
+
+    /**
+     * Selects a user by ID asynchronously, waiting for the result.
+     *
+     * @param cursor The calling thread's position in the test data.
+     *
+     * @return The user selected.
+     */
+    @Benchmark
+    public User selectUserAsync(final Cursor cursor) {
+        return this.repository.selectUserAsync(this.arena.getId(cursor.next())).toCompletableFuture().join();
+    }
+
+    /**
+     * Selects a batch of {@value #BATCH_SIZE} users with a multi-key {@code IN} query asynchronously, waiting for the
+     * result.
+     *
+     * @param cursor The calling thread's position in the test data.
+     *
+     * @return The users selected.
+     */
+    @Benchmark
+    public List<User> selectUsersAsync(final Cursor cursor) {
+        final int n = cursor.next();
+        return this.repository.selectUsersAsync(this.ids.subList(n, n + BATCH_SIZE)).toCompletableFuture().join();
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * A benchmark thread's position in the test data.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        /**
+         * Advances to the next record, wrapping around at the end of the test data.
+         *
+         * @return The index of the next record.
+         */
+        int next() {
+            this.index = (this.index + 1) & (RECORD_COUNT - 1);
+            return this.index;
+        }
+    }
+
+    // endregion
+}
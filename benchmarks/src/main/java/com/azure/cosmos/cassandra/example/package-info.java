@@ -0,0 +1,7 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+/**
+ * JMH benchmarks of the example's client-side code paths, run against an in-process stand-in for a CQL session.
+ */
+package com.azure.cosmos.cassandra.example;
@@ -0,0 +1,310 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.DriverTimeoutException;
+import com.datastax.oss.driver.api.core.RequestThrottlingException;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent requests using an additive-increase/multiplicative-decrease (AIMD) window.
+ * <p>
+ * Each request that succeeds without being retried grows the window by one request per window's worth of successes.
+ * Each request that is rate limited--either failing with an overload or timeout error or succeeding only after the
+ * retry policy backed off and retried it--shrinks the window by the backoff ratio. The window shrinks at most once per
+ * generation of in-flight requests: signals from requests that were started before the last decrease are ignored,
+ * because they describe a window that no longer exists. This keeps a client running near the provisioned throughput
+ * of a Cosmos DB account rather than driving the retry policy into a retry storm.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final double NANOS_PER_SECOND = 1E9;
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = this.lock.newCondition();
+    private final long startNanos = System.nanoTime();
+
+    private double limit;
+    private double lowestLimit;
+    private double highestLimit;
+    private int inFlight;
+    private long epoch;
+
+    private long decreaseCount;
+    private long successCount;
+    private long retriedCount;
+    private long overloadedCount;
+    private long failedCount;
+
+    private long convergedStartNanos;
+    private long convergedSuccessCount;
+    private long stopNanos;
+    private boolean stopped;
+
+    /**
+     * Initializes a new adaptive concurrency limiter.
+     *
+     * @param initialLimit Initial number of requests allowed in flight.
+     * @param minLimit     Minimum number of requests allowed in flight.
+     * @param maxLimit     Maximum number of requests allowed in flight.
+     * @param backoffRatio Ratio, in the open interval {@code (0, 1)}, by which the window shrinks on overload.
+     */
+    public AdaptiveConcurrencyLimiter(
+        final int initialLimit,
+        final int minLimit,
+        final int maxLimit,
+        final double backoffRatio) {
+
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("expected 0 < minLimit <= initialLimit <= maxLimit, not "
+                + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        if (!(backoffRatio > 0.0 && backoffRatio < 1.0)) {
+            throw new IllegalArgumentException("backoffRatio must be in the interval (0, 1), not " + backoffRatio);
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+        this.lowestLimit = initialLimit;
+        this.highestLimit = initialLimit;
+        this.convergedStartNanos = this.startNanos;
+    }
+
+    // region Methods
+
+    /**
+     * Waits until the window admits another request.
+     *
+     * @return A permit to be passed to {@link #release} when the request completes.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public long acquire() throws InterruptedException {
+        this.lock.lockInterruptibly();
+        try {
+            while (this.inFlight >= (int) this.limit) {
+                this.available.await();
+            }
+            this.inFlight++;
+            return this.epoch;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit and adjusts the window based on the outcome of the request it admitted.
+     *
+     * @param permit  The permit returned by {@link #acquire}.
+     * @param outcome The outcome of the request.
+     */
+    public void release(final long permit, @NonNull final Outcome outcome) {
+        this.lock.lock();
+        try {
+            this.inFlight--;
+            switch (outcome) {
+                case SUCCEEDED:
+                    this.successCount++;
+                    this.convergedSuccessCount++;
+                    this.limit = Math.min(this.maxLimit, this.limit + 1.0 / this.limit);
+                    this.highestLimit = Math.max(this.highestLimit, this.limit);
+                    break;
+                case RETRIED:
+                    this.successCount++;
+                    this.convergedSuccessCount++;
+                    this.retriedCount++;
+                    this.decrease(permit);
+                    break;
+                case OVERLOADED:
+                    this.overloadedCount++;
+                    this.decrease(permit);
+                    break;
+                case FAILED:
+                default:
+                    this.failedCount++;
+                    break;
+            }
+            this.available.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Classifies the outcome of a request from its execution info or error.
+     *
+     * @param executionInfo Execution info for a request that succeeded; {@code null}, if the request failed.
+     * @param error         The error raised by a request that failed; {@code null}, if the request succeeded.
+     *
+     * @return The outcome of the request.
+     */
+    @NonNull
+    public static Outcome classify(final ExecutionInfo executionInfo, final Throwable error) {
+        if (error != null) {
+            return isOverload(error) ? Outcome.OVERLOADED : Outcome.FAILED;
+        }
+        return executionInfo == null || executionInfo.getErrors().isEmpty() ? Outcome.SUCCEEDED : Outcome.RETRIED;
+    }
+
+    /**
+     * Gets the current number of requests allowed in flight.
+     *
+     * @return The current window size.
+     */
+    public double getLimit() {
+        this.lock.lock();
+        try {
+            return this.limit;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the rate at which requests have succeeded since the window first shrank.
+     * <p>
+     * Once the window has shrunk the client has found the server's capacity, and the window oscillates around it. If
+     * the window has never shrunk, this is the rate since the limiter was created. The rate is measured up to the time
+     * the limiter was {@link #stop stopped} or, if it is still running, up to now.
+     *
+     * @return The converged throughput in requests per second.
+     */
+    public double getConvergedThroughput() {
+        this.lock.lock();
+        try {
+            final long elapsedNanos = (this.stopped ? this.stopNanos : System.nanoTime()) - this.convergedStartNanos;
+            return elapsedNanos > 0 ? this.convergedSuccessCount * NANOS_PER_SECOND / elapsedNanos : 0.0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the end of the load admitted by this limiter, so that time spent after it--reading back or reporting, for
+     * example--does not dilute the {@link #getConvergedThroughput converged throughput}. Calls after the first have
+     * no effect.
+     */
+    public void stop() {
+        this.lock.lock();
+        try {
+            if (!this.stopped) {
+                this.stopNanos = System.nanoTime();
+                this.stopped = true;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Summarizes the state of this limiter.
+     *
+     * @return A summary of the window size, retry frequency, and converged throughput.
+     */
+    @NonNull
+    public String summarize() {
+        this.lock.lock();
+        try {
+            final long completed = this.successCount + this.overloadedCount + this.failedCount;
+            return String.format(Locale.ROOT,
+                "limit=%.1f (min %.1f, max %.1f), decreases=%d, retried=%.1f%% (%d of %d), overloaded=%d, failed=%d,"
+                    + " converged throughput=%.1f ops/sec",
+                this.limit,
+                this.lowestLimit,
+                this.highestLimit,
+                this.decreaseCount,
+                completed == 0 ? 0.0 : 100.0 * this.retriedCount / completed,
+                this.retriedCount,
+                completed,
+                this.overloadedCount,
+                this.failedCount,
+                this.getConvergedThroughput());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrencyLimiter(" + this.summarize() + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private void decrease(final long permit) {
+        if (permit != this.epoch) {
+            return;
+        }
+        if (this.decreaseCount++ == 0) {
+            this.convergedStartNanos = System.nanoTime();
+            this.convergedSuccessCount = 0;
+        }
+        this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+        this.lowestLimit = Math.min(this.lowestLimit, this.limit);
+        this.epoch++;
+    }
+
+    private static boolean isOverload(final Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+            && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof OverloadedException
+            || cause instanceof RequestThrottlingException
+            || cause instanceof DriverTimeoutException
+            || cause instanceof ReadTimeoutException
+            || cause instanceof WriteTimeoutException;
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * Outcomes of a request admitted by an {@link AdaptiveConcurrencyLimiter adaptive concurrency limiter}.
+     */
+    public enum Outcome {
+
+        /**
+         * The request succeeded on its first attempt.
+         */
+        SUCCEEDED,
+
+        /**
+         * The request succeeded, but only after being retried.
+         */
+        RETRIED,
+
+        /**
+         * The request failed because the server was overloaded or rate limiting.
+         */
+        OVERLOADED,
+
+        /**
+         * The request failed for a reason unrelated to load.
+         */
+        FAILED
+    }
+
+    // endregion
+}
@@ -0,0 +1,135 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Issues asynchronous requests from a handful of threads while bounding the number of requests in flight.
+ * <p>
+ * Each issuing thread claims the next operation number, acquires a permit from a window of {@code maxInFlight} permits,
+ * and starts the operation. The permit is released when the operation's {@link CompletionStage completion stage}
+ * completes. Concurrency is therefore limited by the permit window rather than by the number of threads.
+ */
+public final class AsyncLoadEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncLoadEngine.class);
+    private static final AtomicInteger ENGINE_COUNT = new AtomicInteger();
+
+    private final int issuerThreadCount;
+    private final int maxInFlight;
+
+    /**
+     * Initializes a new async load engine.
+     *
+     * @param issuerThreadCount Number of threads used to issue requests.
+     * @param maxInFlight       Maximum number of requests that may be in flight at once.
+     */
+    public AsyncLoadEngine(final int issuerThreadCount, final int maxInFlight) {
+        if (issuerThreadCount <= 0) {
+            throw new IllegalArgumentException("issuerThreadCount must be positive, not " + issuerThreadCount);
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive, not " + maxInFlight);
+        }
+        this.issuerThreadCount = issuerThreadCount;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Runs {@code operationCount} operations and waits for all of them to complete.
+     * <p>
+     * The {@code operation} function is called with each operation number in {@code [0, operationCount)}. It should
+     * start its work asynchronously and report failures through the stage it returns rather than by throwing.
+     *
+     * @param operationCount Number of operations to run.
+     * @param operation      Function that starts an operation and returns a stage that completes when it is done.
+     * @param timeout        Maximum time to wait for all operations to complete.
+     * @param unit           Time unit of {@code timeout}.
+     *
+     * @return {@code true} if all operations completed within {@code timeout}; otherwise {@code false}.
+     *
+     * @throws InterruptedException If interrupted while waiting for operations to complete.
+     */
+    public boolean run(
+        final long operationCount,
+        @NonNull final LongFunction<CompletionStage<?>> operation,
+        final long timeout,
+        @NonNull final TimeUnit unit) throws InterruptedException {
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        final Semaphore permits = new Semaphore(this.maxInFlight);
+        final AtomicLong next = new AtomicLong();
+
+        final ExecutorService issuers = Executors.newFixedThreadPool(this.issuerThreadCount, newThreadFactory());
+
+        for (int i = 0; i < this.issuerThreadCount; i++) {
+            issuers.execute(() -> {
+                try {
+                    for (long n = next.getAndIncrement(); n < operationCount; n = next.getAndIncrement()) {
+                        permits.acquire();
+                        start(operation, n).whenComplete((result, error) -> permits.release());
+                    }
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        issuers.shutdown();
+
+        if (!issuers.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            issuers.shutdownNow();
+            return false;
+        }
+
+        // All operations have been started; wait for the last of them to return its permit
+
+        if (!permits.tryAcquire(this.maxInFlight, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+
+        permits.release(this.maxInFlight);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncLoadEngine(issuer-threads=" + this.issuerThreadCount + ", max-in-flight=" + this.maxInFlight + ")";
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        final int engine = ENGINE_COUNT.incrementAndGet();
+        final AtomicInteger thread = new AtomicInteger();
+        return runnable -> {
+            final Thread issuer = new Thread(runnable, "async-load-" + engine + "-issuer-" + thread.incrementAndGet());
+            issuer.setDaemon(true);
+            return issuer;
+        };
+    }
+
+    private static CompletionStage<?> start(final LongFunction<CompletionStage<?>> operation, final long n) {
+        try {
+            return operation.apply(n);
+        } catch (final RuntimeException error) {
+            LOGGER.error("Operation {} failed to start", n, error);
+            final CompletableFuture<?> failed = new CompletableFuture<>();
+            failed.completeExceptionally(error);
+            return failed;
+        }
+    }
+}
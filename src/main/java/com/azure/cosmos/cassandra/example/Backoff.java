@@ -0,0 +1,140 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Polls a condition with exponential backoff until it holds or a timeout elapses.
+ * <p>
+ * The first poll is immediate. The delay before each later poll doubles, starting from the initial delay, until it
+ * reaches the maximum delay. The last delay is cut short so that the condition is polled once more when the timeout
+ * elapses. A condition that throws is treated as not holding, so that transient errors--a table that is not yet ready
+ * to serve requests, say--are retried rather than propagated.
+ */
+public final class Backoff {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Backoff.class);
+
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+    private final long timeoutNanos;
+
+    /**
+     * Initializes a new backoff.
+     *
+     * @param initialDelay The delay before the second poll.
+     * @param maxDelay     The longest delay between polls.
+     * @param timeout      How long to poll before giving up.
+     * @param unit         The unit of {@code initialDelay}, {@code maxDelay}, and {@code timeout}.
+     */
+    public Backoff(final long initialDelay, final long maxDelay, final long timeout, @NonNull final TimeUnit unit) {
+
+        if (initialDelay <= 0) {
+            throw new IllegalArgumentException("initialDelay must be positive, not " + initialDelay);
+        }
+        if (maxDelay < initialDelay) {
+            throw new IllegalArgumentException("maxDelay must be at least initialDelay, not " + maxDelay);
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must be non-negative, not " + timeout);
+        }
+
+        this.initialDelayNanos = unit.toNanos(initialDelay);
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    // region Methods
+
+    /**
+     * Initializes a backoff that starts at 50 milliseconds, backs off to at most two seconds, and gives up after the
+     * given number of seconds.
+     *
+     * @param timeoutSeconds How long to poll before giving up.
+     *
+     * @return A new backoff.
+     */
+    @NonNull
+    public static Backoff ofSeconds(final long timeoutSeconds) {
+        return new Backoff(50L, 2_000L, TimeUnit.SECONDS.toMillis(timeoutSeconds), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Polls a condition until it holds or the timeout elapses.
+     *
+     * @param description What is being waited for, e.g., {@code "schema agreement"}, for logging.
+     * @param condition   The condition to poll.
+     *
+     * @return {@code true} if the condition held before the timeout elapsed; otherwise {@code false}.
+     *
+     * @throws InterruptedException If interrupted while waiting between polls.
+     */
+    public boolean await(@NonNull final String description, @NonNull final BooleanSupplier condition)
+        throws InterruptedException {
+
+        final long startTime = System.nanoTime();
+        final long deadline = startTime + this.timeoutNanos;
+        long delay = this.initialDelayNanos;
+        int attempts = 0;
+
+        while (true) {
+
+            attempts++;
+
+            if (poll(description, condition)) {
+                LOGGER.debug("Waited {} ms for {} ({} attempts)",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), description, attempts);
+                return true;
+            }
+
+            final long remaining = deadline - System.nanoTime();
+
+            if (remaining <= 0) {
+                LOGGER.warn("Gave up waiting for {} after {} ms ({} attempts)",
+                    description, TimeUnit.NANOSECONDS.toMillis(this.timeoutNanos), attempts);
+                return false;
+            }
+
+            TimeUnit.NANOSECONDS.sleep(Math.min(delay, remaining));
+            delay = Math.min(delay * 2, this.maxDelayNanos);
+        }
+    }
+
+    /**
+     * Gets how long to poll before giving up.
+     *
+     * @return The timeout in nanoseconds.
+     */
+    public long getTimeoutNanos() {
+        return this.timeoutNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Backoff(initial-delay-ms=" + TimeUnit.NANOSECONDS.toMillis(this.initialDelayNanos)
+            + ", max-delay-ms=" + TimeUnit.NANOSECONDS.toMillis(this.maxDelayNanos)
+            + ", timeout-ms=" + TimeUnit.NANOSECONDS.toMillis(this.timeoutNanos) + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static boolean poll(final String description, final BooleanSupplier condition) {
+        try {
+            return condition.getAsBoolean();
+        } catch (final RuntimeException error) {
+            LOGGER.debug("Still waiting for {}: {}", description, error.toString());
+            return false;
+        }
+    }
+
+    // endregion
+}
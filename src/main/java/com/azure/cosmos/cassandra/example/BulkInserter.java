@@ -0,0 +1,562 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.metadata.Node;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Inserts a stream of users in bulk, grouping them by replica into unlogged batches and pipelining the rest as
+ * individual asynchronous writes.
+ * <p>
+ * Rows are grouped by the set of replicas that own their partitions, according to the driver's token metadata, so
+ * that each batch is routed to a node that holds every row in it. A group is sent as a batch as soon as it reaches
+ * {@code batchSize} rows or would exceed {@code maxBatchBytes}. Once the stream is exhausted, groups with at least
+ * {@code minBatchSize} rows are sent as batches and the rows of smaller groups are written one at a time, since a
+ * batch of a row or two saves little over writing them one by one. When the driver has no token metadata, rows cannot
+ * be grouped by replica and every row is written on its own, since a batch of them would span many partitions.
+ * Batches and single writes share a window of {@code maxInFlight} requests. A request that cannot enter the window
+ * before the insert's timeout elapses fails with a {@link TimeoutException} rather than waiting on a stalled cluster.
+ * <p>
+ * The latency of each batch and of each single write is recorded separately. A failed request does not stop the
+ * insert: its rows and error are reported as a {@link Failure failure}. Since an unlogged batch is not atomic, some of
+ * the rows of a failed batch may nonetheless have been written.
+ */
+public final class BulkInserter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkInserter.class);
+
+    private final UserRepository repository;
+    private final int batchSize;
+    private final int maxBatchBytes;
+    private final int minBatchSize;
+    private final int maxInFlight;
+
+    /**
+     * Initializes a new bulk inserter.
+     *
+     * @param repository    The repository to which users are written.
+     * @param batchSize     The maximum number of rows in a batch.
+     * @param maxBatchBytes The maximum estimated size of a batch in bytes.
+     * @param minBatchSize  The minimum number of rows sent as a batch; smaller groups are written row by row.
+     * @param maxInFlight   The maximum number of batches and single writes in flight at once.
+     */
+    public BulkInserter(
+        @NonNull final UserRepository repository,
+        final int batchSize,
+        final int maxBatchBytes,
+        final int minBatchSize,
+        final int maxInFlight) {
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive, not " + batchSize);
+        }
+        if (maxBatchBytes <= 0) {
+            throw new IllegalArgumentException("maxBatchBytes must be positive, not " + maxBatchBytes);
+        }
+        if (minBatchSize <= 0 || minBatchSize > batchSize) {
+            throw new IllegalArgumentException("minBatchSize must be in the range [1, " + batchSize + "], not "
+                + minBatchSize);
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive, not " + maxInFlight);
+        }
+
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.minBatchSize = minBatchSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // region Methods
+
+    /**
+     * Initializes a bulk inserter with the batch limits and maximum number of requests in flight of a load test.
+     *
+     * @param repository The repository to which users are written.
+     * @param options    Options that control how load is generated.
+     *
+     * @return A new bulk inserter.
+     */
+    @NonNull
+    public static BulkInserter of(@NonNull final UserRepository repository, @NonNull final LoadTestOptions options) {
+        return new BulkInserter(
+            repository,
+            options.getBatchSize(),
+            options.getBatchMaxBytes(),
+            options.getBatchMinSize(),
+            options.getMaxInFlight());
+    }
+
+    /**
+     * Inserts a stream of rows and waits for every request to complete.
+     *
+     * @param rows     The rows to insert, which are consumed on the calling thread.
+     * @param listener A listener called as each batch or single write completes.
+     * @param timeout  Maximum time to wait for all requests to complete.
+     * @param unit     Time unit of {@code timeout}.
+     *
+     * @return Counts, latencies, and failures of the requests issued.
+     *
+     * @throws InterruptedException If interrupted while waiting for requests to complete.
+     */
+    @NonNull
+    public Result insert(
+        @NonNull final Stream<UserRow> rows,
+        @NonNull final Listener listener,
+        final long timeout,
+        @NonNull final TimeUnit unit) throws InterruptedException {
+
+        final Run run = new Run(listener, System.nanoTime() + unit.toNanos(timeout));
+        final Map<Object, Group> groups = new LinkedHashMap<>();
+        final int maxPendingRows = this.batchSize * this.maxInFlight;
+        int pendingRows = 0;
+
+        for (final Iterator<UserRow> iterator = rows.iterator(); iterator.hasNext(); ) {
+
+            final UserRow row = iterator.next();
+            final Set<Node> replicas = this.repository.getReplicas(row.getId());
+
+            if (replicas.isEmpty()) {
+                run.issue(Collections.singletonList(row), false);
+                continue;
+            }
+
+            final Group group = groups.computeIfAbsent(replicas, key -> new Group());
+
+            if (!group.rows.isEmpty() && group.byteCount + row.getSizeEstimate() > this.maxBatchBytes) {
+                pendingRows -= group.rows.size();
+                run.send(group.drain());
+            }
+
+            group.add(row);
+            pendingRows++;
+
+            if (group.rows.size() >= this.batchSize) {
+                pendingRows -= group.rows.size();
+                run.send(group.drain());
+            } else if (pendingRows >= maxPendingRows) {
+                // Spread over many replica sets, groups fill slowly; send the largest rather than hold rows
+                final Group largest = Collections.max(groups.values(), Comparator.comparingInt(x -> x.rows.size()));
+                pendingRows -= largest.rows.size();
+                run.send(largest.drain());
+            }
+        }
+
+        for (final Group group : groups.values()) {
+            if (!group.rows.isEmpty()) {
+                run.send(group.drain());
+            }
+        }
+
+        return run.await();
+    }
+
+    /**
+     * Inserts a stream of rows and waits up to five minutes for every request to complete.
+     *
+     * @param rows The rows to insert, which are consumed on the calling thread.
+     *
+     * @return Counts, latencies, and failures of the requests issued.
+     *
+     * @throws InterruptedException If interrupted while waiting for requests to complete.
+     */
+    @NonNull
+    public Result insert(@NonNull final Stream<UserRow> rows) throws InterruptedException {
+        return this.insert(rows, (batch, batched, startNanos, error) -> { }, 5, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkInserter(batch-size=" + this.batchSize
+            + ", batch-max-bytes=" + this.maxBatchBytes
+            + ", batch-min-size=" + this.minBatchSize
+            + ", max-in-flight=" + this.maxInFlight + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static CompletionStage<?> failed(final Throwable error) {
+        final CompletableFuture<?> failed = new CompletableFuture<>();
+        failed.completeExceptionally(error);
+        return failed;
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * Receives notice of each completed batch or single write.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called when a batch or single write completes.
+         *
+         * @param rows       The rows written.
+         * @param batched    {@code true} if the rows were written as a batch; {@code false} for a single write.
+         * @param startNanos The {@link System#nanoTime} at which the request was issued.
+         * @param error      The error with which the request failed or {@code null}, if it succeeded.
+         */
+        void onComplete(List<UserRow> rows, boolean batched, long startNanos, Throwable error);
+    }
+
+    /**
+     * The rows and error of a failed batch or single write.
+     */
+    public static final class Failure {
+
+        private final List<String> ids;
+        private final boolean batched;
+        private final Throwable error;
+
+        Failure(final List<String> ids, final boolean batched, final Throwable error) {
+            this.ids = Collections.unmodifiableList(ids);
+            this.batched = batched;
+            this.error = error;
+        }
+
+        /**
+         * Gets the error with which the request failed.
+         *
+         * @return The error.
+         */
+        @NonNull
+        public Throwable getError() {
+            return this.error;
+        }
+
+        /**
+         * Gets the IDs of the users whose rows may not have been written.
+         *
+         * @return The user IDs.
+         */
+        @NonNull
+        public List<String> getIds() {
+            return this.ids;
+        }
+
+        /**
+         * Gets a value indicating whether the failed request was a batch.
+         *
+         * @return {@code true} if the request was a batch; {@code false} if it was a single write.
+         */
+        public boolean isBatched() {
+            return this.batched;
+        }
+
+        @Override
+        public String toString() {
+            return (this.batched ? "batch of " + this.ids.size() : "single write of " + this.ids.get(0))
+                + " failed: " + this.error;
+        }
+    }
+
+    /**
+     * The counts, latencies, and failures of a bulk insert.
+     */
+    public static final class Result {
+
+        private final boolean finished;
+        private final long elapsedNanos;
+        private final long batchCount;
+        private final long singleCount;
+        private final long rowCount;
+        private final long failedRowCount;
+        private final Histogram batchHistogram;
+        private final Histogram singleHistogram;
+        private final List<Failure> failures;
+
+        Result(
+            final boolean finished,
+            final long elapsedNanos,
+            final long batchCount,
+            final long singleCount,
+            final long rowCount,
+            final long failedRowCount,
+            final Histogram batchHistogram,
+            final Histogram singleHistogram,
+            final List<Failure> failures) {
+
+            this.finished = finished;
+            this.elapsedNanos = elapsedNanos;
+            this.batchCount = batchCount;
+            this.singleCount = singleCount;
+            this.rowCount = rowCount;
+            this.failedRowCount = failedRowCount;
+            this.batchHistogram = batchHistogram;
+            this.singleHistogram = singleHistogram;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        /**
+         * Gets the number of batches sent.
+         *
+         * @return The batch count.
+         */
+        public long getBatchCount() {
+            return this.batchCount;
+        }
+
+        /**
+         * Gets the latencies of the batches sent.
+         *
+         * @return A histogram of batch latencies in nanoseconds.
+         */
+        @NonNull
+        public Histogram getBatchHistogram() {
+            return this.batchHistogram;
+        }
+
+        /**
+         * Gets the time from the start of the insert until its last request completed.
+         *
+         * @return The elapsed time in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return this.elapsedNanos;
+        }
+
+        /**
+         * Gets the number of rows in failed requests.
+         *
+         * @return The failed row count.
+         */
+        public long getFailedRowCount() {
+            return this.failedRowCount;
+        }
+
+        /**
+         * Gets the failed batches and single writes.
+         *
+         * @return The failures in the order in which they completed.
+         */
+        @NonNull
+        public List<Failure> getFailures() {
+            return this.failures;
+        }
+
+        /**
+         * Gets the number of rows sent, whether or not they were written.
+         *
+         * @return The row count.
+         */
+        public long getRowCount() {
+            return this.rowCount;
+        }
+
+        /**
+         * Gets the number of rows written one at a time.
+         *
+         * @return The single write count.
+         */
+        public long getSingleCount() {
+            return this.singleCount;
+        }
+
+        /**
+         * Gets the latencies of the single writes.
+         *
+         * @return A histogram of single write latencies in nanoseconds.
+         */
+        @NonNull
+        public Histogram getSingleHistogram() {
+            return this.singleHistogram;
+        }
+
+        /**
+         * Gets the rate at which rows were written, counting only those that did not fail.
+         *
+         * @return The throughput in rows per second.
+         */
+        public double getThroughput() {
+            return this.elapsedNanos == 0 ? 0.0 : (this.rowCount - this.failedRowCount) * 1E9 / this.elapsedNanos;
+        }
+
+        /**
+         * Gets a value indicating whether every request completed within the timeout.
+         *
+         * @return {@code true} if the insert finished; otherwise {@code false}.
+         */
+        public boolean isFinished() {
+            return this.finished;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d rows in %d batches and %d single writes, %d rows failed, "
+                    + "%.1f rows/sec%s; batch latency %s; single write latency %s",
+                this.rowCount,
+                this.batchCount,
+                this.singleCount,
+                this.failedRowCount,
+                this.getThroughput(),
+                this.finished ? "" : " (timed out)",
+                LatencyRecorder.summarize(this.batchHistogram),
+                LatencyRecorder.summarize(this.singleHistogram));
+        }
+    }
+
+    /**
+     * The rows of one replica set waiting to be sent.
+     */
+    private static final class Group {
+
+        List<UserRow> rows = new ArrayList<>();
+        int byteCount = 0;
+
+        void add(final UserRow row) {
+            this.rows.add(row);
+            this.byteCount += row.getSizeEstimate();
+        }
+
+        List<UserRow> drain() {
+            final List<UserRow> drained = this.rows;
+            this.rows = new ArrayList<>();
+            this.byteCount = 0;
+            return drained;
+        }
+    }
+
+    /**
+     * The state of one call to {@link #insert}: the request window, counters, latencies, and failures.
+     */
+    private final class Run {
+
+        private final Listener listener;
+        private final long deadline;
+        private final long startTime = System.nanoTime();
+        private final Semaphore permits = new Semaphore(BulkInserter.this.maxInFlight);
+        private final AtomicLong batchCount = new AtomicLong();
+        private final AtomicLong singleCount = new AtomicLong();
+        private final AtomicLong rowCount = new AtomicLong();
+        private final AtomicLong failedRowCount = new AtomicLong();
+        private final LatencyRecorder batchLatency = new LatencyRecorder("batch");
+        private final LatencyRecorder singleLatency = new LatencyRecorder("single");
+        private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean timedOut = new AtomicBoolean();
+
+        Run(final Listener listener, final long deadline) {
+            this.listener = listener;
+            this.deadline = deadline;
+        }
+
+        Result await() throws InterruptedException {
+
+            final int maxInFlight = BulkInserter.this.maxInFlight;
+            final boolean drained = this.permits.tryAcquire(maxInFlight, this.deadline - System.nanoTime(),
+                TimeUnit.NANOSECONDS);
+
+            if (drained) {
+                this.permits.release(maxInFlight);
+            } else {
+                LOGGER.warn("Timed out waiting for {} bulk insert requests", maxInFlight - this.permits
+                    .availablePermits());
+            }
+
+            return new Result(
+                drained && !this.timedOut.get(),
+                System.nanoTime() - this.startTime,
+                this.batchCount.get(),
+                this.singleCount.get(),
+                this.rowCount.get(),
+                this.failedRowCount.get(),
+                this.batchLatency.getTotalHistogram(),
+                this.singleLatency.getTotalHistogram(),
+                new ArrayList<>(this.failures));
+        }
+
+        void send(final List<UserRow> rows) throws InterruptedException {
+            if (rows.size() >= BulkInserter.this.minBatchSize) {
+                this.issue(rows, true);
+            } else {
+                for (final UserRow row : rows) {
+                    this.issue(Collections.singletonList(row), false);
+                }
+            }
+        }
+
+        void issue(final List<UserRow> rows, final boolean batched) throws InterruptedException {
+
+            final boolean admitted = this.permits.tryAcquire(this.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+            this.rowCount.addAndGet(rows.size());
+            (batched ? this.batchCount : this.singleCount).incrementAndGet();
+
+            final long startNanos = System.nanoTime();
+            CompletionStage<?> request;
+
+            if (!admitted) {
+                if (this.timedOut.compareAndSet(false, true)) {
+                    LOGGER.warn("Timed out waiting to issue bulk insert requests; failing the remaining rows");
+                }
+                request = failed(new TimeoutException("no bulk insert request completed within the timeout"));
+            } else {
+                try {
+                    if (batched) {
+                        request = BulkInserter.this.repository.insertUsersAsync(rows);
+                    } else {
+                        final UserRow row = rows.get(0);
+                        request = BulkInserter.this.repository.insertUserAsync(row.getId(), row.getName(),
+                            row.getCity(), row.getPayload());
+                    }
+                } catch (final RuntimeException error) {
+                    request = failed(error);
+                }
+            }
+
+            request.whenComplete((result, error) -> {
+                try {
+                    if (admitted) {
+                        (batched ? this.batchLatency : this.singleLatency).recordSince(startNanos);
+                    }
+                    if (error != null) {
+                        final List<String> ids = new ArrayList<>(rows.size());
+                        for (final UserRow row : rows) {
+                            ids.add(row.getId());
+                        }
+                        this.failedRowCount.addAndGet(rows.size());
+                        this.failures.add(new Failure(ids, batched, error));
+                        LOGGER.debug("Bulk insert request failed", error);
+                    }
+                    this.listener.onComplete(rows, batched, startNanos, error);
+                } finally {
+                    if (admitted) {
+                        this.permits.release();
+                    }
+                }
+            });
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,606 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.Sampling;
+import com.codahale.metrics.Snapshot;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metrics.DefaultNodeMetric;
+import com.datastax.oss.driver.api.core.metrics.DefaultSessionMetric;
+import com.datastax.oss.driver.api.core.metrics.Metrics;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Reads the driver's session and node metrics and aggregates the node metrics by datacenter.
+ * <p>
+ * Each region of a Cosmos Cassandra API account is presented to the driver as a datacenter named after the region, so
+ * the per-datacenter figures show how much of the load, latency, and retrying came from each region--for example,
+ * whether reads went to the region chosen by {@code preferred-regions}. The metrics must be enabled under {@code
+ * datastax-java-driver.advanced.metrics} as they are in {@code application.conf}, and the driver's default Dropwizard
+ * metrics factory must be in use. Otherwise {@link #snapshot} returns an empty snapshot.
+ * <p>
+ * Latencies are read from the driver's timers, which cover a recent window rather than the whole run. When a region
+ * has more than one node its mean latency is weighted by the number of samples in each node's window and its p99
+ * latency is that of its slowest node. A Cosmos region is usually served by a single endpoint, so both are exact in
+ * practice.
+ */
+public final class DriverMetrics {
+
+    private static final double NANOS_PER_MILLI = 1E6;
+    private static final double NANOS_PER_SECOND = 1E9;
+    private static final String PROMETHEUS_PREFIX = "azure_cosmos_cassandra_";
+
+    private final CqlSession session;
+
+    /**
+     * Initializes a new driver metrics reader.
+     *
+     * @param session The session whose metrics are read.
+     */
+    public DriverMetrics(@NonNull final CqlSession session) {
+        this.session = session;
+    }
+
+    // region Methods
+
+    /**
+     * Gets the name of the session whose metrics are read, e.g., {@code s0}.
+     *
+     * @return The session name.
+     */
+    @NonNull
+    public String getSessionName() {
+        return this.session.getName();
+    }
+
+    /**
+     * Gets a value indicating whether the session exposes metrics.
+     *
+     * @return {@code true} if the session's metrics can be read; otherwise {@code false}.
+     */
+    public boolean isEnabled() {
+        return this.session.getMetrics().isPresent();
+    }
+
+    /**
+     * Reads the current value of the session's metrics, aggregating node metrics by datacenter.
+     *
+     * @return A snapshot of the session's metrics, which is empty if the session does not expose metrics.
+     */
+    @NonNull
+    public MetricsSnapshot snapshot() {
+
+        final Optional<Metrics> optional = this.session.getMetrics();
+
+        if (!optional.isPresent()) {
+            return new MetricsSnapshot(null, Collections.emptyList());
+        }
+
+        final Metrics metrics = optional.get();
+        final Map<String, List<Node>> datacenters = new TreeMap<>();
+
+        for (final Node node : this.session.getMetadata().getNodes().values()) {
+            final String datacenter = node.getDatacenter() == null ? "unknown" : node.getDatacenter();
+            datacenters.computeIfAbsent(datacenter, name -> new ArrayList<>()).add(node);
+        }
+
+        final List<RegionMetrics> regions = new ArrayList<>(datacenters.size());
+
+        for (final Map.Entry<String, List<Node>> datacenter : datacenters.entrySet()) {
+            regions.add(new RegionMetrics(datacenter.getKey(), datacenter.getValue(), metrics));
+        }
+
+        return new MetricsSnapshot(metrics, regions);
+    }
+
+    @Override
+    public String toString() {
+        return "DriverMetrics(session=" + this.session.getName() + ", enabled=" + this.isEnabled() + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static long count(final Optional<Metric> metric) {
+        return metric.isPresent() && metric.get() instanceof Counting ? ((Counting) metric.get()).getCount() : 0L;
+    }
+
+    private static long gauge(final Optional<Metric> metric) {
+        if (metric.isPresent() && metric.get() instanceof Gauge) {
+            final Object value = ((Gauge<?>) metric.get()).getValue();
+            return value instanceof Number ? ((Number) value).longValue() : 0L;
+        }
+        return 0L;
+    }
+
+    private static Snapshot sample(final Optional<Metric> metric) {
+        return metric.isPresent() && metric.get() instanceof Sampling ? ((Sampling) metric.get()).getSnapshot() : null;
+    }
+
+    private static String toPrometheusLabel(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String toSummaryKey(final String datacenter) {
+        return datacenter.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-");
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * The driver metrics of a single datacenter, which Cosmos presents for each region of an account.
+     */
+    public static final class RegionMetrics {
+
+        private final String datacenter;
+        private final int nodeCount;
+        private final long requestCount;
+        private final double meanLatencyNanos;
+        private final double p99LatencyNanos;
+        private final long inFlight;
+        private final long openConnections;
+        private final long retryCount;
+        private final long errorCount;
+
+        private RegionMetrics(final String datacenter, final List<Node> nodes, final Metrics metrics) {
+
+            long requests = 0L;
+            long samples = 0L;
+            double weightedMean = 0.0;
+            double p99 = 0.0;
+            long inFlight = 0L;
+            long openConnections = 0L;
+            long retries = 0L;
+            long errors = 0L;
+
+            for (final Node node : nodes) {
+
+                final Optional<Metric> messages = metrics.getNodeMetric(node, DefaultNodeMetric.CQL_MESSAGES);
+                final Snapshot snapshot = sample(messages);
+
+                requests += count(messages);
+
+                if (snapshot != null && snapshot.size() > 0) {
+                    samples += snapshot.size();
+                    weightedMean += snapshot.getMean() * snapshot.size();
+                    p99 = Math.max(p99, snapshot.get99thPercentile());
+                }
+
+                inFlight += gauge(metrics.getNodeMetric(node, DefaultNodeMetric.IN_FLIGHT));
+                openConnections += gauge(metrics.getNodeMetric(node, DefaultNodeMetric.OPEN_CONNECTIONS));
+                retries += count(metrics.getNodeMetric(node, DefaultNodeMetric.RETRIES));
+                errors += count(metrics.getNodeMetric(node, DefaultNodeMetric.UNSENT_REQUESTS))
+                    + count(metrics.getNodeMetric(node, DefaultNodeMetric.ABORTED_REQUESTS))
+                    + count(metrics.getNodeMetric(node, DefaultNodeMetric.WRITE_TIMEOUTS))
+                    + count(metrics.getNodeMetric(node, DefaultNodeMetric.READ_TIMEOUTS))
+                    + count(metrics.getNodeMetric(node, DefaultNodeMetric.UNAVAILABLES))
+                    + count(metrics.getNodeMetric(node, DefaultNodeMetric.OTHER_ERRORS));
+            }
+
+            this.datacenter = datacenter;
+            this.nodeCount = nodes.size();
+            this.requestCount = requests;
+            this.meanLatencyNanos = samples == 0L ? 0.0 : weightedMean / samples;
+            this.p99LatencyNanos = p99;
+            this.inFlight = inFlight;
+            this.openConnections = openConnections;
+            this.retryCount = retries;
+            this.errorCount = errors;
+        }
+
+        /**
+         * Gets the name of this datacenter, which is the name of a Cosmos region.
+         *
+         * @return The datacenter name.
+         */
+        @NonNull
+        public String getDatacenter() {
+            return this.datacenter;
+        }
+
+        /**
+         * Gets the number of requests that failed in this datacenter with an error, including rate limiting (429)
+         * errors, which the driver counts as {@code errors.request.others}.
+         *
+         * @return The number of failed requests.
+         */
+        public long getErrorCount() {
+            return this.errorCount;
+        }
+
+        /**
+         * Gets the number of requests now in flight to this datacenter.
+         *
+         * @return The number of in-flight requests.
+         */
+        public long getInFlight() {
+            return this.inFlight;
+        }
+
+        /**
+         * Gets the mean latency of recent requests to this datacenter.
+         *
+         * @return The mean latency in milliseconds.
+         */
+        public double getMeanLatencyMillis() {
+            return this.meanLatencyNanos / NANOS_PER_MILLI;
+        }
+
+        /**
+         * Gets the number of nodes in this datacenter.
+         *
+         * @return The number of nodes.
+         */
+        public int getNodeCount() {
+            return this.nodeCount;
+        }
+
+        /**
+         * Gets the number of connections open to this datacenter.
+         *
+         * @return The number of open connections.
+         */
+        public long getOpenConnections() {
+            return this.openConnections;
+        }
+
+        /**
+         * Gets the 99th percentile latency of recent requests to this datacenter.
+         *
+         * @return The p99 latency in milliseconds.
+         */
+        public double getP99LatencyMillis() {
+            return this.p99LatencyNanos / NANOS_PER_MILLI;
+        }
+
+        /**
+         * Gets the number of requests sent to this datacenter, including retries.
+         *
+         * @return The number of requests.
+         */
+        public long getRequestCount() {
+            return this.requestCount;
+        }
+
+        /**
+         * Gets the number of requests the retry policy retried after an error in this datacenter.
+         *
+         * @return The number of retries.
+         */
+        public long getRetryCount() {
+            return this.retryCount;
+        }
+
+        /**
+         * Gets the metrics of this datacenter by name, in a form suitable for a summary or a management bean.
+         *
+         * @return An ordered map from metric name, e.g., {@code p99-latency-ms}, to value.
+         */
+        @NonNull
+        public Map<String, Object> toMap() {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("nodes", this.nodeCount);
+            map.put("requests", this.requestCount);
+            map.put("mean-latency-ms", this.getMeanLatencyMillis());
+            map.put("p99-latency-ms", this.getP99LatencyMillis());
+            map.put("in-flight", this.inFlight);
+            map.put("open-connections", this.openConnections);
+            map.put("retries", this.retryCount);
+            map.put("errors", this.errorCount);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: %d node(s), %d requests, mean %.2f ms, p99 %.2f ms, %d in flight, "
+                    + "%d open connection(s), %d retries, %d errors",
+                this.datacenter,
+                this.nodeCount,
+                this.requestCount,
+                this.getMeanLatencyMillis(),
+                this.getP99LatencyMillis(),
+                this.inFlight,
+                this.openConnections,
+                this.retryCount,
+                this.errorCount);
+        }
+    }
+
+    /**
+     * The value of a session's metrics at a point in time.
+     */
+    public static final class MetricsSnapshot {
+
+        private final boolean enabled;
+        private final long requestCount;
+        private final double meanLatencyNanos;
+        private final double p50LatencyNanos;
+        private final double p99LatencyNanos;
+        private final double maxLatencyNanos;
+        private final long clientTimeoutCount;
+        private final long throttlingErrorCount;
+        private final long throttlingQueueSize;
+        private final long connectedNodes;
+        private final List<RegionMetrics> regions;
+
+        private MetricsSnapshot(final Metrics metrics, final List<RegionMetrics> regions) {
+
+            this.enabled = metrics != null;
+            this.regions = Collections.unmodifiableList(regions);
+
+            if (metrics == null) {
+                this.requestCount = 0L;
+                this.meanLatencyNanos = 0.0;
+                this.p50LatencyNanos = 0.0;
+                this.p99LatencyNanos = 0.0;
+                this.maxLatencyNanos = 0.0;
+                this.clientTimeoutCount = 0L;
+                this.throttlingErrorCount = 0L;
+                this.throttlingQueueSize = 0L;
+                this.connectedNodes = 0L;
+                return;
+            }
+
+            final Optional<Metric> requests = metrics.getSessionMetric(DefaultSessionMetric.CQL_REQUESTS);
+            final Snapshot snapshot = sample(requests);
+            final boolean sampled = snapshot != null && snapshot.size() > 0;
+
+            this.requestCount = count(requests);
+            this.meanLatencyNanos = sampled ? snapshot.getMean() : 0.0;
+            this.p50LatencyNanos = sampled ? snapshot.getMedian() : 0.0;
+            this.p99LatencyNanos = sampled ? snapshot.get99thPercentile() : 0.0;
+            this.maxLatencyNanos = sampled ? snapshot.getMax() : 0.0;
+            this.clientTimeoutCount = count(metrics.getSessionMetric(DefaultSessionMetric.CQL_CLIENT_TIMEOUTS));
+            this.throttlingErrorCount = count(metrics.getSessionMetric(DefaultSessionMetric.THROTTLING_ERRORS));
+            this.throttlingQueueSize = gauge(metrics.getSessionMetric(DefaultSessionMetric.THROTTLING_QUEUE_SIZE));
+            this.connectedNodes = gauge(metrics.getSessionMetric(DefaultSessionMetric.CONNECTED_NODES));
+        }
+
+        /**
+         * Gets the number of requests that timed out on the client before a response was received.
+         *
+         * @return The number of client timeouts.
+         */
+        public long getClientTimeoutCount() {
+            return this.clientTimeoutCount;
+        }
+
+        /**
+         * Gets the 99th percentile latency of recent requests, including any retries and speculative executions.
+         *
+         * @return The p99 latency in milliseconds.
+         */
+        public double getP99LatencyMillis() {
+            return this.p99LatencyNanos / NANOS_PER_MILLI;
+        }
+
+        /**
+         * Gets the metrics of a datacenter.
+         *
+         * @param datacenter The name of a datacenter.
+         *
+         * @return The metrics of {@code datacenter} or {@code null}, if the session has no nodes in it.
+         */
+        public RegionMetrics getRegion(@NonNull final String datacenter) {
+            for (final RegionMetrics region : this.regions) {
+                if (region.getDatacenter().equals(datacenter)) {
+                    return region;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Gets the metrics of each datacenter.
+         *
+         * @return An unmodifiable list of datacenter metrics, ordered by datacenter name.
+         */
+        @NonNull
+        public List<RegionMetrics> getRegions() {
+            return this.regions;
+        }
+
+        /**
+         * Gets the number of requests executed by the session. A request retried or executed speculatively is counted
+         * once.
+         *
+         * @return The number of requests.
+         */
+        public long getRequestCount() {
+            return this.requestCount;
+        }
+
+        /**
+         * Gets the number of requests rejected by the session's request throttler.
+         *
+         * @return The number of throttling errors.
+         */
+        public long getThrottlingErrorCount() {
+            return this.throttlingErrorCount;
+        }
+
+        /**
+         * Gets a value indicating whether the session exposed metrics when this snapshot was taken.
+         *
+         * @return {@code true} if this snapshot holds metrics; otherwise {@code false}.
+         */
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        /**
+         * Adds the session and datacenter metrics of this snapshot to a summary.
+         *
+         * @param summary A summary to which entries named {@code driver-<metric>} and {@code
+         *                driver-<datacenter>-<metric>} are added, e.g., {@code driver-uk-south-p99-latency-ms}.
+         */
+        public void putSummary(@NonNull final Map<String, Object> summary) {
+            for (final Map.Entry<String, Object> entry : this.toMap().entrySet()) {
+                summary.put("driver-" + entry.getKey(), entry.getValue());
+            }
+            for (final RegionMetrics region : this.regions) {
+                final String prefix = "driver-" + toSummaryKey(region.getDatacenter()) + "-";
+                for (final Map.Entry<String, Object> entry : region.toMap().entrySet()) {
+                    summary.put(prefix + entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        /**
+         * Gets the session-level metrics of this snapshot by name, in a form suitable for a summary or a management
+         * bean.
+         *
+         * @return An ordered map from metric name, e.g., {@code p99-latency-ms}, to value.
+         */
+        @NonNull
+        public Map<String, Object> toMap() {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("requests", this.requestCount);
+            map.put("mean-latency-ms", this.meanLatencyNanos / NANOS_PER_MILLI);
+            map.put("p50-latency-ms", this.p50LatencyNanos / NANOS_PER_MILLI);
+            map.put("p99-latency-ms", this.p99LatencyNanos / NANOS_PER_MILLI);
+            map.put("max-latency-ms", this.maxLatencyNanos / NANOS_PER_MILLI);
+            map.put("client-timeouts", this.clientTimeoutCount);
+            map.put("throttling-errors", this.throttlingErrorCount);
+            map.put("throttling-queue-size", this.throttlingQueueSize);
+            map.put("connected-nodes", this.connectedNodes);
+            return map;
+        }
+
+        /**
+         * Formats this snapshot in the Prometheus text exposition format.
+         *
+         * @return Session metrics followed by datacenter metrics labeled with {@code datacenter}. Counters are suffixed
+         * with {@code _total} and latencies are given in seconds.
+         */
+        @NonNull
+        public String toPrometheus() {
+
+            final StringBuilder text = new StringBuilder();
+
+            appendSession(text, "requests_total", "counter", "Requests executed by the session.",
+                this.requestCount);
+            appendSession(text, "request_latency_mean_seconds", "gauge", "Mean latency of recent requests.",
+                this.meanLatencyNanos / NANOS_PER_SECOND);
+            appendSession(text, "request_latency_p50_seconds", "gauge", "Median latency of recent requests.",
+                this.p50LatencyNanos / NANOS_PER_SECOND);
+            appendSession(text, "request_latency_p99_seconds", "gauge", "99th percentile latency of recent requests.",
+                this.p99LatencyNanos / NANOS_PER_SECOND);
+            appendSession(text, "request_latency_max_seconds", "gauge", "Maximum latency of recent requests.",
+                this.maxLatencyNanos / NANOS_PER_SECOND);
+            appendSession(text, "client_timeouts_total", "counter", "Requests that timed out on the client.",
+                this.clientTimeoutCount);
+            appendSession(text, "throttling_errors_total", "counter", "Requests rejected by the request throttler.",
+                this.throttlingErrorCount);
+            appendSession(text, "throttling_queue_size", "gauge", "Requests queued by the request throttler.",
+                this.throttlingQueueSize);
+            appendSession(text, "connected_nodes", "gauge", "Nodes to which the session is connected.",
+                this.connectedNodes);
+
+            this.appendRegion(text, "nodes", "gauge", "Nodes in the datacenter.",
+                RegionMetrics::getNodeCount);
+            this.appendRegion(text, "requests_total", "counter", "Requests sent to the datacenter, including retries.",
+                RegionMetrics::getRequestCount);
+            this.appendRegion(text, "request_latency_mean_seconds", "gauge", "Mean latency of recent requests.",
+                region -> region.meanLatencyNanos / NANOS_PER_SECOND);
+            this.appendRegion(text, "request_latency_p99_seconds", "gauge", "99th percentile latency of recent "
+                + "requests.", region -> region.p99LatencyNanos / NANOS_PER_SECOND);
+            this.appendRegion(text, "in_flight_requests", "gauge", "Requests in flight to the datacenter.",
+                RegionMetrics::getInFlight);
+            this.appendRegion(text, "open_connections", "gauge", "Connections open to the datacenter.",
+                RegionMetrics::getOpenConnections);
+            this.appendRegion(text, "retries_total", "counter", "Requests retried after an error.",
+                RegionMetrics::getRetryCount);
+            this.appendRegion(text, "errors_total", "counter", "Requests that failed with an error, including rate "
+                + "limiting.", RegionMetrics::getErrorCount);
+
+            return text.toString();
+        }
+
+        @Override
+        public String toString() {
+            if (!this.enabled) {
+                return "driver metrics are disabled";
+            }
+            return String.format(Locale.ROOT, "%d requests, mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms, "
+                    + "%d client timeouts, %d throttling errors",
+                this.requestCount,
+                this.meanLatencyNanos / NANOS_PER_MILLI,
+                this.p50LatencyNanos / NANOS_PER_MILLI,
+                this.p99LatencyNanos / NANOS_PER_MILLI,
+                this.maxLatencyNanos / NANOS_PER_MILLI,
+                this.clientTimeoutCount,
+                this.throttlingErrorCount);
+        }
+
+        private static void appendHeader(
+            final StringBuilder text,
+            final String name,
+            final String type,
+            final String help) {
+
+            text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+
+        private static void appendSession(
+            final StringBuilder text,
+            final String name,
+            final String type,
+            final String help,
+            final double value) {
+
+            final String qualifiedName = PROMETHEUS_PREFIX + "session_" + name;
+            appendHeader(text, qualifiedName, type, help);
+            text.append(qualifiedName).append(' ').append(formatValue(value)).append('\n');
+        }
+
+        private void appendRegion(
+            final StringBuilder text,
+            final String name,
+            final String type,
+            final String help,
+            final ToDoubleFunction<RegionMetrics> value) {
+
+            if (this.regions.isEmpty()) {
+                return;
+            }
+
+            final String qualifiedName = PROMETHEUS_PREFIX + "datacenter_" + name;
+            appendHeader(text, qualifiedName, type, help);
+
+            for (final RegionMetrics region : this.regions) {
+                text.append(qualifiedName)
+                    .append("{datacenter=\"").append(toPrometheusLabel(region.getDatacenter())).append("\"} ")
+                    .append(formatValue(value.applyAsDouble(region)))
+                    .append('\n');
+            }
+        }
+
+        private static String formatValue(final double value) {
+            return value == Math.rint(value) && Math.abs(value) < 1E15
+                ? Long.toString((long) value)
+                : Double.toString(value);
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,298 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.DriverMetrics.MetricsSnapshot;
+import com.azure.cosmos.cassandra.example.DriverMetrics.RegionMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Exposes {@link DriverMetrics driver metrics} over JMX and, optionally, as a Prometheus-format text endpoint.
+ * <p>
+ * A management bean named {@code com.azure.cosmos.cassandra.example:type=DriverMetrics,session=<session>,scope=session}
+ * exposes the session's metrics and one named {@code ...,scope=datacenter,datacenter="<datacenter>"} exposes the
+ * metrics of each datacenter known when the exporter is started. Attribute values are read from the driver each time
+ * they are requested. The text endpoint is a JDK {@link HttpServer} that serves {@link MetricsSnapshot#toPrometheus} at
+ * {@code /metrics}, one scrape at a time, on the server's dispatcher thread.
+ */
+public final class DriverMetricsExporter implements AutoCloseable {
+
+    private static final String DOMAIN = "com.azure.cosmos.cassandra.example";
+    private static final Logger LOGGER = LoggerFactory.getLogger(DriverMetricsExporter.class);
+
+    private final DriverMetrics metrics;
+    private final List<ObjectName> names = new ArrayList<>();
+    private HttpServer server;
+
+    private DriverMetricsExporter(final DriverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // region Methods
+
+    /**
+     * Stops serving metrics and unregisters the exporter's management beans.
+     */
+    @Override
+    public synchronized void close() {
+
+        if (this.server != null) {
+            this.server.stop(0);
+            this.server = null;
+        }
+
+        final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        for (final ObjectName name : this.names) {
+            try {
+                mbeanServer.unregisterMBean(name);
+            } catch (final JMException error) {
+                LOGGER.warn("Could not unregister {}", name, error);
+            }
+        }
+
+        this.names.clear();
+    }
+
+    /**
+     * Gets the address on which metrics are served in Prometheus text format.
+     *
+     * @return The address of the metrics endpoint or {@code null}, if metrics are not served.
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return this.server == null ? null : this.server.getAddress();
+    }
+
+    /**
+     * Gets the names of the management beans registered by this exporter.
+     *
+     * @return An unmodifiable list of object names.
+     */
+    @NonNull
+    public synchronized List<ObjectName> getObjectNames() {
+        return Collections.unmodifiableList(new ArrayList<>(this.names));
+    }
+
+    /**
+     * Starts exporting driver metrics.
+     *
+     * @param metrics The driver metrics to export.
+     * @param address The address on which metrics should be served in Prometheus text format or {@code null}, if they
+     *                should be exposed over JMX only. A port of zero selects an ephemeral port.
+     *
+     * @return A new exporter, which should be closed when the session is closed.
+     *
+     * @throws IOException If the metrics endpoint cannot be bound to {@code address}.
+     */
+    @NonNull
+    public static DriverMetricsExporter start(@NonNull final DriverMetrics metrics, final InetSocketAddress address)
+        throws IOException {
+
+        final DriverMetricsExporter exporter = new DriverMetricsExporter(metrics);
+
+        try {
+            exporter.register(metrics.snapshot());
+            if (address != null) {
+                exporter.serve(address);
+            }
+        } catch (final IOException | RuntimeException error) {
+            exporter.close();
+            throw error;
+        }
+
+        return exporter;
+    }
+
+    @Override
+    public String toString() {
+        return "DriverMetricsExporter(session=" + this.metrics.getSessionName()
+            + ", mbeans=" + this.names.size()
+            + ", address=" + this.getAddress() + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private synchronized void register(final MetricsSnapshot snapshot) {
+
+        final String session = ObjectName.quote(this.metrics.getSessionName());
+
+        this.register(DOMAIN + ":type=DriverMetrics,session=" + session + ",scope=session",
+            () -> this.metrics.snapshot().toMap());
+
+        for (final RegionMetrics region : snapshot.getRegions()) {
+            final String datacenter = region.getDatacenter();
+            this.register(DOMAIN + ":type=DriverMetrics,session=" + session + ",scope=datacenter,datacenter="
+                + ObjectName.quote(datacenter), () -> {
+                    final RegionMetrics current = this.metrics.snapshot().getRegion(datacenter);
+                    return current == null ? Collections.emptyMap() : current.toMap();
+                });
+        }
+    }
+
+    private void register(final String name, final Supplier<Map<String, Object>> attributes) {
+        try {
+            final ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(attributes), objectName);
+            this.names.add(objectName);
+        } catch (final JMException error) {
+            throw new IllegalStateException("Could not register " + name, error);
+        }
+    }
+
+    private synchronized void serve(final InetSocketAddress address) throws IOException {
+
+        final HttpServer server = HttpServer.create(address, 0);
+
+        server.createContext("/metrics", this::respond);
+        server.start();
+
+        this.server = server;
+        LOGGER.info("Serving driver metrics at http://{}:{}/metrics", address.getHostString(),
+            server.getAddress().getPort());
+    }
+
+    private void respond(final HttpExchange exchange) throws IOException {
+
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            // The context matches any path that starts with /metrics, such as /metricsz
+
+            if (!"/metrics".equals(exchange.getRequestURI().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            final byte[] body = this.metrics.snapshot().toPrometheus().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream stream = exchange.getResponseBody()) {
+                stream.write(body);
+            }
+        } catch (final IOException | RuntimeException error) {
+            LOGGER.debug("Driver metrics request failed", error);
+            throw error;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * A read-only management bean whose attributes are the entries of a map computed each time they are read.
+     * <p>
+     * The attributes are fixed when the bean is created. An attribute missing from a later map--as when a datacenter
+     * has no nodes left--reads as {@code null}.
+     */
+    private static final class MetricsMBean implements DynamicMBean {
+
+        private final Supplier<Map<String, Object>> attributes;
+        private final MBeanInfo info;
+
+        MetricsMBean(final Supplier<Map<String, Object>> attributes) {
+
+            final Map<String, Object> initial = attributes.get();
+            final List<MBeanAttributeInfo> infos = new ArrayList<>(initial.size());
+
+            for (final Map.Entry<String, Object> entry : initial.entrySet()) {
+                infos.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                    entry.getKey(), true, false, false));
+            }
+
+            this.attributes = attributes;
+            this.info = new MBeanInfo(DriverMetrics.class.getName(), "Driver metrics",
+                infos.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+
+        @Override
+        public Object getAttribute(final String attribute) throws AttributeNotFoundException {
+            final Map<String, Object> values = this.attributes.get();
+            if (!values.containsKey(attribute) && !this.isAttribute(attribute)) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return values.get(attribute);
+        }
+
+        @Override
+        public AttributeList getAttributes(final String[] attributes) {
+            final Map<String, Object> values = this.attributes.get();
+            final AttributeList list = new AttributeList();
+            for (final String attribute : attributes) {
+                if (values.containsKey(attribute)) {
+                    list.add(new Attribute(attribute, values.get(attribute)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            return this.info;
+        }
+
+        @Override
+        public Object invoke(final String actionName, final Object[] params, final String[] signature)
+            throws ReflectionException {
+
+            throw new ReflectionException(new NoSuchMethodException(actionName), "Driver metrics have no operations");
+        }
+
+        @Override
+        public void setAttribute(final Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Driver metrics are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(final AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        private boolean isAttribute(final String name) {
+            for (final MBeanAttributeInfo attribute : this.info.getAttributes()) {
+                if (attribute.getName().equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,238 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * Java Flight Recorder events for repository requests and load test phases.
+ * <p>
+ * This class requires Java 11 and is compiled only by the {@code java-lts} profile. It is loaded reflectively by
+ * {@link RequestEvents}, through which the rest of this code, which compiles for Java 8, emits its events.
+ */
+final class FlightRecorderSink implements RequestEvents.Sink {
+
+    private static final String REQUEST_EVENT_NAME = "com.azure.cosmos.cassandra.example.Request";
+    private static final String PHASE_EVENT_NAME = "com.azure.cosmos.cassandra.example.LoadTestPhase";
+
+    // Whether an event is enabled is a property of its type, and so any one instance can tell without allocating
+
+    private static final RequestEvent REQUEST_PROBE = new RequestEvent();
+
+    /**
+     * Initializes a new sink.
+     *
+     * @throws IllegalStateException If the flight recorder is not available in the running JVM.
+     */
+    FlightRecorderSink() {
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("the flight recorder is not available");
+        }
+    }
+
+    // region Methods
+
+    @Override
+    public Object beginPhase(@NonNull final String name) {
+
+        final PhaseEvent event = new PhaseEvent();
+
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.phase = name;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Object beginRequest() {
+
+        if (!REQUEST_PROBE.isEnabled()) {
+            return null;
+        }
+
+        final RequestEvent event = new RequestEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endPhase(@NonNull final Object event) {
+        ((PhaseEvent) event).commit();
+    }
+
+    @Override
+    public void endRequest(@NonNull final RequestEvents.Trace trace) {
+
+        final RequestEvent event = (RequestEvent) trace.getEvent();
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.operation = trace.getOperation();
+            event.statement = trace.getStatement();
+            event.statementCount = trace.getStatementCount();
+            event.node = trace.getNode();
+            event.datacenter = trace.getDatacenter();
+            event.retryCount = trace.getRetryCount();
+            event.speculativeExecutionCount = trace.getSpeculativeExecutionCount();
+            event.queueTime = trace.getQueueNanos();
+            event.bindTime = trace.getBindNanos();
+            event.executionTime = trace.getExecutionNanos();
+            event.error = trace.getError();
+            event.commit();
+        }
+    }
+
+    @Override
+    public boolean isRequestEnabled() {
+        return REQUEST_PROBE.isEnabled();
+    }
+
+    @Override
+    @NonNull
+    public RequestEvents.Recording startRecording(@NonNull final String name) throws IOException {
+
+        final Recording recording;
+
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (final ParseException error) {
+            throw new IOException("could not parse the default flight recorder settings", error);
+        }
+
+        recording.setName(name);
+        recording.enable(RequestEvent.class).withoutStackTrace().withoutThreshold();
+        recording.enable(PhaseEvent.class).withoutStackTrace().withoutThreshold();
+        recording.start();
+
+        return file -> {
+            try {
+                recording.stop();
+                recording.dump(file);
+            } finally {
+                recording.close();
+            }
+            return summarize(file);
+        };
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static RequestEvents.Summary summarize(final Path file) throws IOException {
+
+        final RequestEvents.Summary summary = new RequestEvents.Summary();
+
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                final RecordedEvent event = recording.readEvent();
+                switch (event.getEventType().getName()) {
+                    case REQUEST_EVENT_NAME:
+                        summary.recordRequest(
+                            event.getString("operation"),
+                            event.getDuration("queueTime").toNanos(),
+                            event.getDuration("bindTime").toNanos(),
+                            event.getDuration("executionTime").toNanos(),
+                            event.getInt("retryCount"),
+                            event.getString("error") != null);
+                        break;
+                    case PHASE_EVENT_NAME:
+                        summary.recordPhase(event.getString("phase"), event.getDuration().toNanos());
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        return summary;
+    }
+
+    // endregion
+
+    // region Types
+
+    @Name(PHASE_EVENT_NAME)
+    @Label("Load Test Phase")
+    @Category({ "Azure Cosmos DB", "Cassandra" })
+    @Description("A phase of a load test, such as generating data, warming up, writing, or reading back")
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+
+        @Label("Phase")
+        String phase;
+    }
+
+    @Name(REQUEST_EVENT_NAME)
+    @Label("Request")
+    @Category({ "Azure Cosmos DB", "Cassandra" })
+    @Description("A request made by a user repository, with its latency broken down by phase")
+    @StackTrace(false)
+    static final class RequestEvent extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Statement")
+        @Description("The CQL of the statement executed; for a batch, that of its first statement")
+        String statement;
+
+        @Label("Statement Count")
+        int statementCount;
+
+        @Label("Node")
+        @Description("The coordinator of the request")
+        String node;
+
+        @Label("Datacenter")
+        @Description("The datacenter--that is, the Cosmos region--of the coordinator")
+        String datacenter;
+
+        @Label("Retry Count")
+        int retryCount;
+
+        @Label("Speculative Execution Count")
+        int speculativeExecutionCount;
+
+        @Label("Queue Time")
+        @Description("The time the request waited to be issued, as marked by the caller")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueTime;
+
+        @Label("Bind Time")
+        @Description("The time taken to prepare and bind the statement")
+        @Timespan(Timespan.NANOSECONDS)
+        long bindTime;
+
+        @Label("Execution Time")
+        @Description("The time from handing the statement to the driver until the request completed, including "
+            + "retries and their backoff")
+        @Timespan(Timespan.NANOSECONDS)
+        long executionTime;
+
+        @Label("Error")
+        String error;
+    }
+
+    // endregion
+}
@@ -0,0 +1,152 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Distributions from which a {@link WorkloadProfile workload} selects the keys it reads and updates.
+ * <p>
+ * Keys are numbered in the order they were written, from zero. The key space may grow while a workload runs, so each
+ * selection is made over the number of keys written so far. Zipfian selections use the rejection-inversion method of
+ * Hormann and Derflinger, which takes constant time and needs no table of harmonic numbers for a key space of any
+ * size.
+ */
+public enum KeyDistribution {
+
+    /**
+     * Every key is equally likely to be selected.
+     */
+    UNIFORM {
+        @Override
+        public long select(final long keyCount, final double exponent, @NonNull final Random random) {
+            requirePositive(keyCount);
+            return (long) (random.nextDouble() * keyCount);
+        }
+    },
+
+    /**
+     * The key written {@code k}-th is selected with probability proportional to {@code 1 / k^exponent}, so that a few
+     * keys written early become hot partitions.
+     */
+    ZIPFIAN {
+        @Override
+        public long select(final long keyCount, final double exponent, @NonNull final Random random) {
+            return sampleZipfian(requirePositive(keyCount), exponent, random) - 1;
+        }
+    },
+
+    /**
+     * The most recently written keys are the most likely to be selected, with the same Zipfian skew as {@link
+     * #ZIPFIAN}, but counted back from the last key written.
+     */
+    LATEST {
+        @Override
+        public long select(final long keyCount, final double exponent, @NonNull final Random random) {
+            return requirePositive(keyCount) - sampleZipfian(keyCount, exponent, random);
+        }
+    };
+
+    // region Methods
+
+    /**
+     * Parses a key distribution name, ignoring case.
+     *
+     * @param value A key distribution name, e.g., {@code zipfian}.
+     *
+     * @return The key distribution named by {@code value}.
+     */
+    @NonNull
+    public static KeyDistribution parse(@NonNull final String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (final IllegalArgumentException error) {
+            throw new IllegalArgumentException("unrecognized key distribution " + value, error);
+        }
+    }
+
+    /**
+     * Selects a key.
+     *
+     * @param keyCount The number of keys written so far, which must be positive.
+     * @param exponent The Zipfian exponent, which must be positive. It is ignored by {@link #UNIFORM}.
+     * @param random   The source of randomness.
+     *
+     * @return A key number in the range {@code [0, keyCount)}.
+     */
+    public abstract long select(long keyCount, double exponent, @NonNull Random random);
+
+    @Override
+    public String toString() {
+        return this.name().toLowerCase(Locale.ROOT);
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static long requirePositive(final long keyCount) {
+        if (keyCount <= 0) {
+            throw new IllegalArgumentException("keyCount must be positive, not " + keyCount);
+        }
+        return keyCount;
+    }
+
+    /**
+     * Samples a rank in {@code [1, n]} from a Zipf distribution by rejection-inversion.
+     * <p>
+     * See W. Hormann and G. Derflinger, "Rejection-inversion to generate variates from monotone discrete
+     * distributions", ACM Transactions on Modeling and Computer Simulation 6(3), 1996.
+     */
+    private static long sampleZipfian(final long n, final double exponent, final Random random) {
+
+        final double hIntegralX1 = hIntegral(1.5, exponent) - 1.0;
+        final double hIntegralN = hIntegral(n + 0.5, exponent);
+        final double s = 2.0 - hIntegralInverse(hIntegral(2.5, exponent) - h(2.0, exponent), exponent);
+
+        while (true) {
+
+            final double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            final double x = hIntegralInverse(u, exponent);
+            final long k = Math.max(1L, Math.min(n, (long) (x + 0.5)));
+
+            if (k - x <= s || u >= hIntegral(k + 0.5, exponent) - h(k, exponent)) {
+                return k;
+            }
+        }
+    }
+
+    private static double h(final double x, final double exponent) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private static double hIntegral(final double x, final double exponent) {
+        final double logX = Math.log(x);
+        return helper2((1.0 - exponent) * logX) * logX;
+    }
+
+    private static double hIntegralInverse(final double x, final double exponent) {
+        final double t = Math.max(-1.0, x * (1.0 - exponent));
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * Computes {@code log(1 + x) / x}, accurately for {@code x} near zero.
+     */
+    private static double helper1(final double x) {
+        return Math.abs(x) > 1E-8 ? Math.log1p(x) / x : 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+    }
+
+    /**
+     * Computes {@code (exp(x) - 1) / x}, accurately for {@code x} near zero.
+     */
+    private static double helper2(final double x) {
+        return Math.abs(x) > 1E-8 ? Math.expm1(x) / x : 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+    }
+
+    // endregion
+}
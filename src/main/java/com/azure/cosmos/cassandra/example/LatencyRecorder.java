@@ -0,0 +1,166 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Locale;
+
+/**
+ * Records latencies with nanosecond resolution into lock-free, striped histograms that are merged at report time.
+ * <p>
+ * Recording threads are spread over a fixed number of {@link Stripes stripes}, each with its own {@link Recorder}, so
+ * that recording is wait-free and rarely contends with other recording threads. The number of histograms does not grow
+ * with the number of recording threads, which may be as large as the number of virtual-thread clients in a load test.
+ * Calls to {@link #getIntervalHistogram} swap out and merge the histograms recorded by every stripe since the previous
+ * call. Calls to {@link #getTotalHistogram} return everything recorded
+ * since this recorder was created.
+ * <p>
+ * When an expected interval between operations is given, each recorded value is corrected for coordinated omission:
+ * a latency longer than the expected interval also records the latencies of the requests that would have been issued,
+ * but were not, while the client was waiting.
+ */
+public final class LatencyRecorder {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MILLI = 1E6;
+
+    private final String name;
+    private final long expectedIntervalNanos;
+    private final Recorder[] recorders = new Recorder[Stripes.COUNT];
+    private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+
+    /**
+     * Initializes a new latency recorder without coordinated omission correction.
+     *
+     * @param name Name of the operation whose latency is recorded, e.g., {@code write}.
+     */
+    public LatencyRecorder(@NonNull final String name) {
+        this(name, 0L);
+    }
+
+    /**
+     * Initializes a new latency recorder.
+     *
+     * @param name                  Name of the operation whose latency is recorded, e.g., {@code write}.
+     * @param expectedIntervalNanos Expected interval between operations issued by a single client in nanoseconds, or
+     *                              zero to disable coordinated omission correction.
+     */
+    public LatencyRecorder(@NonNull final String name, final long expectedIntervalNanos) {
+        if (expectedIntervalNanos < 0) {
+            throw new IllegalArgumentException("expectedIntervalNanos must be non-negative, not "
+                + expectedIntervalNanos);
+        }
+        this.name = name;
+        this.expectedIntervalNanos = expectedIntervalNanos;
+        for (int i = 0; i < this.recorders.length; i++) {
+            this.recorders[i] = new Recorder(SIGNIFICANT_DIGITS);
+        }
+    }
+
+    // region Methods
+
+    /**
+     * Gets the expected interval between operations used to correct for coordinated omission.
+     *
+     * @return The expected interval in nanoseconds or zero, if coordinated omission correction is disabled.
+     */
+    public long getExpectedIntervalNanos() {
+        return this.expectedIntervalNanos;
+    }
+
+    /**
+     * Merges the values recorded by all stripes since the last call to this method into a new histogram.
+     *
+     * @return A histogram of the latencies recorded in the interval since the last call to this method.
+     */
+    @NonNull
+    public synchronized Histogram getIntervalHistogram() {
+
+        final Histogram merged = new Histogram(SIGNIFICANT_DIGITS);
+
+        for (final Recorder value : this.recorders) {
+            merged.add(value.getIntervalHistogram());
+        }
+
+        this.total.add(merged);
+        return merged;
+    }
+
+    /**
+     * Gets the name of the operation whose latency is recorded.
+     *
+     * @return The operation name.
+     */
+    @NonNull
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Merges all values recorded since this recorder was created into a new histogram.
+     *
+     * @return A histogram of all latencies recorded so far.
+     */
+    @NonNull
+    public synchronized Histogram getTotalHistogram() {
+        this.getIntervalHistogram();
+        return this.total.copy();
+    }
+
+    /**
+     * Records a latency measured from {@code startNanos} to now, as reported by {@link System#nanoTime}.
+     *
+     * @param startNanos The {@link System#nanoTime} at which the operation started.
+     *
+     * @return The latency recorded in nanoseconds.
+     */
+    public long recordSince(final long startNanos) {
+        final long latencyNanos = System.nanoTime() - startNanos;
+        this.record(latencyNanos);
+        return latencyNanos;
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param latencyNanos A latency in nanoseconds.
+     */
+    public void record(final long latencyNanos) {
+        final long value = Math.max(0L, latencyNanos);
+        final Recorder recorder = this.recorders[Stripes.current()];
+        if (this.expectedIntervalNanos > 0) {
+            recorder.recordValueWithExpectedInterval(value, this.expectedIntervalNanos);
+        } else {
+            recorder.recordValue(value);
+        }
+    }
+
+    /**
+     * Summarizes a histogram of latencies in milliseconds.
+     *
+     * @param histogram A histogram of latencies in nanoseconds.
+     *
+     * @return A summary of the form {@code p50=... p90=... p99=... p99.9=... max=... ms [n=...]}.
+     */
+    @NonNull
+    public static String summarize(@NonNull final Histogram histogram) {
+        return String.format(Locale.ROOT, "p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f ms [n=%d]",
+            histogram.getValueAtPercentile(50.0) / NANOS_PER_MILLI,
+            histogram.getValueAtPercentile(90.0) / NANOS_PER_MILLI,
+            histogram.getValueAtPercentile(99.0) / NANOS_PER_MILLI,
+            histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+            histogram.getMaxValue() / NANOS_PER_MILLI,
+            histogram.getTotalCount());
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyRecorder(name=" + this.name + ", expected-interval-nanos=" + this.expectedIntervalNanos + ")";
+    }
+
+    // endregion
+}
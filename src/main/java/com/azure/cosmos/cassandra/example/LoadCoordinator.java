@@ -0,0 +1,419 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinates a load test run by several worker processes and merges their results.
+ * <p>
+ * A coordinator listens on a TCP port for its {@link LoadWorker workers}, which it may {@link #launch launch} as local
+ * JVMs or which may be started by hand on other hosts. The protocol is a single exchange per worker:
+ * <ol>
+ * <li>the worker connects, once its test data is generated and it has warmed up, and sends a hello with its index and
+ * the worker count;</li>
+ * <li>once every worker has said hello, the coordinator {@link #start starts} them all together by sending each a
+ * start byte;</li>
+ * <li>each worker runs its write and read-back phases and sends its {@link LoadReport report}, which the coordinator
+ * {@link #collect collects} and merges.</li>
+ * </ol>
+ * Each worker writes users from its own shard of the ID space, so workers never write the same user. A coordinator
+ * is not thread safe.
+ */
+public final class LoadCoordinator implements AutoCloseable {
+
+    static final int MAGIC = 0x55504C54;
+    static final int VERSION = 1;
+    static final int START = 1;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadCoordinator.class);
+    private static final int POLL_MILLIS = 1_000;
+    private static final long EXIT_GRACE_SECONDS = 30L;
+    private static final List<String> FORWARDED_PROPERTY_PREFIXES = Collections.unmodifiableList(Arrays.asList(
+        "azure.cosmos.cassandra.",
+        "config.",
+        "datastax-java-driver.",
+        "javax.net.ssl."));
+    private static final List<String> WORKER_PROPERTIES = Collections.unmodifiableList(Arrays.asList(
+        "coordinator",
+        "coordinator-port",
+        "launch-workers",
+        "metrics-port",
+        "recording-file",
+        "summary-file",
+        "windows-file",
+        "worker-index"));
+
+    private final int workerCount;
+    private final ServerSocket server;
+    private final Socket[] workers;
+    private final List<Process> processes = new ArrayList<>();
+
+    /**
+     * Initializes a new coordinator listening for workers on all local addresses.
+     *
+     * @param workerCount The number of workers that take part in the load test.
+     * @param port        The port on which to listen for workers or zero, to listen on an ephemeral port.
+     *
+     * @throws IOException If the port cannot be bound.
+     */
+    public LoadCoordinator(final int workerCount, final int port) throws IOException {
+
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive, not " + workerCount);
+        }
+        if (port < 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("port must be in [0, 65535], not " + port);
+        }
+
+        this.workerCount = workerCount;
+        this.workers = new Socket[workerCount];
+        this.server = new ServerSocket(port);
+        this.server.setSoTimeout(POLL_MILLIS);
+    }
+
+    // region Methods
+
+    /**
+     * Stops listening, closes the connections to all workers, and kills any launched worker process that has not
+     * exited within a short grace period.
+     */
+    @Override
+    public void close() {
+
+        closeQuietly(this.server);
+
+        for (final Socket worker : this.workers) {
+            closeQuietly(worker);
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(EXIT_GRACE_SECONDS);
+
+        for (final Process process : this.processes) {
+            try {
+                if (!process.waitFor(Math.max(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS)) {
+                    LOGGER.warn("Killing worker process {}", process);
+                    process.destroyForcibly();
+                }
+            } catch (final InterruptedException error) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Reads the report of every worker and merges them.
+     * <p>
+     * A worker that fails, disconnects, or sends a malformed report is logged and left out of the merged report, whose
+     * {@link LoadReport#getWorkerCount worker count} then falls short of the number of workers.
+     *
+     * @param timeout How long to wait for all reports.
+     * @param unit    The unit of {@code timeout}.
+     *
+     * @return The merged report of all workers that reported.
+     *
+     * @throws IOException If no worker reported.
+     */
+    @NonNull
+    public LoadReport collect(final long timeout, @NonNull final TimeUnit unit) throws IOException {
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        final List<LoadReport> reports = new ArrayList<>(this.workerCount);
+
+        for (int index = 0; index < this.workerCount; index++) {
+
+            final Socket worker = this.workers[index];
+
+            if (worker == null) {
+                continue;
+            }
+
+            try {
+                final DataInputStream input = new DataInputStream(new BufferedInputStream(worker.getInputStream()));
+                setTimeout(worker, deadline);
+                final LoadReport report = LoadReport.readFrom(input);
+                LOGGER.info("Worker {} reported {}", index, report);
+                reports.add(report);
+            } catch (final IOException error) {
+                LOGGER.error("Could not read the report of worker {}", index, error);
+            } finally {
+                closeQuietly(worker);
+                this.workers[index] = null;
+            }
+        }
+
+        if (reports.isEmpty()) {
+            throw new IOException("no worker reported");
+        }
+
+        return LoadReport.merge(reports);
+    }
+
+    /**
+     * Gets the port on which this coordinator listens for workers.
+     *
+     * @return The local port.
+     */
+    public int getPort() {
+        return this.server.getLocalPort();
+    }
+
+    /**
+     * Gets the number of workers that take part in the load test.
+     *
+     * @return The number of workers.
+     */
+    public int getWorkerCount() {
+        return this.workerCount;
+    }
+
+    /**
+     * Launches every worker as a local JVM that runs {@code mainClass} with the classpath, JVM options, and load test
+     * properties of this JVM.
+     * <p>
+     * The output of worker {@code i} is written to {@code worker-i.log} in {@code logDirectory}.
+     *
+     * @param mainClass    The main class of the workers, which must run a {@link LoadWorker worker} given the worker
+     *                     properties set on its command line.
+     * @param logDirectory The directory to which the output of each worker is written.
+     *
+     * @throws IOException If a worker cannot be launched.
+     */
+    public void launch(@NonNull final String mainClass, @NonNull final File logDirectory) throws IOException {
+
+        final Map<String, String> properties = new TreeMap<>();
+
+        for (final String name : System.getProperties().stringPropertyNames()) {
+            for (final String prefix : FORWARDED_PROPERTY_PREFIXES) {
+                if (name.startsWith(prefix)) {
+                    properties.put(name, System.getProperty(name));
+                }
+            }
+        }
+
+        final List<String> jvmOptions = new ArrayList<>();
+
+        for (final String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!argument.startsWith("-D") && !argument.startsWith("-agentlib:jdwp")) {
+                jvmOptions.add(argument);
+            }
+        }
+
+        final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        final String classPath = System.getProperty("java.class.path");
+
+        for (int index = 0; index < this.workerCount; index++) {
+
+            final List<String> command = workerCommand(java, jvmOptions, properties, classPath, mainClass, index,
+                InetAddress.getLoopbackAddress().getHostAddress() + ":" + this.getPort());
+
+            final File log = new File(logDirectory, "worker-" + index + ".log");
+            final Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+
+            this.processes.add(process);
+            LOGGER.info("Launched worker {} writing to {}", index, log);
+        }
+    }
+
+    /**
+     * Waits for every worker to connect and say hello, and then starts them all together.
+     * <p>
+     * Gives up early if a launched worker process exits before it connects.
+     *
+     * @param timeout How long to wait for all workers to connect.
+     * @param unit    The unit of {@code timeout}.
+     *
+     * @throws IOException If not every worker connected within the timeout or a worker's hello is malformed.
+     */
+    public void start(final long timeout, @NonNull final TimeUnit unit) throws IOException {
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int connected = 0;
+
+        while (connected < this.workerCount) {
+
+            for (final Process process : this.processes) {
+                if (!process.isAlive()) {
+                    throw new IOException("worker process exited with status " + process.exitValue() + " before "
+                        + "all workers connected");
+                }
+            }
+
+            if (System.nanoTime() - deadline >= 0) {
+                throw new IOException("only " + connected + " of " + this.workerCount + " workers connected within "
+                    + timeout + " " + unit);
+            }
+
+            final Socket socket;
+
+            try {
+                socket = this.server.accept();
+            } catch (final SocketTimeoutException error) {
+                continue;
+            }
+
+            try {
+                final int index = this.hello(socket, deadline);
+                this.workers[index] = socket;
+                connected++;
+                LOGGER.info("Worker {} connected from {} ({} of {})", index, socket.getRemoteSocketAddress(),
+                    connected, this.workerCount);
+            } catch (final IOException error) {
+                LOGGER.error("Rejected worker connection from {}", socket.getRemoteSocketAddress(), error);
+                closeQuietly(socket);
+            }
+        }
+
+        for (final Socket worker : this.workers) {
+            worker.getOutputStream().write(START);
+            worker.getOutputStream().flush();
+        }
+
+        LOGGER.info("Started {} workers", this.workerCount);
+    }
+
+    @Override
+    public String toString() {
+        return "LoadCoordinator(workers=" + this.workerCount + ", port=" + this.getPort() + ", launched="
+            + this.processes.size() + ")";
+    }
+
+    /**
+     * Builds the command line of a local worker.
+     * <p>
+     * Worker-specific properties of this JVM are replaced: the worker is told its index and where the coordinator
+     * listens, and writes no summary or windows file and serves no Prometheus endpoint of its own. A worker dumps its
+     * flight recording, if one is requested, to a file of its own: {@code run.jfr} becomes {@code run-worker-0.jfr}
+     * for worker 0.
+     */
+    static List<String> workerCommand(
+        final String java,
+        final List<String> jvmOptions,
+        final Map<String, String> properties,
+        final String classPath,
+        final String mainClass,
+        final int index,
+        final String coordinator) {
+
+        final List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmOptions);
+
+        for (final Map.Entry<String, String> property : properties.entrySet()) {
+            if (!isWorkerProperty(property.getKey())) {
+                command.add("-D" + property.getKey() + "=" + property.getValue());
+            }
+        }
+
+        command.add("-D" + LoadTestOptions.PROPERTY_PREFIX + "worker-index=" + index);
+        command.add("-D" + LoadTestOptions.PROPERTY_PREFIX + "coordinator=" + coordinator);
+        command.add("-D" + LoadTestOptions.PROPERTY_PREFIX + "metrics-port=0");
+
+        final String recordingFile = properties.get(LoadTestOptions.PROPERTY_PREFIX + "recording-file");
+
+        if (recordingFile != null && !recordingFile.trim().isEmpty()) {
+            command.add("-D" + LoadTestOptions.PROPERTY_PREFIX + "recording-file="
+                + workerRecordingFile(recordingFile.trim(), index));
+        }
+
+        command.add("-cp");
+        command.add(classPath);
+        command.add(mainClass);
+        return command;
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static void closeQuietly(final AutoCloseable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (final Exception error) {
+                LOGGER.debug("Could not close {}", closeable, error);
+            }
+        }
+    }
+
+    private static boolean isWorkerProperty(final String name) {
+        return name.startsWith(LoadTestOptions.PROPERTY_PREFIX)
+            && WORKER_PROPERTIES.contains(name.substring(LoadTestOptions.PROPERTY_PREFIX.length()));
+    }
+
+    private static String workerRecordingFile(final String path, final int index) {
+
+        final int extension = path.lastIndexOf('.');
+        final int name = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1;
+        final String suffix = "-worker-" + index;
+
+        return extension > name ? path.substring(0, extension) + suffix + path.substring(extension) : path + suffix;
+    }
+
+    private int hello(final Socket socket, final long deadline) throws IOException {
+
+        setTimeout(socket, deadline);
+        final DataInputStream input = new DataInputStream(socket.getInputStream());
+
+        final int magic = input.readInt();
+        final int version = input.readInt();
+
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("expected a version " + VERSION + " worker hello, not magic " + magic
+                + " and version " + version);
+        }
+
+        final int index = input.readInt();
+        final int count = input.readInt();
+
+        if (count != this.workerCount) {
+            throw new IOException("expected a worker of " + this.workerCount + " workers, not " + count);
+        }
+        if (index < 0 || index >= this.workerCount) {
+            throw new IOException("expected a worker index in [0, " + this.workerCount + "), not " + index);
+        }
+        if (this.workers[index] != null) {
+            throw new IOException("worker " + index + " is already connected");
+        }
+
+        return index;
+    }
+
+    private static void setTimeout(final Socket socket, final long deadline) throws IOException {
+
+        final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+        if (remainingMillis <= 0) {
+            throw new SocketTimeoutException("timed out");
+        }
+
+        socket.setSoTimeout((int) Math.min(remainingMillis, Integer.MAX_VALUE));
+    }
+
+    // endregion
+}
@@ -0,0 +1,409 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.HdrHistogram.Histogram;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+/**
+ * The counters and latency histograms of a load test run by one or more worker processes.
+ * <p>
+ * Each {@link LoadWorker worker} of a distributed load test sends the report of its own run to the {@link
+ * LoadCoordinator coordinator}, which {@link #merge merges} them into a single report. Reports are written to and read
+ * from a socket in a compact binary form, with each histogram in HdrHistogram's compressed encoding, so that merged
+ * percentiles are exact to the precision of the workers' histograms rather than averages of their percentiles.
+ */
+public final class LoadReport {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final int MAX_ENCODED_HISTOGRAM_BYTES = 64 * 1024 * 1024;
+
+    private final int workerCount;
+    private final boolean finished;
+    private final long writeNanos;
+    private final long attemptedCount;
+    private final long insertedCount;
+    private final long errorCount;
+    private final long verifiedCount;
+    private final long mismatchedCount;
+    private final long missingCount;
+    private final long failedCount;
+    private final Histogram writeHistogram;
+    private final Histogram readHistogram;
+
+    private LoadReport(
+        final int workerCount,
+        final boolean finished,
+        final long writeNanos,
+        final long attemptedCount,
+        final long insertedCount,
+        final long errorCount,
+        final long verifiedCount,
+        final long mismatchedCount,
+        final long missingCount,
+        final long failedCount,
+        final Histogram writeHistogram,
+        final Histogram readHistogram) {
+
+        this.workerCount = workerCount;
+        this.finished = finished;
+        this.writeNanos = writeNanos;
+        this.attemptedCount = attemptedCount;
+        this.insertedCount = insertedCount;
+        this.errorCount = errorCount;
+        this.verifiedCount = verifiedCount;
+        this.mismatchedCount = mismatchedCount;
+        this.missingCount = missingCount;
+        this.failedCount = failedCount;
+        this.writeHistogram = writeHistogram;
+        this.readHistogram = readHistogram;
+    }
+
+    // region Methods
+
+    /**
+     * Merges the reports of several workers into one.
+     * <p>
+     * Counters and histograms are summed. The write phase of the merged report is that of the slowest worker, because
+     * the {@link LoadCoordinator coordinator} starts all workers' write phases together, and so the merged write
+     * throughput is the aggregate throughput of all workers.
+     *
+     * @param reports The reports to merge.
+     *
+     * @return A new report that covers all workers of {@code reports}.
+     *
+     * @throws IllegalArgumentException If {@code reports} is empty.
+     */
+    @NonNull
+    public static LoadReport merge(@NonNull final Collection<LoadReport> reports) {
+
+        if (reports.isEmpty()) {
+            throw new IllegalArgumentException("reports must not be empty");
+        }
+
+        final Histogram writeHistogram = new Histogram(SIGNIFICANT_DIGITS);
+        final Histogram readHistogram = new Histogram(SIGNIFICANT_DIGITS);
+        int workerCount = 0;
+        boolean finished = true;
+        long writeNanos = 0L;
+        long attemptedCount = 0L;
+        long insertedCount = 0L;
+        long errorCount = 0L;
+        long verifiedCount = 0L;
+        long mismatchedCount = 0L;
+        long missingCount = 0L;
+        long failedCount = 0L;
+
+        for (final LoadReport report : reports) {
+            workerCount += report.workerCount;
+            finished &= report.finished;
+            writeNanos = Math.max(writeNanos, report.writeNanos);
+            attemptedCount += report.attemptedCount;
+            insertedCount += report.insertedCount;
+            errorCount += report.errorCount;
+            verifiedCount += report.verifiedCount;
+            mismatchedCount += report.mismatchedCount;
+            missingCount += report.missingCount;
+            failedCount += report.failedCount;
+            writeHistogram.add(report.writeHistogram);
+            readHistogram.add(report.readHistogram);
+        }
+
+        return new LoadReport(workerCount, finished, writeNanos, attemptedCount, insertedCount, errorCount,
+            verifiedCount, mismatchedCount, missingCount, failedCount, writeHistogram, readHistogram);
+    }
+
+    /**
+     * Creates the report of a load test run by a single worker.
+     *
+     * @param finished       {@code true} if all writes completed within the allotted time; otherwise {@code false}.
+     * @param writeNanos     Duration of the write phase in nanoseconds.
+     * @param attemptedCount Number of inserts attempted.
+     * @param insertedCount  Number of inserts that succeeded.
+     * @param errorCount     Number of inserts that failed.
+     * @param verification   The result of reading back the users written or {@code null}, if they were not verified.
+     * @param writeHistogram Histogram of write latencies in nanoseconds.
+     * @param readHistogram  Histogram of read latencies in nanoseconds.
+     *
+     * @return A new report.
+     */
+    @NonNull
+    public static LoadReport of(
+        final boolean finished,
+        final long writeNanos,
+        final long attemptedCount,
+        final long insertedCount,
+        final long errorCount,
+        final ReadBackVerifier.Result verification,
+        @NonNull final Histogram writeHistogram,
+        @NonNull final Histogram readHistogram) {
+
+        return new LoadReport(
+            1,
+            finished,
+            writeNanos,
+            attemptedCount,
+            insertedCount,
+            errorCount,
+            verification == null ? 0L : verification.getVerifiedCount(),
+            verification == null ? 0L : verification.getMismatchedCount(),
+            verification == null ? 0L : verification.getMissingCount(),
+            verification == null ? 0L : verification.getFailedCount(),
+            writeHistogram.copy(),
+            readHistogram.copy());
+    }
+
+    /**
+     * Reads a report written by {@link #writeTo}.
+     *
+     * @param input The input from which the report is read.
+     *
+     * @return The report read.
+     *
+     * @throws IOException If the report cannot be read or is malformed.
+     */
+    @NonNull
+    public static LoadReport readFrom(@NonNull final DataInput input) throws IOException {
+
+        final int workerCount = input.readInt();
+
+        if (workerCount <= 0) {
+            throw new IOException("expected a positive worker count, not " + workerCount);
+        }
+
+        return new LoadReport(
+            workerCount,
+            input.readBoolean(),
+            input.readLong(),
+            input.readLong(),
+            input.readLong(),
+            input.readLong(),
+            input.readLong(),
+            input.readLong(),
+            input.readLong(),
+            input.readLong(),
+            readHistogram(input),
+            readHistogram(input));
+    }
+
+    /**
+     * Gets the number of inserts attempted.
+     *
+     * @return The number of inserts attempted.
+     */
+    public long getAttemptedCount() {
+        return this.attemptedCount;
+    }
+
+    /**
+     * Gets the number of inserts that failed.
+     *
+     * @return The number of failed inserts.
+     */
+    public long getErrorCount() {
+        return this.errorCount;
+    }
+
+    /**
+     * Gets the number of users that could not be read back because a request failed.
+     *
+     * @return The number of users whose read failed.
+     */
+    public long getFailedCount() {
+        return this.failedCount;
+    }
+
+    /**
+     * Gets the number of inserts that succeeded.
+     *
+     * @return The number of successful inserts.
+     */
+    public long getInsertedCount() {
+        return this.insertedCount;
+    }
+
+    /**
+     * Gets the number of users read back with a name or city that differs from what was written.
+     *
+     * @return The number of mismatched users.
+     */
+    public long getMismatchedCount() {
+        return this.mismatchedCount;
+    }
+
+    /**
+     * Gets the number of users that were written, but could not be read back.
+     *
+     * @return The number of missing users.
+     */
+    public long getMissingCount() {
+        return this.missingCount;
+    }
+
+    /**
+     * Gets a histogram of read latencies.
+     *
+     * @return A copy of the read latency histogram, in nanoseconds.
+     */
+    @NonNull
+    public Histogram getReadHistogram() {
+        return this.readHistogram.copy();
+    }
+
+    /**
+     * Gets the number of users read back exactly as they were written.
+     *
+     * @return The number of verified users.
+     */
+    public long getVerifiedCount() {
+        return this.verifiedCount;
+    }
+
+    /**
+     * Gets the number of workers covered by this report.
+     *
+     * @return One for the report of a single worker; otherwise the number of worker reports merged.
+     */
+    public int getWorkerCount() {
+        return this.workerCount;
+    }
+
+    /**
+     * Gets a histogram of write latencies.
+     *
+     * @return A copy of the write latency histogram, in nanoseconds.
+     */
+    @NonNull
+    public Histogram getWriteHistogram() {
+        return this.writeHistogram.copy();
+    }
+
+    /**
+     * Gets the duration of the write phase.
+     *
+     * @return The duration of the write phase in nanoseconds; for a merged report, that of the slowest worker.
+     */
+    public long getWriteNanos() {
+        return this.writeNanos;
+    }
+
+    /**
+     * Gets the write throughput.
+     *
+     * @return The number of successful inserts per second of the write phase.
+     */
+    public double getWriteThroughput() {
+        return this.writeNanos == 0L ? 0.0 : this.insertedCount * 1E9 / this.writeNanos;
+    }
+
+    /**
+     * Gets a value indicating whether every worker completed all its writes within the allotted time.
+     *
+     * @return {@code true} if all writes completed; otherwise {@code false}.
+     */
+    public boolean isFinished() {
+        return this.finished;
+    }
+
+    /**
+     * Adds the counters, throughput, and latencies of this report to a summary.
+     *
+     * @param summary A summary to which entries are added.
+     */
+    public void putSummary(@NonNull final Map<String, Object> summary) {
+        summary.put("workers", this.workerCount);
+        summary.put("finished", this.finished);
+        summary.put("inserts-attempted", this.attemptedCount);
+        summary.put("inserts-succeeded", this.insertedCount);
+        summary.put("errors", this.errorCount);
+        summary.put("verified", this.verifiedCount);
+        summary.put("mismatched", this.mismatchedCount);
+        summary.put("missing", this.missingCount);
+        summary.put("failed", this.failedCount);
+        summary.put("write-seconds", this.writeNanos / 1E9);
+        summary.put("write-throughput", this.getWriteThroughput());
+        MetricsReporter.putLatency(summary, "write-latency", this.writeHistogram);
+        MetricsReporter.putLatency(summary, "read-latency", this.readHistogram);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+            "workers=%d, finished=%s, inserts attempted=%d, succeeded=%d, errors=%d, write throughput=%.1f ops/sec, "
+                + "verified=%d, mismatched=%d, missing=%d, failed=%d",
+            this.workerCount,
+            this.finished,
+            this.attemptedCount,
+            this.insertedCount,
+            this.errorCount,
+            this.getWriteThroughput(),
+            this.verifiedCount,
+            this.mismatchedCount,
+            this.missingCount,
+            this.failedCount);
+    }
+
+    /**
+     * Writes this report in the form read by {@link #readFrom}.
+     *
+     * @param output The output to which the report is written.
+     *
+     * @throws IOException If the report cannot be written.
+     */
+    public void writeTo(@NonNull final DataOutput output) throws IOException {
+        output.writeInt(this.workerCount);
+        output.writeBoolean(this.finished);
+        output.writeLong(this.writeNanos);
+        output.writeLong(this.attemptedCount);
+        output.writeLong(this.insertedCount);
+        output.writeLong(this.errorCount);
+        output.writeLong(this.verifiedCount);
+        output.writeLong(this.mismatchedCount);
+        output.writeLong(this.missingCount);
+        output.writeLong(this.failedCount);
+        writeHistogram(output, this.writeHistogram);
+        writeHistogram(output, this.readHistogram);
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static Histogram readHistogram(final DataInput input) throws IOException {
+
+        final int length = input.readInt();
+
+        if (length < 0 || length > MAX_ENCODED_HISTOGRAM_BYTES) {
+            throw new IOException("expected an encoded histogram length in [0, " + MAX_ENCODED_HISTOGRAM_BYTES
+                + "], not " + length);
+        }
+
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0L);
+        } catch (final DataFormatException | RuntimeException error) {
+            throw new IOException("malformed histogram", error);
+        }
+    }
+
+    private static void writeHistogram(final DataOutput output, final Histogram histogram) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        final int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        output.writeInt(length);
+        output.write(buffer.array(), 0, length);
+    }
+
+    // endregion
+}
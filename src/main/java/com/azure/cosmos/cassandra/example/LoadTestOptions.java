@@ -0,0 +1,2013 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Options that control how {@link UserProfile#loadTest} generates load.
+ * <p>
+ * Each option may be set using a system property of the form {@code azure.cosmos.cassandra.load-test.<option>}. For
+ * example, run with {@code -Dazure.cosmos.cassandra.load-test.mode=async} to issue requests asynchronously.
+ */
+public final class LoadTestOptions {
+
+    /**
+     * Prefix shared by all load test system properties.
+     */
+    public static final String PROPERTY_PREFIX = "azure.cosmos.cassandra.load-test.";
+
+    private final Mode mode;
+    private final List<Mode> compareModes;
+    private final WorkloadProfile workload;
+    private final int threadCount;
+    private final int writesPerThread;
+    private final ConsistencyLevel writeConsistency;
+    private final ConsistencyLevel readConsistency;
+    private final List<Integer> sweepConcurrency;
+    private final List<ConsistencyLevel> sweepConsistencyLevels;
+    private final List<Integer> sweepPoolSizes;
+    private final List<Integer> sweepMaxRequests;
+    private final int maxInFlight;
+    private final int dataPoolSize;
+    private final int idStoreBudgetMegabytes;
+    private final int payloadSize;
+    private final int cacheSize;
+    private final int cacheTtlSeconds;
+    private final boolean printOperations;
+    private final int reportIntervalSeconds;
+    private final int windowSeconds;
+    private final String windowsFile;
+    private final int steadyStateWindows;
+    private final double steadyStateTolerance;
+    private final int warmUpOperations;
+    private final int warmUpSeconds;
+    private final String summaryFile;
+    private final String recordingFile;
+    private final int metricsPort;
+    private final int asyncThreadCount;
+    private final double targetRate;
+    private final boolean correctCoordinatedOmission;
+    private final int rampUpSteps;
+    private final int rampUpStepSeconds;
+    private final int scanParallelism;
+    private final int scanSplits;
+    private final boolean reuseTable;
+    private final int schemaTimeoutSeconds;
+    private final boolean adaptiveThrottle;
+    private final int batchSize;
+    private final int batchMaxBytes;
+    private final int batchMinSize;
+    private final int writeBehindCapacity;
+    private final int writeBehindCloseTimeoutSeconds;
+    private final int writeBehindFlushSize;
+    private final int writeBehindFlushMillis;
+    private final int adaptiveThrottleInitialLimit;
+    private final int verifyParallelism;
+    private final int verifyBatchSize;
+    private final int workerCount;
+    private final int workerIndex;
+    private final String coordinator;
+    private final int coordinatorPort;
+    private final boolean launchWorkers;
+
+    private LoadTestOptions(final Builder builder) {
+        this.mode = builder.mode;
+        this.compareModes = Collections.unmodifiableList(new ArrayList<>(builder.compareModes));
+        this.workload = builder.workload;
+        this.threadCount = builder.threadCount;
+        this.writesPerThread = builder.writesPerThread;
+        this.writeConsistency = builder.writeConsistency;
+        this.readConsistency = builder.readConsistency;
+        this.sweepConcurrency = Collections.unmodifiableList(new ArrayList<>(builder.sweepConcurrency));
+        this.sweepConsistencyLevels = Collections.unmodifiableList(new ArrayList<>(builder.sweepConsistencyLevels));
+        this.sweepPoolSizes = Collections.unmodifiableList(new ArrayList<>(builder.sweepPoolSizes));
+        this.sweepMaxRequests = Collections.unmodifiableList(new ArrayList<>(builder.sweepMaxRequests));
+        this.maxInFlight = builder.maxInFlight;
+        this.dataPoolSize = builder.dataPoolSize;
+        this.idStoreBudgetMegabytes = builder.idStoreBudgetMegabytes;
+        this.payloadSize = builder.payloadSize;
+        this.cacheSize = builder.cacheSize;
+        this.cacheTtlSeconds = builder.cacheTtlSeconds;
+        this.printOperations = builder.printOperations;
+        this.reportIntervalSeconds = builder.reportIntervalSeconds;
+        this.windowSeconds = builder.windowSeconds;
+        this.windowsFile = builder.windowsFile;
+        this.steadyStateWindows = builder.steadyStateWindows;
+        this.steadyStateTolerance = builder.steadyStateTolerance;
+        this.warmUpOperations = builder.warmUpOperations;
+        this.warmUpSeconds = builder.warmUpSeconds;
+        this.summaryFile = builder.summaryFile;
+        this.recordingFile = builder.recordingFile;
+        this.metricsPort = builder.metricsPort;
+        this.asyncThreadCount = builder.asyncThreadCount;
+        this.targetRate = builder.targetRate;
+        this.correctCoordinatedOmission = builder.correctCoordinatedOmission;
+        this.rampUpSteps = builder.rampUpSteps;
+        this.rampUpStepSeconds = builder.rampUpStepSeconds;
+        this.scanParallelism = builder.scanParallelism;
+        this.scanSplits = builder.scanSplits;
+        this.reuseTable = builder.reuseTable;
+        this.schemaTimeoutSeconds = builder.schemaTimeoutSeconds;
+        this.adaptiveThrottle = builder.adaptiveThrottle;
+        this.batchSize = builder.batchSize;
+        this.batchMaxBytes = builder.batchMaxBytes;
+        this.batchMinSize = builder.batchMinSize;
+        this.writeBehindCapacity = builder.writeBehindCapacity;
+        this.writeBehindCloseTimeoutSeconds = builder.writeBehindCloseTimeoutSeconds;
+        this.writeBehindFlushSize = builder.writeBehindFlushSize;
+        this.writeBehindFlushMillis = builder.writeBehindFlushMillis;
+        this.adaptiveThrottleInitialLimit = builder.adaptiveThrottleInitialLimit;
+        this.verifyParallelism = builder.verifyParallelism;
+        this.verifyBatchSize = builder.verifyBatchSize;
+        this.workerCount = builder.workerCount;
+        this.workerIndex = builder.workerIndex;
+        this.coordinator = builder.coordinator;
+        this.coordinatorPort = builder.coordinatorPort;
+        this.launchWorkers = builder.launchWorkers;
+
+        if (this.mode == Mode.OPEN_LOOP && this.targetRate == 0.0) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "target-rate: must be set in open-loop mode");
+        }
+
+        if (this.correctCoordinatedOmission) {
+            if (this.targetRate == 0.0) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "correct-coordinated-omission: requires a "
+                    + "target-rate");
+            }
+            for (final Mode value : this.compareModes.isEmpty() ? Collections.singletonList(this.mode)
+                : this.compareModes) {
+                if (!value.isClosedLoop()) {
+                    throw new IllegalArgumentException(PROPERTY_PREFIX + "correct-coordinated-omission: requires "
+                        + "threads or virtual-threads mode, not " + value);
+                }
+            }
+        }
+
+        if ((this.mode == Mode.VIRTUAL_THREADS || this.compareModes.contains(Mode.VIRTUAL_THREADS))
+            && !VirtualThreads.isSupported()) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "mode: virtual-threads requires Java 21 or later, not "
+                + "Java " + System.getProperty("java.version"));
+        }
+
+        if (this.batchMinSize > this.batchSize) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "batch-min-size: expected a value no greater than "
+                + "batch-size (" + this.batchSize + "), not " + this.batchMinSize);
+        }
+
+        if (this.writeBehindFlushSize > this.writeBehindCapacity) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "write-behind-flush-size: expected a value no greater "
+                + "than write-behind-capacity (" + this.writeBehindCapacity + "), not " + this.writeBehindFlushSize);
+        }
+
+        if (this.workload != null && this.mode != Mode.THREADS && this.mode != Mode.VIRTUAL_THREADS) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "workload: requires threads or virtual-threads mode, "
+                + "not " + this.mode);
+        }
+
+        if (this.workload != null && !this.compareModes.isEmpty()) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "workload: cannot be combined with compare-modes");
+        }
+
+        if (this.isSweep() && (this.workload != null || !this.compareModes.isEmpty())) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "sweep-concurrency: a sweep cannot be combined with a "
+                + "workload or compare-modes");
+        }
+
+        if (this.workerCount > 0 && (this.workload != null || !this.compareModes.isEmpty() || this.isSweep())) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "workers: a distributed load test cannot be combined "
+                + "with a workload, compare-modes, or a sweep");
+        }
+
+        if (this.workerIndex >= 0 && this.workerIndex >= this.workerCount) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "worker-index: expected a value less than workers ("
+                + this.workerCount + "), not " + this.workerIndex);
+        }
+
+        if (this.workerIndex >= 0 && this.coordinator == null) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "coordinator: must be set when worker-index is set");
+        }
+    }
+
+    // region Methods
+
+    /**
+     * Creates a new {@link Builder builder} initialized with default option values.
+     *
+     * @return A new builder.
+     */
+    @NonNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Reads load test options from system properties, falling back to defaults for any that are unset.
+     * <p>
+     * When a workload is named, its profile is read first and supplies the defaults for the number of threads, writes
+     * per thread, payload size, and target rate.
+     *
+     * @return Load test options.
+     */
+    @NonNull
+    public static LoadTestOptions fromSystemProperties() {
+        final Builder builder = builder();
+        final String workload = getProperty("workload", null);
+        if (workload != null) {
+            try {
+                builder.workload(WorkloadProfile.load(workload.trim(), getProperty("workload-file", null)));
+            } catch (final IllegalArgumentException error) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "workload: " + error.getMessage(), error);
+            }
+        }
+        builder.mode(Mode.parse(getProperty("mode", builder.mode.toString())));
+        builder.compareModes(Mode.parseList(getProperty("compare-modes", "")));
+        builder.threadCount(getIntProperty("threads", builder.threadCount));
+        builder.writesPerThread(getIntProperty("writes-per-thread", builder.writesPerThread));
+        builder.writeConsistency(getConsistencyProperty("write-consistency"));
+        builder.readConsistency(getConsistencyProperty("read-consistency"));
+        builder.sweepConcurrency(getIntListProperty("sweep-concurrency"));
+        builder.sweepConsistencyLevels(getConsistencyListProperty("sweep-consistency-levels"));
+        builder.sweepPoolSizes(getIntListProperty("sweep-pool-sizes"));
+        builder.sweepMaxRequests(getIntListProperty("sweep-max-requests"));
+        builder.maxInFlight(getIntProperty("max-in-flight", builder.maxInFlight));
+        builder.asyncThreadCount(getIntProperty("async-threads", builder.asyncThreadCount));
+        builder.targetRate(getDoubleProperty("target-rate", builder.targetRate));
+        builder.correctCoordinatedOmission(getBooleanProperty(
+            "correct-coordinated-omission",
+            builder.correctCoordinatedOmission));
+        builder.rampUpSteps(getIntProperty("ramp-up-steps", builder.rampUpSteps));
+        builder.rampUpStepSeconds(getIntProperty("ramp-up-step-seconds", builder.rampUpStepSeconds));
+        builder.adaptiveThrottle(getBooleanProperty("adaptive-throttle", builder.adaptiveThrottle));
+        builder.adaptiveThrottleInitialLimit(getIntProperty(
+            "adaptive-throttle-initial-limit",
+            builder.adaptiveThrottleInitialLimit));
+        builder.batchSize(getIntProperty("batch-size", builder.batchSize));
+        builder.batchMaxBytes(getIntProperty("batch-max-bytes", builder.batchMaxBytes));
+        builder.batchMinSize(getIntProperty("batch-min-size", builder.batchMinSize));
+        builder.writeBehindCapacity(getIntProperty("write-behind-capacity", builder.writeBehindCapacity));
+        builder.writeBehindCloseTimeoutSeconds(getIntProperty("write-behind-close-timeout-seconds",
+            builder.writeBehindCloseTimeoutSeconds));
+        builder.writeBehindFlushSize(getIntProperty("write-behind-flush-size", builder.writeBehindFlushSize));
+        builder.writeBehindFlushMillis(getIntProperty("write-behind-flush-millis", builder.writeBehindFlushMillis));
+        builder.dataPoolSize(getIntProperty("data-pool-size", builder.dataPoolSize));
+        builder.idStoreBudgetMegabytes(getIntProperty("id-store-budget-mb", builder.idStoreBudgetMegabytes));
+        builder.payloadSize(getIntProperty("payload-size", builder.payloadSize));
+        builder.cacheSize(getIntProperty("cache-size", builder.cacheSize));
+        builder.cacheTtlSeconds(getIntProperty("cache-ttl-seconds", builder.cacheTtlSeconds));
+        builder.printOperations(getBooleanProperty("print-operations", builder.printOperations));
+        builder.reportIntervalSeconds(getIntProperty("report-interval-seconds", builder.reportIntervalSeconds));
+        builder.windowSeconds(getIntProperty("window-seconds", builder.windowSeconds));
+        builder.windowsFile(getProperty("windows-file", builder.windowsFile));
+        builder.steadyStateWindows(getIntProperty("steady-state-windows", builder.steadyStateWindows));
+        builder.steadyStateTolerance(getDoubleProperty("steady-state-tolerance", builder.steadyStateTolerance));
+        builder.warmUpOperations(getIntProperty("warm-up-operations", builder.warmUpOperations));
+        builder.warmUpSeconds(getIntProperty("warm-up-seconds", builder.warmUpSeconds));
+        builder.summaryFile(getProperty("summary-file", builder.summaryFile));
+        builder.recordingFile(getProperty("recording-file", builder.recordingFile));
+        builder.metricsPort(getIntProperty("metrics-port", builder.metricsPort));
+        builder.scanParallelism(getIntProperty("scan-parallelism", builder.scanParallelism));
+        builder.scanSplits(getIntProperty("scan-splits", builder.scanSplits));
+        builder.reuseTable(getBooleanProperty("reuse-table", builder.reuseTable));
+        builder.schemaTimeoutSeconds(getIntProperty("schema-timeout-seconds", builder.schemaTimeoutSeconds));
+        builder.verifyParallelism(getIntProperty("verify-parallelism", builder.verifyParallelism));
+        builder.verifyBatchSize(getIntProperty("verify-batch-size", builder.verifyBatchSize));
+        builder.workerCount(getIntProperty("workers", builder.workerCount));
+        builder.workerIndex(getIntProperty("worker-index", builder.workerIndex));
+        builder.coordinator(getProperty("coordinator", builder.coordinator));
+        builder.coordinatorPort(getIntProperty("coordinator-port", builder.coordinatorPort));
+        builder.launchWorkers(getBooleanProperty("launch-workers", builder.launchWorkers));
+        return builder.build();
+    }
+
+    /**
+     * Gets the number of writes initially allowed in flight when the {@link #isAdaptiveThrottle adaptive throttle} is
+     * enabled.
+     *
+     * @return The initial adaptive throttle limit.
+     */
+    public int getAdaptiveThrottleInitialLimit() {
+        return this.adaptiveThrottleInitialLimit;
+    }
+
+    /**
+     * Gets the number of threads used to issue requests when running in {@link Mode#ASYNC async} mode.
+     *
+     * @return The number of async issuing threads.
+     */
+    public int getAsyncThreadCount() {
+        return this.asyncThreadCount;
+    }
+
+    /**
+     * Gets the maximum estimated size of a batch in {@link Mode#BATCH batch} mode.
+     *
+     * @return The maximum batch size in bytes.
+     */
+    public int getBatchMaxBytes() {
+        return this.batchMaxBytes;
+    }
+
+    /**
+     * Gets the minimum number of rows sent as a batch in {@link Mode#BATCH batch} mode. Rows in smaller groups are
+     * written one at a time.
+     *
+     * @return The minimum number of rows per batch.
+     */
+    public int getBatchMinSize() {
+        return this.batchMinSize;
+    }
+
+    /**
+     * Gets the maximum number of rows in a batch in {@link Mode#BATCH batch} mode.
+     *
+     * @return The maximum number of rows per batch.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Gets the maximum number of users held by the client-side {@link UserCache user cache}.
+     *
+     * @return The cache size; zero, if users are not cached.
+     */
+    public int getCacheSize() {
+        return this.cacheSize;
+    }
+
+    /**
+     * Gets how long a user may be served from the client-side {@link UserCache user cache} after it was read or
+     * written.
+     *
+     * @return The cache time-to-live in seconds.
+     */
+    public int getCacheTtlSeconds() {
+        return this.cacheTtlSeconds;
+    }
+
+    /**
+     * Gets the interval at which each logical client issues requests to achieve the {@link #getTargetRate target
+     * rate}.
+     *
+     * @return The interval between requests issued by a logical client in nanoseconds or zero, if there is no target
+     * rate.
+     */
+    public long getClientIntervalNanos() {
+        return this.targetRate > 0 ? Math.round(this.threadCount * 1E9 / this.targetRate) : 0L;
+    }
+
+    /**
+     * Gets the modes whose write phases should be run one after another and compared, instead of running a single
+     * load test.
+     *
+     * @return An unmodifiable list of load test modes; empty, if no comparison should be run.
+     */
+    @NonNull
+    public List<Mode> getCompareModes() {
+        return this.compareModes;
+    }
+
+    /**
+     * Gets the address of the {@link LoadCoordinator coordinator} to which a worker of a distributed load test
+     * reports.
+     *
+     * @return The coordinator's address as {@code host:port} or {@code null}, if this process is not a worker.
+     */
+    public String getCoordinator() {
+        return this.coordinator;
+    }
+
+    /**
+     * Gets the port on which the {@link LoadCoordinator coordinator} of a distributed load test listens for workers.
+     *
+     * @return A port number or zero, if the coordinator should listen on an ephemeral port.
+     */
+    public int getCoordinatorPort() {
+        return this.coordinatorPort;
+    }
+
+    /**
+     * Gets the target number of distinct names and of distinct cities in the {@link TestDataArena test data arena}.
+     *
+     * @return The size of the name and city dictionaries.
+     */
+    public int getDataPoolSize() {
+        return this.dataPoolSize;
+    }
+
+    /**
+     * Gets the expected interval between requests used to correct recorded latencies for coordinated omission.
+     * <p>
+     * Only {@link Mode#isClosedLoop closed-loop} clients paced at the {@link #getTargetRate target rate} have such an
+     * interval. An open-loop run already measures latency from each request's intended start time and an
+     * asynchronous run is not paced, so neither is corrected.
+     *
+     * @return The {@link #getClientIntervalNanos client interval}, if coordinated omission correction is enabled and
+     * the mode is closed-loop; otherwise zero.
+     */
+    public long getExpectedIntervalNanos() {
+        return this.correctCoordinatedOmission && this.mode.isClosedLoop() ? this.getClientIntervalNanos() : 0L;
+    }
+
+    /**
+     * Gets the memory budget of the {@link UserIdStore store} that holds the IDs of the users written.
+     *
+     * @return The budget in megabytes. Each megabyte holds about 65,000 IDs.
+     */
+    public int getIdStoreBudgetMegabytes() {
+        return this.idStoreBudgetMegabytes;
+    }
+
+    /**
+     * Gets the maximum number of requests that may be in flight at once when running in {@link Mode#ASYNC async} or
+     * {@link Mode#BATCH batch} mode.
+     *
+     * @return The maximum number of in-flight requests.
+     */
+    public int getMaxInFlight() {
+        return this.maxInFlight;
+    }
+
+    /**
+     * Gets the port on which driver metrics are served in Prometheus text format at {@code /metrics}.
+     *
+     * @return A port number; zero, if the metrics endpoint is disabled.
+     */
+    public int getMetricsPort() {
+        return this.metricsPort;
+    }
+
+    /**
+     * Gets the mode used to generate load.
+     *
+     * @return The load test mode.
+     */
+    @NonNull
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Gets the size of the payload written with each user.
+     *
+     * @return The payload size in characters; zero, if users are written without a payload.
+     */
+    public int getPayloadSize() {
+        return this.payloadSize;
+    }
+
+    /**
+     * Gets the duration of each ramp-up step in {@link Mode#OPEN_LOOP open-loop} mode.
+     *
+     * @return The ramp-up step duration in seconds.
+     */
+    public int getRampUpStepSeconds() {
+        return this.rampUpStepSeconds;
+    }
+
+    /**
+     * Gets the number of steps taken to ramp up to the {@link #getTargetRate target rate} in {@link Mode#OPEN_LOOP
+     * open-loop} mode.
+     *
+     * @return The number of ramp-up steps; zero, if requests are issued at the target rate from the start.
+     */
+    public int getRampUpSteps() {
+        return this.rampUpSteps;
+    }
+
+    /**
+     * Gets the consistency level at which users are read, counted, and scanned.
+     *
+     * @return A consistency level or {@code null}, if the driver's configured consistency level should be used.
+     */
+    public ConsistencyLevel getReadConsistency() {
+        return this.readConsistency;
+    }
+
+    /**
+     * Gets the path of the file to which a Java Flight Recorder recording of the run is dumped.
+     *
+     * @return A path, conventionally ending in {@code .jfr}, or {@code null}, if no recording should be made.
+     */
+    public String getRecordingFile() {
+        return this.recordingFile;
+    }
+
+    /**
+     * Gets the number of seconds between interval reports of throughput, errors, and latency.
+     *
+     * @return The report interval in seconds; zero, if interval reports are disabled.
+     */
+    public int getReportIntervalSeconds() {
+        return this.reportIntervalSeconds;
+    }
+
+    /**
+     * Gets the maximum number of token ranges counted at once when counting the users in the user table.
+     *
+     * @return The token range scan parallelism.
+     */
+    public int getScanParallelism() {
+        return this.scanParallelism;
+    }
+
+    /**
+     * Gets the approximate number of token ranges into which the ring is split when counting the users in the user
+     * table.
+     *
+     * @return The number of token range splits.
+     */
+    public int getScanSplits() {
+        return this.scanSplits;
+    }
+
+    /**
+     * Gets the number of seconds to wait for schema agreement, for the user table to become ready, and for the users
+     * written to become visible to reads.
+     *
+     * @return The schema timeout in seconds.
+     */
+    public int getSchemaTimeoutSeconds() {
+        return this.schemaTimeoutSeconds;
+    }
+
+    /**
+     * Gets the largest fraction by which the throughput of a measurement window may differ from the mean of its
+     * neighbors for throughput to be taken as stable.
+     *
+     * @return The steady state tolerance in the range {@code (0, 1]}.
+     */
+    public double getSteadyStateTolerance() {
+        return this.steadyStateTolerance;
+    }
+
+    /**
+     * Gets the number of consecutive measurement windows whose throughput must agree for throughput to be taken as
+     * stable.
+     *
+     * @return The number of steady state windows.
+     */
+    public int getSteadyStateWindows() {
+        return this.steadyStateWindows;
+    }
+
+    /**
+     * Gets the path of the file to which a machine-readable summary is written at the end of a load test.
+     *
+     * @return A path ending in {@code .json} or {@code .csv} or {@code null}, if no summary file should be written.
+     */
+    public String getSummaryFile() {
+        return this.summaryFile;
+    }
+
+    /**
+     * Gets the concurrency levels over which a sweep is run: the number of logical clients in {@code threads} and
+     * {@code virtual-threads} modes and the maximum number of requests in flight in {@code async} and
+     * {@code open-loop} modes.
+     *
+     * @return An unmodifiable list of concurrency levels; empty, if concurrency is not swept.
+     */
+    @NonNull
+    public List<Integer> getSweepConcurrency() {
+        return this.sweepConcurrency;
+    }
+
+    /**
+     * Gets the consistency levels over which a sweep is run. Each level is used for both reads and writes.
+     *
+     * @return An unmodifiable list of consistency levels; empty, if consistency is not swept.
+     */
+    @NonNull
+    public List<ConsistencyLevel> getSweepConsistencyLevels() {
+        return this.sweepConsistencyLevels;
+    }
+
+    /**
+     * Gets the values of the driver's {@code advanced.connection.max-requests-per-connection} over which a sweep is
+     * run.
+     *
+     * @return An unmodifiable list of request limits; empty, if the limit is not swept.
+     */
+    @NonNull
+    public List<Integer> getSweepMaxRequests() {
+        return this.sweepMaxRequests;
+    }
+
+    /**
+     * Gets the numbers of connections per node over which a sweep is run. Each number is used for both the local and
+     * the remote connection pool size.
+     *
+     * @return An unmodifiable list of pool sizes; empty, if pool size is not swept.
+     */
+    @NonNull
+    public List<Integer> getSweepPoolSizes() {
+        return this.sweepPoolSizes;
+    }
+
+    /**
+     * Gets the total rate at which requests should be issued.
+     *
+     * @return The target rate in operations per second or zero, if requests should be issued as fast as possible.
+     */
+    public double getTargetRate() {
+        return this.targetRate;
+    }
+
+    /**
+     * Gets the number of logical clients, each of which writes {@link #getWritesPerThread} users.
+     * <p>
+     * In {@link Mode#THREADS threads}, {@link Mode#VIRTUAL_THREADS virtual-threads}, and {@link Mode#WRITE_BEHIND
+     * write-behind} mode each logical client is run on its own thread.
+     *
+     * @return The number of logical clients.
+     */
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+
+    /**
+     * Gets the number of users read per request when verifying the users written by a load test.
+     *
+     * @return The read-back batch size. A value greater than one reads users in groups with a multi-key {@code IN}
+     * query.
+     */
+    public int getVerifyBatchSize() {
+        return this.verifyBatchSize;
+    }
+
+    /**
+     * Gets the maximum number of read requests in flight when verifying the users written by a load test.
+     *
+     * @return The read-back parallelism.
+     */
+    public int getVerifyParallelism() {
+        return this.verifyParallelism;
+    }
+
+    /**
+     * Gets the number of unmeasured operations issued before the measured phase of a load test.
+     *
+     * @return The number of warm-up operations; zero, if the warm-up is bounded by {@link #getWarmUpSeconds duration}
+     *     alone or disabled.
+     */
+    public int getWarmUpOperations() {
+        return this.warmUpOperations;
+    }
+
+    /**
+     * Gets the number of seconds for which unmeasured operations are issued before the measured phase of a load test.
+     *
+     * @return The warm-up duration in seconds; zero, if the warm-up is bounded by {@link #getWarmUpOperations operation
+     *     count} alone or disabled.
+     */
+    public int getWarmUpSeconds() {
+        return this.warmUpSeconds;
+    }
+
+    /**
+     * Gets the number of seconds in each measurement window of the time series kept during a load test.
+     *
+     * @return The window length in seconds.
+     */
+    public int getWindowSeconds() {
+        return this.windowSeconds;
+    }
+
+    /**
+     * Gets the path of the CSV file to which the time series of measurement windows is written at the end of a load
+     * test.
+     *
+     * @return A path or {@code null}, if no time series should be written.
+     */
+    public String getWindowsFile() {
+        return this.windowsFile;
+    }
+
+    /**
+     * Gets the workload profile to run instead of the classic insert-then-read-back load test.
+     *
+     * @return A workload profile or {@code null}, if the classic load test should be run.
+     */
+    public WorkloadProfile getWorkload() {
+        return this.workload;
+    }
+
+    /**
+     * Gets the number of worker processes that run a distributed load test.
+     * <p>
+     * A process with a {@link #getWorkerIndex worker index} is one of the workers; any other process is their {@link
+     * LoadCoordinator coordinator}, which generates no load of its own.
+     *
+     * @return The number of workers or zero, if the load test runs in this process alone.
+     */
+    public int getWorkerCount() {
+        return this.workerCount;
+    }
+
+    /**
+     * Gets the index of this process among the workers of a distributed load test, which selects the shard of the ID
+     * space from which it writes users.
+     *
+     * @return A worker index in the range [0, {@link #getWorkerCount}) or -1, if this process is not a worker.
+     */
+    public int getWorkerIndex() {
+        return this.workerIndex;
+    }
+
+    /**
+     * Gets the maximum number of distinct users held by the {@link WriteBehindBuffer write-behind buffer} in {@link
+     * Mode#WRITE_BEHIND write-behind} mode, counting both queued users and users being written. Writers block when it
+     * is full.
+     *
+     * @return The capacity of the write-behind buffer.
+     */
+    public int getWriteBehindCapacity() {
+        return this.writeBehindCapacity;
+    }
+
+    /**
+     * Gets the longest time that closing the {@link WriteBehindBuffer write-behind buffer} waits for queued and
+     * in-flight users to be written, in {@link Mode#WRITE_BEHIND write-behind} mode. Users not written by then are
+     * counted as abandoned.
+     *
+     * @return The close timeout in seconds.
+     */
+    public int getWriteBehindCloseTimeoutSeconds() {
+        return this.writeBehindCloseTimeoutSeconds;
+    }
+
+    /**
+     * Gets the longest time a user waits in the {@link WriteBehindBuffer write-behind buffer} before it is flushed, in
+     * {@link Mode#WRITE_BEHIND write-behind} mode.
+     *
+     * @return The flush interval in milliseconds.
+     */
+    public int getWriteBehindFlushMillis() {
+        return this.writeBehindFlushMillis;
+    }
+
+    /**
+     * Gets the number of queued users at which the {@link WriteBehindBuffer write-behind buffer} is flushed without
+     * waiting for the flush interval, in {@link Mode#WRITE_BEHIND write-behind} mode. It is also the most users
+     * flushed as a group.
+     *
+     * @return The flush size.
+     */
+    public int getWriteBehindFlushSize() {
+        return this.writeBehindFlushSize;
+    }
+
+    /**
+     * Gets the consistency level at which users are written.
+     *
+     * @return A consistency level or {@code null}, if the driver's configured consistency level should be used.
+     */
+    public ConsistencyLevel getWriteConsistency() {
+        return this.writeConsistency;
+    }
+
+    /**
+     * Gets the number of users written by each logical client.
+     * <p>
+     * When a {@link #getWorkload workload} is run without a duration, this is the number of operations issued by each
+     * logical client.
+     *
+     * @return The number of writes per logical client.
+     */
+    public int getWritesPerThread() {
+        return this.writesPerThread;
+    }
+
+    /**
+     * Gets the total number of writes issued by a load test run.
+     * <p>
+     * In a distributed load test, this is the number of writes issued by each worker.
+     *
+     * @return The product of {@link #getThreadCount} and {@link #getWritesPerThread}.
+     */
+    public long getWriteCount() {
+        return (long) this.threadCount * this.writesPerThread;
+    }
+
+    /**
+     * Gets a value indicating whether writes are admitted by an {@link AdaptiveConcurrencyLimiter adaptive concurrency
+     * limiter} that shrinks when requests are rate limited and grows while they succeed.
+     *
+     * @return {@code true} if the adaptive throttle is enabled; otherwise {@code false}.
+     */
+    public boolean isAdaptiveThrottle() {
+        return this.adaptiveThrottle;
+    }
+
+    /**
+     * Gets a value indicating whether the {@link LoadCoordinator coordinator} of a distributed load test launches its
+     * workers as local processes rather than waiting for workers started elsewhere to connect.
+     *
+     * @return {@code true} if the coordinator launches its workers; otherwise {@code false}.
+     */
+    public boolean isLaunchWorkers() {
+        return this.launchWorkers;
+    }
+
+    /**
+     * Gets a value indicating whether the latency of each operation--or its error, if it fails--should be printed as
+     * it completes.
+     * <p>
+     * This is a debugging aid. Printing is synchronized and slow enough at volume to distort measured latencies.
+     *
+     * @return {@code true} if per-operation output is enabled; otherwise {@code false}.
+     */
+    public boolean isPrintOperations() {
+        return this.printOperations;
+    }
+
+    /**
+     * Gets a value indicating whether an existing user table with a compatible schema should be truncated and reused
+     * rather than dropped and recreated.
+     *
+     * @return {@code true} if a compatible table should be reused; otherwise {@code false}.
+     */
+    public boolean isReuseTable() {
+        return this.reuseTable;
+    }
+
+    /**
+     * Gets a value indicating whether a sweep over a matrix of concurrency levels, consistency levels, pool sizes, and
+     * request limits should be run instead of a single load test.
+     *
+     * @return {@code true} if any sweep dimension has values; otherwise {@code false}.
+     */
+    public boolean isSweep() {
+        return !(this.sweepConcurrency.isEmpty()
+            && this.sweepConsistencyLevels.isEmpty()
+            && this.sweepPoolSizes.isEmpty()
+            && this.sweepMaxRequests.isEmpty());
+    }
+
+    /**
+     * Creates a new {@link Builder builder} initialized with the values of these options.
+     *
+     * @return A new builder.
+     */
+    @NonNull
+    public Builder toBuilder() {
+        final Builder builder = new Builder();
+        builder.mode = this.mode;
+        builder.compareModes = this.compareModes;
+        builder.workload = this.workload;
+        builder.threadCount = this.threadCount;
+        builder.writesPerThread = this.writesPerThread;
+        builder.writeConsistency = this.writeConsistency;
+        builder.readConsistency = this.readConsistency;
+        builder.sweepConcurrency = this.sweepConcurrency;
+        builder.sweepConsistencyLevels = this.sweepConsistencyLevels;
+        builder.sweepPoolSizes = this.sweepPoolSizes;
+        builder.sweepMaxRequests = this.sweepMaxRequests;
+        builder.maxInFlight = this.maxInFlight;
+        builder.asyncThreadCount = this.asyncThreadCount;
+        builder.targetRate = this.targetRate;
+        builder.correctCoordinatedOmission = this.correctCoordinatedOmission;
+        builder.rampUpSteps = this.rampUpSteps;
+        builder.rampUpStepSeconds = this.rampUpStepSeconds;
+        builder.adaptiveThrottle = this.adaptiveThrottle;
+        builder.batchSize = this.batchSize;
+        builder.batchMaxBytes = this.batchMaxBytes;
+        builder.batchMinSize = this.batchMinSize;
+        builder.writeBehindCapacity = this.writeBehindCapacity;
+        builder.writeBehindCloseTimeoutSeconds = this.writeBehindCloseTimeoutSeconds;
+        builder.writeBehindFlushSize = this.writeBehindFlushSize;
+        builder.writeBehindFlushMillis = this.writeBehindFlushMillis;
+        builder.adaptiveThrottleInitialLimit = this.adaptiveThrottleInitialLimit;
+        builder.dataPoolSize = this.dataPoolSize;
+        builder.idStoreBudgetMegabytes = this.idStoreBudgetMegabytes;
+        builder.payloadSize = this.payloadSize;
+        builder.cacheSize = this.cacheSize;
+        builder.cacheTtlSeconds = this.cacheTtlSeconds;
+        builder.printOperations = this.printOperations;
+        builder.reportIntervalSeconds = this.reportIntervalSeconds;
+        builder.windowSeconds = this.windowSeconds;
+        builder.windowsFile = this.windowsFile;
+        builder.steadyStateWindows = this.steadyStateWindows;
+        builder.steadyStateTolerance = this.steadyStateTolerance;
+        builder.warmUpOperations = this.warmUpOperations;
+        builder.warmUpSeconds = this.warmUpSeconds;
+        builder.summaryFile = this.summaryFile;
+        builder.recordingFile = this.recordingFile;
+        builder.metricsPort = this.metricsPort;
+        builder.scanParallelism = this.scanParallelism;
+        builder.scanSplits = this.scanSplits;
+        builder.reuseTable = this.reuseTable;
+        builder.schemaTimeoutSeconds = this.schemaTimeoutSeconds;
+        builder.verifyParallelism = this.verifyParallelism;
+        builder.verifyBatchSize = this.verifyBatchSize;
+        builder.workerCount = this.workerCount;
+        builder.workerIndex = this.workerIndex;
+        builder.coordinator = this.coordinator;
+        builder.coordinatorPort = this.coordinatorPort;
+        builder.launchWorkers = this.launchWorkers;
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadTestOptions(mode=" + this.mode
+            + ", compare-modes=" + this.compareModes
+            + ", workload=" + (this.workload == null ? null : this.workload.getName())
+            + ", threads=" + this.threadCount
+            + ", writes-per-thread=" + this.writesPerThread
+            + ", write-consistency=" + this.writeConsistency
+            + ", read-consistency=" + this.readConsistency
+            + ", sweep-concurrency=" + this.sweepConcurrency
+            + ", sweep-consistency-levels=" + this.sweepConsistencyLevels
+            + ", sweep-pool-sizes=" + this.sweepPoolSizes
+            + ", sweep-max-requests=" + this.sweepMaxRequests
+            + ", max-in-flight=" + this.maxInFlight
+            + ", async-threads=" + this.asyncThreadCount
+            + ", target-rate=" + this.targetRate
+            + ", correct-coordinated-omission=" + this.correctCoordinatedOmission
+            + ", ramp-up-steps=" + this.rampUpSteps
+            + ", ramp-up-step-seconds=" + this.rampUpStepSeconds
+            + ", adaptive-throttle=" + this.adaptiveThrottle
+            + ", adaptive-throttle-initial-limit=" + this.adaptiveThrottleInitialLimit
+            + ", batch-size=" + this.batchSize
+            + ", batch-max-bytes=" + this.batchMaxBytes
+            + ", batch-min-size=" + this.batchMinSize
+            + ", write-behind-capacity=" + this.writeBehindCapacity
+            + ", write-behind-close-timeout-seconds=" + this.writeBehindCloseTimeoutSeconds
+            + ", write-behind-flush-size=" + this.writeBehindFlushSize
+            + ", write-behind-flush-millis=" + this.writeBehindFlushMillis
+            + ", data-pool-size=" + this.dataPoolSize
+            + ", id-store-budget-mb=" + this.idStoreBudgetMegabytes
+            + ", payload-size=" + this.payloadSize
+            + ", cache-size=" + this.cacheSize
+            + ", cache-ttl-seconds=" + this.cacheTtlSeconds
+            + ", print-operations=" + this.printOperations
+            + ", report-interval-seconds=" + this.reportIntervalSeconds
+            + ", window-seconds=" + this.windowSeconds
+            + ", windows-file=" + this.windowsFile
+            + ", steady-state-windows=" + this.steadyStateWindows
+            + ", steady-state-tolerance=" + this.steadyStateTolerance
+            + ", warm-up-operations=" + this.warmUpOperations
+            + ", warm-up-seconds=" + this.warmUpSeconds
+            + ", summary-file=" + this.summaryFile
+            + ", recording-file=" + this.recordingFile
+            + ", metrics-port=" + this.metricsPort
+            + ", scan-parallelism=" + this.scanParallelism
+            + ", scan-splits=" + this.scanSplits
+            + ", reuse-table=" + this.reuseTable
+            + ", schema-timeout-seconds=" + this.schemaTimeoutSeconds
+            + ", verify-parallelism=" + this.verifyParallelism
+            + ", verify-batch-size=" + this.verifyBatchSize
+            + ", workers=" + this.workerCount
+            + ", worker-index=" + this.workerIndex
+            + ", coordinator=" + this.coordinator
+            + ", coordinator-port=" + this.coordinatorPort
+            + ", launch-workers=" + this.launchWorkers + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static boolean getBooleanProperty(final String name, final boolean defaultValue) {
+        final String value = getProperty(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true":
+                return true;
+            case "false":
+                return false;
+            default:
+                throw new IllegalArgumentException(PROPERTY_PREFIX + name + ": expected true or false, not " + value);
+        }
+    }
+
+    private static ConsistencyLevel getConsistencyProperty(final String name) {
+        final String value = getProperty(name, null);
+        return value == null ? null : parseConsistencyLevel(name, value);
+    }
+
+    private static List<ConsistencyLevel> getConsistencyListProperty(final String name) {
+        final List<ConsistencyLevel> values = new ArrayList<>();
+        for (final String value : getProperty(name, "").split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(parseConsistencyLevel(name, value));
+            }
+        }
+        return values;
+    }
+
+    private static double getDoubleProperty(final String name, final double defaultValue) {
+        final String value = getProperty(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (final NumberFormatException error) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + name + ": expected a number, not " + value, error);
+        }
+    }
+
+    private static int getIntProperty(final String name, final int defaultValue) {
+        final String value = getProperty(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (final NumberFormatException error) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + name + ": expected an integer, not " + value, error);
+        }
+    }
+
+    private static List<Integer> getIntListProperty(final String name) {
+        final List<Integer> values = new ArrayList<>();
+        for (final String value : getProperty(name, "").split(",")) {
+            if (!value.trim().isEmpty()) {
+                try {
+                    values.add(Integer.parseInt(value.trim()));
+                } catch (final NumberFormatException error) {
+                    throw new IllegalArgumentException(PROPERTY_PREFIX + name + ": expected a comma-separated list of "
+                        + "integers, not " + getProperty(name, ""), error);
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String getProperty(final String name, final String defaultValue) {
+        final String value = System.getProperty(PROPERTY_PREFIX + name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value;
+    }
+
+    private static ConsistencyLevel parseConsistencyLevel(final String name, final String value) {
+        try {
+            return DefaultConsistencyLevel.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (final IllegalArgumentException error) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + name + ": expected a consistency level such as "
+                + "LOCAL_ONE or QUORUM, not " + value, error);
+        }
+    }
+
+    private static List<Integer> requireAllPositive(final String name, final List<Integer> values) {
+        for (final int value : values) {
+            requirePositive(name, value);
+        }
+        return new ArrayList<>(values);
+    }
+
+    private static int requireNonNegative(final String name, final int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + name + ": expected a non-negative value, not "
+                + value);
+        }
+        return value;
+    }
+
+    private static int requirePositive(final String name, final int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + name + ": expected a positive value, not " + value);
+        }
+        return value;
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * Modes of load generation.
+     */
+    public enum Mode {
+
+        /**
+         * Each logical client runs on its own platform thread and blocks on each request.
+         */
+        THREADS,
+
+        /**
+         * A handful of threads issue requests asynchronously, bounded by a maximum number of in-flight requests.
+         */
+        ASYNC,
+
+        /**
+         * Users are grouped by replica into unlogged batches, which a {@link BulkInserter bulk inserter} sends
+         * asynchronously, bounded by a maximum number of in-flight requests. Rows that do not fill a batch are written
+         * one at a time.
+         */
+        BATCH,
+
+        /**
+         * Requests are issued asynchronously on a fixed schedule at the target rate, regardless of how quickly earlier
+         * requests complete. Latency is measured from each request's intended start time.
+         */
+        OPEN_LOOP,
+
+        /**
+         * Each logical client runs on its own virtual thread and blocks on each request. Requires Java 21 or later.
+         */
+        VIRTUAL_THREADS,
+
+        /**
+         * Each logical client runs on its own platform thread and hands its writes to a {@link WriteBehindBuffer
+         * write-behind buffer}, blocking only while the buffer is full. The buffer coalesces writes to the same user
+         * and flushes them in groups.
+         */
+        WRITE_BEHIND;
+
+        /**
+         * Parses a mode name, ignoring case and treating {@code -} as {@code _}.
+         *
+         * @param value A mode name, e.g., {@code async}.
+         *
+         * @return The mode named by {@code value}.
+         */
+        @NonNull
+        public static Mode parse(@NonNull final String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (final IllegalArgumentException error) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "mode: unrecognized value " + value, error);
+            }
+        }
+
+        /**
+         * Parses a comma-separated list of mode names.
+         *
+         * @param value A comma-separated list of mode names, e.g., {@code threads,async}. Blank entries are ignored.
+         *
+         * @return The modes named by {@code value} in the order given.
+         */
+        @NonNull
+        public static List<Mode> parseList(@NonNull final String value) {
+            final List<Mode> modes = new ArrayList<>();
+            for (final String name : value.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    modes.add(parse(name));
+                }
+            }
+            return modes;
+        }
+
+        /**
+         * Gets a value indicating whether each logical client in this mode blocks on a request before issuing its next
+         * one, so that a slow request delays the requests behind it.
+         *
+         * @return {@code true} if this mode is {@link #THREADS threads} or {@link #VIRTUAL_THREADS virtual-threads};
+         * otherwise {@code false}.
+         */
+        public boolean isClosedLoop() {
+            return this == THREADS || this == VIRTUAL_THREADS;
+        }
+
+        @Override
+        public String toString() {
+            return this.name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    /**
+     * Builds {@link LoadTestOptions load test options}.
+     */
+    public static final class Builder {
+
+        private Mode mode = Mode.THREADS;
+        private List<Mode> compareModes = Collections.emptyList();
+        private WorkloadProfile workload = null;
+        private int threadCount = WorkloadProfile.defaults().getThreadCount();
+        private int writesPerThread = WorkloadProfile.defaults().getOperationsPerThread();
+        private ConsistencyLevel writeConsistency = null;
+        private ConsistencyLevel readConsistency = null;
+        private List<Integer> sweepConcurrency = Collections.emptyList();
+        private List<ConsistencyLevel> sweepConsistencyLevels = Collections.emptyList();
+        private List<Integer> sweepPoolSizes = Collections.emptyList();
+        private List<Integer> sweepMaxRequests = Collections.emptyList();
+        private int maxInFlight = 1024;
+        private int asyncThreadCount = 2;
+        private double targetRate = 0.0;
+        private boolean correctCoordinatedOmission = false;
+        private int rampUpSteps = 0;
+        private int rampUpStepSeconds = 10;
+        private boolean adaptiveThrottle = false;
+        private int adaptiveThrottleInitialLimit = 16;
+        private int batchSize = 20;
+        private int batchMaxBytes = 32 * 1024;
+        private int batchMinSize = 2;
+        private int writeBehindCapacity = 4096;
+        private int writeBehindCloseTimeoutSeconds = 30;
+        private int writeBehindFlushSize = 20;
+        private int writeBehindFlushMillis = 5;
+        private int dataPoolSize = 1024;
+        private int idStoreBudgetMegabytes = 256;
+        private int payloadSize = 0;
+        private int cacheSize = 0;
+        private int cacheTtlSeconds = 300;
+        private boolean printOperations = false;
+        private int reportIntervalSeconds = 10;
+        private int windowSeconds = 1;
+        private String windowsFile = null;
+        private int steadyStateWindows = 5;
+        private double steadyStateTolerance = 0.1;
+        private int warmUpOperations = 0;
+        private int warmUpSeconds = 0;
+        private String summaryFile = null;
+        private String recordingFile = null;
+        private int metricsPort = 0;
+        private int scanParallelism = 8;
+        private int scanSplits = 64;
+        private boolean reuseTable = false;
+        private int schemaTimeoutSeconds = 120;
+        private int verifyParallelism = 32;
+        private int verifyBatchSize = 1;
+        private int workerCount = 0;
+        private int workerIndex = -1;
+        private String coordinator = null;
+        private int coordinatorPort = 0;
+        private boolean launchWorkers = true;
+
+        private Builder() {
+        }
+
+        /**
+         * Builds a new {@link LoadTestOptions} instance from the values set on this builder.
+         *
+         * @return A new set of load test options.
+         */
+        @NonNull
+        public LoadTestOptions build() {
+            return new LoadTestOptions(this);
+        }
+
+        /**
+         * Sets whether writes are admitted by an {@link AdaptiveConcurrencyLimiter adaptive concurrency limiter}.
+         *
+         * @param value {@code true} to enable the adaptive throttle; otherwise {@code false}.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder adaptiveThrottle(final boolean value) {
+            this.adaptiveThrottle = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of writes initially allowed in flight when the adaptive throttle is enabled.
+         *
+         * @param value A positive number of writes.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder adaptiveThrottleInitialLimit(final int value) {
+            this.adaptiveThrottleInitialLimit = requirePositive("adaptive-throttle-initial-limit", value);
+            return this;
+        }
+
+        /**
+         * Sets the number of threads used to issue requests in {@link Mode#ASYNC async} mode.
+         *
+         * @param value A positive number of threads.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder asyncThreadCount(final int value) {
+            this.asyncThreadCount = requirePositive("async-threads", value);
+            return this;
+        }
+
+        /**
+         * Sets the maximum estimated size of a batch in {@link Mode#BATCH batch} mode.
+         *
+         * @param value A positive number of bytes.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder batchMaxBytes(final int value) {
+            this.batchMaxBytes = requirePositive("batch-max-bytes", value);
+            return this;
+        }
+
+        /**
+         * Sets the minimum number of rows sent as a batch in {@link Mode#BATCH batch} mode.
+         *
+         * @param value A positive number of rows no greater than the {@link #batchSize batch size}.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder batchMinSize(final int value) {
+            this.batchMinSize = requirePositive("batch-min-size", value);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of rows in a batch in {@link Mode#BATCH batch} mode.
+         *
+         * @param value A positive number of rows.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder batchSize(final int value) {
+            this.batchSize = requirePositive("batch-size", value);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of users held by the client-side {@link UserCache user cache}.
+         *
+         * @param value A non-negative number of users. Zero disables the cache.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder cacheSize(final int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "cache-size: expected a non-negative value, not "
+                    + value);
+            }
+            this.cacheSize = value;
+            return this;
+        }
+
+        /**
+         * Sets how long a user may be served from the client-side {@link UserCache user cache} after it was read or
+         * written.
+         *
+         * @param value A positive number of seconds.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder cacheTtlSeconds(final int value) {
+            this.cacheTtlSeconds = requirePositive("cache-ttl-seconds", value);
+            return this;
+        }
+
+        /**
+         * Sets the modes whose write phases should be run one after another and compared.
+         *
+         * @param value A list of load test modes; empty, if no comparison should be run.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder compareModes(@NonNull final List<Mode> value) {
+            this.compareModes = new ArrayList<>(value);
+            return this;
+        }
+
+        /**
+         * Sets the address of the coordinator to which a worker of a distributed load test reports.
+         *
+         * @param value The coordinator's address as {@code host:port} or {@code null} or an empty string, if this
+         *              process is not a worker.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder coordinator(final String value) {
+            this.coordinator = value == null || value.trim().isEmpty() ? null : value.trim();
+            return this;
+        }
+
+        /**
+         * Sets the port on which the coordinator of a distributed load test listens for workers.
+         *
+         * @param value A port number or zero, to listen on an ephemeral port.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder coordinatorPort(final int value) {
+            if (value < 0 || value > 0xFFFF) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "coordinator-port: expected a value in the range "
+                    + "[0, 65535], not " + value);
+            }
+            this.coordinatorPort = value;
+            return this;
+        }
+
+        /**
+         * Sets whether recorded latencies are corrected for coordinated omission when running at a {@link
+         * #targetRate target rate}. Correction requires {@link Mode#isClosedLoop closed-loop} mode.
+         *
+         * @param value {@code true} to correct for coordinated omission; otherwise {@code false}.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder correctCoordinatedOmission(final boolean value) {
+            this.correctCoordinatedOmission = value;
+            return this;
+        }
+
+        /**
+         * Sets the target number of distinct names and of distinct cities in the {@link TestDataArena test data arena}.
+         *
+         * @param value A positive number of names and cities.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder dataPoolSize(final int value) {
+            this.dataPoolSize = requirePositive("data-pool-size", value);
+            return this;
+        }
+
+        /**
+         * Sets the memory budget of the {@link UserIdStore store} that holds the IDs of the users written.
+         *
+         * @param value A positive number of megabytes.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder idStoreBudgetMegabytes(final int value) {
+            this.idStoreBudgetMegabytes = requirePositive("id-store-budget-mb", value);
+            return this;
+        }
+
+        /**
+         * Sets whether the coordinator of a distributed load test launches its workers as local processes.
+         *
+         * @param value {@code true} to launch the workers locally; {@code false} to wait for workers started
+         *              elsewhere.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder launchWorkers(final boolean value) {
+            this.launchWorkers = value;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of in-flight requests in {@link Mode#ASYNC async} or {@link Mode#BATCH batch} mode.
+         *
+         * @param value A positive number of requests.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder maxInFlight(final int value) {
+            this.maxInFlight = requirePositive("max-in-flight", value);
+            return this;
+        }
+
+        /**
+         * Sets the port on which driver metrics are served in Prometheus text format.
+         *
+         * @param value A port number or zero to disable the metrics endpoint.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder metricsPort(final int value) {
+            if (value < 0 || value > 65535) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "metrics-port: expected a port number, not "
+                    + value);
+            }
+            this.metricsPort = value;
+            return this;
+        }
+
+        /**
+         * Sets the load test mode.
+         *
+         * @param value A load test mode.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder mode(@NonNull final Mode value) {
+            this.mode = value;
+            return this;
+        }
+
+        /**
+         * Sets the size of the payload written with each user.
+         *
+         * @param value A non-negative number of characters. Zero writes users without a payload.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder payloadSize(final int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "payload-size: expected a non-negative value, "
+                    + "not " + value);
+            }
+            this.payloadSize = value;
+            return this;
+        }
+
+        /**
+         * Sets whether the latency of each operation--or its error, if it fails--should be printed as it completes.
+         *
+         * @param value {@code true} to enable per-operation output; otherwise {@code false}.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder printOperations(final boolean value) {
+            this.printOperations = value;
+            return this;
+        }
+
+        /**
+         * Sets the duration of each ramp-up step in {@link Mode#OPEN_LOOP open-loop} mode.
+         *
+         * @param value A positive number of seconds.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder rampUpStepSeconds(final int value) {
+            this.rampUpStepSeconds = requirePositive("ramp-up-step-seconds", value);
+            return this;
+        }
+
+        /**
+         * Sets the number of steps taken to ramp up to the target rate in {@link Mode#OPEN_LOOP open-loop} mode.
+         *
+         * @param value A non-negative number of steps.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder rampUpSteps(final int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "ramp-up-steps: expected a non-negative value, "
+                    + "not " + value);
+            }
+            this.rampUpSteps = value;
+            return this;
+        }
+
+        /**
+         * Sets the consistency level at which users are read, counted, and scanned.
+         *
+         * @param value A consistency level or {@code null} to use the driver's configured consistency level.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder readConsistency(final ConsistencyLevel value) {
+            this.readConsistency = value;
+            return this;
+        }
+
+        /**
+         * Sets the path of the file to which a Java Flight Recorder recording of the run is dumped.
+         *
+         * @param value A path, conventionally ending in {@code .jfr}, or {@code null} or an empty string, if no
+         *              recording should be made.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder recordingFile(final String value) {
+            this.recordingFile = value == null || value.trim().isEmpty() ? null : value.trim();
+            return this;
+        }
+
+        /**
+         * Sets the number of seconds between interval reports of throughput, errors, and latency.
+         *
+         * @param value A non-negative number of seconds. Zero disables interval reports.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder reportIntervalSeconds(final int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "report-interval-seconds: expected a non-negative "
+                    + "value, not " + value);
+            }
+            this.reportIntervalSeconds = value;
+            return this;
+        }
+
+        /**
+         * Sets a value indicating whether an existing user table with a compatible schema should be truncated and
+         * reused rather than dropped and recreated.
+         *
+         * @param value {@code true} to reuse a compatible table.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder reuseTable(final boolean value) {
+            this.reuseTable = value;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of token ranges counted at once when counting the users in the user table.
+         *
+         * @param value A positive number of token ranges.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder scanParallelism(final int value) {
+            this.scanParallelism = requirePositive("scan-parallelism", value);
+            return this;
+        }
+
+        /**
+         * Sets the approximate number of token ranges into which the ring is split when counting the users in the
+         * user table.
+         *
+         * @param value A positive number of token ranges.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder scanSplits(final int value) {
+            this.scanSplits = requirePositive("scan-splits", value);
+            return this;
+        }
+
+        /**
+         * Sets the number of seconds to wait for schema agreement, for the user table to become ready, and for the
+         * users written to become visible to reads.
+         *
+         * @param value A positive number of seconds.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder schemaTimeoutSeconds(final int value) {
+            this.schemaTimeoutSeconds = requirePositive("schema-timeout-seconds", value);
+            return this;
+        }
+
+        /**
+         * Sets the largest fraction by which the throughput of a measurement window may differ from the mean of its
+         * neighbors for throughput to be taken as stable.
+         *
+         * @param value A fraction greater than zero and at most one, e.g., {@code 0.1} for ten percent.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder steadyStateTolerance(final double value) {
+            if (!(value > 0.0 && value <= 1.0)) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "steady-state-tolerance: expected a number "
+                    + "greater than 0 and at most 1, not " + value);
+            }
+            this.steadyStateTolerance = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of consecutive measurement windows whose throughput must agree for throughput to be taken as
+         * stable.
+         *
+         * @param value A positive number of windows.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder steadyStateWindows(final int value) {
+            this.steadyStateWindows = requirePositive("steady-state-windows", value);
+            return this;
+        }
+
+        /**
+         * Sets the path of the file to which a machine-readable summary is written at the end of a load test.
+         *
+         * @param value A path ending in {@code .json} or {@code .csv} or {@code null} or an empty string, if no
+         *              summary file should be written.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder summaryFile(final String value) {
+            this.summaryFile = value == null || value.trim().isEmpty() ? null : value.trim();
+            return this;
+        }
+
+        /**
+         * Sets the concurrency levels over which a sweep is run: the number of logical clients in {@code threads} and
+         * {@code virtual-threads} modes and the maximum number of requests in flight in {@code async} and
+         * {@code open-loop} modes.
+         *
+         * @param value A list of positive concurrency levels; empty, if concurrency should not be swept.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder sweepConcurrency(@NonNull final List<Integer> value) {
+            this.sweepConcurrency = requireAllPositive("sweep-concurrency", value);
+            return this;
+        }
+
+        /**
+         * Sets the consistency levels over which a sweep is run. Each level is used for both reads and writes.
+         *
+         * @param value A list of consistency levels; empty, if consistency should not be swept.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder sweepConsistencyLevels(@NonNull final List<ConsistencyLevel> value) {
+            this.sweepConsistencyLevels = new ArrayList<>(value);
+            return this;
+        }
+
+        /**
+         * Sets the values of the driver's {@code advanced.connection.max-requests-per-connection} over which a sweep
+         * is run.
+         *
+         * @param value A list of positive request limits; empty, if the limit should not be swept.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder sweepMaxRequests(@NonNull final List<Integer> value) {
+            this.sweepMaxRequests = requireAllPositive("sweep-max-requests", value);
+            return this;
+        }
+
+        /**
+         * Sets the numbers of connections per node over which a sweep is run. Each number is used for both the local
+         * and the remote connection pool size.
+         *
+         * @param value A list of positive pool sizes; empty, if pool size should not be swept.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder sweepPoolSizes(@NonNull final List<Integer> value) {
+            this.sweepPoolSizes = requireAllPositive("sweep-pool-sizes", value);
+            return this;
+        }
+
+        /**
+         * Sets the total rate at which requests should be issued.
+         *
+         * @param value A rate in operations per second or zero to issue requests as fast as possible.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder targetRate(final double value) {
+            if (!(value >= 0.0) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "target-rate: expected a non-negative number, not "
+                    + value);
+            }
+            this.targetRate = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of logical clients.
+         *
+         * @param value A positive number of logical clients.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder threadCount(final int value) {
+            this.threadCount = requirePositive("threads", value);
+            return this;
+        }
+
+        /**
+         * Sets the number of users read per request when verifying the users written by a load test.
+         *
+         * @param value A positive number of users.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder verifyBatchSize(final int value) {
+            this.verifyBatchSize = requirePositive("verify-batch-size", value);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of read requests in flight when verifying the users written by a load test.
+         *
+         * @param value A positive number of requests.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder verifyParallelism(final int value) {
+            this.verifyParallelism = requirePositive("verify-parallelism", value);
+            return this;
+        }
+
+        /**
+         * Sets the number of unmeasured operations issued before the measured phase of a load test.
+         *
+         * @param value A non-negative number of operations. Zero bounds the warm-up by duration alone or, if the
+         *              warm-up duration is zero too, disables it.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder warmUpOperations(final int value) {
+            this.warmUpOperations = requireNonNegative("warm-up-operations", value);
+            return this;
+        }
+
+        /**
+         * Sets the number of seconds for which unmeasured operations are issued before the measured phase of a load
+         * test.
+         *
+         * @param value A non-negative number of seconds. Zero bounds the warm-up by operation count alone or, if the
+         *              warm-up operation count is zero too, disables it.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder warmUpSeconds(final int value) {
+            this.warmUpSeconds = requireNonNegative("warm-up-seconds", value);
+            return this;
+        }
+
+        /**
+         * Sets the number of seconds in each measurement window of the time series kept during a load test.
+         *
+         * @param value A positive number of seconds.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder windowSeconds(final int value) {
+            this.windowSeconds = requirePositive("window-seconds", value);
+            return this;
+        }
+
+        /**
+         * Sets the path of the CSV file to which the time series of measurement windows is written at the end of a
+         * load test.
+         *
+         * @param value A path or {@code null} or an empty string, if no time series should be written.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder windowsFile(final String value) {
+            this.windowsFile = value == null || value.trim().isEmpty() ? null : value.trim();
+            return this;
+        }
+
+        /**
+         * Sets the number of worker processes that run a distributed load test.
+         *
+         * @param value A non-negative number of workers. Zero runs the load test in this process alone.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder workerCount(final int value) {
+            this.workerCount = requireNonNegative("workers", value);
+            return this;
+        }
+
+        /**
+         * Sets the index of this process among the workers of a distributed load test.
+         *
+         * @param value A worker index less than the {@link #workerCount worker count} or -1, if this process is not a
+         *              worker.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder workerIndex(final int value) {
+            if (value < -1) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "worker-index: expected a non-negative value or "
+                    + "-1, not " + value);
+            }
+            this.workerIndex = value;
+            return this;
+        }
+
+        /**
+         * Sets the workload profile to run instead of the classic insert-then-read-back load test.
+         * <p>
+         * A profile also sets the number of threads, writes per thread, payload size, and target rate to its own
+         * values, which may then be overridden.
+         *
+         * @param value A workload profile or {@code null} to run the classic load test.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder workload(final WorkloadProfile value) {
+            this.workload = value;
+            if (value != null) {
+                this.threadCount = value.getThreadCount();
+                this.writesPerThread = value.getOperationsPerThread();
+                this.payloadSize = value.getPayloadSize();
+                this.targetRate = value.getTargetRate();
+            }
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of distinct users held by the {@link WriteBehindBuffer write-behind buffer} in {@link
+         * Mode#WRITE_BEHIND write-behind} mode.
+         *
+         * @param value A positive number of users.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder writeBehindCapacity(final int value) {
+            this.writeBehindCapacity = requirePositive("write-behind-capacity", value);
+            return this;
+        }
+
+        /**
+         * Sets the longest time that closing the {@link WriteBehindBuffer write-behind buffer} waits for queued and
+         * in-flight users to be written, in {@link Mode#WRITE_BEHIND write-behind} mode.
+         *
+         * @param value A positive number of seconds.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder writeBehindCloseTimeoutSeconds(final int value) {
+            this.writeBehindCloseTimeoutSeconds = requirePositive("write-behind-close-timeout-seconds", value);
+            return this;
+        }
+
+        /**
+         * Sets the longest time a user waits in the {@link WriteBehindBuffer write-behind buffer} before it is flushed,
+         * in {@link Mode#WRITE_BEHIND write-behind} mode.
+         *
+         * @param value A positive number of milliseconds.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder writeBehindFlushMillis(final int value) {
+            this.writeBehindFlushMillis = requirePositive("write-behind-flush-millis", value);
+            return this;
+        }
+
+        /**
+         * Sets the number of queued users at which the {@link WriteBehindBuffer write-behind buffer} is flushed, in
+         * {@link Mode#WRITE_BEHIND write-behind} mode.
+         *
+         * @param value A positive number of users no greater than the {@link #writeBehindCapacity capacity}.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder writeBehindFlushSize(final int value) {
+            this.writeBehindFlushSize = requirePositive("write-behind-flush-size", value);
+            return this;
+        }
+
+        /**
+         * Sets the consistency level at which users are written.
+         *
+         * @param value A consistency level or {@code null} to use the driver's configured consistency level.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder writeConsistency(final ConsistencyLevel value) {
+            this.writeConsistency = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of writes per logical client.
+         *
+         * @param value A positive number of writes.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder writesPerThread(final int value) {
+            this.writesPerThread = requirePositive("writes-per-thread", value);
+            return this;
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,195 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The connection of a worker process to the {@link LoadCoordinator coordinator} of a distributed load test.
+ * <p>
+ * A worker {@link #connect connects} once it is ready to write, {@link #awaitStart waits} for the coordinator to start
+ * all workers together, and {@link #report reports} its results when its run is done.
+ */
+public final class LoadWorker implements AutoCloseable {
+
+    private final int index;
+    private final Socket socket;
+
+    private LoadWorker(final int index, final Socket socket) {
+        this.index = index;
+        this.socket = socket;
+    }
+
+    // region Methods
+
+    /**
+     * Waits for the coordinator to start the load test.
+     *
+     * @param timeout How long to wait.
+     * @param unit    The unit of {@code timeout}.
+     *
+     * @throws IOException If the coordinator did not start the load test within the timeout or disconnected.
+     */
+    public void awaitStart(final long timeout, @NonNull final TimeUnit unit) throws IOException {
+
+        this.socket.setSoTimeout((int) Math.min(Math.max(unit.toMillis(timeout), 1L), Integer.MAX_VALUE));
+        final int signal = this.socket.getInputStream().read();
+
+        if (signal < 0) {
+            throw new EOFException("coordinator disconnected before starting worker " + this.index);
+        }
+        if (signal != LoadCoordinator.START) {
+            throw new IOException("expected a start signal from the coordinator, not " + signal);
+        }
+
+        this.socket.setSoTimeout(0);
+    }
+
+    /**
+     * Closes the connection to the coordinator.
+     */
+    @Override
+    public void close() throws IOException {
+        this.socket.close();
+    }
+
+    /**
+     * Connects to the coordinator and says hello, retrying until the coordinator is listening or the timeout elapses.
+     *
+     * @param coordinator The address of the coordinator as {@code host:port}.
+     * @param index       The index of this worker.
+     * @param workerCount The number of workers that take part in the load test.
+     * @param timeout     How long to keep trying to connect.
+     * @param unit        The unit of {@code timeout}.
+     *
+     * @return A new connection to the coordinator.
+     *
+     * @throws IOException          If the coordinator could not be reached within the timeout.
+     * @throws InterruptedException If interrupted while waiting between attempts.
+     */
+    @NonNull
+    public static LoadWorker connect(
+        @NonNull final String coordinator,
+        final int index,
+        final int workerCount,
+        final long timeout,
+        @NonNull final TimeUnit unit) throws IOException, InterruptedException {
+
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive, not " + workerCount);
+        }
+        if (index < 0 || index >= workerCount) {
+            throw new IndexOutOfBoundsException("index must be in [0, " + workerCount + "), not " + index);
+        }
+
+        final InetSocketAddress address = parseAddress(coordinator);
+        final AtomicReference<Socket> socket = new AtomicReference<>();
+        final AtomicReference<IOException> lastError = new AtomicReference<>();
+
+        new Backoff(50L, 2_000L, Math.max(unit.toMillis(timeout), 0L), TimeUnit.MILLISECONDS).await(
+            "coordinator " + coordinator,
+            () -> {
+                final Socket candidate = new Socket();
+                try {
+                    candidate.connect(
+                        new InetSocketAddress(address.getHostString(), address.getPort()),
+                        (int) TimeUnit.SECONDS.toMillis(10));
+                    socket.set(candidate);
+                    return true;
+                } catch (final IOException error) {
+                    lastError.set(error);
+                    try {
+                        candidate.close();
+                    } catch (final IOException ignored) {
+                        // nothing to release
+                    }
+                    return false;
+                }
+            });
+
+        if (socket.get() == null) {
+            throw new IOException("could not connect to coordinator " + coordinator + " within " + timeout + " "
+                + unit, lastError.get());
+        }
+
+        final LoadWorker worker = new LoadWorker(index, socket.get());
+
+        try {
+            final DataOutputStream output = new DataOutputStream(worker.socket.getOutputStream());
+            output.writeInt(LoadCoordinator.MAGIC);
+            output.writeInt(LoadCoordinator.VERSION);
+            output.writeInt(index);
+            output.writeInt(workerCount);
+            output.flush();
+        } catch (final IOException error) {
+            worker.close();
+            throw error;
+        }
+
+        return worker;
+    }
+
+    /**
+     * Gets the index of this worker.
+     *
+     * @return The index of this worker.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Sends the report of this worker's run to the coordinator.
+     *
+     * @param report The report of this worker's run.
+     *
+     * @throws IOException If the report cannot be sent.
+     */
+    public void report(@NonNull final LoadReport report) throws IOException {
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(this.socket.getOutputStream()));
+        report.writeTo(output);
+        output.flush();
+    }
+
+    @Override
+    public String toString() {
+        return "LoadWorker(index=" + this.index + ", coordinator=" + this.socket.getRemoteSocketAddress() + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static InetSocketAddress parseAddress(final String coordinator) {
+
+        final int separator = coordinator.lastIndexOf(':');
+
+        if (separator <= 0 || separator == coordinator.length() - 1) {
+            throw new IllegalArgumentException("coordinator must be host:port, not " + coordinator);
+        }
+
+        final int port;
+
+        try {
+            port = Integer.parseInt(coordinator.substring(separator + 1).trim());
+        } catch (final NumberFormatException error) {
+            throw new IllegalArgumentException("coordinator must be host:port, not " + coordinator, error);
+        }
+
+        // Unresolved, so that the host name is looked up again on each attempt to connect
+
+        return InetSocketAddress.createUnresolved(coordinator.substring(0, separator).trim(), port);
+    }
+
+    // endregion
+}
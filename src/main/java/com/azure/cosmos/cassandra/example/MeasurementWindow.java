@@ -0,0 +1,252 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+
+/**
+ * The throughput, error count, and latencies of one measurement window of a load test, as harvested by a {@link
+ * MetricsReporter metrics reporter}.
+ * <p>
+ * A window keeps its write and read latency histograms in compressed form, so that a run of many short windows can be
+ * kept in memory, and decompresses them on demand. The percentiles shown in the time series are computed once, when
+ * the window is created.
+ */
+public final class MeasurementWindow {
+
+    /**
+     * The header row of the time series written by {@link MetricsReporter#writeWindows}.
+     */
+    public static final String CSV_HEADER = "window,start-seconds,seconds,complete,write-ops-per-second,write-p50-ms,"
+        + "write-p99-ms,read-ops-per-second,read-p50-ms,read-p99-ms,errors";
+
+    private static final double NANOS_PER_MILLI = 1E6;
+    private static final double NANOS_PER_SECOND = 1E9;
+
+    private final int index;
+    private final long startNanos;
+    private final long elapsedNanos;
+    private final boolean complete;
+    private final long writeCount;
+    private final long readCount;
+    private final long errorCount;
+    private final long writeP50Nanos;
+    private final long writeP99Nanos;
+    private final long readP50Nanos;
+    private final long readP99Nanos;
+    private final byte[] writeHistogram;
+    private final byte[] readHistogram;
+
+    /**
+     * Initializes a new measurement window.
+     *
+     * @param index        The position of the window in its run, counting from zero.
+     * @param startNanos   The start of the window, in nanoseconds since the start of its run.
+     * @param elapsedNanos The length of the window in nanoseconds.
+     * @param complete     {@code false}, if the window was cut short by the end of its run.
+     * @param writes       A histogram of the write latencies recorded in the window.
+     * @param reads        A histogram of the read latencies recorded in the window.
+     * @param errorCount   The number of errors counted in the window.
+     */
+    public MeasurementWindow(
+        final int index,
+        final long startNanos,
+        final long elapsedNanos,
+        final boolean complete,
+        @NonNull final Histogram writes,
+        @NonNull final Histogram reads,
+        final long errorCount) {
+
+        if (elapsedNanos <= 0) {
+            throw new IllegalArgumentException("elapsedNanos must be positive, not " + elapsedNanos);
+        }
+
+        this.index = index;
+        this.startNanos = startNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.complete = complete;
+        this.writeCount = writes.getTotalCount();
+        this.readCount = reads.getTotalCount();
+        this.errorCount = errorCount;
+        this.writeP50Nanos = writes.getValueAtPercentile(50.0);
+        this.writeP99Nanos = writes.getValueAtPercentile(99.0);
+        this.readP50Nanos = reads.getValueAtPercentile(50.0);
+        this.readP99Nanos = reads.getValueAtPercentile(99.0);
+        this.writeHistogram = compress(writes);
+        this.readHistogram = compress(reads);
+    }
+
+    // region Methods
+
+    /**
+     * Gets the length of the window.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Gets the number of errors counted in the window.
+     *
+     * @return The error count.
+     */
+    public long getErrorCount() {
+        return this.errorCount;
+    }
+
+    /**
+     * Gets the position of the window in its run.
+     *
+     * @return The index of the window, counting from zero.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Gets the number of reads recorded in the window.
+     *
+     * @return The read count.
+     */
+    public long getReadCount() {
+        return this.readCount;
+    }
+
+    /**
+     * Decompresses the histogram of the read latencies recorded in the window.
+     *
+     * @return A new histogram of read latencies in nanoseconds.
+     */
+    @NonNull
+    public Histogram getReadHistogram() {
+        return decompress(this.readHistogram);
+    }
+
+    /**
+     * Gets the rate at which reads completed in the window.
+     *
+     * @return The read throughput in operations per second.
+     */
+    public double getReadThroughput() {
+        return this.readCount * NANOS_PER_SECOND / this.elapsedNanos;
+    }
+
+    /**
+     * Gets the start of the window.
+     *
+     * @return The start of the window, in nanoseconds since the start of its run.
+     */
+    public long getStartNanos() {
+        return this.startNanos;
+    }
+
+    /**
+     * Gets the rate at which reads and writes completed in the window.
+     *
+     * @return The throughput in operations per second.
+     */
+    public double getThroughput() {
+        return (this.writeCount + this.readCount) * NANOS_PER_SECOND / this.elapsedNanos;
+    }
+
+    /**
+     * Gets the number of writes recorded in the window.
+     *
+     * @return The write count.
+     */
+    public long getWriteCount() {
+        return this.writeCount;
+    }
+
+    /**
+     * Decompresses the histogram of the write latencies recorded in the window.
+     *
+     * @return A new histogram of write latencies in nanoseconds.
+     */
+    @NonNull
+    public Histogram getWriteHistogram() {
+        return decompress(this.writeHistogram);
+    }
+
+    /**
+     * Gets the rate at which writes completed in the window.
+     *
+     * @return The write throughput in operations per second.
+     */
+    public double getWriteThroughput() {
+        return this.writeCount * NANOS_PER_SECOND / this.elapsedNanos;
+    }
+
+    /**
+     * Gets a value indicating whether the window ran its full length.
+     *
+     * @return {@code false}, if the window was cut short by the end of its run; otherwise {@code true}.
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * Formats the window as a row of the time series written by {@link MetricsReporter#writeWindows}.
+     *
+     * @return A row of comma-separated values in the order given by {@link #CSV_HEADER}.
+     */
+    @NonNull
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%d,%.3f,%.3f,%b,%.1f,%.3f,%.3f,%.1f,%.3f,%.3f,%d",
+            this.index,
+            this.startNanos / NANOS_PER_SECOND,
+            this.elapsedNanos / NANOS_PER_SECOND,
+            this.complete,
+            this.getWriteThroughput(),
+            this.writeP50Nanos / NANOS_PER_MILLI,
+            this.writeP99Nanos / NANOS_PER_MILLI,
+            this.getReadThroughput(),
+            this.readP50Nanos / NANOS_PER_MILLI,
+            this.readP99Nanos / NANOS_PER_MILLI,
+            this.errorCount);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "MeasurementWindow(index=%d, start-seconds=%.1f, write=%.1f ops/s, "
+                + "read=%.1f ops/s, errors=%d%s)",
+            this.index,
+            this.startNanos / NANOS_PER_SECOND,
+            this.getWriteThroughput(),
+            this.getReadThroughput(),
+            this.errorCount,
+            this.complete ? "" : ", partial");
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static byte[] compress(final Histogram histogram) {
+        final ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        final int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        final byte[] bytes = new byte[length];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Histogram decompress(final byte[] bytes) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0L);
+        } catch (final DataFormatException error) {
+            throw new IllegalStateException("could not decompress histogram", error);
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,419 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Reports throughput, error counts, and latency percentiles for each interval of a load test from a background thread.
+ * <p>
+ * Every {@code windowSeconds} the reporter harvests the latencies recorded since the end of the previous window from
+ * each {@link LatencyRecorder latency recorder} and keeps them as a {@link MeasurementWindow measurement window}, so
+ * that the run can be analyzed as a time series--by a {@link SteadyStateDetector steady state detector}, say. Every
+ * {@code intervalSeconds} it prints one line covering the windows since its last report. Harvested latencies remain
+ * part of each recorder's {@link LatencyRecorder#getTotalHistogram total}, so that end-of-run totals are unaffected.
+ * The reporter also writes end-of-run summaries in JSON or CSV form and time series in CSV form.
+ */
+public final class MetricsReporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsReporter.class);
+    private static final double NANOS_PER_MILLI = 1E6;
+    private static final double NANOS_PER_SECOND = 1E9;
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final LatencyRecorder writeLatency;
+    private final LatencyRecorder readLatency;
+    private final LongSupplier errorCount;
+    private final long intervalSeconds;
+    private final long windowSeconds;
+    private final PrintStream out;
+    private final List<MeasurementWindow> windows = new ArrayList<>();
+
+    private ScheduledExecutorService executor;
+    private long startNanos;
+    private long lastWindowNanos;
+    private long lastReportNanos;
+    private long lastWindowErrorCount;
+    private long lastErrorCount;
+    private Histogram reportWrites;
+    private Histogram reportReads;
+
+    /**
+     * Initializes a new metrics reporter whose measurement windows are as long as its report interval.
+     *
+     * @param writeLatency    Recorder of write latencies.
+     * @param readLatency     Recorder of read latencies.
+     * @param errorCount      Supplier of the total number of errors so far.
+     * @param intervalSeconds Number of seconds between reports or zero, if no interval reports should be printed.
+     * @param out             Stream to which reports are printed.
+     */
+    public MetricsReporter(
+        @NonNull final LatencyRecorder writeLatency,
+        @NonNull final LatencyRecorder readLatency,
+        @NonNull final LongSupplier errorCount,
+        final long intervalSeconds,
+        @NonNull final PrintStream out) {
+
+        this(writeLatency, readLatency, errorCount, intervalSeconds, intervalSeconds, out);
+    }
+
+    /**
+     * Initializes a new metrics reporter.
+     *
+     * @param writeLatency    Recorder of write latencies.
+     * @param readLatency     Recorder of read latencies.
+     * @param errorCount      Supplier of the total number of errors so far.
+     * @param intervalSeconds Number of seconds between reports or zero, if no interval reports should be printed.
+     * @param windowSeconds   Number of seconds in each measurement window or zero, if no windows should be kept and
+     *                        no interval reports printed.
+     * @param out             Stream to which reports are printed.
+     */
+    public MetricsReporter(
+        @NonNull final LatencyRecorder writeLatency,
+        @NonNull final LatencyRecorder readLatency,
+        @NonNull final LongSupplier errorCount,
+        final long intervalSeconds,
+        final long windowSeconds,
+        @NonNull final PrintStream out) {
+
+        if (intervalSeconds < 0) {
+            throw new IllegalArgumentException("intervalSeconds must be non-negative, not " + intervalSeconds);
+        }
+        if (windowSeconds < 0) {
+            throw new IllegalArgumentException("windowSeconds must be non-negative, not " + windowSeconds);
+        }
+
+        this.writeLatency = writeLatency;
+        this.readLatency = readLatency;
+        this.errorCount = errorCount;
+        this.intervalSeconds = intervalSeconds;
+        this.windowSeconds = windowSeconds;
+        this.out = out;
+    }
+
+    // region Methods
+
+    /**
+     * Gets the measurement windows harvested so far.
+     *
+     * @return A snapshot of the time series, in the order the windows were measured.
+     */
+    @NonNull
+    public synchronized List<MeasurementWindow> getWindows() {
+        return Collections.unmodifiableList(new ArrayList<>(this.windows));
+    }
+
+    /**
+     * Starts harvesting measurement windows and printing interval reports, if a window length was specified.
+     */
+    public synchronized void start() {
+
+        if (this.executor != null) {
+            throw new IllegalStateException("reporter already started");
+        }
+
+        this.startNanos = System.nanoTime();
+        this.lastWindowNanos = this.startNanos;
+        this.lastReportNanos = this.startNanos;
+        this.lastWindowErrorCount = this.errorCount.getAsLong();
+        this.lastErrorCount = this.lastWindowErrorCount;
+        this.reportWrites = new Histogram(SIGNIFICANT_DIGITS);
+        this.reportReads = new Histogram(SIGNIFICANT_DIGITS);
+
+        if (this.windowSeconds == 0) {
+            return;
+        }
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.executor.scheduleAtFixedRate(() -> this.harvest(true), this.windowSeconds, this.windowSeconds,
+            TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops harvesting measurement windows, harvests the partial window since the last one, and prints a final report
+     * for the partial interval since the last one, if interval reports are printed.
+     *
+     * @throws InterruptedException If interrupted while waiting for a report in progress to complete.
+     */
+    public void stop() throws InterruptedException {
+
+        final ScheduledExecutorService value;
+
+        synchronized (this) {
+            value = this.executor;
+        }
+
+        if (value == null) {
+            return;
+        }
+
+        value.shutdown();
+        value.awaitTermination(this.windowSeconds, TimeUnit.SECONDS);
+        this.harvest(false);
+
+        if (this.intervalSeconds > 0) {
+            this.report();
+        }
+    }
+
+    /**
+     * Adds the count, mean, percentiles, and maximum of a histogram of latencies to a summary.
+     *
+     * @param summary   A summary to which entries named {@code <prefix>-count}, {@code <prefix>-mean-ms}, etc. are
+     *                  added.
+     * @param prefix    A prefix for the names of the entries, e.g., {@code write-latency}.
+     * @param histogram A histogram of latencies in nanoseconds.
+     */
+    public static void putLatency(
+        @NonNull final Map<String, Object> summary,
+        @NonNull final String prefix,
+        @NonNull final Histogram histogram) {
+
+        summary.put(prefix + "-count", histogram.getTotalCount());
+        summary.put(prefix + "-mean-ms", histogram.getTotalCount() == 0 ? 0.0 : histogram.getMean() / NANOS_PER_MILLI);
+        summary.put(prefix + "-p50-ms", histogram.getValueAtPercentile(50.0) / NANOS_PER_MILLI);
+        summary.put(prefix + "-p90-ms", histogram.getValueAtPercentile(90.0) / NANOS_PER_MILLI);
+        summary.put(prefix + "-p99-ms", histogram.getValueAtPercentile(99.0) / NANOS_PER_MILLI);
+        summary.put(prefix + "-p99.9-ms", histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI);
+        summary.put(prefix + "-max-ms", histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Writes a summary to a file.
+     * <p>
+     * A file whose name ends in {@code .csv} is written as a header row followed by a single row of values. Any other
+     * file is written as a single JSON object.
+     *
+     * @param file    The file to write.
+     * @param summary The entries of the summary, in the order they should be written. Values should be numbers,
+     *                booleans, or strings.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writeSummary(@NonNull final Path file, @NonNull final Map<String, Object> summary)
+        throws IOException {
+
+        final boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (csv) {
+                writeCsv(writer, summary);
+            } else {
+                writeJson(writer, summary);
+            }
+        }
+
+        LOGGER.info("Wrote summary to {}", file);
+    }
+
+    /**
+     * Writes a time series of measurement windows to a CSV file with a header row and one row per window.
+     *
+     * @param file    The file to write.
+     * @param windows The windows in the order they were measured.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writeWindows(@NonNull final Path file, @NonNull final List<MeasurementWindow> windows)
+        throws IOException {
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(MeasurementWindow.CSV_HEADER);
+            writer.write('\n');
+            for (final MeasurementWindow window : windows) {
+                writer.write(window.toCsv());
+                writer.write('\n');
+            }
+        }
+
+        LOGGER.info("Wrote {} measurement windows to {}", windows.size(), file);
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsReporter(interval-seconds=" + this.intervalSeconds
+            + ", window-seconds=" + this.windowSeconds + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    /**
+     * Harvests the window since the last one and prints a report, if one is due. A report is due once the windows
+     * since the last report span the report interval, give or take half a window.
+     */
+    private synchronized void harvest(final boolean complete) {
+
+        final long now = System.nanoTime();
+        final long errors = this.errorCount.getAsLong();
+        final long elapsedNanos = now - this.lastWindowNanos;
+
+        if (elapsedNanos <= 0) {
+            return;
+        }
+
+        final Histogram writes = this.writeLatency.getIntervalHistogram();
+        final Histogram reads = this.readLatency.getIntervalHistogram();
+
+        this.windows.add(new MeasurementWindow(
+            this.windows.size(),
+            this.lastWindowNanos - this.startNanos,
+            elapsedNanos,
+            complete,
+            writes,
+            reads,
+            errors - this.lastWindowErrorCount));
+
+        this.reportWrites.add(writes);
+        this.reportReads.add(reads);
+        this.lastWindowNanos = now;
+        this.lastWindowErrorCount = errors;
+
+        final long dueNanos = TimeUnit.SECONDS.toNanos(this.intervalSeconds) - TimeUnit.SECONDS.toNanos(
+            this.windowSeconds) / 2;
+
+        if (complete && this.intervalSeconds > 0 && now - this.lastReportNanos >= dueNanos) {
+            this.report();
+        }
+    }
+
+    private synchronized void report() {
+
+        final long now = this.lastWindowNanos;
+        final double elapsedSeconds = (now - this.lastReportNanos) / NANOS_PER_SECOND;
+        final long errors = this.lastWindowErrorCount;
+
+        if (elapsedSeconds <= 0.0) {
+            return;
+        }
+
+        final Histogram writes = this.reportWrites;
+        final Histogram reads = this.reportReads;
+
+        this.out.printf(Locale.ROOT, "[%6.1fs] write: %.1f ops/s %s | read: %.1f ops/s %s | errors: %d%n",
+            (now - this.startNanos) / NANOS_PER_SECOND,
+            writes.getTotalCount() / elapsedSeconds,
+            LatencyRecorder.summarize(writes),
+            reads.getTotalCount() / elapsedSeconds,
+            LatencyRecorder.summarize(reads),
+            errors - this.lastErrorCount);
+
+        this.lastReportNanos = now;
+        this.lastErrorCount = errors;
+        this.reportWrites = new Histogram(SIGNIFICANT_DIGITS);
+        this.reportReads = new Histogram(SIGNIFICANT_DIGITS);
+    }
+
+    private static void writeCsv(final Writer writer, final Map<String, Object> summary) throws IOException {
+
+        final StringBuilder header = new StringBuilder();
+        final StringBuilder values = new StringBuilder();
+
+        final Iterator<Map.Entry<String, Object>> entries = summary.entrySet().iterator();
+
+        while (entries.hasNext()) {
+            final Map.Entry<String, Object> entry = entries.next();
+            header.append(toCsv(entry.getKey()));
+            values.append(entry.getValue() instanceof String ? toCsv((String) entry.getValue()) : format(entry));
+            if (entries.hasNext()) {
+                header.append(',');
+                values.append(',');
+            }
+        }
+
+        writer.write(header.append('\n').toString());
+        writer.write(values.append('\n').toString());
+    }
+
+    private static void writeJson(final Writer writer, final Map<String, Object> summary) throws IOException {
+
+        final StringBuilder json = new StringBuilder("{\n");
+
+        final Iterator<Map.Entry<String, Object>> entries = summary.entrySet().iterator();
+
+        while (entries.hasNext()) {
+            final Map.Entry<String, Object> entry = entries.next();
+            json.append("  ").append(toJson(entry.getKey())).append(": ");
+            json.append(entry.getValue() instanceof String ? toJson((String) entry.getValue()) : format(entry));
+            json.append(entries.hasNext() ? ",\n" : "\n");
+        }
+
+        writer.write(json.append("}\n").toString());
+    }
+
+    private static String format(final Map.Entry<String, Object> entry) {
+        final Object value = entry.getValue();
+        if (value instanceof Double || value instanceof Float) {
+            final double number = ((Number) value).doubleValue();
+            return Double.isFinite(number) ? String.format(Locale.ROOT, "%.3f", number) : "null";
+        }
+        return String.valueOf(value);
+    }
+
+    private static String toCsv(final String value) {
+        return value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+            ? value
+            : '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String toJson(final String value) {
+        final StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                    break;
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    // endregion
+}
@@ -0,0 +1,243 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Issues operations on a fixed schedule, independent of how quickly earlier operations complete.
+ * <p>
+ * Operation {@code n} is due at a precomputed offset from the start of a run. The schedule runs at the target rate
+ * after an optional ramp-up: {@code rampUpSteps} steps, each lasting {@code rampUpStepNanos} and running at {@code
+ * (k + 1) / (rampUpSteps + 1)} of the target rate for step {@code k}. Operations are dispatched from a few threads,
+ * each responsible for every {@code dispatcherThreadCount}-th operation, and each operation is passed its intended
+ * start time. Callers should measure latency from that time, so that time spent waiting behind a slow response or an
+ * exhausted in-flight window is counted rather than omitted.
+ */
+public final class OpenLoopScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenLoopScheduler.class);
+    private static final long LATE_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = 1E9;
+    private static final AtomicInteger SCHEDULER_COUNT = new AtomicInteger();
+
+    private final double targetRate;
+    private final int rampUpSteps;
+    private final long rampUpStepNanos;
+    private final int dispatcherThreadCount;
+    private final int maxInFlight;
+    private final LongAdder lateStartCount = new LongAdder();
+
+    /**
+     * Initializes a new open-loop scheduler.
+     *
+     * @param targetRate            Target rate in operations per second.
+     * @param rampUpSteps           Number of ramp-up steps to run before reaching the target rate.
+     * @param rampUpStepNanos       Duration of each ramp-up step in nanoseconds.
+     * @param dispatcherThreadCount Number of threads used to dispatch operations.
+     * @param maxInFlight           Maximum number of operations that may be in flight at once. This is a safety limit:
+     *                              when it is reached, dispatch stalls and the stall is reflected in latencies measured
+     *                              from intended start times.
+     */
+    public OpenLoopScheduler(
+        final double targetRate,
+        final int rampUpSteps,
+        final long rampUpStepNanos,
+        final int dispatcherThreadCount,
+        final int maxInFlight) {
+
+        if (!(targetRate > 0.0) || Double.isInfinite(targetRate)) {
+            throw new IllegalArgumentException("targetRate must be a positive number, not " + targetRate);
+        }
+        if (rampUpSteps < 0 || rampUpStepNanos < 0) {
+            throw new IllegalArgumentException("ramp-up must be non-negative, not " + rampUpSteps + " steps of "
+                + rampUpStepNanos + " ns");
+        }
+        if (dispatcherThreadCount <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("dispatcherThreadCount and maxInFlight must be positive");
+        }
+
+        this.targetRate = targetRate;
+        this.rampUpSteps = rampUpSteps;
+        this.rampUpStepNanos = rampUpStepNanos;
+        this.dispatcherThreadCount = dispatcherThreadCount;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // region Methods
+
+    /**
+     * Gets the offset from the start of a run at which an operation is due.
+     *
+     * @param n An operation number.
+     *
+     * @return The intended start time of operation {@code n} relative to the start of a run in nanoseconds.
+     */
+    public long getIntendedOffsetNanos(final long n) {
+
+        final double stepSeconds = this.rampUpStepNanos / NANOS_PER_SECOND;
+        double remaining = n;
+        long offset = 0L;
+
+        for (int k = 0; k < this.rampUpSteps; k++) {
+            final double rate = this.targetRate * (k + 1) / (this.rampUpSteps + 1);
+            final double operations = rate * stepSeconds;
+            if (remaining < operations) {
+                return offset + Math.round(remaining * NANOS_PER_SECOND / rate);
+            }
+            remaining -= operations;
+            offset += this.rampUpStepNanos;
+        }
+
+        return offset + Math.round(remaining * NANOS_PER_SECOND / this.targetRate);
+    }
+
+    /**
+     * Gets the number of operations dispatched more than a millisecond after their intended start time.
+     * <p>
+     * A non-zero value means the client--not the server--limited the offered load for part of a run.
+     *
+     * @return The number of late operations.
+     */
+    public long getLateStartCount() {
+        return this.lateStartCount.sum();
+    }
+
+    /**
+     * Runs {@code operationCount} operations on schedule and waits for all of them to complete.
+     *
+     * @param operationCount Number of operations to run.
+     * @param operation      Operation to run. It should start its work asynchronously and report failures through
+     *                       the stage it returns rather than by throwing.
+     * @param timeout        Maximum time to wait for all operations to complete, measured from the start of the run.
+     * @param unit           Time unit of {@code timeout}.
+     *
+     * @return {@code true} if all operations completed within {@code timeout}; otherwise {@code false}.
+     *
+     * @throws InterruptedException If interrupted while waiting for operations to complete.
+     */
+    public boolean run(
+        final long operationCount,
+        @NonNull final ScheduledOperation operation,
+        final long timeout,
+        @NonNull final TimeUnit unit) throws InterruptedException {
+
+        final long startNanos = System.nanoTime();
+        final long deadline = startNanos + unit.toNanos(timeout);
+        final Semaphore permits = new Semaphore(this.maxInFlight);
+
+        final int scheduler = SCHEDULER_COUNT.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        final ExecutorService dispatchers = Executors.newFixedThreadPool(this.dispatcherThreadCount, runnable -> {
+            final Thread thread = new Thread(runnable,
+                "open-loop-" + scheduler + "-dispatcher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 0; i < this.dispatcherThreadCount; i++) {
+            final int first = i;
+            dispatchers.execute(() -> {
+                try {
+                    for (long n = first; n < operationCount; n += this.dispatcherThreadCount) {
+                        final long intendedStartNanos = startNanos + this.getIntendedOffsetNanos(n);
+                        parkUntil(intendedStartNanos);
+                        permits.acquire();
+                        if (System.nanoTime() - intendedStartNanos > LATE_THRESHOLD_NANOS) {
+                            this.lateStartCount.increment();
+                        }
+                        start(operation, n, intendedStartNanos).whenComplete((result, error) -> permits.release());
+                    }
+                } catch (final InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        dispatchers.shutdown();
+
+        if (!dispatchers.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            dispatchers.shutdownNow();
+            return false;
+        }
+
+        if (!permits.tryAcquire(this.maxInFlight, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+
+        permits.release(this.maxInFlight);
+        LOGGER.info("{} dispatched {} operations, {} of them late", this, operationCount, this.getLateStartCount());
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "OpenLoopScheduler(target-rate=" + this.targetRate
+            + ", ramp-up-steps=" + this.rampUpSteps
+            + ", ramp-up-step-nanos=" + this.rampUpStepNanos
+            + ", dispatcher-threads=" + this.dispatcherThreadCount
+            + ", max-in-flight=" + this.maxInFlight + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static void parkUntil(final long deadlineNanos) {
+        for (long delay = deadlineNanos - System.nanoTime(); delay > 0; delay = deadlineNanos - System.nanoTime()) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private static CompletionStage<?> start(
+        final ScheduledOperation operation,
+        final long n,
+        final long intendedStartNanos) {
+
+        try {
+            return operation.start(n, intendedStartNanos);
+        } catch (final RuntimeException error) {
+            LOGGER.error("Operation {} failed to start", n, error);
+            final CompletableFuture<?> failed = new CompletableFuture<>();
+            failed.completeExceptionally(error);
+            return failed;
+        }
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * An operation run by an {@link OpenLoopScheduler open-loop scheduler}.
+     */
+    @FunctionalInterface
+    public interface ScheduledOperation {
+
+        /**
+         * Starts an operation.
+         *
+         * @param n                  The operation number.
+         * @param intendedStartNanos The {@link System#nanoTime} at which the operation was due to start.
+         *
+         * @return A stage that completes when the operation is done.
+         */
+        CompletionStage<?> start(long n, long intendedStartNanos);
+    }
+
+    // endregion
+}
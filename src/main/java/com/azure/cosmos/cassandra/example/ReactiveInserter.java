@@ -0,0 +1,253 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Inserts the users published by an upstream {@link Publisher publisher} and publishes each one once it has been
+ * written.
+ * <p>
+ * Rows are requested from upstream only as capacity frees up: at most {@code maxInFlight} rows are requested, being
+ * written, or waiting for downstream demand at any time. A slow subscriber therefore slows the upstream publisher down
+ * rather than letting written rows pile up, and memory stays bounded however many rows pass through. Rows are
+ * published in the order their writes complete, which need not be the order in which they were received. The first
+ * write that fails cancels the upstream subscription and is signalled downstream as an error; writes still in flight
+ * at that point are not awaited.
+ * <p>
+ * Unlike a {@link ReactiveSelect reactive select}, the inserter does not execute its writes with the driver's {@link
+ * com.datastax.oss.driver.api.core.CqlSession#executeReactive reactive execution}. An insert returns no rows, so a
+ * reactive result set would add a publisher per row and nothing to stream. Instead, each row is written with {@link
+ * UserRepository#insertUserAsync(String, String, String, String)}, so that reactive inserts get the same write
+ * consistency, stale-statement retry, cache write-through, and request events as every other insert. The Reactive
+ * Streams contract--demand, backpressure, and cancellation--is implemented here, around those writes.
+ * <p>
+ * The publisher is cold: each subscriber gets its own subscription to the upstream publisher.
+ */
+final class ReactiveInserter implements Publisher<UserRow> {
+
+    private final UserRepository repository;
+    private final Publisher<UserRow> rows;
+    private final int maxInFlight;
+
+    /**
+     * Initializes a new reactive inserter.
+     *
+     * @param repository  Reference to the {@link UserRepository user repository} to which rows are written.
+     * @param rows        The rows to insert.
+     * @param maxInFlight Maximum number of rows requested from upstream but not yet published downstream.
+     */
+    ReactiveInserter(
+        @NonNull final UserRepository repository,
+        @NonNull final Publisher<UserRow> rows,
+        final int maxInFlight) {
+
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive, not " + maxInFlight);
+        }
+
+        this.repository = repository;
+        this.rows = rows;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // region Methods
+
+    @Override
+    public void subscribe(final Subscriber<? super UserRow> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber must not be null");
+        }
+        this.rows.subscribe(new InsertSubscription(subscriber));
+    }
+
+    @Override
+    public String toString() {
+        return "ReactiveInserter(max-in-flight=" + this.maxInFlight + ")";
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * Subscribes to the upstream publisher on behalf of a single downstream subscriber.
+     * <p>
+     * All signals to the downstream subscriber and all upstream requests are made from {@link #drain}, which is entered
+     * by one thread at a time: a thread that finds another already draining records that more work is pending and
+     * leaves it to that thread.
+     */
+    private final class InsertSubscription implements Subscriber<UserRow>, Subscription {
+
+        private final Subscriber<? super UserRow> downstream;
+        private final Queue<UserRow> written = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile Subscription upstream;
+        private volatile boolean upstreamDone;
+        private volatile boolean terminated;
+
+        InsertSubscription(final Subscriber<? super UserRow> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void cancel() {
+            this.terminated = true;
+            final Subscription subscription = this.upstream;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            this.upstreamDone = true;
+            this.drain();
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            this.error.compareAndSet(null, throwable);
+            this.upstreamDone = true;
+            this.drain();
+        }
+
+        @Override
+        public void onNext(final UserRow row) {
+
+            if (row == null) {
+                throw new NullPointerException("row must not be null");
+            }
+
+            this.pending.incrementAndGet();
+
+            final CompletionStage<AsyncResultSet> write;
+
+            try {
+                write = ReactiveInserter.this.repository.insertUserAsync(row.getId(), row.getName(), row.getCity(),
+                    row.getPayload());
+            } catch (final RuntimeException writeError) {
+                this.onWritten(row, writeError);
+                return;
+            }
+
+            write.whenComplete((resultSet, writeError) -> this.onWritten(row, writeError));
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            if (this.upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            this.upstream = subscription;
+            this.downstream.onSubscribe(this);
+            this.drain();
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                this.error.compareAndSet(null, new IllegalArgumentException("n must be positive, not " + n));
+            } else {
+                this.requested.getAndAccumulate(n, (current, increment) -> {
+                    final long sum = current + increment;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            this.drain();
+        }
+
+        private void onWritten(final UserRow row, final Throwable writeError) {
+            if (writeError == null) {
+                this.written.offer(row);
+            } else {
+                this.error.compareAndSet(null, writeError instanceof CompletionException
+                    ? writeError.getCause()
+                    : writeError);
+            }
+            this.pending.decrementAndGet();
+            this.drain();
+        }
+
+        private void drain() {
+
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            do {
+                if (this.terminated) {
+                    this.written.clear();
+                    return;
+                }
+
+                final Throwable failure = this.error.get();
+
+                if (failure != null) {
+                    this.cancel();
+                    this.written.clear();
+                    this.downstream.onError(failure);
+                    return;
+                }
+
+                final long demand = this.requested.get();
+                long emitted = 0L;
+
+                while (emitted < demand && !this.terminated) {
+                    final UserRow row = this.written.poll();
+                    if (row == null) {
+                        break;
+                    }
+                    this.downstream.onNext(row);
+                    emitted++;
+                }
+
+                if (emitted > 0) {
+                    if (demand != Long.MAX_VALUE) {
+                        this.requested.addAndGet(-emitted);
+                    }
+                    this.outstanding.addAndGet((int) -emitted);
+                }
+
+                if (this.upstreamDone && this.pending.get() == 0 && this.written.isEmpty() && !this.terminated) {
+                    this.terminated = true;
+                    this.downstream.onComplete();
+                    return;
+                }
+
+                final int capacity = ReactiveInserter.this.maxInFlight - this.outstanding.get();
+
+                if (capacity > 0 && !this.upstreamDone && !this.terminated) {
+                    this.outstanding.addAndGet(capacity);
+                    this.upstream.request(capacity);
+                }
+
+                missed = this.wip.addAndGet(-missed);
+
+            } while (missed != 0);
+        }
+    }
+
+    // endregion
+}
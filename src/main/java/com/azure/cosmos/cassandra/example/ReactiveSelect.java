@@ -0,0 +1,152 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the users selected by a statement, using the driver's {@link CqlSession#executeReactive reactive
+ * execution}.
+ * <p>
+ * The statement is bound when a subscriber subscribes and executed when the subscriber first requests rows. The driver
+ * fetches each page only once the rows of the previous page have been requested, so a subscriber that requests rows
+ * as it processes them holds at most a page of rows in memory however large the result. Each subscriber gets its own
+ * execution of the statement.
+ */
+final class ReactiveSelect implements Publisher<User> {
+
+    private final CqlSession session;
+    private final Function<Row, User> mapper;
+    private final Supplier<CompletionStage<BoundStatement>> statement;
+
+    /**
+     * Initializes a new reactive select.
+     *
+     * @param session   The session on which the statement is executed.
+     * @param mapper    Converts each row to a user.
+     * @param statement Binds the statement to execute; called once for each subscriber.
+     */
+    ReactiveSelect(
+        @NonNull final CqlSession session,
+        @NonNull final Function<Row, User> mapper,
+        @NonNull final Supplier<CompletionStage<BoundStatement>> statement) {
+
+        this.session = session;
+        this.mapper = mapper;
+        this.statement = statement;
+    }
+
+    // region Methods
+
+    @Override
+    public void subscribe(final Subscriber<? super User> subscriber) {
+
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber must not be null");
+        }
+
+        this.statement.get().whenComplete((bound, error) -> {
+            if (error == null) {
+                this.session.executeReactive(bound).subscribe(new MappingSubscriber(subscriber, this.mapper));
+                return;
+            }
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void cancel() {
+                }
+
+                @Override
+                public void request(final long n) {
+                }
+            });
+            subscriber.onError(error instanceof CompletionException ? error.getCause() : error);
+        });
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * Converts each row published by the driver to a {@link User user}, cancelling the driver's subscription and
+     * signalling an error if a row cannot be converted.
+     */
+    private static final class MappingSubscriber implements Subscriber<Row>, Subscription {
+
+        private final Subscriber<? super User> downstream;
+        private final Function<Row, User> mapper;
+        private Subscription upstream;
+        private boolean done;
+
+        MappingSubscriber(final Subscriber<? super User> downstream, final Function<Row, User> mapper) {
+            this.downstream = downstream;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void cancel() {
+            this.upstream.cancel();
+        }
+
+        @Override
+        public void onComplete() {
+            if (!this.done) {
+                this.done = true;
+                this.downstream.onComplete();
+            }
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            if (!this.done) {
+                this.done = true;
+                this.downstream.onError(error);
+            }
+        }
+
+        @Override
+        public void onNext(final Row row) {
+
+            if (this.done) {
+                return;
+            }
+
+            final User user;
+
+            try {
+                user = this.mapper.apply(row);
+            } catch (final RuntimeException error) {
+                this.upstream.cancel();
+                this.onError(error);
+                return;
+            }
+
+            this.downstream.onNext(user);
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            this.upstream = subscription;
+            this.downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void request(final long n) {
+            this.upstream.request(n);
+        }
+    }
+
+    // endregion
+}
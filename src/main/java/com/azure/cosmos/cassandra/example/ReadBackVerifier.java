@@ -0,0 +1,299 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads back the users written by a load test concurrently and checks each against what was written.
+ * <p>
+ * The IDs of the users written are taken from a {@link UserIdStore user ID store} and the values written are recomputed
+ * from each ID by the {@link TestDataArena test data arena} that generated them.
+ * <p>
+ * Users are read with the prepared select-by-ID statement or--when the batch size is greater than one--in groups using
+ * a prepared multi-key {@code IN} query. Either way users are read from the cluster, bypassing the repository's {@link
+ * UserCache user cache}, so that each user is checked against what was actually written and the recorded read latency
+ * is that of the cluster, not of cache hits. Requests are issued asynchronously by an {@link AsyncLoadEngine async load
+ * engine} that keeps up to {@code parallelism} requests in flight or, in an open-loop load test, on the fixed schedule
+ * of an {@link OpenLoopScheduler open-loop scheduler}.
+ */
+public final class ReadBackVerifier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadBackVerifier.class);
+
+    private final UserRepository repository;
+    private final LatencyRecorder readLatency;
+    private final int parallelism;
+    private final int batchSize;
+    private final boolean printOperations;
+
+    /**
+     * Initializes a new read-back verifier.
+     *
+     * @param repository      Reference to a {@link UserRepository user repository}.
+     * @param readLatency     Recorder for the latency of each read request.
+     * @param parallelism     Maximum number of read requests in flight at once.
+     * @param batchSize       Number of users to read per request.
+     * @param printOperations {@code true} if the latency of each read should be printed; otherwise {@code false}.
+     */
+    public ReadBackVerifier(
+        @NonNull final UserRepository repository,
+        @NonNull final LatencyRecorder readLatency,
+        final int parallelism,
+        final int batchSize,
+        final boolean printOperations) {
+
+        if (parallelism <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("parallelism and batchSize must be positive, not "
+                + parallelism + " and " + batchSize);
+        }
+
+        this.repository = repository;
+        this.readLatency = readLatency;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.printOperations = printOperations;
+    }
+
+    /**
+     * Reads back the users with the IDs in a store and verifies that each was written as expected.
+     *
+     * @param ids     The IDs of the users written, in a {@link UserIdStore#seal sealed} store.
+     * @param arena   The test data arena from which the users were written.
+     * @param timeout Maximum time to wait for verification to complete.
+     * @param unit    Time unit of {@code timeout}.
+     *
+     * @return The result of verification.
+     *
+     * @throws InterruptedException If interrupted while waiting for reads to complete.
+     */
+    @NonNull
+    public Result verify(
+        @NonNull final UserIdStore ids,
+        @NonNull final TestDataArena arena,
+        final long timeout,
+        @NonNull final TimeUnit unit) throws InterruptedException {
+
+        final Result result = new Result();
+        final long size = ids.size();
+        final long batchCount = (size + this.batchSize - 1) / this.batchSize;
+        final AsyncLoadEngine engine = new AsyncLoadEngine(1, this.parallelism);
+
+        final boolean finished = engine.run(batchCount, n ->
+            this.verifyBatch(this.batch(ids, arena, n), result, System.nanoTime()), timeout, unit);
+
+        if (!finished) {
+            LOGGER.warn("Timed out verifying {} users: {}", size, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads back the users with the IDs in a store on the fixed schedule of an open-loop scheduler and verifies that
+     * each was written as expected.
+     * <p>
+     * The latency of each read is measured from its intended start time on the schedule, not from the time it was
+     * actually issued. The scheduler, not the {@code parallelism} of this verifier, bounds the number of reads in
+     * flight.
+     *
+     * @param ids       The IDs of the users written, in a {@link UserIdStore#seal sealed} store.
+     * @param arena     The test data arena from which the users were written.
+     * @param scheduler The scheduler on which reads are issued.
+     * @param timeout   Maximum time to wait for verification to complete.
+     * @param unit      Time unit of {@code timeout}.
+     *
+     * @return The result of verification.
+     *
+     * @throws InterruptedException If interrupted while waiting for reads to complete.
+     */
+    @NonNull
+    public Result verify(
+        @NonNull final UserIdStore ids,
+        @NonNull final TestDataArena arena,
+        @NonNull final OpenLoopScheduler scheduler,
+        final long timeout,
+        @NonNull final TimeUnit unit) throws InterruptedException {
+
+        final Result result = new Result();
+        final long size = ids.size();
+        final long batchCount = (size + this.batchSize - 1) / this.batchSize;
+
+        final boolean finished = scheduler.run(batchCount, (n, intendedStartTime) -> {
+            RequestEvents.markQueued(intendedStartTime);
+            return this.verifyBatch(this.batch(ids, arena, n), result, intendedStartTime);
+        }, timeout, unit);
+
+        if (!finished) {
+            LOGGER.warn("Timed out verifying {} users on {}: {}", size, scheduler, result);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ReadBackVerifier(parallelism=" + this.parallelism + ", batch-size=" + this.batchSize + ")";
+    }
+
+    private List<User> batch(final UserIdStore ids, final TestDataArena arena, final long n) {
+        final long from = n * this.batchSize;
+        final long to = Math.min(from + this.batchSize, ids.size());
+        final List<User> batch = new ArrayList<>((int) (to - from));
+        ids.forEach(from, to, (index, mostSignificantBits, leastSignificantBits) ->
+            batch.add(arena.newUser(mostSignificantBits, leastSignificantBits)));
+        return batch;
+    }
+
+    private CompletionStage<?> verifyBatch(final List<User> batch, final Result result, final long startTime) {
+
+        if (batch.size() == 1) {
+            final User expected = batch.get(0);
+            return this.repository.selectUserUncachedAsync(expected.getId()).whenComplete((actual, error) -> {
+                this.recordRead(startTime);
+                if (error == null) {
+                    result.check(expected, actual);
+                } else {
+                    result.fail(batch, error);
+                }
+            });
+        }
+
+        final List<String> ids = new ArrayList<>(batch.size());
+        final Map<String, User> unread = new HashMap<>(batch.size() * 2);
+
+        for (final User user : batch) {
+            ids.add(user.getId());
+            unread.put(user.getId(), user);
+        }
+
+        return this.repository.selectUsersAsync(ids, page -> {
+            for (int i = 0; i < page.size(); i++) {
+                final User expected = unread.remove(page.getId(i));
+                if (expected != null) {
+                    result.check(expected, page, i);
+                }
+            }
+        }).whenComplete((count, error) -> {
+            this.recordRead(startTime);
+            if (error != null) {
+                result.fail(new ArrayList<>(unread.values()), error);
+                return;
+            }
+            for (final User expected : unread.values()) {
+                result.check(expected, null);
+            }
+        });
+    }
+
+    private void recordRead(final long startTime) {
+        final long duration = TimeUnit.NANOSECONDS.toMillis(this.readLatency.recordSince(startTime));
+        if (this.printOperations) {
+            System.out.print("read duration time millis: " + duration + "\n");
+        }
+    }
+
+    /**
+     * The result of {@link ReadBackVerifier#verify verifying} a list of users.
+     */
+    public static final class Result {
+
+        private final LongAdder failedCount = new LongAdder();
+        private final LongAdder mismatchedCount = new LongAdder();
+        private final LongAdder missingCount = new LongAdder();
+        private final LongAdder verifiedCount = new LongAdder();
+
+        private Result() {
+        }
+
+        /**
+         * Gets the number of users that could not be read because a request failed.
+         *
+         * @return The number of users whose read failed.
+         */
+        public long getFailedCount() {
+            return this.failedCount.sum();
+        }
+
+        /**
+         * Gets the number of users whose name or city differs from what was written.
+         *
+         * @return The number of mismatched users.
+         */
+        public long getMismatchedCount() {
+            return this.mismatchedCount.sum();
+        }
+
+        /**
+         * Gets the number of users that were written, but could not be found.
+         *
+         * @return The number of missing users.
+         */
+        public long getMissingCount() {
+            return this.missingCount.sum();
+        }
+
+        /**
+         * Gets the number of users read back exactly as they were written.
+         *
+         * @return The number of verified users.
+         */
+        public long getVerifiedCount() {
+            return this.verifiedCount.sum();
+        }
+
+        /**
+         * Gets a value indicating whether every user was read back exactly as it was written.
+         *
+         * @return {@code true} if there were no failed, mismatched, or missing users; otherwise {@code false}.
+         */
+        public boolean isSuccess() {
+            return this.getFailedCount() == 0 && this.getMismatchedCount() == 0 && this.getMissingCount() == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "verified=" + this.getVerifiedCount()
+                + ", mismatched=" + this.getMismatchedCount()
+                + ", missing=" + this.getMissingCount()
+                + ", failed=" + this.getFailedCount();
+        }
+
+        private void check(final User expected, final User actual) {
+            if (actual == null) {
+                this.missingCount.increment();
+                LOGGER.warn("Missing user: {}", expected);
+            } else if (expected.equals(actual)) {
+                this.verifiedCount.increment();
+            } else {
+                this.mismatchedCount.increment();
+                LOGGER.warn("Mismatched user: expected {}, found {}", expected, actual);
+            }
+        }
+
+        private void check(final User expected, final UserRowMapper.Page page, final int index) {
+            if (page.matches(index, expected)) {
+                this.verifiedCount.increment();
+            } else {
+                this.mismatchedCount.increment();
+                LOGGER.warn("Mismatched user: expected {}, found {}", expected, page.toUser(index));
+            }
+        }
+
+        private void fail(final List<User> batch, final Throwable error) {
+            this.failedCount.add(batch.size());
+            LOGGER.error("Failed to read {} users", batch.size(), error);
+        }
+    }
+}
@@ -0,0 +1,577 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.DriverException;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Emits Java Flight Recorder events for repository requests and load test phases on Java 11 or later, while this code
+ * continues to compile for Java 8.
+ * <p>
+ * The events are defined by {@code FlightRecorderSink}, which is compiled for Java 11 only and loaded reflectively
+ * once. On Java 8, or on a runtime without the {@code jdk.jfr} module, every method is a no-op. Events cost no more
+ * than a check of a flag until a recording that enables them is running--one started by {@link #startRecording} or
+ * with {@code -XX:StartFlightRecording}--and so they can be left on in production.
+ * <p>
+ * Each request event breaks the latency of a request down by phase: the time it waited to be issued, as {@link
+ * #markQueued marked} by the caller; the time taken to prepare and bind its statement; and the time from handing the
+ * statement to the driver until the request completed, which includes the network, the server, and any retries and
+ * their backoff. The event also gives the operation, the statement, the coordinator and its datacenter--that is, its
+ * Cosmos region--and the number of retries and speculative executions.
+ */
+final class RequestEvents {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestEvents.class);
+    private static final String SINK_CLASS_NAME = "com.azure.cosmos.cassandra.example.FlightRecorderSink";
+    private static final ThreadLocal<long[]> QUEUED_SINCE = ThreadLocal.withInitial(() -> new long[2]);
+    private static final Sink SINK = loadSink();
+
+    private RequestEvents() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Begins a load test phase.
+     *
+     * @param name The name of the phase.
+     *
+     * @return A phase to {@link Phase#end end} when the phase is done.
+     */
+    @NonNull
+    static Phase beginPhase(@NonNull final String name) {
+        final Object event = SINK == null ? null : SINK.beginPhase(name);
+        return event == null ? Phase.NONE : new Phase(event);
+    }
+
+    /**
+     * Begins a request for an operation, consuming the queue time {@link #markQueued marked} on this thread, if any.
+     *
+     * @param operation The name of the operation.
+     *
+     * @return A trace to mark as {@link Trace#dispatched dispatched} and {@link Trace#end end} when the request is
+     * done. Its methods do nothing when no recording is enabling request events.
+     */
+    @NonNull
+    static Trace beginRequest(@NonNull final String operation) {
+
+        if (SINK == null) {
+            return Trace.NONE;
+        }
+
+        final long startNanos = System.nanoTime();
+        final long[] queuedSince = QUEUED_SINCE.get();
+        final long queueNanos = queuedSince[1] == 0L ? 0L : Math.max(startNanos - queuedSince[0], 0L);
+        queuedSince[1] = 0L;
+
+        final Object event = SINK.beginRequest();
+        return event == null ? Trace.NONE : new Trace(event, operation, startNanos, queueNanos);
+    }
+
+    /**
+     * Gets a value indicating whether the running JVM supports flight recorder events.
+     *
+     * @return {@code true} if flight recorder events are supported; otherwise {@code false}.
+     */
+    static boolean isSupported() {
+        return SINK != null;
+    }
+
+    /**
+     * Marks the time since which the next request begun on this thread has been waiting to be issued: its intended
+     * start time on a fixed schedule or the time it began waiting for the adaptive throttle, for example.
+     *
+     * @param queuedSinceNanos The {@link System#nanoTime} at which the request was queued.
+     */
+    static void markQueued(final long queuedSinceNanos) {
+        if (SINK != null && SINK.isRequestEnabled()) {
+            final long[] queuedSince = QUEUED_SINCE.get();
+            queuedSince[0] = queuedSinceNanos;
+            queuedSince[1] = 1L;
+        }
+    }
+
+    /**
+     * Starts a flight recording with the JDK's default settings, which are meant for production use, and with request
+     * and phase events enabled.
+     *
+     * @param name The name of the recording.
+     *
+     * @return The recording started.
+     *
+     * @throws IOException                   If the JDK's default settings cannot be read.
+     * @throws UnsupportedOperationException If the running JVM does not support flight recorder events.
+     */
+    @NonNull
+    static Recording startRecording(@NonNull final String name) throws IOException {
+
+        if (SINK == null) {
+            throw new UnsupportedOperationException("flight recordings require Java 11 or later with the jdk.jfr "
+                + "module, not Java " + System.getProperty("java.version"));
+        }
+
+        return SINK.startRecording(name);
+    }
+
+    // region Privates
+
+    private static Sink loadSink() {
+        try {
+            return (Sink) Class.forName(SINK_CLASS_NAME).getDeclaredConstructor().newInstance();
+        } catch (final ReflectiveOperationException | LinkageError | RuntimeException error) {
+            LOGGER.debug("Flight recorder events are disabled: {}", error.toString());
+            return null;
+        }
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * A load test phase in progress.
+     */
+    static final class Phase {
+
+        static final Phase NONE = new Phase(null);
+
+        private final Object event;
+
+        private Phase(final Object event) {
+            this.event = event;
+        }
+
+        /**
+         * Ends this phase and commits its event.
+         */
+        void end() {
+            if (this.event != null) {
+                SINK.endPhase(this.event);
+            }
+        }
+    }
+
+    /**
+     * A flight recording in progress.
+     */
+    interface Recording {
+
+        /**
+         * Stops this recording, dumps it to a file, and summarizes the request and phase events in the file.
+         *
+         * @param file The file to which the recording is dumped.
+         *
+         * @return A summary of the events recorded.
+         *
+         * @throws IOException If the recording cannot be written or read back.
+         */
+        @NonNull
+        Summary stop(@NonNull Path file) throws IOException;
+    }
+
+    /**
+     * The flight recorder events implementation loaded on Java 11 or later.
+     */
+    interface Sink {
+
+        /**
+         * Begins a phase event.
+         *
+         * @param name The name of the phase.
+         *
+         * @return A phase event or {@code null}, if phase events are not enabled.
+         */
+        Object beginPhase(@NonNull String name);
+
+        /**
+         * Begins a request event.
+         *
+         * @return A request event or {@code null}, if request events are not enabled.
+         */
+        Object beginRequest();
+
+        /**
+         * Ends and commits a phase event.
+         *
+         * @param event A phase event returned by {@link #beginPhase}.
+         */
+        void endPhase(@NonNull Object event);
+
+        /**
+         * Ends and commits a request event.
+         *
+         * @param trace The ended trace of the request, which holds the event returned by {@link #beginRequest}.
+         */
+        void endRequest(@NonNull Trace trace);
+
+        /**
+         * Gets a value indicating whether request events are enabled by a running recording.
+         *
+         * @return {@code true} if request events are enabled; otherwise {@code false}.
+         */
+        boolean isRequestEnabled();
+
+        /**
+         * Starts a flight recording.
+         *
+         * @param name The name of the recording.
+         *
+         * @return The recording started.
+         *
+         * @throws IOException If the JDK's default settings cannot be read.
+         */
+        @NonNull
+        Recording startRecording(@NonNull String name) throws IOException;
+    }
+
+    /**
+     * A breakdown of request latency by phase and operation, and of the duration of each load test phase, taken from
+     * the events of a flight recording.
+     */
+    static final class Summary {
+
+        private static final int SIGNIFICANT_DIGITS = 3;
+
+        private final Map<String, Long> phases = new LinkedHashMap<>();
+        private final Map<String, Requests> requests = new TreeMap<>();
+
+        /**
+         * Gets a printable breakdown of request latency by operation and phase, followed by the duration of each load
+         * test phase.
+         *
+         * @return The lines of this summary.
+         */
+        @NonNull
+        List<String> getLines() {
+
+            final List<String> lines = new ArrayList<>();
+
+            for (final Map.Entry<String, Requests> entry : this.requests.entrySet()) {
+                final Requests requests = entry.getValue();
+                lines.add(entry.getKey() + " [requests=" + requests.count + ", retried=" + requests.retriedCount
+                    + ", failed=" + requests.failedCount + "]");
+                lines.add("  queue:     " + LatencyRecorder.summarize(requests.queue));
+                lines.add("  bind:      " + LatencyRecorder.summarize(requests.bind));
+                lines.add("  execution: " + LatencyRecorder.summarize(requests.execution));
+            }
+
+            if (!this.phases.isEmpty()) {
+                final StringBuilder builder = new StringBuilder("Load test phases:");
+                String separator = " ";
+                for (final Map.Entry<String, Long> phase : this.phases.entrySet()) {
+                    builder.append(separator).append(String.format(Locale.ROOT, "%s=%.1f s", phase.getKey(),
+                        phase.getValue() / 1E9));
+                    separator = ", ";
+                }
+                lines.add(builder.toString());
+            }
+
+            return Collections.unmodifiableList(lines);
+        }
+
+        /**
+         * Adds the duration of a load test phase. The durations of phases with the same name are summed.
+         *
+         * @param name          The name of the phase.
+         * @param durationNanos The duration of the phase in nanoseconds.
+         */
+        void recordPhase(@NonNull final String name, final long durationNanos) {
+            this.phases.merge(name, durationNanos, Long::sum);
+        }
+
+        /**
+         * Adds a request.
+         *
+         * @param operation      The name of the operation.
+         * @param queueNanos     The time the request waited to be issued in nanoseconds.
+         * @param bindNanos      The time taken to prepare and bind the statement in nanoseconds.
+         * @param executionNanos The time taken by the driver to execute the statement in nanoseconds.
+         * @param retryCount     The number of times the request was retried.
+         * @param failed         {@code true} if the request failed; otherwise {@code false}.
+         */
+        void recordRequest(
+            @NonNull final String operation,
+            final long queueNanos,
+            final long bindNanos,
+            final long executionNanos,
+            final int retryCount,
+            final boolean failed) {
+
+            final Requests requests = this.requests.computeIfAbsent(operation, name -> new Requests());
+            requests.count++;
+            requests.retriedCount += retryCount > 0 ? 1 : 0;
+            requests.failedCount += failed ? 1 : 0;
+            requests.queue.recordValue(Math.max(queueNanos, 0L));
+            requests.bind.recordValue(Math.max(bindNanos, 0L));
+            requests.execution.recordValue(Math.max(executionNanos, 0L));
+        }
+
+        @Override
+        public String toString() {
+            return String.join(System.lineSeparator(), this.getLines());
+        }
+
+        private static final class Requests {
+
+            final Histogram queue = new Histogram(SIGNIFICANT_DIGITS);
+            final Histogram bind = new Histogram(SIGNIFICANT_DIGITS);
+            final Histogram execution = new Histogram(SIGNIFICANT_DIGITS);
+            long count;
+            long retriedCount;
+            long failedCount;
+        }
+    }
+
+    /**
+     * The trace of a request in progress.
+     * <p>
+     * A trace is begun on the calling thread, may be marked as dispatched and ended on driver threads, and is ended
+     * exactly once.
+     */
+    static final class Trace {
+
+        static final Trace NONE = new Trace(null, null, 0L, 0L);
+
+        private final Object event;
+        private final String operation;
+        private final long startNanos;
+        private final long queueNanos;
+
+        private boolean dispatched;
+        private long dispatchNanos;
+        private long bindNanos;
+        private long executionNanos;
+        private String statement;
+        private int statementCount;
+        private String node;
+        private String datacenter;
+        private int retryCount;
+        private int speculativeExecutionCount;
+        private String error;
+
+        private Trace(final Object event, final String operation, final long startNanos, final long queueNanos) {
+            this.event = event;
+            this.operation = operation;
+            this.startNanos = startNanos;
+            this.queueNanos = queueNanos;
+        }
+
+        // region Methods
+
+        /**
+         * Marks the time at which the statement was first handed to the driver; the time before is bind time and the
+         * time after, execution time.
+         *
+         * @param statement The statement to be executed.
+         * @param <T>       The type of the statement.
+         *
+         * @return {@code statement}, so that this method can be used in a chain of calls.
+         */
+        <T> T dispatched(final T statement) {
+            if (this.event != null && !this.dispatched) {
+                this.dispatchNanos = System.nanoTime();
+                this.dispatched = true;
+            }
+            return statement;
+        }
+
+        /**
+         * Ends this trace and commits its event.
+         *
+         * @param executionInfo The execution info of the request or {@code null}, if the request failed.
+         * @param error         The error that failed the request or {@code null}, if the request succeeded.
+         */
+        void end(final ExecutionInfo executionInfo, final Throwable error) {
+
+            if (this.event == null) {
+                return;
+            }
+
+            final long endNanos = System.nanoTime();
+            final long dispatchNanos = this.dispatched ? this.dispatchNanos : endNanos;
+            final Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+            final ExecutionInfo info = executionInfo == null && cause instanceof DriverException
+                ? ((DriverException) cause).getExecutionInfo()
+                : executionInfo;
+
+            this.bindNanos = dispatchNanos - this.startNanos;
+            this.executionNanos = endNanos - dispatchNanos;
+            this.error = cause == null ? null : cause.toString();
+
+            if (info != null) {
+                final Node coordinator = info.getCoordinator();
+                this.setStatement(info.getRequest());
+                this.node = coordinator == null ? null : coordinator.getEndPoint().toString();
+                this.datacenter = coordinator == null ? null : coordinator.getDatacenter();
+                this.retryCount = info.getErrors().size();
+                this.speculativeExecutionCount = info.getSpeculativeExecutionCount();
+            }
+
+            SINK.endRequest(this);
+        }
+
+        /**
+         * Gets the time taken to prepare and bind the statement.
+         *
+         * @return The bind time in nanoseconds.
+         */
+        long getBindNanos() {
+            return this.bindNanos;
+        }
+
+        /**
+         * Gets the datacenter--that is, the Cosmos region--of the coordinator of the request.
+         *
+         * @return The datacenter of the coordinator or {@code null}, if it is not known.
+         */
+        String getDatacenter() {
+            return this.datacenter;
+        }
+
+        /**
+         * Gets the error that failed the request.
+         *
+         * @return A description of the error or {@code null}, if the request succeeded.
+         */
+        String getError() {
+            return this.error;
+        }
+
+        /**
+         * Gets the event of this trace.
+         *
+         * @return The event returned by {@link Sink#beginRequest}.
+         */
+        Object getEvent() {
+            return this.event;
+        }
+
+        /**
+         * Gets the time from handing the statement to the driver until the request completed, including retries.
+         *
+         * @return The execution time in nanoseconds.
+         */
+        long getExecutionNanos() {
+            return this.executionNanos;
+        }
+
+        /**
+         * Gets the coordinator of the request.
+         *
+         * @return The end point of the coordinator or {@code null}, if it is not known.
+         */
+        String getNode() {
+            return this.node;
+        }
+
+        /**
+         * Gets the name of the operation requested.
+         *
+         * @return The name of the operation.
+         */
+        String getOperation() {
+            return this.operation;
+        }
+
+        /**
+         * Gets the time the request waited to be issued.
+         *
+         * @return The queue time in nanoseconds or zero, if no queue time was marked.
+         */
+        long getQueueNanos() {
+            return this.queueNanos;
+        }
+
+        /**
+         * Gets the number of times the request was retried, on the same or another node.
+         *
+         * @return The number of retries.
+         */
+        int getRetryCount() {
+            return this.retryCount;
+        }
+
+        /**
+         * Gets the number of speculative executions started for the request.
+         *
+         * @return The number of speculative executions.
+         */
+        int getSpeculativeExecutionCount() {
+            return this.speculativeExecutionCount;
+        }
+
+        /**
+         * Gets the CQL of the statement executed; for a batch, that of its first statement.
+         *
+         * @return The CQL of the statement or {@code null}, if it is not known.
+         */
+        String getStatement() {
+            return this.statement;
+        }
+
+        /**
+         * Gets the number of statements executed: the size of a batch or one.
+         *
+         * @return The number of statements.
+         */
+        int getStatementCount() {
+            return this.statementCount;
+        }
+
+        // endregion
+
+        // region Privates
+
+        private void setStatement(final Request request) {
+            if (request instanceof BatchStatement) {
+                final BatchStatement batch = (BatchStatement) request;
+                this.statementCount = batch.size();
+                for (final BatchableStatement<?> child : batch) {
+                    this.statement = query(child);
+                    break;
+                }
+            } else {
+                this.statementCount = 1;
+                this.statement = query(request);
+            }
+        }
+
+        private static String query(final Request request) {
+            if (request instanceof BoundStatement) {
+                return ((BoundStatement) request).getPreparedStatement().getQuery();
+            }
+            if (request instanceof SimpleStatement) {
+                return ((SimpleStatement) request).getQuery();
+            }
+            return null;
+        }
+
+        // endregion
+    }
+
+    // endregion
+}
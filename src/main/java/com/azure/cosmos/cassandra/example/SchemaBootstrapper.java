@@ -0,0 +1,330 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.DriverException;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.schema.ColumnMetadata;
+import com.datastax.oss.driver.api.core.metadata.schema.TableMetadata;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the keyspace and user table for a load test, reusing an existing table whose schema is compatible, and waits
+ * until the table is ready to serve requests.
+ * <p>
+ * Instead of sleeping for a fixed time after each DDL statement, the bootstrapper polls with {@link Backoff backoff}
+ * for three things in turn: schema agreement among the nodes the driver is connected to, the table's appearance in
+ * the driver's schema metadata, and a successful read from the table. On Azure Cosmos DB a table is created
+ * asynchronously and can reject requests for some time after its {@code CREATE TABLE} statement returns, so the read
+ * is what tells that the table is ready.
+ * <p>
+ * A table is compatible if its partition key is the text column {@code user_id}, it has no clustering columns, and it
+ * has text columns {@code user_name}, {@code user_bcity}, and {@code user_payload}. When reuse is enabled, a compatible
+ * table is truncated rather than dropped, so that a run starts empty without waiting for the table to be recreated.
+ * Not every API for Cassandra accepts {@code TRUNCATE}; if it is rejected, the table is dropped and recreated instead.
+ * When the driver's schema metadata is disabled, a table's compatibility cannot be determined and it is always dropped
+ * and recreated.
+ */
+public final class SchemaBootstrapper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaBootstrapper.class);
+
+    private static final CqlIdentifier PARTITION_KEY = CqlIdentifier.fromCql("user_id");
+    private static final List<CqlIdentifier> COLUMNS = Arrays.asList(
+        CqlIdentifier.fromCql("user_name"),
+        CqlIdentifier.fromCql("user_bcity"),
+        CqlIdentifier.fromCql("user_payload"));
+
+    private final CqlSession session;
+    private final String keyspace;
+    private final String table;
+    private final Backoff backoff;
+
+    /**
+     * Initializes a new schema bootstrapper.
+     *
+     * @param session  The session on which DDL statements are executed.
+     * @param keyspace The keyspace of the user table.
+     * @param table    The name of the user table.
+     * @param backoff  How to poll for schema agreement and table readiness.
+     */
+    public SchemaBootstrapper(
+        @NonNull final CqlSession session,
+        @NonNull final String keyspace,
+        @NonNull final String table,
+        @NonNull final Backoff backoff) {
+
+        this.session = session;
+        this.keyspace = keyspace;
+        this.table = table;
+        this.backoff = backoff;
+    }
+
+    // region Methods
+
+    /**
+     * Waits until a user table bootstrapped by another process is ready, without changing the schema.
+     * <p>
+     * This is how the workers of a distributed load test wait for the table their {@link LoadCoordinator coordinator}
+     * bootstrapped, so that no worker truncates or drops the table while others are writing to it.
+     *
+     * @throws IllegalStateException If the table is not ready within the backoff's timeout.
+     * @throws InterruptedException  If interrupted while waiting.
+     */
+    public void awaitTable() throws InterruptedException {
+        final long startTime = System.nanoTime();
+        this.awaitReady();
+        LOGGER.info("Waited {} ms for {}", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+            this.getQualifiedTableName());
+    }
+
+    /**
+     * Creates the keyspace, if it does not exist, and the user table, reusing or recreating an existing table, and
+     * waits until the table is ready.
+     *
+     * @param replication The replication options of the keyspace, e.g., {@code { 'class' : 'SimpleStrategy',
+     *                    'replication_factor' : 1 }}. They are not applied to an existing keyspace.
+     * @param reuse       {@code true} if an existing table with a compatible schema should be truncated and reused,
+     *                    falling back to dropping and recreating it if it cannot be truncated; {@code false} if it
+     *                    should be dropped and recreated.
+     *
+     * @return What was done to the table and how long it took.
+     *
+     * @throws IllegalStateException If the table is not ready within the backoff's timeout.
+     * @throws InterruptedException  If interrupted while waiting.
+     */
+    @NonNull
+    public Result bootstrap(@NonNull final String replication, final boolean reuse) throws InterruptedException {
+
+        final long startTime = System.nanoTime();
+
+        this.execute("CREATE KEYSPACE IF NOT EXISTS " + this.keyspace + " WITH REPLICATION = " + replication);
+        this.awaitSchemaAgreement();
+
+        final Optional<TableMetadata> existing = this.session.isSchemaMetadataEnabled()
+            ? this.findTable(this.session.refreshSchema())
+            : Optional.empty();
+
+        final Action action;
+        final String dropReason;
+
+        if (!existing.isPresent()) {
+            dropReason = null;
+        } else if (!reuse) {
+            dropReason = "reuse is disabled";
+        } else if (!isCompatible(existing.get())) {
+            dropReason = "its schema is incompatible";
+        } else if (!this.truncate()) {
+            dropReason = "it could not be truncated";
+        } else {
+            dropReason = null;
+        }
+
+        if (existing.isPresent() && dropReason == null) {
+            action = Action.REUSED;
+        } else {
+            if (existing.isPresent()) {
+                LOGGER.info("Dropping {}: {}", this.getQualifiedTableName(), dropReason);
+            }
+            this.execute("DROP TABLE IF EXISTS " + this.getQualifiedTableName());
+            this.awaitSchemaAgreement();
+            this.execute("CREATE TABLE " + this.getQualifiedTableName() + " ("
+                + "user_id text PRIMARY KEY,"
+                + "user_name text,"
+                + "user_bcity text,"
+                + "user_payload text)");
+            action = existing.isPresent() ? Action.RECREATED : Action.CREATED;
+        }
+
+        this.awaitReady();
+
+        final Result result = new Result(action, this.getQualifiedTableName(), System.nanoTime() - startTime);
+        LOGGER.info("Bootstrapped schema: {}", result);
+        return result;
+    }
+
+    /**
+     * Gets the qualified name of the user table.
+     *
+     * @return The user table's name qualified by its keyspace.
+     */
+    @NonNull
+    public String getQualifiedTableName() {
+        return this.keyspace + "." + this.table;
+    }
+
+    /**
+     * Determines whether a table's schema is compatible with the user table's.
+     *
+     * @param table Metadata of the table.
+     *
+     * @return {@code true} if the table can be reused as the user table; otherwise {@code false}.
+     */
+    public static boolean isCompatible(@NonNull final TableMetadata table) {
+
+        final List<ColumnMetadata> partitionKey = table.getPartitionKey();
+
+        if (partitionKey.size() != 1
+            || !partitionKey.get(0).getName().equals(PARTITION_KEY)
+            || !partitionKey.get(0).getType().equals(DataTypes.TEXT)
+            || !table.getClusteringColumns().isEmpty()) {
+            return false;
+        }
+
+        for (final CqlIdentifier name : COLUMNS) {
+            final Optional<ColumnMetadata> column = table.getColumn(name);
+            if (!column.isPresent() || !column.get().getType().equals(DataTypes.TEXT)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "SchemaBootstrapper(table=" + this.getQualifiedTableName() + ", backoff=" + this.backoff + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private void awaitReady() throws InterruptedException {
+
+        this.awaitSchemaAgreement();
+
+        if (this.session.isSchemaMetadataEnabled() && !this.backoff.await(
+            "metadata of " + this.getQualifiedTableName(),
+            () -> this.findTable(this.session.getMetadata()).isPresent()
+                || this.findTable(this.session.refreshSchema()).isPresent())) {
+            throw new IllegalStateException(this.getQualifiedTableName() + " did not appear in schema metadata within "
+                + TimeUnit.NANOSECONDS.toSeconds(this.backoff.getTimeoutNanos()) + " seconds");
+        }
+
+        final SimpleStatement probe = SimpleStatement.newInstance(
+            "SELECT user_id FROM " + this.getQualifiedTableName() + " LIMIT 1");
+
+        if (!this.backoff.await(this.getQualifiedTableName() + " to serve reads", () -> {
+            this.session.execute(probe);
+            return true;
+        })) {
+            throw new IllegalStateException(this.getQualifiedTableName() + " was not ready within "
+                + TimeUnit.NANOSECONDS.toSeconds(this.backoff.getTimeoutNanos()) + " seconds");
+        }
+    }
+
+    private void awaitSchemaAgreement() throws InterruptedException {
+        if (!this.backoff.await("schema agreement", this.session::checkSchemaAgreement)) {
+            LOGGER.warn("Schema agreement was not reached; continuing with {}", this.getQualifiedTableName());
+        }
+    }
+
+    private void execute(final String query) {
+        this.session.execute(query);
+        LOGGER.info("Executed query: " + query);
+    }
+
+    /**
+     * Truncates the user table, reporting rather than throwing an error if the server rejects the statement.
+     */
+    private boolean truncate() {
+        try {
+            this.execute("TRUNCATE " + this.getQualifiedTableName());
+            return true;
+        } catch (final DriverException error) {
+            LOGGER.warn("Could not truncate {}: {}", this.getQualifiedTableName(), error.toString());
+            return false;
+        }
+    }
+
+    private Optional<TableMetadata> findTable(final Metadata metadata) {
+        return metadata.getKeyspace(this.keyspace).flatMap(keyspaceMetadata -> keyspaceMetadata.getTable(this.table));
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * What a {@link SchemaBootstrapper schema bootstrapper} did to the user table.
+     */
+    public enum Action {
+
+        /**
+         * The table did not exist and was created.
+         */
+        CREATED,
+
+        /**
+         * The table existed with a compatible schema and was truncated.
+         */
+        REUSED,
+
+        /**
+         * The table existed and was dropped and created again.
+         */
+        RECREATED;
+
+        @Override
+        public String toString() {
+            return this.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The outcome of bootstrapping the user table.
+     */
+    public static final class Result {
+
+        private final Action action;
+        private final String qualifiedTableName;
+        private final long elapsedNanos;
+
+        Result(final Action action, final String qualifiedTableName, final long elapsedNanos) {
+            this.action = action;
+            this.qualifiedTableName = qualifiedTableName;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets what was done to the table.
+         *
+         * @return The action taken.
+         */
+        @NonNull
+        public Action getAction() {
+            return this.action;
+        }
+
+        /**
+         * Gets how long it took to bootstrap the table, including the time spent waiting for it to become ready.
+         *
+         * @return The elapsed time in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return this.elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return this.action + " " + this.qualifiedTableName + " in "
+                + TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos) + " ms";
+        }
+    }
+
+    // endregion
+}
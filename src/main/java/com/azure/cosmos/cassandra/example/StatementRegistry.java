@@ -0,0 +1,428 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.metadata.schema.SchemaChangeListenerBase;
+import com.datastax.oss.driver.api.core.metadata.schema.TableMetadata;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepares the statements used by a {@link UserRepository user repository} once and hands out bound statements.
+ * <p>
+ * Prepared statements are held in an array indexed by {@link Operation operation} ordinal, so that a lookup costs no
+ * more than an array access. Each slot holds the future of a single prepare request, so that concurrent callers that
+ * find a statement missing wait on the same request rather than each preparing it again. Register an instance with the
+ * {@link CqlSession session} as a schema change listener and all statements are invalidated--and then re-prepared on
+ * next use--when the user table is created, updated, or dropped. Each such change also advances the registry's
+ * {@link #getSchemaGeneration schema generation}, which a {@link UserRepository user repository} uses to tell a
+ * statement made stale by a schema change from one that is simply invalid.
+ */
+public final class StatementRegistry extends SchemaChangeListenerBase {
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final CqlIdentifier keyspace;
+    private final CqlIdentifier table;
+    private final String qualifiedTableName;
+
+    private final AtomicReferenceArray<CompletableFuture<PreparedStatement>> statements =
+        new AtomicReferenceArray<>(OPERATIONS.length);
+    private final AtomicIntegerArray prepareCounts = new AtomicIntegerArray(OPERATIONS.length);
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder reprepareCount = new LongAdder();
+    private final AtomicLong schemaGeneration = new AtomicLong();
+
+    private volatile CqlSession session;
+
+    /**
+     * Initializes a new statement registry for the given user table.
+     *
+     * @param keyspace Keyspace name.
+     * @param table    Table name.
+     */
+    public StatementRegistry(@NonNull final String keyspace, @NonNull final String table) {
+        this.keyspace = CqlIdentifier.fromCql(keyspace);
+        this.table = CqlIdentifier.fromCql(table);
+        this.qualifiedTableName = keyspace + "." + table;
+    }
+
+    // region Methods
+
+    /**
+     * Binds the statement for an operation to a set of values, preparing the statement first, if necessary.
+     *
+     * @param operation The operation to bind.
+     * @param values    Values for the operation's bind markers.
+     *
+     * @return A bound statement ready for execution.
+     */
+    @NonNull
+    public BoundStatement bind(@NonNull final Operation operation, final Object... values) {
+
+        final PreparedStatement prepared = this.getPrepared(operation);
+        final PreparedStatement statement;
+
+        if (prepared == null) {
+            this.missCount.increment();
+            statement = this.prepare(operation);
+        } else {
+            this.hitCount.increment();
+            statement = prepared;
+        }
+
+        return statement.bind(values).setIdempotent(operation.isIdempotent());
+    }
+
+    /**
+     * Binds the statement for an operation to a set of values without blocking, preparing the statement first, if
+     * necessary.
+     * <p>
+     * Use this method rather than {@link #bind} from driver threads, such as in a callback on an asynchronous result.
+     *
+     * @param operation The operation to bind.
+     * @param values    Values for the operation's bind markers.
+     *
+     * @return A stage that completes with a bound statement ready for execution.
+     */
+    @NonNull
+    public CompletionStage<BoundStatement> bindAsync(@NonNull final Operation operation, final Object... values) {
+
+        final PreparedStatement prepared = this.getPrepared(operation);
+
+        if (prepared != null) {
+            this.hitCount.increment();
+            return CompletableFuture.completedFuture(prepared.bind(values).setIdempotent(operation.isIdempotent()));
+        }
+
+        this.missCount.increment();
+
+        return this.prepareAsync(operation).thenApply(statement ->
+            statement.bind(values).setIdempotent(operation.isIdempotent()));
+    }
+
+    /**
+     * Closes this registry.
+     * <p>
+     * A registry holds no resources of its own. This method overrides {@link SchemaChangeListenerBase#close} only so
+     * that closing a registry throws no checked exceptions.
+     */
+    @Override
+    public void close() {
+        // nothing to release
+    }
+
+    /**
+     * Gets the keyspace of the user table targeted by this registry.
+     *
+     * @return The keyspace identifier.
+     */
+    @NonNull
+    public CqlIdentifier getKeyspace() {
+        return this.keyspace;
+    }
+
+    /**
+     * Gets the number of times {@link #bind} or {@link #bindAsync} found an operation's statement already prepared.
+     *
+     * @return The number of registry hits.
+     */
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * Gets the number of times {@link #bind} or {@link #bindAsync} had to prepare an operation's statement or wait for
+     * it to be prepared.
+     *
+     * @return The number of registry misses.
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * Gets the number of times an operation's statement was prepared after being invalidated.
+     * <p>
+     * Concurrent callers that find an invalidated statement share a single prepare request, which is counted once.
+     *
+     * @return The number of re-prepares.
+     */
+    public long getReprepareCount() {
+        return this.reprepareCount.sum();
+    }
+
+    /**
+     * Gets the number of times the user table has been created, updated, or dropped since this registry was
+     * registered as a schema change listener.
+     * <p>
+     * The generation advances only after all statements have been invalidated, so a caller that reads a generation
+     * newer than the one it read before binding a statement is sure to bind a freshly prepared statement next.
+     *
+     * @return The schema generation.
+     */
+    public long getSchemaGeneration() {
+        return this.schemaGeneration.get();
+    }
+
+    /**
+     * Gets the fully qualified name of the user table targeted by this registry.
+     *
+     * @return The user table name in the form {@code <keyspace>.<table>}.
+     */
+    @NonNull
+    public String getQualifiedTableName() {
+        return this.qualifiedTableName;
+    }
+
+    /**
+     * Discards the prepared statement for an operation so that it is prepared again on next use.
+     *
+     * @param operation The operation to invalidate.
+     */
+    public void invalidate(@NonNull final Operation operation) {
+        this.statements.set(operation.ordinal(), null);
+    }
+
+    /**
+     * Discards all prepared statements so that each is prepared again on next use.
+     */
+    public void invalidateAll() {
+        for (final Operation operation : OPERATIONS) {
+            this.invalidate(operation);
+        }
+    }
+
+    /**
+     * Prepares all statements in this registry using the given session.
+     * <p>
+     * Call this method once, after the user table has been created and before the registry is first used.
+     *
+     * @param session The session used to prepare statements.
+     */
+    public void prepareAll(@NonNull final CqlSession session) {
+        this.session = Objects.requireNonNull(session, "expected non-null session");
+        for (final Operation operation : OPERATIONS) {
+            this.prepare(operation);
+        }
+    }
+
+    @Override
+    public void onTableCreated(@NonNull final TableMetadata table) {
+        this.invalidateIfUserTable(table);
+    }
+
+    @Override
+    public void onTableDropped(@NonNull final TableMetadata table) {
+        this.invalidateIfUserTable(table);
+    }
+
+    @Override
+    public void onTableUpdated(@NonNull final TableMetadata current, @NonNull final TableMetadata previous) {
+        this.invalidateIfUserTable(current);
+    }
+
+    @Override
+    public String toString() {
+        return "StatementRegistry(table=" + this.qualifiedTableName
+            + ", hits=" + this.getHitCount()
+            + ", misses=" + this.getMissCount()
+            + ", reprepares=" + this.getReprepareCount() + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private void invalidateIfUserTable(final TableMetadata metadata) {
+        if (this.keyspace.equals(metadata.getKeyspace()) && this.table.equals(metadata.getName())) {
+            this.invalidateAll();
+            this.schemaGeneration.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the prepared statement for an operation, if it has been prepared and not since invalidated.
+     */
+    private PreparedStatement getPrepared(final Operation operation) {
+        final CompletableFuture<PreparedStatement> future = this.statements.get(operation.ordinal());
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    private PreparedStatement prepare(final Operation operation) {
+        try {
+            return this.prepareAsync(operation).join();
+        } catch (final CompletionException error) {
+            if (error.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) error.getCause();
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * Prepares the statement for an operation, unless a prepare request for it is already in flight or complete, in
+     * which case that request's future is returned. A failed request is cleared from its slot, so that the next caller
+     * tries again.
+     */
+    private CompletableFuture<PreparedStatement> prepareAsync(final Operation operation) {
+
+        final int index = operation.ordinal();
+
+        while (true) {
+
+            final CompletableFuture<PreparedStatement> current = this.statements.get(index);
+
+            if (current != null) {
+                return current;
+            }
+
+            final CompletableFuture<PreparedStatement> future = new CompletableFuture<>();
+
+            if (!this.statements.compareAndSet(index, null, future)) {
+                continue;
+            }
+
+            final CqlSession session = this.session;
+
+            if (session == null) {
+                this.statements.compareAndSet(index, future, null);
+                throw new IllegalStateException("statements must be prepared before they are bound");
+            }
+
+            if (this.prepareCounts.getAndIncrement(index) > 0) {
+                this.reprepareCount.increment();
+            }
+
+            session.prepareAsync(operation.getQuery(this.qualifiedTableName)).whenComplete((prepared, error) -> {
+                if (error == null) {
+                    future.complete(prepared);
+                } else {
+                    this.statements.compareAndSet(index, future, null);
+                    future.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error);
+                }
+            });
+
+            return future;
+        }
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * Logical operations supported by a {@link UserRepository user repository}.
+     */
+    public enum Operation {
+
+        /**
+         * Inserts a user.
+         */
+        INSERT_USER("INSERT INTO %s (user_bcity, user_id, user_name) VALUES (?,?,?)", true),
+
+        /**
+         * Inserts a user with a payload.
+         */
+        INSERT_USER_WITH_PAYLOAD(
+            "INSERT INTO %s (user_bcity, user_id, user_name, user_payload) VALUES (?,?,?,?)", true),
+
+        /**
+         * Selects a user by ID.
+         */
+        SELECT_USER("SELECT user_id, user_name, user_bcity FROM %s WHERE user_id = ?", true),
+
+        /**
+         * Selects the users with any of a list of IDs.
+         */
+        SELECT_USERS("SELECT user_id, user_name, user_bcity FROM %s WHERE user_id IN ?", true),
+
+        /**
+         * Selects every user in the user table.
+         */
+        SELECT_ALL_USERS("SELECT user_id, user_name, user_bcity FROM %s", true),
+
+        /**
+         * Counts the number of users in the user table.
+         */
+        SELECT_USER_COUNT("SELECT COUNT(*) AS coun FROM %s", true),
+
+        /**
+         * Counts the users whose ID token lies in the range {@code ]start, end]}.
+         */
+        COUNT_USERS_IN_RANGE("SELECT COUNT(*) AS coun FROM %s WHERE token(user_id) > ? AND token(user_id) <= ?", true),
+
+        /**
+         * Counts the users whose ID token follows a given token.
+         */
+        COUNT_USERS_FROM_TOKEN("SELECT COUNT(*) AS coun FROM %s WHERE token(user_id) > ?", true),
+
+        /**
+         * Selects the users whose ID token lies in the range {@code ]start, end]}.
+         */
+        SELECT_USERS_IN_RANGE(
+            "SELECT user_id, user_name, user_bcity FROM %s WHERE token(user_id) > ? AND token(user_id) <= ?", true),
+
+        /**
+         * Selects the users whose ID token follows a given token.
+         */
+        SELECT_USERS_FROM_TOKEN("SELECT user_id, user_name, user_bcity FROM %s WHERE token(user_id) > ?", true);
+
+        private final String format;
+        private final boolean idempotent;
+
+        Operation(final String format, final boolean idempotent) {
+            this.format = format;
+            this.idempotent = idempotent;
+        }
+
+        /**
+         * Gets the CQL query string for this operation against the given table.
+         *
+         * @param qualifiedTableName A table name in the form {@code <keyspace>.<table>}.
+         *
+         * @return The CQL query string for this operation.
+         */
+        @NonNull
+        public String getQuery(@NonNull final String qualifiedTableName) {
+            return String.format(this.format, qualifiedTableName);
+        }
+
+        /**
+         * Gets a value indicating whether this operation may be safely retried.
+         *
+         * @return {@code true} if this operation is idempotent; otherwise {@code false}.
+         */
+        public boolean isIdempotent() {
+            return this.idempotent;
+        }
+
+        /**
+         * Gets a value indicating whether this operation writes to the user table.
+         *
+         * @return {@code true} if this operation is an insert; otherwise {@code false}.
+         */
+        public boolean isWrite() {
+            return this == INSERT_USER || this == INSERT_USER_WITH_PAYLOAD;
+        }
+    }
+
+    // endregion
+}
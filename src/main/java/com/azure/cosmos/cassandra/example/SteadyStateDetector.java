@@ -0,0 +1,279 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Finds the steady state of a load test in its time series of {@link MeasurementWindow measurement windows}.
+ * <p>
+ * Throughput is taken to have stabilized at the first run of {@code windowCount} consecutive windows whose throughputs
+ * all lie within {@code tolerance} of their mean. The steady state lasts from the first window of that run to the last
+ * window whose throughput still lies within tolerance of that mean, so that the tail of a run in which clients drain
+ * their last requests is excluded too. Windows cut short by the end of a run and windows in which nothing completed--a
+ * pause between phases, say--are ignored.
+ */
+public final class SteadyStateDetector {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_SECOND = 1E9;
+
+    private final int windowCount;
+    private final double tolerance;
+
+    /**
+     * Initializes a new steady state detector.
+     *
+     * @param windowCount The number of consecutive windows whose throughput must agree.
+     * @param tolerance   The largest fraction by which the throughput of any of those windows may differ from their
+     *                    mean, e.g., {@code 0.1} for ten percent.
+     */
+    public SteadyStateDetector(final int windowCount, final double tolerance) {
+
+        if (windowCount <= 0) {
+            throw new IllegalArgumentException("windowCount must be positive, not " + windowCount);
+        }
+        if (!(tolerance > 0.0 && tolerance <= 1.0)) {
+            throw new IllegalArgumentException("tolerance must be in the range (0, 1], not " + tolerance);
+        }
+
+        this.windowCount = windowCount;
+        this.tolerance = tolerance;
+    }
+
+    // region Methods
+
+    /**
+     * Finds the steady state of a time series.
+     *
+     * @param windows    The time series in the order the windows were measured.
+     * @param throughput The throughput to test for stability, e.g., {@link MeasurementWindow#getWriteThroughput}.
+     *
+     * @return The steady state windows and their merged measurements or, if throughput never stabilized, all of the
+     *     windows considered.
+     */
+    @NonNull
+    public Result detect(
+        @NonNull final List<MeasurementWindow> windows,
+        @NonNull final ToDoubleFunction<MeasurementWindow> throughput) {
+
+        final List<MeasurementWindow> candidates = new ArrayList<>(windows.size());
+
+        for (final MeasurementWindow window : windows) {
+            if (window.isComplete() && throughput.applyAsDouble(window) > 0.0) {
+                candidates.add(window);
+            }
+        }
+
+        for (int first = 0; first + this.windowCount <= candidates.size(); first++) {
+
+            double mean = 0.0;
+
+            for (int i = first; i < first + this.windowCount; i++) {
+                mean += throughput.applyAsDouble(candidates.get(i));
+            }
+
+            mean /= this.windowCount;
+            int last = first - 1;
+
+            for (int i = first; i < candidates.size(); i++) {
+                if (this.isWithinTolerance(throughput.applyAsDouble(candidates.get(i)), mean)) {
+                    last = i;
+                } else if (i < first + this.windowCount) {
+                    break;
+                }
+            }
+
+            if (last >= first + this.windowCount - 1) {
+                return new Result(true, candidates.subList(first, last + 1), candidates.size(), throughput);
+            }
+        }
+
+        return new Result(false, candidates, candidates.size(), throughput);
+    }
+
+    /**
+     * Gets the largest fraction by which the throughput of a steady window may differ from the mean.
+     *
+     * @return The tolerance.
+     */
+    public double getTolerance() {
+        return this.tolerance;
+    }
+
+    /**
+     * Gets the number of consecutive windows whose throughput must agree.
+     *
+     * @return The window count.
+     */
+    public int getWindowCount() {
+        return this.windowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SteadyStateDetector(windows=" + this.windowCount + ", tolerance=" + this.tolerance + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private boolean isWithinTolerance(final double value, final double mean) {
+        return Math.abs(value - mean) <= this.tolerance * mean;
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * The windows in which a load test ran in a steady state and their merged throughput, errors, and latencies.
+     */
+    public static final class Result {
+
+        private final boolean detected;
+        private final List<MeasurementWindow> windows;
+        private final int candidateCount;
+        private final double throughput;
+        private final long errorCount;
+        private final Histogram writeHistogram = new Histogram(SIGNIFICANT_DIGITS);
+        private final Histogram readHistogram = new Histogram(SIGNIFICANT_DIGITS);
+
+        Result(
+            final boolean detected,
+            final List<MeasurementWindow> windows,
+            final int candidateCount,
+            final ToDoubleFunction<MeasurementWindow> throughput) {
+
+            long elapsedNanos = 0L;
+            long errors = 0L;
+            double operations = 0.0;
+
+            for (final MeasurementWindow window : windows) {
+                elapsedNanos += window.getElapsedNanos();
+                errors += window.getErrorCount();
+                operations += throughput.applyAsDouble(window) * window.getElapsedNanos() / NANOS_PER_SECOND;
+                this.writeHistogram.add(window.getWriteHistogram());
+                this.readHistogram.add(window.getReadHistogram());
+            }
+
+            this.detected = detected;
+            this.windows = Collections.unmodifiableList(new ArrayList<>(windows));
+            this.candidateCount = candidateCount;
+            this.throughput = elapsedNanos == 0L ? 0.0 : operations * NANOS_PER_SECOND / elapsedNanos;
+            this.errorCount = errors;
+        }
+
+        /**
+         * Gets the number of windows that were considered, i.e., those that ran their full length and in which
+         * something completed.
+         *
+         * @return The number of windows considered.
+         */
+        public int getCandidateCount() {
+            return this.candidateCount;
+        }
+
+        /**
+         * Gets the number of errors counted in the steady state windows.
+         *
+         * @return The error count.
+         */
+        public long getErrorCount() {
+            return this.errorCount;
+        }
+
+        /**
+         * Gets the merged read latencies of the steady state windows.
+         *
+         * @return A histogram of read latencies in nanoseconds.
+         */
+        @NonNull
+        public Histogram getReadHistogram() {
+            return this.readHistogram;
+        }
+
+        /**
+         * Gets the start of the steady state.
+         *
+         * @return The start of the first steady state window in seconds since the start of the run; zero, if there are
+         *     no steady state windows.
+         */
+        public double getStartSeconds() {
+            return this.windows.isEmpty() ? 0.0 : this.windows.get(0).getStartNanos() / NANOS_PER_SECOND;
+        }
+
+        /**
+         * Gets the mean throughput of the steady state windows, weighted by their lengths.
+         *
+         * @return The throughput in operations per second.
+         */
+        public double getThroughput() {
+            return this.throughput;
+        }
+
+        /**
+         * Gets the windows in which the load test ran in a steady state.
+         *
+         * @return The steady state windows or, if throughput never stabilized, all of the windows considered.
+         */
+        @NonNull
+        public List<MeasurementWindow> getWindows() {
+            return this.windows;
+        }
+
+        /**
+         * Gets the merged write latencies of the steady state windows.
+         *
+         * @return A histogram of write latencies in nanoseconds.
+         */
+        @NonNull
+        public Histogram getWriteHistogram() {
+            return this.writeHistogram;
+        }
+
+        /**
+         * Gets a value indicating whether throughput stabilized.
+         *
+         * @return {@code true} if a steady state was found; otherwise {@code false}.
+         */
+        public boolean isDetected() {
+            return this.detected;
+        }
+
+        /**
+         * Adds the start, length, throughput, and errors of the steady state to a summary as entries named
+         * {@code steady-state-<statistic>}.
+         *
+         * @param summary A summary to which entries are added.
+         */
+        public void putSummary(@NonNull final Map<String, Object> summary) {
+            summary.put("steady-state-detected", this.detected);
+            summary.put("steady-state-start-seconds", this.getStartSeconds());
+            summary.put("steady-state-windows", this.windows.size());
+            summary.put("steady-state-throughput", this.throughput);
+            summary.put("steady-state-errors", this.errorCount);
+        }
+
+        @Override
+        public String toString() {
+            return this.detected
+                ? String.format(Locale.ROOT, "%.1f ops/sec from %.1f s over %d of %d windows",
+                    this.throughput, this.getStartSeconds(), this.windows.size(), this.candidateCount)
+                : String.format(Locale.ROOT, "%.1f ops/sec over all %d windows (not detected)",
+                    this.throughput, this.candidateCount);
+        }
+    }
+
+    // endregion
+}
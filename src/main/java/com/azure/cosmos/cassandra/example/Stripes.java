@@ -0,0 +1,35 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+/**
+ * Maps threads onto a fixed number of stripes, so that per-thread state stays bounded however many threads--platform
+ * or virtual--write to it.
+ * <p>
+ * There are four stripes per available processor, rounded up to a power of two. Threads are assigned to stripes by
+ * ID. Thread IDs are handed out in sequence, so the threads of a fixed pool each get their own stripe when there are
+ * no more of them than stripes, while a large number of virtual threads are spread evenly over all stripes.
+ */
+final class Stripes {
+
+    /**
+     * The number of stripes.
+     */
+    static final int COUNT = Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+    private static final int MASK = COUNT - 1;
+
+    private Stripes() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Gets the stripe of the calling thread.
+     *
+     * @return A stripe index in the range {@code [0, COUNT)}.
+     */
+    static int current() {
+        return (int) Thread.currentThread().getId() & MASK;
+    }
+}
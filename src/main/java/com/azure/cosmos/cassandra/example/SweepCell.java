@@ -0,0 +1,261 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.ProgrammaticDriverConfigLoaderBuilder;
+import com.datastax.oss.driver.api.core.config.TypedDriverOption;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One cell of a parameter sweep: a concurrency level, a consistency level, a connection pool size, and a limit on
+ * requests per connection at which a load test is run.
+ * <p>
+ * A sweep is the cartesian product of the values given by the {@code sweep-*} {@link LoadTestOptions load test
+ * options}. A dimension with no values is not swept: every cell takes the value configured for a single run--the
+ * thread count or maximum number of requests in flight for concurrency and, for the others, whatever the driver's
+ * configuration says. Cells are ordered with concurrency varying slowest and the request limit fastest.
+ */
+public final class SweepCell {
+
+    private final int index;
+    private final int concurrency;
+    private final ConsistencyLevel consistencyLevel;
+    private final Integer poolSize;
+    private final Integer maxRequests;
+
+    /**
+     * Initializes a new sweep cell.
+     *
+     * @param index            The position of the cell in its sweep, counting from zero.
+     * @param concurrency      The number of logical clients or the maximum number of requests in flight, depending on
+     *                         the load test mode.
+     * @param consistencyLevel The consistency level of reads and writes or {@code null}, if the configured read and
+     *                         write consistency levels should be used.
+     * @param poolSize         The number of connections per node or {@code null}, if the driver's configured pool sizes
+     *                         should be used.
+     * @param maxRequests      The maximum number of requests per connection or {@code null}, if the driver's configured
+     *                         limit should be used.
+     */
+    public SweepCell(
+        final int index,
+        final int concurrency,
+        final ConsistencyLevel consistencyLevel,
+        final Integer poolSize,
+        final Integer maxRequests) {
+
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive, not " + concurrency);
+        }
+        if (poolSize != null && poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be positive, not " + poolSize);
+        }
+        if (maxRequests != null && maxRequests <= 0) {
+            throw new IllegalArgumentException("maxRequests must be positive, not " + maxRequests);
+        }
+
+        this.index = index;
+        this.concurrency = concurrency;
+        this.consistencyLevel = consistencyLevel;
+        this.poolSize = poolSize;
+        this.maxRequests = maxRequests;
+    }
+
+    // region Methods
+
+    /**
+     * Expands the sweep given by a set of load test options into its cells.
+     *
+     * @param options Options with one or more {@code sweep-*} dimensions.
+     *
+     * @return The cells of the sweep in the order they should be run; a single cell, if no dimension has values.
+     */
+    @NonNull
+    public static List<SweepCell> expand(@NonNull final LoadTestOptions options) {
+
+        final List<Integer> concurrencyLevels = options.getSweepConcurrency().isEmpty()
+            ? Collections.singletonList(concurrencyOf(options))
+            : options.getSweepConcurrency();
+
+        final List<ConsistencyLevel> consistencyLevels = orConfigured(options.getSweepConsistencyLevels());
+        final List<Integer> poolSizes = orConfigured(options.getSweepPoolSizes());
+        final List<Integer> maxRequests = orConfigured(options.getSweepMaxRequests());
+        final List<SweepCell> cells = new ArrayList<>();
+
+        for (final int concurrency : concurrencyLevels) {
+            for (final ConsistencyLevel consistencyLevel : consistencyLevels) {
+                for (final Integer poolSize : poolSizes) {
+                    for (final Integer maxRequest : maxRequests) {
+                        cells.add(new SweepCell(cells.size(), concurrency, consistencyLevel, poolSize, maxRequest));
+                    }
+                }
+            }
+        }
+
+        return cells;
+    }
+
+    /**
+     * Derives the options for a single load test at this cell.
+     * <p>
+     * The concurrency level sets the thread count in {@link LoadTestOptions.Mode#THREADS threads} and {@link
+     * LoadTestOptions.Mode#VIRTUAL_THREADS virtual-threads} modes and the maximum number of requests in flight
+     * otherwise. The consistency level, if any, is used for both reads and writes. The sweep dimensions are cleared.
+     *
+     * @param options Options for the sweep as a whole.
+     *
+     * @return Options for this cell.
+     */
+    @NonNull
+    public LoadTestOptions applyTo(@NonNull final LoadTestOptions options) {
+
+        final LoadTestOptions.Builder builder = options.toBuilder()
+            .sweepConcurrency(Collections.emptyList())
+            .sweepConsistencyLevels(Collections.emptyList())
+            .sweepPoolSizes(Collections.emptyList())
+            .sweepMaxRequests(Collections.emptyList());
+
+        if (isThreadPerClient(options.getMode())) {
+            builder.threadCount(this.concurrency);
+        } else {
+            builder.maxInFlight(this.concurrency);
+        }
+
+        if (this.consistencyLevel != null) {
+            builder.writeConsistency(this.consistencyLevel).readConsistency(this.consistencyLevel);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Gets the number of logical clients or the maximum number of requests in flight, depending on the load test mode.
+     *
+     * @return The concurrency level.
+     */
+    public int getConcurrency() {
+        return this.concurrency;
+    }
+
+    /**
+     * Gets the consistency level of reads and writes.
+     *
+     * @return A consistency level or {@code null}, if the configured read and write consistency levels are used.
+     */
+    public ConsistencyLevel getConsistencyLevel() {
+        return this.consistencyLevel;
+    }
+
+    /**
+     * Gets the driver options this cell overrides.
+     * <p>
+     * The pool size sets both {@link TypedDriverOption#CONNECTION_POOL_LOCAL_SIZE local} and {@link
+     * TypedDriverOption#CONNECTION_POOL_REMOTE_SIZE remote} pool sizes, so that a multi-region layout is measured with
+     * the same number of connections to every node.
+     *
+     * @return A map from driver option to value; empty, if the cell uses the driver's configuration as is.
+     */
+    @NonNull
+    public Map<TypedDriverOption<Integer>, Integer> getDriverOptions() {
+
+        final Map<TypedDriverOption<Integer>, Integer> driverOptions = new LinkedHashMap<>();
+
+        if (this.poolSize != null) {
+            driverOptions.put(TypedDriverOption.CONNECTION_POOL_LOCAL_SIZE, this.poolSize);
+            driverOptions.put(TypedDriverOption.CONNECTION_POOL_REMOTE_SIZE, this.poolSize);
+        }
+
+        if (this.maxRequests != null) {
+            driverOptions.put(TypedDriverOption.CONNECTION_MAX_REQUESTS, this.maxRequests);
+        }
+
+        return driverOptions;
+    }
+
+    /**
+     * Gets the position of the cell in its sweep.
+     *
+     * @return The index of the cell, counting from zero.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Gets the maximum number of requests per connection.
+     *
+     * @return A request limit or {@code null}, if the driver's configured limit is used.
+     */
+    public Integer getMaxRequests() {
+        return this.maxRequests;
+    }
+
+    /**
+     * Gets the number of connections per node.
+     *
+     * @return A pool size or {@code null}, if the driver's configured pool sizes are used.
+     */
+    public Integer getPoolSize() {
+        return this.poolSize;
+    }
+
+    /**
+     * Builds a driver configuration loader for this cell: the driver's default configuration sources--{@code
+     * application.conf} and {@code reference.conf}--overlaid with the {@link #getDriverOptions driver options} this
+     * cell overrides.
+     *
+     * @return A new driver configuration loader.
+     */
+    @NonNull
+    public DriverConfigLoader newConfigLoader() {
+
+        final ProgrammaticDriverConfigLoaderBuilder builder = DriverConfigLoader.programmaticBuilder();
+
+        for (final Map.Entry<TypedDriverOption<Integer>, Integer> entry : this.getDriverOptions().entrySet()) {
+            builder.withInt(entry.getKey().getRawOption(), entry.getValue());
+        }
+
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "SweepCell(index=" + this.index
+            + ", concurrency=" + this.concurrency
+            + ", consistency=" + format(this.consistencyLevel)
+            + ", pool-size=" + format(this.poolSize)
+            + ", max-requests=" + format(this.maxRequests) + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static int concurrencyOf(final LoadTestOptions options) {
+        return isThreadPerClient(options.getMode()) ? options.getThreadCount() : options.getMaxInFlight();
+    }
+
+    static String format(final Object value) {
+        return value == null ? "default" : value.toString();
+    }
+
+    private static boolean isThreadPerClient(final LoadTestOptions.Mode mode) {
+        return mode == LoadTestOptions.Mode.THREADS
+            || mode == LoadTestOptions.Mode.VIRTUAL_THREADS
+            || mode == LoadTestOptions.Mode.WRITE_BEHIND;
+    }
+
+    private static <T> List<T> orConfigured(final List<T> values) {
+        return values.isEmpty() ? Collections.singletonList(null) : values;
+    }
+
+    // endregion
+}
@@ -0,0 +1,445 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.github.javafaker.Faker;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Holds the test data written by a load test, generated up front so that no time is spent generating data on the hot
+ * path.
+ * <p>
+ * Names and cities are generated with {@link Faker} into small deduplicated dictionaries. The name, city, and optional
+ * payload of a record are chosen from these dictionaries by a hash of its ID, so that nothing but the ID is stored per
+ * record and any record's values can be {@link #newUser recomputed} from its ID alone. IDs are random UUIDs held as
+ * pairs of longs, from which names, cities, and payloads are chosen and written IDs recorded, and rendered as strings
+ * once, when the arena is generated, so that handing out a record allocates nothing. A record's ID costs about 100
+ * bytes, most of them in its string. Workers read records through their own {@link Cursor cursors} or by index.
+ * <p>
+ * Arenas generated by the worker processes of a distributed load test each draw their IDs from their own {@link
+ * #generate(long, int, int, long, int, int) shard} of the ID space, so that no two workers ever write the same user.
+ */
+public final class TestDataArena {
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int MAX_ATTEMPTS_PER_ENTRY = 8;
+    private static final int PAYLOAD_POOL_SIZE = 64;
+
+    /**
+     * The maximum number of records in an arena, which is limited by the size of the array that holds their IDs.
+     */
+    public static final int MAX_RECORD_COUNT = (Integer.MAX_VALUE - 8) / 2;
+
+    private final int recordCount;
+    private final long[] idBits;
+    private final String[] ids;
+    private final String[] names;
+    private final String[] cities;
+    private final String[] payloads;
+    private final int payloadSize;
+
+    private TestDataArena(
+        final long[] idBits,
+        final String[] ids,
+        final String[] names,
+        final String[] cities,
+        final String[] payloads,
+        final int payloadSize) {
+
+        this.recordCount = idBits.length / 2;
+        this.idBits = idBits;
+        this.ids = ids;
+        this.names = names;
+        this.cities = cities;
+        this.payloads = payloads;
+        this.payloadSize = payloadSize;
+    }
+
+    // region Methods
+
+    /**
+     * Generates a new test data arena.
+     *
+     * @param recordCount Number of records to generate, no more than {@link #MAX_RECORD_COUNT}.
+     * @param poolSize    Target number of distinct names and of distinct cities. Fewer are generated if {@link Faker}
+     *                    cannot produce this many distinct values.
+     * @param payloadSize Size of each record's payload in characters or zero, if records should have no payload.
+     * @param seed        Seed for the random number generators used to generate names, cities, and payloads.
+     *
+     * @return A new test data arena.
+     */
+    @NonNull
+    public static TestDataArena generate(
+        final long recordCount,
+        final int poolSize,
+        final int payloadSize,
+        final long seed) {
+        return generate(recordCount, poolSize, payloadSize, seed, 0, 1);
+    }
+
+    /**
+     * Generates a new test data arena whose IDs are drawn from one of a number of disjoint shards of the ID space.
+     * <p>
+     * The shards split the range of the most significant 64 bits of an ID into equal, contiguous slices. Arenas
+     * generated for different shards therefore never share an ID, whatever their seeds.
+     *
+     * @param recordCount Number of records to generate, no more than {@link #MAX_RECORD_COUNT}.
+     * @param poolSize    Target number of distinct names and of distinct cities. Fewer are generated if {@link Faker}
+     *                    cannot produce this many distinct values.
+     * @param payloadSize Size of each record's payload in characters or zero, if records should have no payload.
+     * @param seed        Seed for the random number generators used to generate IDs, names, cities, and payloads.
+     * @param shard       Index of the shard from which IDs are drawn.
+     * @param shardCount  Number of shards into which the ID space is split.
+     *
+     * @return A new test data arena.
+     */
+    @NonNull
+    public static TestDataArena generate(
+        final long recordCount,
+        final int poolSize,
+        final int payloadSize,
+        final long seed,
+        final int shard,
+        final int shardCount) {
+
+        if (recordCount < 0 || recordCount > MAX_RECORD_COUNT) {
+            throw new IllegalArgumentException("recordCount must be in the range [0, " + MAX_RECORD_COUNT
+                + "], not " + recordCount);
+        }
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be positive, not " + poolSize);
+        }
+        if (payloadSize < 0) {
+            throw new IllegalArgumentException("payloadSize must be non-negative, not " + payloadSize);
+        }
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive, not " + shardCount);
+        }
+        if (shard < 0 || shard >= shardCount) {
+            throw new IndexOutOfBoundsException("shard must be in [0, " + shardCount + "), not " + shard);
+        }
+
+        final Random random = new Random(seed);
+        final Faker faker = new Faker(random);
+        final long[] idBits = new long[2 * (int) recordCount];
+        final String[] ids = new String[(int) recordCount];
+
+        // The shard's slice of the most significant bits as an unsigned offset and width; one shard spans them all
+
+        final long shardWidth = shardCount == 1 ? 0L : Long.divideUnsigned(-1L, shardCount);
+        final long shardOffset = shard * shardWidth;
+
+        for (int i = 0; i < recordCount; i++) {
+            final long bits = random.nextLong();
+            final UUID id = new UUID(
+                shardWidth == 0L ? bits : shardOffset + Long.remainderUnsigned(bits, shardWidth),
+                random.nextLong());
+            idBits[2 * i] = id.getMostSignificantBits();
+            idBits[2 * i + 1] = id.getLeastSignificantBits();
+            ids[i] = id.toString();
+        }
+
+        final Set<String> names = new LinkedHashSet<>(poolSize * 2);
+        final Set<String> cities = new LinkedHashSet<>(poolSize * 2);
+
+        for (int i = 0; i < poolSize * MAX_ATTEMPTS_PER_ENTRY && names.size() < poolSize; i++) {
+            names.add(faker.name().lastName());
+        }
+
+        for (int i = 0; i < poolSize * MAX_ATTEMPTS_PER_ENTRY && cities.size() < poolSize; i++) {
+            cities.add(faker.address().city());
+        }
+
+        final String[] payloads = new String[payloadSize == 0 ? 0 : PAYLOAD_POOL_SIZE];
+
+        for (int i = 0; i < payloads.length; i++) {
+            final char[] payload = new char[payloadSize];
+            for (int j = 0; j < payloadSize; j++) {
+                payload[j] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            }
+            payloads[i] = new String(payload);
+        }
+
+        return new TestDataArena(
+            idBits,
+            ids,
+            names.toArray(new String[0]),
+            cities.toArray(new String[0]),
+            payloads,
+            payloadSize);
+    }
+
+    /**
+     * Gets the city of birth of a record.
+     *
+     * @param n A record index.
+     *
+     * @return The city of birth of record {@code n}.
+     */
+    @NonNull
+    public String getCity(final int n) {
+        return this.cities[select(this.idBits[2 * n], this.idBits[2 * n + 1], 1, this.cities.length)];
+    }
+
+    /**
+     * Gets the number of distinct cities from which records' cities are chosen.
+     *
+     * @return The size of the city dictionary.
+     */
+    public int getDistinctCityCount() {
+        return this.cities.length;
+    }
+
+    /**
+     * Gets the number of distinct names from which records' names are chosen.
+     *
+     * @return The size of the name dictionary.
+     */
+    public int getDistinctNameCount() {
+        return this.names.length;
+    }
+
+    /**
+     * Gets the ID of a record.
+     * <p>
+     * The ID string was rendered from the record's {@link #getIdMostSignificantBits most} and {@link
+     * #getIdLeastSignificantBits least} significant bits when the arena was generated.
+     *
+     * @param n A record index.
+     *
+     * @return The ID of record {@code n}.
+     */
+    @NonNull
+    public String getId(final int n) {
+        return this.ids[n];
+    }
+
+    /**
+     * Gets the least significant bits of the ID of a record.
+     *
+     * @param n A record index.
+     *
+     * @return The least significant 64 bits of the ID of record {@code n}.
+     */
+    public long getIdLeastSignificantBits(final int n) {
+        return this.idBits[2 * n + 1];
+    }
+
+    /**
+     * Gets the most significant bits of the ID of a record.
+     *
+     * @param n A record index.
+     *
+     * @return The most significant 64 bits of the ID of record {@code n}.
+     */
+    public long getIdMostSignificantBits(final int n) {
+        return this.idBits[2 * n];
+    }
+
+    /**
+     * Gets the name of a record.
+     *
+     * @param n A record index.
+     *
+     * @return The name of record {@code n}.
+     */
+    @NonNull
+    public String getName(final int n) {
+        return this.names[select(this.idBits[2 * n], this.idBits[2 * n + 1], 2, this.names.length)];
+    }
+
+    /**
+     * Gets the payload of a record.
+     *
+     * @param n A record index.
+     *
+     * @return The payload of record {@code n} or {@code null}, if records have no payload.
+     */
+    public String getPayload(final int n) {
+        return this.payloads.length == 0
+            ? null
+            : this.payloads[select(this.idBits[2 * n], this.idBits[2 * n + 1], 3, this.payloads.length)];
+    }
+
+    /**
+     * Selects a payload for a record that is not in this arena from the record's ID.
+     *
+     * @param mostSignificantBits  The most significant 64 bits of the record's ID.
+     * @param leastSignificantBits The least significant 64 bits of the record's ID.
+     *
+     * @return A payload or {@code null}, if records have no payload.
+     */
+    public String getPayload(final long mostSignificantBits, final long leastSignificantBits) {
+        return this.payloads.length == 0
+            ? null
+            : this.payloads[select(mostSignificantBits, leastSignificantBits, 3, this.payloads.length)];
+    }
+
+    /**
+     * Gets the size of each record's payload.
+     *
+     * @return The payload size in characters; zero, if records have no payload.
+     */
+    public int getPayloadSize() {
+        return this.payloadSize;
+    }
+
+    /**
+     * Gets the number of records in this arena.
+     *
+     * @return The number of records.
+     */
+    public int getRecordCount() {
+        return this.recordCount;
+    }
+
+    /**
+     * Creates a cursor over a range of records.
+     * <p>
+     * Give each worker thread its own cursor over a disjoint range of records.
+     *
+     * @param from Index of the first record in the range, inclusive.
+     * @param to   Index of the last record in the range, exclusive.
+     *
+     * @return A new cursor positioned before record {@code from}.
+     */
+    @NonNull
+    public Cursor cursor(final int from, final int to) {
+        if (from < 0 || from > to || to > this.recordCount) {
+            throw new IndexOutOfBoundsException("expected 0 <= from <= to <= " + this.recordCount + ", not from = "
+                + from + " and to = " + to);
+        }
+        return new Cursor(from, to);
+    }
+
+    /**
+     * Recomputes the user written for a record from the record's ID.
+     *
+     * @param mostSignificantBits  The most significant 64 bits of the record's ID.
+     * @param leastSignificantBits The least significant 64 bits of the record's ID.
+     *
+     * @return The user--without its payload--as it was written.
+     */
+    @NonNull
+    public User newUser(final long mostSignificantBits, final long leastSignificantBits) {
+        return new User(
+            new UUID(mostSignificantBits, leastSignificantBits).toString(),
+            this.names[select(mostSignificantBits, leastSignificantBits, 2, this.names.length)],
+            this.cities[select(mostSignificantBits, leastSignificantBits, 1, this.cities.length)]);
+    }
+
+    @Override
+    public String toString() {
+        return "TestDataArena(records=" + this.recordCount
+            + ", names=" + this.names.length
+            + ", cities=" + this.cities.length
+            + ", payload-size=" + this.payloadSize + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    /**
+     * Selects an entry from a dictionary for a record with a SplitMix64 hash of the record ID and dictionary number.
+     */
+    private static int select(final long mostSignificantBits, final long leastSignificantBits, final int dictionary,
+        final int size) {
+
+        long z = mostSignificantBits * 31 + leastSignificantBits + dictionary * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) ((z >>> 1) % size);
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * Iterates over a range of records in a {@link TestDataArena test data arena}.
+     * <p>
+     * A cursor is not thread safe.
+     */
+    public final class Cursor {
+
+        private final int to;
+        private int index;
+
+        private Cursor(final int from, final int to) {
+            this.to = to;
+            this.index = from - 1;
+        }
+
+        /**
+         * Gets the city of birth of the current record.
+         *
+         * @return The city of birth of the current record.
+         */
+        @NonNull
+        public String getCity() {
+            return TestDataArena.this.getCity(this.index);
+        }
+
+        /**
+         * Gets the ID of the current record.
+         *
+         * @return The ID of the current record.
+         */
+        @NonNull
+        public String getId() {
+            return TestDataArena.this.getId(this.index);
+        }
+
+        /**
+         * Gets the index of the current record.
+         *
+         * @return The index of the current record.
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        /**
+         * Gets the name of the current record.
+         *
+         * @return The name of the current record.
+         */
+        @NonNull
+        public String getName() {
+            return TestDataArena.this.getName(this.index);
+        }
+
+        /**
+         * Gets the payload of the current record.
+         *
+         * @return The payload of the current record or {@code null}, if records have no payload.
+         */
+        public String getPayload() {
+            return TestDataArena.this.getPayload(this.index);
+        }
+
+        /**
+         * Advances this cursor to the next record.
+         *
+         * @return {@code true} if this cursor is positioned on a record; {@code false}, if there are no more records.
+         */
+        public boolean next() {
+            if (this.index + 1 >= this.to) {
+                this.index = this.to;
+                return false;
+            }
+            this.index++;
+            return true;
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,348 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.StatementRegistry.Operation;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Counts or streams the rows of the user table by splitting the token ring into ranges and querying them in parallel.
+ * <p>
+ * The ranges owned by each node are taken from the driver's {@link TokenMap token map}, split evenly into smaller
+ * ranges, and queried with a {@code token(user_id)} restriction so that each query is served by a single replica set.
+ * At most {@code parallelism} ranges are queried at once and each range is paged through independently. Totals are
+ * merged as each range completes and reported to a {@link ProgressListener progress listener}. A range that fails is
+ * retried on its own--resuming from the last page it read--up to {@value #MAX_ATTEMPTS} times before the scan fails.
+ */
+public final class TokenRangeScanner {
+
+    /**
+     * Maximum number of attempts made to read a page of a range before a scan fails.
+     */
+    public static final int MAX_ATTEMPTS = 3;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenRangeScanner.class);
+
+    private final UserRepository repository;
+    private final List<TokenRange> ranges;
+    private final int parallelism;
+
+    /**
+     * Initializes a new token range scanner.
+     *
+     * @param repository  Reference to the {@link UserRepository user repository} whose table is scanned.
+     * @param tokenMap    The token map of the session used by {@code repository}.
+     * @param splitCount  Approximate number of ranges into which the ring should be split.
+     * @param parallelism Maximum number of ranges queried at once.
+     */
+    TokenRangeScanner(
+        @NonNull final UserRepository repository,
+        @NonNull final TokenMap tokenMap,
+        final int splitCount,
+        final int parallelism) {
+
+        if (splitCount <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("splitCount and parallelism must be positive, not "
+                + splitCount + " and " + parallelism);
+        }
+
+        this.repository = repository;
+        this.ranges = split(tokenMap.getTokenRanges(), splitCount);
+        this.parallelism = parallelism;
+    }
+
+    // region Methods
+
+    /**
+     * Counts the rows of the user table.
+     *
+     * @param listener Listener notified as each range is counted.
+     *
+     * @return A stage that completes with the number of rows in the user table.
+     */
+    @NonNull
+    public CompletionStage<Long> count(@NonNull final ProgressListener listener) {
+        return this.run(Operation.COUNT_USERS_IN_RANGE, Operation.COUNT_USERS_FROM_TOKEN, (operation, page) -> {
+            long count = 0L;
+            for (final Row row : page.currentPage()) {
+                count += row.getLong(0);
+            }
+            return count;
+        }, listener);
+    }
+
+    /**
+     * Gets the token ranges queried by this scanner.
+     *
+     * @return An unmodifiable list of token ranges, none of which wraps around the ring.
+     */
+    @NonNull
+    public List<TokenRange> getRanges() {
+        return this.ranges;
+    }
+
+    /**
+     * Streams the rows of the user table to a consumer.
+     * <p>
+     * Rows are delivered from up to {@code parallelism} driver threads at once, so {@code consumer} must be thread
+     * safe. Because a failed range resumes from the last page it read, no row is delivered twice.
+     *
+     * @param consumer Consumer to which each user is delivered.
+     * @param listener Listener notified as each range is read.
+     *
+     * @return A stage that completes with the number of users delivered.
+     */
+    @NonNull
+    public CompletionStage<Long> scan(
+        @NonNull final Consumer<User> consumer,
+        @NonNull final ProgressListener listener) {
+
+        return this.run(Operation.SELECT_USERS_IN_RANGE, Operation.SELECT_USERS_FROM_TOKEN, (operation, page) -> {
+            long count = 0L;
+            for (final Row row : page.currentPage()) {
+                consumer.accept(this.repository.map(operation, row));
+                count++;
+            }
+            return count;
+        }, listener);
+    }
+
+    /**
+     * Streams the rows of the user table to a consumer a page at a time, decoding each page into a reusable {@link
+     * UserRowMapper.Page page} rather than into a {@link User user} per row.
+     * <p>
+     * Pages are delivered from up to {@code parallelism} driver threads at once, each thread reusing its own page, so
+     * {@code consumer} must be thread safe and must copy out any values it needs to keep before it returns.
+     *
+     * @param consumer Consumer to which each page of users is delivered.
+     * @param listener Listener notified as each range is read.
+     *
+     * @return A stage that completes with the number of users delivered.
+     */
+    @NonNull
+    public CompletionStage<Long> scanPages(
+        @NonNull final Consumer<UserRowMapper.Page> consumer,
+        @NonNull final ProgressListener listener) {
+
+        return this.run(Operation.SELECT_USERS_IN_RANGE, Operation.SELECT_USERS_FROM_TOKEN, (operation, page) -> {
+            final UserRowMapper.Page users = this.repository.decode(operation, page);
+            consumer.accept(users);
+            return users.size();
+        }, listener);
+    }
+
+    @Override
+    public String toString() {
+        return "TokenRangeScanner(ranges=" + this.ranges.size() + ", parallelism=" + this.parallelism + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private CompletionStage<Long> run(
+        final Operation rangeOperation,
+        final Operation fromTokenOperation,
+        final PageHandler handler,
+        final ProgressListener listener) {
+
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+        final int total = this.ranges.size();
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        final LongAdder rowCount = new LongAdder();
+
+        if (total == 0) {
+            result.complete(0L);
+            return result;
+        }
+
+        final Runnable[] lane = new Runnable[1];
+
+        lane[0] = () -> {
+            final int index = next.getAndIncrement();
+            if (index >= total || result.isDone()) {
+                return;
+            }
+            final TokenRange range = this.ranges.get(index);
+            final Operation operation = isBounded(range) ? rangeOperation : fromTokenOperation;
+            new RangeReader(range, operation, handler).read().whenComplete((count, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                    return;
+                }
+                rowCount.add(count);
+                final int done = completed.incrementAndGet();
+                listener.onRangeCompleted(done, total, rowCount.sum());
+                if (done == total) {
+                    result.complete(rowCount.sum());
+                } else {
+                    lane[0].run();
+                }
+            });
+        };
+
+        for (int i = 0; i < Math.min(this.parallelism, total); i++) {
+            lane[0].run();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns {@code true} if a non-wrapping range has an upper bound.
+     * <p>
+     * After unwrapping, the only range whose end does not follow its start is the one ending at the partitioner's
+     * minimum token. No row has the minimum token, so that range is queried with a lower bound alone.
+     */
+    private static boolean isBounded(final TokenRange range) {
+        return range.getEnd().compareTo(range.getStart()) > 0;
+    }
+
+    /**
+     * Splits the ranges owned by each node into smaller ranges, none of which wraps around the ring.
+     *
+     * @param ownedRanges The ranges owned by each node.
+     * @param splitCount  Approximate number of ranges into which the ring should be split.
+     *
+     * @return An unmodifiable list of ranges that together cover the ring.
+     */
+    static List<TokenRange> split(final Set<TokenRange> ownedRanges, final int splitCount) {
+
+        final int splitsPerRange = Math.max(1, (splitCount + ownedRanges.size() - 1) / Math.max(1, ownedRanges.size()));
+        final List<TokenRange> ranges = new ArrayList<>(splitsPerRange * ownedRanges.size());
+
+        for (final TokenRange ownedRange : ownedRanges) {
+            for (final TokenRange piece : ownedRange.splitEvenly(splitsPerRange)) {
+                ranges.addAll(piece.unwrap());
+            }
+        }
+
+        return Collections.unmodifiableList(ranges);
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * Receives progress notifications from a {@link TokenRangeScanner token range scanner}.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Called each time a range has been read in full.
+         *
+         * @param completedRanges Number of ranges read so far.
+         * @param totalRanges     Total number of ranges in the scan.
+         * @param rowCount        Number of rows counted or delivered so far.
+         */
+        void onRangeCompleted(int completedRanges, int totalRanges, long rowCount);
+    }
+
+    @FunctionalInterface
+    private interface PageHandler {
+        long handle(Operation operation, AsyncResultSet page);
+    }
+
+    /**
+     * Reads all pages of a single range, retrying a failed page from the paging state that produced it.
+     */
+    private final class RangeReader {
+
+        private final TokenRange range;
+        private final Operation operation;
+        private final PageHandler handler;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        private ByteBuffer pagingState;
+        private long rowCount;
+        private int attempts;
+
+        RangeReader(final TokenRange range, final Operation operation, final PageHandler handler) {
+            this.range = range;
+            this.operation = operation;
+            this.handler = handler;
+        }
+
+        CompletionStage<Long> read() {
+            this.execute();
+            return this.result;
+        }
+
+        private BoundStatement bind(final BoundStatement statement) {
+            BoundStatement bound = statement.setToken(0, this.range.getStart());
+            if (this.operation == Operation.COUNT_USERS_IN_RANGE || this.operation == Operation.SELECT_USERS_IN_RANGE) {
+                bound = bound.setToken(1, this.range.getEnd());
+            }
+            return this.pagingState == null ? bound : bound.setPagingState(this.pagingState);
+        }
+
+        private void execute() {
+            this.attempts++;
+            TokenRangeScanner.this.repository.executeAsync(this.operation, this::bind).whenComplete(this::onPage);
+        }
+
+        private void onPage(final AsyncResultSet resultSet, final Throwable error) {
+
+            if (error != null) {
+                final Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (this.attempts >= MAX_ATTEMPTS) {
+                    LOGGER.error("Giving up on range {} after {} attempts", this.range, this.attempts, cause);
+                    this.result.completeExceptionally(cause);
+                } else {
+                    LOGGER.warn("Retrying range {} after attempt {} failed: {}", this.range, this.attempts,
+                        cause.toString());
+                    this.execute();
+                }
+                return;
+            }
+
+            try {
+                this.rowCount += this.handler.handle(this.operation, resultSet);
+            } catch (final RuntimeException handlerError) {
+                this.result.completeExceptionally(handlerError);
+                return;
+            }
+
+            if (!resultSet.hasMorePages()) {
+                this.result.complete(this.rowCount);
+                return;
+            }
+
+            this.pagingState = resultSet.getExecutionInfo().getPagingState();
+            this.attempts = 1;
+
+            resultSet.fetchNextPage().whenComplete((nextPage, nextError) -> {
+                if (nextError == null) {
+                    this.onPage(nextPage, null);
+                } else {
+                    this.onPage(null, nextError);
+                }
+            });
+        }
+    }
+
+    // endregion
+}
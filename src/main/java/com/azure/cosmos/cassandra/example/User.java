@@ -0,0 +1,81 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Objects;
+
+/**
+ * A row of the user table.
+ */
+public final class User {
+
+    private final String id;
+    private final String name;
+    private final String city;
+
+    /**
+     * Initializes a new user.
+     *
+     * @param id   The user's unique ID.
+     * @param name The user's name.
+     * @param city The user's city of birth.
+     */
+    public User(@NonNull final String id, final String name, final String city) {
+        this.id = Objects.requireNonNull(id, "expected non-null id");
+        this.name = name;
+        this.city = city;
+    }
+
+    /**
+     * Gets the user's city of birth.
+     *
+     * @return The value of the {@code user_bcity} column.
+     */
+    public String getCity() {
+        return this.city;
+    }
+
+    /**
+     * Gets the user's unique ID.
+     *
+     * @return The value of the {@code user_id} column.
+     */
+    @NonNull
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Gets the user's name.
+     *
+     * @return The value of the {@code user_name} column.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof User)) {
+            return false;
+        }
+        final User that = (User) other;
+        return this.id.equals(that.id) && Objects.equals(this.name, that.name) && Objects.equals(this.city, that.city);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id, this.name, this.city);
+    }
+
+    @Override
+    public String toString() {
+        return this.id + " | " + this.name + " | " + this.city;
+    }
+}
@@ -0,0 +1,431 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded, expiring, client-side cache of users by ID, which a {@link UserRepository user repository} reads through
+ * and writes through.
+ * <p>
+ * The cache is split into a power-of-two number of stripes by a hash of the user ID. Each stripe is a small LRU map
+ * guarded by its own lock, so that threads contend only when they touch the same stripe. Each stripe holds at most its
+ * share of the maximum size and evicts its least recently used entry to make room; an entry older than the
+ * time-to-live is discarded when it is next read. The cache counts hits, misses, evictions, and expirations and, from
+ * the latencies of the reads that missed, estimates the read latency it saved.
+ */
+public final class UserCache {
+
+    private static final int MAX_STRIPE_COUNT = 1 << 12;
+
+    private final Stripe[] stripes;
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    /**
+     * Initializes a new user cache with four stripes per available processor.
+     *
+     * @param maximumSize The maximum number of users cached.
+     * @param timeToLive  How long a user may be served from the cache after it was read or written.
+     * @param unit        The unit of {@code timeToLive}.
+     */
+    public UserCache(final int maximumSize, final long timeToLive, @NonNull final TimeUnit unit) {
+        this(maximumSize, unit.toNanos(timeToLive), 4 * Runtime.getRuntime().availableProcessors(), System::nanoTime);
+    }
+
+    /**
+     * Initializes a new user cache.
+     *
+     * @param maximumSize     The maximum number of users cached.
+     * @param timeToLiveNanos How long a user may be served from the cache after it was read or written.
+     * @param stripeCount     The number of stripes, which is rounded up to a power of two but not past the maximum
+     *                        size.
+     * @param clock           The source of the current time in nanoseconds.
+     */
+    UserCache(final int maximumSize, final long timeToLiveNanos, final int stripeCount, final LongSupplier clock) {
+
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive, not " + maximumSize);
+        }
+        if (timeToLiveNanos <= 0) {
+            throw new IllegalArgumentException("timeToLiveNanos must be positive, not " + timeToLiveNanos);
+        }
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("stripeCount must be positive, not " + stripeCount);
+        }
+
+        int count = 1;
+
+        while (count < stripeCount && count < MAX_STRIPE_COUNT && count * 2 <= maximumSize) {
+            count <<= 1;
+        }
+
+        final int capacity = (maximumSize + count - 1) / count;
+
+        this.stripes = new Stripe[count];
+
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(capacity, this.evictionCount);
+        }
+
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLiveNanos;
+        this.clock = clock;
+    }
+
+    // region Methods
+
+    /**
+     * Removes all users from the cache. Statistics are not reset.
+     */
+    public void clear() {
+        for (final Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Gets a user from the cache, counting a hit or a miss.
+     *
+     * @param id The user's ID.
+     *
+     * @return The cached user or {@code null}, if the user is not cached or its entry has expired.
+     */
+    public User get(@NonNull final String id) {
+
+        final Stripe stripe = this.stripeFor(id);
+        final long now = this.clock.getAsLong();
+        final User user;
+
+        synchronized (stripe) {
+            final CachedUser entry = stripe.get(id);
+            if (entry != null && now - entry.expiresAt >= 0) {
+                stripe.remove(id);
+                this.expirationCount.increment();
+                user = null;
+            } else {
+                user = entry == null ? null : entry.user;
+            }
+        }
+
+        if (user == null) {
+            this.missCount.increment();
+        } else {
+            this.hitCount.increment();
+        }
+
+        return user;
+    }
+
+    /**
+     * Gets the maximum number of users cached.
+     *
+     * @return The maximum size of the cache.
+     */
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    /**
+     * Gets the number of stripes into which the cache is split.
+     *
+     * @return A power of two.
+     */
+    public int getStripeCount() {
+        return this.stripes.length;
+    }
+
+    /**
+     * Gets how long a user may be served from the cache after it was read or written.
+     *
+     * @return The time-to-live in nanoseconds.
+     */
+    public long getTimeToLiveNanos() {
+        return this.timeToLiveNanos;
+    }
+
+    /**
+     * Removes a user from the cache.
+     *
+     * @param id The user's ID.
+     */
+    public void invalidate(@NonNull final String id) {
+        final Stripe stripe = this.stripeFor(id);
+        synchronized (stripe) {
+            stripe.remove(id);
+        }
+    }
+
+    /**
+     * Adds or replaces a user, restarting its time-to-live.
+     *
+     * @param user The user read or written.
+     */
+    public void put(@NonNull final User user) {
+        final Stripe stripe = this.stripeFor(user.getId());
+        final CachedUser entry = new CachedUser(user, this.clock.getAsLong() + this.timeToLiveNanos);
+        synchronized (stripe) {
+            stripe.put(user.getId(), entry);
+        }
+    }
+
+    /**
+     * Records the latency of a read that missed the cache and went to the cluster. The mean of these latencies is the
+     * latency each hit is estimated to save.
+     *
+     * @param latencyNanos The latency of the read in nanoseconds.
+     */
+    public void recordLoad(final long latencyNanos) {
+        this.loadCount.increment();
+        this.loadNanos.add(latencyNanos);
+    }
+
+    /**
+     * Gets the number of users cached, including any whose entries have expired but not yet been read.
+     *
+     * @return The number of cached users.
+     */
+    public int size() {
+        int size = 0;
+        for (final Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Takes a snapshot of the cache's statistics.
+     *
+     * @return The cache's statistics.
+     */
+    @NonNull
+    public Stats stats() {
+        return new Stats(
+            this.hitCount.sum(),
+            this.missCount.sum(),
+            this.evictionCount.sum(),
+            this.expirationCount.sum(),
+            this.size(),
+            this.loadCount.sum(),
+            this.loadNanos.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "UserCache(maximum-size=" + this.maximumSize
+            + ", ttl-seconds=" + TimeUnit.NANOSECONDS.toSeconds(this.timeToLiveNanos)
+            + ", stripes=" + this.stripes.length + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private Stripe stripeFor(final String id) {
+        final int hash = id.hashCode();
+        return this.stripes[(hash ^ (hash >>> 16)) & (this.stripes.length - 1)];
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * A snapshot of the statistics of a {@link UserCache user cache}.
+     */
+    public static final class Stats {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long expirationCount;
+        private final int size;
+        private final long loadCount;
+        private final long loadNanos;
+
+        Stats(
+            final long hitCount,
+            final long missCount,
+            final long evictionCount,
+            final long expirationCount,
+            final int size,
+            final long loadCount,
+            final long loadNanos) {
+
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+            this.size = size;
+            this.loadCount = loadCount;
+            this.loadNanos = loadNanos;
+        }
+
+        /**
+         * Gets the number of users evicted to make room for others.
+         *
+         * @return The eviction count.
+         */
+        public long getEvictionCount() {
+            return this.evictionCount;
+        }
+
+        /**
+         * Gets the number of users discarded because their entries had expired.
+         *
+         * @return The expiration count.
+         */
+        public long getExpirationCount() {
+            return this.expirationCount;
+        }
+
+        /**
+         * Gets the number of reads served from the cache.
+         *
+         * @return The hit count.
+         */
+        public long getHitCount() {
+            return this.hitCount;
+        }
+
+        /**
+         * Gets the fraction of reads served from the cache.
+         *
+         * @return The hit ratio in the range {@code [0, 1]}; zero, if there have been no reads.
+         */
+        public double getHitRatio() {
+            final long requestCount = this.hitCount + this.missCount;
+            return requestCount == 0 ? 0.0 : (double) this.hitCount / requestCount;
+        }
+
+        /**
+         * Gets the mean latency of the reads that missed the cache.
+         *
+         * @return The mean miss latency in nanoseconds; zero, if no misses have been loaded.
+         */
+        public double getMeanLoadNanos() {
+            return this.loadCount == 0 ? 0.0 : (double) this.loadNanos / this.loadCount;
+        }
+
+        /**
+         * Gets the number of reads that were not served from the cache.
+         *
+         * @return The miss count.
+         */
+        public long getMissCount() {
+            return this.missCount;
+        }
+
+        /**
+         * Gets an estimate of the read latency saved by the cache: the number of hits times the mean miss latency.
+         *
+         * @return The latency saved in nanoseconds.
+         */
+        public double getSavedNanos() {
+            return this.hitCount * this.getMeanLoadNanos();
+        }
+
+        /**
+         * Gets the number of users cached when the snapshot was taken.
+         *
+         * @return The size of the cache.
+         */
+        public int getSize() {
+            return this.size;
+        }
+
+        /**
+         * Adds these statistics to a summary as entries named {@code cache-<statistic>}.
+         *
+         * @param summary A summary to which entries are added.
+         */
+        public void putSummary(@NonNull final Map<String, Object> summary) {
+            summary.put("cache-hits", this.hitCount);
+            summary.put("cache-misses", this.missCount);
+            summary.put("cache-hit-ratio", this.getHitRatio());
+            summary.put("cache-evictions", this.evictionCount);
+            summary.put("cache-expirations", this.expirationCount);
+            summary.put("cache-size", this.size);
+            summary.put("cache-mean-miss-latency-ms", this.getMeanLoadNanos() / 1E6);
+            summary.put("cache-latency-saved-ms", this.getSavedNanos() / 1E6);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "hits=%d, misses=%d, hit-ratio=%.3f, evictions=%d, expirations=%d, "
+                    + "size=%d, mean-miss-latency-ms=%.2f, latency-saved-ms=%.0f",
+                this.hitCount,
+                this.missCount,
+                this.getHitRatio(),
+                this.evictionCount,
+                this.expirationCount,
+                this.size,
+                this.getMeanLoadNanos() / 1E6,
+                this.getSavedNanos() / 1E6);
+        }
+    }
+
+    /**
+     * A cached user and the time at which it expires.
+     */
+    private static final class CachedUser {
+
+        final User user;
+        final long expiresAt;
+
+        CachedUser(final User user, final long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * One stripe of the cache: an access-ordered map that evicts its least recently used entry when it is full.
+     * <p>
+     * A stripe is not thread safe; callers synchronize on it.
+     */
+    private static final class Stripe extends LinkedHashMap<String, CachedUser> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final transient LongAdder evictionCount;
+
+        Stripe(final int capacity, final LongAdder evictionCount) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CachedUser> eldest) {
+            if (this.size() > this.capacity) {
+                this.evictionCount.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // endregion
+}
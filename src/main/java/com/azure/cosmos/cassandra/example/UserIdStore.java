@@ -0,0 +1,340 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An append-only store of UUIDs, held as pairs of longs in striped primitive arrays.
+ * <p>
+ * Appending threads are spread over a fixed number of {@link Stripes stripes}, each with its own segment--a list of
+ * fixed-size {@code long[]} chunks--so that appends rarely contend with one another. The number of segments, and so the
+ * number of partly filled chunks, does not grow with the number of appending threads, which may be as large as the
+ * number of virtual-thread clients in a load test. Each ID costs 16 bytes plus a small per-chunk overhead. Chunks are
+ * reserved against a fixed memory budget: once the budget is exhausted, further IDs are dropped and counted rather than
+ * stored. After all appends are done, {@link #seal} merges the segments, without copying, into a single indexed
+ * sequence that can be read by index, iterated, or split into shards, all without boxing.
+ */
+public final class UserIdStore {
+
+    /**
+     * Number of IDs held by each chunk.
+     */
+    public static final int CHUNK_CAPACITY = 4096;
+
+    private static final long CHUNK_BYTES = 16L * CHUNK_CAPACITY + 16L;
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserIdStore.class);
+
+    private final long budgetBytes;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final LongAdder droppedCount = new LongAdder();
+    private final Segment[] segments = new Segment[Stripes.COUNT];
+
+    private volatile boolean sealed;
+    private Segment[] sealedSegments;
+    private long[] segmentOffsets;
+    private long size;
+
+    /**
+     * Initializes a new user ID store.
+     *
+     * @param budgetBytes Maximum number of bytes that may be reserved for chunks. A budget of {@code N} bytes holds
+     *                    roughly {@code N / 16} IDs, e.g., 100 million IDs in 1.6 GB.
+     */
+    public UserIdStore(final long budgetBytes) {
+        if (budgetBytes < CHUNK_BYTES) {
+            throw new IllegalArgumentException("budgetBytes must be at least " + CHUNK_BYTES + ", not " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = new Segment();
+        }
+    }
+
+    // region Methods
+
+    /**
+     * Appends a UUID to the segment of the calling thread's stripe.
+     *
+     * @param mostSignificantBits  The most significant 64 bits of the UUID.
+     * @param leastSignificantBits The least significant 64 bits of the UUID.
+     *
+     * @return {@code true} if the UUID was stored; {@code false}, if it was dropped because the budget is exhausted.
+     */
+    public boolean append(final long mostSignificantBits, final long leastSignificantBits) {
+        if (this.sealed) {
+            throw new IllegalStateException("cannot append to a sealed store");
+        }
+        return this.segments[Stripes.current()].append(mostSignificantBits, leastSignificantBits);
+    }
+
+    /**
+     * Gets the maximum number of bytes that may be reserved for chunks.
+     *
+     * @return The memory budget of this store in bytes.
+     */
+    public long getBudgetBytes() {
+        return this.budgetBytes;
+    }
+
+    /**
+     * Gets the number of IDs dropped because the memory budget was exhausted.
+     *
+     * @return The number of dropped IDs.
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.sum();
+    }
+
+    /**
+     * Gets the least significant bits of a stored UUID.
+     *
+     * @param index An index in the range {@code [0, size())} of a {@link #seal sealed} store.
+     *
+     * @return The least significant 64 bits of the UUID at {@code index}.
+     */
+    public long getLeastSignificantBits(final long index) {
+        return this.get(index, 1);
+    }
+
+    /**
+     * Gets the most significant bits of a stored UUID.
+     *
+     * @param index An index in the range {@code [0, size())} of a {@link #seal sealed} store.
+     *
+     * @return The most significant 64 bits of the UUID at {@code index}.
+     */
+    public long getMostSignificantBits(final long index) {
+        return this.get(index, 0);
+    }
+
+    /**
+     * Gets the number of bytes reserved for chunks so far.
+     *
+     * @return The number of bytes reserved.
+     */
+    public long getReservedBytes() {
+        return this.reservedBytes.get();
+    }
+
+    /**
+     * Passes the UUIDs in a range of indexes of a {@link #seal sealed} store to a consumer, in index order.
+     *
+     * @param from     The first index in the range, inclusive.
+     * @param to       The last index in the range, exclusive.
+     * @param consumer Consumer to which each UUID is passed.
+     */
+    public void forEach(final long from, final long to, @NonNull final IdConsumer consumer) {
+
+        this.checkSealed();
+
+        if (from < 0 || from > to || to > this.size) {
+            throw new IndexOutOfBoundsException("expected 0 <= from <= to <= " + this.size + ", not from = " + from
+                + " and to = " + to);
+        }
+
+        long index = from;
+        int s = this.segmentOf(index);
+
+        while (index < to) {
+            final Segment value = this.sealedSegments[s];
+            final long segmentEnd = Math.min(to, this.segmentOffsets[s] + value.count);
+            for (long i = index - this.segmentOffsets[s]; index < segmentEnd; i++, index++) {
+                final long[] chunk = value.chunks.get((int) (i / CHUNK_CAPACITY));
+                final int offset = (int) (i % CHUNK_CAPACITY) * 2;
+                consumer.accept(index, chunk[offset], chunk[offset + 1]);
+            }
+            s++;
+        }
+    }
+
+    /**
+     * Passes every UUID in a {@link #seal sealed} store to a consumer, in index order.
+     *
+     * @param consumer Consumer to which each UUID is passed.
+     */
+    public void forEach(@NonNull final IdConsumer consumer) {
+        this.checkSealed();
+        this.forEach(0, this.size, consumer);
+    }
+
+    /**
+     * Merges the segments written by all stripes into a single indexed sequence and stops further appends.
+     * <p>
+     * Call this after all appending threads have finished. Calling it more than once has no further effect.
+     *
+     * @return This store.
+     */
+    @NonNull
+    public synchronized UserIdStore seal() {
+
+        if (this.sealed) {
+            return this;
+        }
+
+        this.sealedSegments = this.segments.clone();
+        this.segmentOffsets = new long[this.sealedSegments.length];
+
+        long offset = 0L;
+
+        for (int i = 0; i < this.sealedSegments.length; i++) {
+            this.segmentOffsets[i] = offset;
+            offset += this.sealedSegments[i].count;
+        }
+
+        this.size = offset;
+        this.sealed = true;
+
+        if (this.getDroppedCount() > 0) {
+            LOGGER.warn("{} dropped {} IDs after exhausting its budget", this, this.getDroppedCount());
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the index range of one of {@code shardCount} contiguous shards of a {@link #seal sealed} store.
+     * <p>
+     * Shards differ in size by at most one ID. Pass the bounds to {@link #forEach(long, long, IdConsumer)}.
+     *
+     * @param shard      A shard number in the range {@code [0, shardCount)}.
+     * @param shardCount The number of shards.
+     *
+     * @return A two-element array holding the first index of the shard, inclusive, and its last, exclusive.
+     */
+    @NonNull
+    public long[] shard(final int shard, final int shardCount) {
+        this.checkSealed();
+        if (shardCount <= 0 || shard < 0 || shard >= shardCount) {
+            throw new IndexOutOfBoundsException("expected 0 <= shard < shardCount, not shard = " + shard
+                + " and shardCount = " + shardCount);
+        }
+        return new long[] { this.size * shard / shardCount, this.size * (shard + 1) / shardCount };
+    }
+
+    /**
+     * Gets the number of IDs in a {@link #seal sealed} store.
+     *
+     * @return The number of IDs stored.
+     */
+    public long size() {
+        this.checkSealed();
+        return this.size;
+    }
+
+    @Override
+    public String toString() {
+        return "UserIdStore(budget-bytes=" + this.budgetBytes
+            + ", reserved-bytes=" + this.getReservedBytes()
+            + ", segments=" + this.segments.length
+            + ", dropped=" + this.getDroppedCount() + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private void checkSealed() {
+        if (!this.sealed) {
+            throw new IllegalStateException("store must be sealed before it is read");
+        }
+    }
+
+    private long get(final long index, final int component) {
+        this.checkSealed();
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("expected 0 <= index < " + this.size + ", not " + index);
+        }
+        final int s = this.segmentOf(index);
+        final long i = index - this.segmentOffsets[s];
+        final long[] chunk = this.sealedSegments[s].chunks.get((int) (i / CHUNK_CAPACITY));
+        return chunk[(int) (i % CHUNK_CAPACITY) * 2 + component];
+    }
+
+    private int segmentOf(final long index) {
+        // Find the last segment whose offset is <= index, skipping over any empty segments at the same offset
+        final int found = Arrays.binarySearch(this.segmentOffsets, index);
+        int s = found >= 0 ? found : -found - 2;
+        while (s + 1 < this.segmentOffsets.length && this.segmentOffsets[s + 1] == index) {
+            s++;
+        }
+        return s;
+    }
+
+    private boolean reserveChunk() {
+        for (;;) {
+            final long reserved = this.reservedBytes.get();
+            if (reserved + CHUNK_BYTES > this.budgetBytes) {
+                return false;
+            }
+            if (this.reservedBytes.compareAndSet(reserved, reserved + CHUNK_BYTES)) {
+                return true;
+            }
+        }
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * Receives UUIDs from a {@link UserIdStore user ID store} without boxing.
+     */
+    @FunctionalInterface
+    public interface IdConsumer {
+
+        /**
+         * Accepts a UUID.
+         *
+         * @param index                The index of the UUID in the store.
+         * @param mostSignificantBits  The most significant 64 bits of the UUID.
+         * @param leastSignificantBits The least significant 64 bits of the UUID.
+         */
+        void accept(long index, long mostSignificantBits, long leastSignificantBits);
+    }
+
+    /**
+     * The chunks appended to by the threads of a single stripe.
+     */
+    private final class Segment {
+
+        private final List<long[]> chunks = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] current;
+        private int position;
+        private volatile long count;
+
+        boolean append(final long mostSignificantBits, final long leastSignificantBits) {
+            this.lock.lock();
+            try {
+                if (this.current == null || this.position == this.current.length) {
+                    if (!UserIdStore.this.reserveChunk()) {
+                        UserIdStore.this.droppedCount.increment();
+                        return false;
+                    }
+                    this.current = new long[CHUNK_CAPACITY * 2];
+                    this.chunks.add(this.current);
+                    this.position = 0;
+                }
+                this.current[this.position++] = mostSignificantBits;
+                this.current[this.position++] = leastSignificantBits;
+                this.count = this.count + 1;
+                return true;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    // endregion
+}
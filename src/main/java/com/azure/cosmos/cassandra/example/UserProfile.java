@@ -4,19 +4,40 @@
 package com.azure.cosmos.cassandra.example;
 
 import com.datastax.oss.driver.api.core.CqlSession;
-import com.github.javafaker.Faker;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.HdrHistogram.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Queue;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.LongStream;
 
 /**
  * Example class which will demonstrate handling rate limiting using retry policy, and client side load balancing using
@@ -24,64 +45,674 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class UserProfile {
 
-    public static final int NUMBER_OF_THREADS = 40;
-    public static final int NUMBER_OF_WRITES_PER_THREAD = 5;
     private static final Logger LOGGER = LoggerFactory.getLogger(UserProfile.class);
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+    private static final long WORKER_START_MINUTES = 10L;
+    private static final long WORKER_REPORT_MINUTES = 30L;
 
-    Queue<String> docIDs = new ConcurrentLinkedQueue<String>();
+    UserIdStore writtenIds = null;
     AtomicInteger exceptionCount = new AtomicInteger(0);
     AtomicLong insertCount = new AtomicLong(0);
     AtomicInteger recordCount = new AtomicInteger(0);
-    AtomicLong totalLatency = new AtomicLong(0);
-    AtomicLong totalReadLatency = new AtomicLong(0);
+    LatencyRecorder writeLatency = new LatencyRecorder("write");
+    LatencyRecorder readLatency = new LatencyRecorder("read");
+    AdaptiveConcurrencyLimiter throttle = null;
+    DriverMetrics driverMetrics = null;
+    boolean printOperations = false;
 
     /**
      * Runs a load test.
      *
-     * @param keyspace            Keyspace name.
-     * @param table               Table name.
-     * @param repository          Reference to a {@link UserRepository user repository}.
-     * @param userProfile         Reference to a {@link UserProfile user profile}.
-     * @param preparedStatement   A prepared statement.
-     * @param finalQuery          A final query.
-     * @param noOfThreads         Number of threads to create.
-     * @param noOfWritesPerThread Number of writes per thread.
+     * @param repository  Reference to a {@link UserRepository user repository}.
+     * @param userProfile Reference to a {@link UserProfile user profile}.
+     * @param options     Options that control how load is generated. When they give a {@link
+     *                    LoadTestOptions#getWorkerIndex worker index}, this process is a worker of a distributed load
+     *                    test: it writes users from its own shard of the ID space, starts writing when its {@link
+     *                    LoadCoordinator coordinator} starts all workers, and sends the coordinator its report.
      *
      * @throws InterruptedException If the load test is interrupted.
+     * @throws IOException          If this process is a worker and cannot reach its coordinator.
      */
     public void loadTest(
+        final UserRepository repository,
+        final UserProfile userProfile,
+        final LoadTestOptions options) throws InterruptedException, IOException {
+
+        final TestDataArena arena = this.prepare(options);
+        this.warmUp(repository, arena, options);
+
+        final LoadWorker worker = options.getWorkerIndex() < 0 ? null : LoadWorker.connect(
+            options.getCoordinator(),
+            options.getWorkerIndex(),
+            options.getWorkerCount(),
+            WORKER_START_MINUTES,
+            TimeUnit.MINUTES);
+
+        if (worker != null) {
+            LOGGER.info("Waiting for the coordinator to start {}", worker);
+            final RequestEvents.Phase phase = RequestEvents.beginPhase("await-start");
+            worker.awaitStart(WORKER_START_MINUTES, TimeUnit.MINUTES);
+            phase.end();
+        }
+
+        final MetricsReporter reporter = new MetricsReporter(
+            this.writeLatency,
+            this.readLatency,
+            this.exceptionCount::get,
+            options.getReportIntervalSeconds(),
+            options.getWindowSeconds(),
+            System.out);
+
+        reporter.start();
+        final WritePhase writePhase = this.write(repository, userProfile, arena, options);
+        final boolean finished = writePhase.finished;
+        final long writeElapsedNanos = writePhase.elapsedNanos;
+        final int peakThreadCount = writePhase.peakThreadCount;
+
+        if (!finished) {
+            reporter.stop();
+            if (worker != null) {
+                this.report(worker, LoadReport.of(false, writeElapsedNanos, userProfile.recordCount.get(),
+                    this.insertCount.get(), this.exceptionCount.get(), null, this.writeLatency.getTotalHistogram(),
+                    this.readLatency.getTotalHistogram()));
+            }
+        } else {
+
+            this.writtenIds.seal();
+            this.awaitVisible(repository, options);
+
+            //lets look at latency for reads in local region by reading all the records just written
+            long noOfUsersInTable = 0;
+
+            // The table holds the users of every worker of a distributed load test; the coordinator counts them
+
+            if (worker == null) {
+                noOfUsersInTable = repository.countUsers(options.getScanSplits(), options.getScanParallelism());
+            }
+            final ReadBackVerifier.Result verification;
+            final RequestEvents.Phase readPhase = RequestEvents.beginPhase("read-back");
+
+            try {
+                final ReadBackVerifier verifier = new ReadBackVerifier(
+                    repository,
+                    this.readLatency,
+                    options.getVerifyParallelism(),
+                    options.getVerifyBatchSize(),
+                    this.printOperations);
+                verification = options.getMode() == LoadTestOptions.Mode.OPEN_LOOP
+                    ? verifier.verify(this.writtenIds, arena, newOpenLoopScheduler(options), 5, TimeUnit.MINUTES)
+                    : verifier.verify(this.writtenIds, arena, 5, TimeUnit.MINUTES);
+                this.exceptionCount.addAndGet((int) verification.getFailedCount());
+            } finally {
+                readPhase.end();
+                reporter.stop();
+            }
+
+            System.out.println("Read-back verification: " + verification);
+
+            System.out.println("count of inserts attempted: " + userProfile.recordCount);
+            if (worker == null) {
+                System.out.println("count of users in table: " + noOfUsersInTable);
+            }
+
+            final Histogram writeHistogram = this.writeLatency.getTotalHistogram();
+            final Histogram readHistogram = this.readLatency.getTotalHistogram();
+            System.out.print("Average write Latency: " + toMillis(writeHistogram.getMean()) + "\n");
+            System.out.println("Average read latency: " + toMillis(readHistogram.getMean()));
+            System.out.println("Write latency: " + LatencyRecorder.summarize(writeHistogram));
+            System.out.println("Read latency: " + LatencyRecorder.summarize(readHistogram));
+            System.out.printf("Write throughput: %.1f ops/sec [mode=%s, peak thread count=%d]%n",
+                this.insertCount.get() * 1E9 / writeElapsedNanos,
+                options.getMode(),
+                peakThreadCount);
+            final SteadyStateDetector.Result steadyState = detectSteadyState(reporter, options,
+                MeasurementWindow::getWriteThroughput);
+            System.out.println("Steady-state write throughput: " + steadyState + ", latency "
+                + LatencyRecorder.summarize(steadyState.getWriteHistogram()));
+            if (this.throttle != null) {
+                System.out.println("Adaptive throttle: " + this.throttle.summarize());
+            }
+            final UserCache.Stats cacheStats = repository.getCache() == null ? null : repository.getCache().stats();
+            if (cacheStats != null) {
+                System.out.println("User cache: " + cacheStats);
+            }
+            final DriverMetrics.MetricsSnapshot driverSnapshot = this.driverMetrics == null
+                ? null
+                : this.driverMetrics.snapshot();
+            if (driverSnapshot != null) {
+                System.out.println("Driver metrics: " + driverSnapshot);
+                System.out.println("Driver metrics by region: " + driverSnapshot.getRegions());
+            }
+            if (options.getSummaryFile() != null) {
+                final Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("mode", options.getMode().toString());
+                summary.put("threads", options.getThreadCount());
+                summary.put("inserts-attempted", userProfile.recordCount.get());
+                summary.put("inserts-succeeded", this.insertCount.get());
+                summary.put("errors", this.exceptionCount.get());
+                summary.put("users-in-table", noOfUsersInTable);
+                summary.put("verified", verification.getVerifiedCount());
+                summary.put("mismatched", verification.getMismatchedCount());
+                summary.put("missing", verification.getMissingCount());
+                summary.put("failed", verification.getFailedCount());
+                summary.put("write-seconds", writeElapsedNanos / 1E9);
+                summary.put("write-throughput", this.insertCount.get() * 1E9 / writeElapsedNanos);
+                summary.put("peak-thread-count", peakThreadCount);
+                summary.put("peak-heap-mb", writePhase.peakHeapBytes / BYTES_PER_MEGABYTE);
+                MetricsReporter.putLatency(summary, "write-latency", writeHistogram);
+                MetricsReporter.putLatency(summary, "read-latency", readHistogram);
+                steadyState.putSummary(summary);
+                MetricsReporter.putLatency(summary, "steady-state-write-latency", steadyState.getWriteHistogram());
+                if (cacheStats != null) {
+                    cacheStats.putSummary(summary);
+                }
+                if (driverSnapshot != null) {
+                    driverSnapshot.putSummary(summary);
+                }
+                try {
+                    MetricsReporter.writeSummary(Paths.get(options.getSummaryFile()), summary);
+                } catch (final IOException error) {
+                    LOGGER.error("Could not write summary to {}", options.getSummaryFile(), error);
+                }
+            }
+            writeWindows(reporter, options);
+            if (worker != null) {
+                this.report(worker, LoadReport.of(true, writeElapsedNanos, userProfile.recordCount.get(),
+                    this.insertCount.get(), this.exceptionCount.get(), verification, writeHistogram, readHistogram));
+            }
+            System.out.println("Finished executing all threads.");
+        }
+    }
+
+    /**
+     * Coordinates a load test run by {@link LoadTestOptions#getWorkerCount worker processes} and prints the merged
+     * throughput, counts, and read and write latencies of all workers.
+     * <p>
+     * The coordinator launches its workers as local JVMs with this JVM's classpath, options, and load test properties,
+     * or, if {@link LoadTestOptions#isLaunchWorkers launching} is disabled, waits for workers started elsewhere to
+     * connect. Each worker generates its users from its own shard of the ID space and warms up on its own; the
+     * coordinator then starts all workers' write phases together, so that the merged write throughput is that of all
+     * workers writing at once. Histograms are merged, not averaged, so merged percentiles are exact.
+     *
+     * @param repository Reference to a {@link UserRepository user repository}, used to count the users written.
+     * @param options    Options that control how load is generated. All but the worker options apply to each worker.
+     *
+     * @throws InterruptedException If the load test is interrupted.
+     * @throws IOException          If the workers cannot be launched or not all of them connect.
+     */
+    public void coordinate(final UserRepository repository, final LoadTestOptions options)
+        throws InterruptedException, IOException {
+
+        try (LoadCoordinator coordinator = new LoadCoordinator(options.getWorkerCount(),
+            options.getCoordinatorPort())) {
+
+            if (options.isLaunchWorkers()) {
+                coordinator.launch(UserProfile.class.getName(), new File("."));
+            } else {
+                System.out.println("Waiting for " + coordinator.getWorkerCount() + " workers; start each with the "
+                    + "same load test properties and -D" + LoadTestOptions.PROPERTY_PREFIX + "worker-index=<i> -D"
+                    + LoadTestOptions.PROPERTY_PREFIX + "coordinator=<this host>:" + coordinator.getPort());
+            }
+
+            coordinator.start(WORKER_START_MINUTES, TimeUnit.MINUTES);
+            final LoadReport report = coordinator.collect(WORKER_REPORT_MINUTES, TimeUnit.MINUTES);
+            final long noOfUsersInTable = repository.countUsers(options.getScanSplits(), options.getScanParallelism());
+            final Histogram writeHistogram = report.getWriteHistogram();
+            final Histogram readHistogram = report.getReadHistogram();
+
+            System.out.println("Distributed load test: " + report);
+            System.out.println("count of users in table: " + noOfUsersInTable);
+            System.out.println("Write latency: " + LatencyRecorder.summarize(writeHistogram));
+            System.out.println("Read latency: " + LatencyRecorder.summarize(readHistogram));
+            System.out.printf("Write throughput: %.1f ops/sec [mode=%s, workers=%d of %d]%n",
+                report.getWriteThroughput(),
+                options.getMode(),
+                report.getWorkerCount(),
+                coordinator.getWorkerCount());
+
+            if (options.getSummaryFile() != null) {
+                final Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("mode", options.getMode().toString());
+                summary.put("threads", options.getThreadCount());
+                report.putSummary(summary);
+                summary.put("users-in-table", noOfUsersInTable);
+                try {
+                    MetricsReporter.writeSummary(Paths.get(options.getSummaryFile()), summary);
+                } catch (final IOException error) {
+                    LOGGER.error("Could not write summary to {}", options.getSummaryFile(), error);
+                }
+            }
+
+            System.out.println("Finished coordinating " + report.getWorkerCount() + " workers.");
+        }
+    }
+
+    /**
+     * Runs the write phase of a load test once for each of the {@link LoadTestOptions#getCompareModes comparison modes}
+     * and prints a table comparing their throughput, tail latency, peak heap usage, and peak platform thread count.
+     * <p>
+     * Each mode writes its own freshly generated users and records into its own {@link UserProfile}, so that modes
+     * share nothing but the session. Users are not read back.
+     *
+     * @param repository Reference to a {@link UserRepository user repository}.
+     * @param options    Options that control how load is generated. All options but the mode apply to every run.
+     *
+     * @throws InterruptedException If the comparison is interrupted.
+     */
+    public void compareModes(final UserRepository repository, final LoadTestOptions options)
+        throws InterruptedException {
+
+        final String format = "%-16s %12s %10s %14s %18s %8s%n";
+        final StringBuilder table = new StringBuilder(String.format(Locale.ROOT, format,
+            "mode", "ops/sec", "p99 ms", "peak heap MB", "peak platform thds", "errors"));
+
+        for (final LoadTestOptions.Mode mode : options.getCompareModes()) {
+
+            final LoadTestOptions modeOptions = options.toBuilder()
+                .mode(mode)
+                .compareModes(Collections.emptyList())
+                .build();
+
+            final UserProfile profile = new UserProfile();
+            final TestDataArena arena = profile.prepare(modeOptions);
+
+            profile.warmUp(repository, arena, modeOptions);
+
+            // Collect garbage left by an earlier mode so that it does not count against the peak heap usage of this one
+            System.gc();
+            LOGGER.info("Comparing {}", modeOptions);
+
+            final WritePhase writePhase = profile.write(repository, profile, arena, modeOptions);
+
+            if (!writePhase.finished) {
+                LOGGER.warn("Mode {} did not finish writing within five minutes", mode);
+            }
+
+            table.append(String.format(Locale.ROOT, format,
+                mode + (writePhase.finished ? "" : "*"),
+                String.format(Locale.ROOT, "%.1f", profile.insertCount.get() * 1E9 / writePhase.elapsedNanos),
+                String.format(Locale.ROOT, "%.2f",
+                    profile.writeLatency.getTotalHistogram().getValueAtPercentile(99.0) / 1E6),
+                String.format(Locale.ROOT, "%.1f", writePhase.peakHeapBytes / BYTES_PER_MEGABYTE),
+                writePhase.peakThreadCount,
+                profile.exceptionCount.get()));
+        }
+
+        System.out.print(table);
+        System.out.println("Finished comparing modes.");
+    }
+
+    /**
+     * Runs a load test at each {@link SweepCell cell} of the parameter sweep given by {@code options} and prints a
+     * table comparing write and read throughput and tail latency across cells.
+     * <p>
+     * Each cell runs on its own session, built from a driver configuration with the cell's pool size and request limit,
+     * and its own {@link UserRepository}, which reads and writes at the cell's consistency level. Each cell writes its
+     * own freshly generated users, after its own warm-up, and then reads them back.
+     *
+     * @param sessionFactory Function that opens a session configured for a cell. The session is closed when the cell is
+     *                       done.
+     * @param keyspace       The keyspace of the user table.
+     * @param table          The name of the user table, which must already exist.
+     * @param options        Options that control how load is generated. All options but those a cell overrides apply to
+     *                       every cell.
+     *
+     * @throws InterruptedException If the sweep is interrupted.
+     */
+    public void sweep(
+        final Function<SweepCell, CqlSession> sessionFactory,
         final String keyspace,
         final String table,
+        final LoadTestOptions options) throws InterruptedException {
+
+        final String format = "%-11s %-12s %6s %9s %12s %12s %12s %11s %8s%n";
+        final StringBuilder report = new StringBuilder(String.format(Locale.ROOT, format,
+            "concurrency", "consistency", "pool", "max-req", "write ops/s", "write p99 ms", "read ops/s", "read p99 ms",
+            "errors"));
+
+        for (final SweepCell cell : SweepCell.expand(options)) {
+
+            final LoadTestOptions cellOptions = cell.applyTo(options);
+            LOGGER.info("Sweeping {} with {}", cell, cellOptions);
+
+            try (CqlSession session = sessionFactory.apply(cell)) {
+
+                final UserRepository repository = new UserRepository(
+                    session,
+                    new StatementRegistry(keyspace, table),
+                    null,
+                    cellOptions.getWriteConsistency(),
+                    cellOptions.getReadConsistency());
+
+                repository.prepareStatements();
+
+                final UserProfile profile = new UserProfile();
+                final TestDataArena arena = profile.prepare(cellOptions);
+
+                profile.warmUp(repository, arena, cellOptions);
+
+                final WritePhase writePhase = profile.write(repository, profile, arena, cellOptions);
+                double readThroughput = 0.0;
+
+                if (writePhase.finished) {
+                    profile.writtenIds.seal();
+                    final ReadBackVerifier verifier = new ReadBackVerifier(
+                        repository,
+                        profile.readLatency,
+                        cellOptions.getVerifyParallelism(),
+                        cellOptions.getVerifyBatchSize(),
+                        false);
+                    final long readStartTime = System.nanoTime();
+                    final ReadBackVerifier.Result verification = verifier.verify(profile.writtenIds, arena, 5,
+                        TimeUnit.MINUTES);
+                    readThroughput = profile.readLatency.getTotalHistogram().getTotalCount() * 1E9
+                        / (System.nanoTime() - readStartTime);
+                    LOGGER.info("Read-back verification of {}: {}", cell, verification);
+                } else {
+                    LOGGER.warn("Sweep cell {} did not finish writing within five minutes", cell);
+                }
+
+                report.append(String.format(Locale.ROOT, format,
+                    cell.getConcurrency() + (writePhase.finished ? "" : "*"),
+                    SweepCell.format(cellOptions.getWriteConsistency()),
+                    SweepCell.format(cell.getPoolSize()),
+                    SweepCell.format(cell.getMaxRequests()),
+                    String.format(Locale.ROOT, "%.1f", profile.insertCount.get() * 1E9 / writePhase.elapsedNanos),
+                    String.format(Locale.ROOT, "%.2f",
+                        profile.writeLatency.getTotalHistogram().getValueAtPercentile(99.0) / 1E6),
+                    String.format(Locale.ROOT, "%.1f", readThroughput),
+                    String.format(Locale.ROOT, "%.2f",
+                        profile.readLatency.getTotalHistogram().getValueAtPercentile(99.0) / 1E6),
+                    profile.exceptionCount.get()));
+            }
+        }
+
+        System.out.print(report);
+        System.out.println("Finished sweeping.");
+    }
+
+    /**
+     * Runs the {@link LoadTestOptions#getWorkload workload profile} given by {@code options} and prints its throughput,
+     * operation counts, and read and write latencies.
+     * <p>
+     * Latencies are recorded in the measured phase only, not while the profile's initial keys are preloaded or during
+     * the warm-up. Updates count as writes.
+     *
+     * @param repository Reference to a {@link UserRepository user repository}.
+     * @param options    Options with the workload to run.
+     *
+     * @throws InterruptedException If the workload is interrupted.
+     */
+    public void runWorkload(final UserRepository repository, final LoadTestOptions options)
+        throws InterruptedException {
+
+        this.writeLatency = new LatencyRecorder("write", options.getExpectedIntervalNanos());
+        this.readLatency = new LatencyRecorder("read", options.getExpectedIntervalNanos());
+
+        final WorkloadRunner runner = new WorkloadRunner(repository, options, this.writeLatency, this.readLatency);
+
+        if (!runner.preload()) {
+            LOGGER.warn("Preloading {} did not finish within five minutes", options.getWorkload().getName());
+        }
+
+        runner.warmUp();
+
+        final MetricsReporter reporter = new MetricsReporter(
+            this.writeLatency,
+            this.readLatency,
+            runner::getErrorCount,
+            options.getReportIntervalSeconds(),
+            options.getWindowSeconds(),
+            System.out);
+
+        reporter.start();
+        final WorkloadRunner.Result result;
+
+        try {
+            result = runner.run();
+        } finally {
+            reporter.stop();
+        }
+
+        final Histogram writeHistogram = this.writeLatency.getTotalHistogram();
+        final Histogram readHistogram = this.readLatency.getTotalHistogram();
+        final SteadyStateDetector.Result steadyState = detectSteadyState(reporter, options,
+            MeasurementWindow::getThroughput);
+        System.out.println("Workload " + result);
+        System.out.println("Write latency: " + LatencyRecorder.summarize(writeHistogram));
+        System.out.println("Read latency: " + LatencyRecorder.summarize(readHistogram));
+        System.out.println("Steady-state throughput: " + steadyState);
+        System.out.println("Steady-state write latency: " + LatencyRecorder.summarize(steadyState.getWriteHistogram()));
+        System.out.println("Steady-state read latency: " + LatencyRecorder.summarize(steadyState.getReadHistogram()));
+
+        final UserCache.Stats cacheStats = repository.getCache() == null ? null : repository.getCache().stats();
+
+        if (cacheStats != null) {
+            System.out.println("User cache: " + cacheStats);
+        }
+
+        final DriverMetrics.MetricsSnapshot driverSnapshot = this.driverMetrics == null
+            ? null
+            : this.driverMetrics.snapshot();
+
+        if (driverSnapshot != null) {
+            System.out.println("Driver metrics: " + driverSnapshot);
+            System.out.println("Driver metrics by region: " + driverSnapshot.getRegions());
+        }
+
+        if (options.getSummaryFile() != null) {
+            final Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("workload", result.getProfileName());
+            summary.put("threads", options.getThreadCount());
+            summary.put("seconds", result.getElapsedNanos() / 1E9);
+            summary.put("operations", result.getOperationCount());
+            summary.put("reads", result.getReadCount());
+            summary.put("read-misses", result.getReadMissCount());
+            summary.put("inserts", result.getInsertCount());
+            summary.put("updates", result.getUpdateCount());
+            summary.put("errors", result.getErrorCount());
+            summary.put("keys", result.getKeyCount());
+            summary.put("throughput", result.getThroughput());
+            MetricsReporter.putLatency(summary, "write-latency", writeHistogram);
+            MetricsReporter.putLatency(summary, "read-latency", readHistogram);
+            steadyState.putSummary(summary);
+            MetricsReporter.putLatency(summary, "steady-state-write-latency", steadyState.getWriteHistogram());
+            MetricsReporter.putLatency(summary, "steady-state-read-latency", steadyState.getReadHistogram());
+            if (cacheStats != null) {
+                cacheStats.putSummary(summary);
+            }
+            if (driverSnapshot != null) {
+                driverSnapshot.putSummary(summary);
+            }
+            try {
+                MetricsReporter.writeSummary(Paths.get(options.getSummaryFile()), summary);
+            } catch (final IOException error) {
+                LOGGER.error("Could not write summary to {}", options.getSummaryFile(), error);
+            }
+        }
+
+        writeWindows(reporter, options);
+        System.out.println("Finished running workload " + result.getProfileName() + ".");
+    }
+
+    /**
+     * Generates test data and resets the state recorded by a run, before any timed phase begins so that write
+     * latencies do not include data generation.
+     */
+    private TestDataArena prepare(final LoadTestOptions options) {
+
+        final RequestEvents.Phase phase = RequestEvents.beginPhase("generate");
+        final long generateStartTime = System.nanoTime();
+        final TestDataArena arena = TestDataArena.generate(
+            options.getWriteCount(),
+            options.getDataPoolSize(),
+            options.getPayloadSize(),
+            generateStartTime,
+            Math.max(options.getWorkerIndex(), 0),
+            Math.max(options.getWorkerCount(), 1));
+
+        LOGGER.info("Generated {} in {} ms", arena, toMillis(System.nanoTime() - generateStartTime));
+        phase.end();
+        this.writtenIds = new UserIdStore(options.getIdStoreBudgetMegabytes() * 1024L * 1024L);
+        this.writeLatency = new LatencyRecorder("write", options.getExpectedIntervalNanos());
+
+        if (options.isAdaptiveThrottle()) {
+            final int initialLimit = options.getAdaptiveThrottleInitialLimit();
+            this.throttle = new AdaptiveConcurrencyLimiter(
+                initialLimit, 1, Math.max(initialLimit, options.getMaxInFlight()), 0.7);
+        }
+
+        this.printOperations = options.isPrintOperations();
+        return arena;
+    }
+
+    /**
+     * Warms up for the duration or operation count given by {@code options} by rewriting the first users of the arena
+     * with the same values the measured phase writes, so that neither the users in the table nor the values read back
+     * are changed. Latencies are not recorded and the adaptive throttle is bypassed. The users cached by the warm-up
+     * writes are then cleared from the user cache, if any, so that the measured phase starts with an empty cache.
+     */
+    private void warmUp(final UserRepository repository, final TestDataArena arena, final LoadTestOptions options)
+        throws InterruptedException {
+
+        final long writeCount = options.getWriteCount();
+        final RequestEvents.Phase phase = RequestEvents.beginPhase("warm-up");
+
+        WarmUp.of(options).run(
+            options.getWarmUpOperations(),
+            TimeUnit.SECONDS.toNanos(options.getWarmUpSeconds()),
+            n -> {
+                final int index = (int) (n % writeCount);
+                repository.insertUser(
+                    arena.getId(index),
+                    arena.getName(index),
+                    arena.getCity(index),
+                    arena.getPayload(index));
+            });
+
+        if (repository.getCache() != null) {
+            repository.getCache().clear();
+        }
+
+        phase.end();
+    }
+
+    /**
+     * Writes all users in the mode given by {@code options}, tracking elapsed time, peak platform thread count, and
+     * peak heap usage.
+     */
+    private WritePhase write(
+        final UserRepository repository,
+        final UserProfile userProfile,
+        final TestDataArena arena,
+        final LoadTestOptions options) throws InterruptedException {
+
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+
+        threadMXBean.resetPeakThreadCount();
+        final RequestEvents.Phase phase = RequestEvents.beginPhase("write");
+        final long writeStartTime = System.nanoTime();
+        final boolean finished;
+
+        switch (options.getMode()) {
+            case ASYNC:
+                finished = this.runAsync(repository, userProfile, arena, options);
+                break;
+            case BATCH:
+                finished = this.runBatch(repository, userProfile, arena, options);
+                break;
+            case OPEN_LOOP:
+                finished = this.runOpenLoop(repository, userProfile, arena, options);
+                break;
+            case WRITE_BEHIND:
+                finished = this.runWriteBehind(repository, userProfile, arena, options);
+                break;
+            case THREADS:
+            case VIRTUAL_THREADS:
+            default:
+                finished = this.runThreads(repository, userProfile, arena, options, null);
+                break;
+        }
+
+        final long elapsedNanos = System.nanoTime() - writeStartTime;
+        phase.end();
+
+        if (this.throttle != null) {
+            this.throttle.stop();
+        }
+
+        long peakHeapBytes = 0L;
+
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peakHeapBytes += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        return new WritePhase(finished, elapsedNanos, threadMXBean.getPeakThreadCount(), peakHeapBytes);
+    }
+
+    /**
+     * Writes users from one thread per logical client, each blocking on every request or, given a write-behind buffer,
+     * only while the buffer is full.
+     * <p>
+     * Clients run on platform threads or, in {@link LoadTestOptions.Mode#VIRTUAL_THREADS virtual-threads} mode, on
+     * virtual threads.
+     *
+     * @return {@code true} if all writes were issued within five minutes; otherwise {@code false}.
+     */
+    private boolean runThreads(
         final UserRepository repository,
         final UserProfile userProfile,
-        final String preparedStatement,
-        final String finalQuery,
-        final int noOfThreads,
-        final int noOfWritesPerThread) throws InterruptedException {
+        final TestDataArena arena,
+        final LoadTestOptions options,
+        final WriteBehindBuffer buffer) throws InterruptedException {
 
-        final Faker faker = new Faker();
-        final ExecutorService es = Executors.newCachedThreadPool();
+        final int noOfThreads = options.getThreadCount();
+        final int noOfWritesPerThread = options.getWritesPerThread();
+        final long intervalNanos = options.getClientIntervalNanos();
+        final ExecutorService es = options.getMode() == LoadTestOptions.Mode.VIRTUAL_THREADS
+            ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+            : Executors.newCachedThreadPool();
 
-        for (int i = 1; i <= noOfThreads; i++) {
+        for (int i = 0; i < noOfThreads; i++) {
+            final TestDataArena.Cursor cursor = arena.cursor(i * noOfWritesPerThread, (i + 1) * noOfWritesPerThread);
             final Runnable task = () -> {
-                for (int j = 1; j <= noOfWritesPerThread; j++) {
-                    final UUID guid = java.util.UUID.randomUUID();
-                    final String strGuid = guid.toString();
-                    this.docIDs.add(strGuid);
+                long nextStartTime = System.nanoTime();
+                while (cursor.next()) {
+                    if (intervalNanos > 0) {
+                        // Pace this client; a client that falls behind schedule issues its next request immediately
+                        parkUntil(nextStartTime);
+                        nextStartTime += intervalNanos;
+                    }
+                    final String strGuid = cursor.getId();
                     try {
-                        final String name = faker.name().lastName();
-                        final String city = faker.address().city();
+                        final String name = cursor.getName();
+                        final String city = cursor.getCity();
                         userProfile.recordCount.incrementAndGet();
-                        final long startTime = System.currentTimeMillis();
-                        repository.insertUser(preparedStatement, guid.toString(), name, city);
-                        final long endTime = System.currentTimeMillis();
-                        final long duration = (endTime - startTime);
-                        System.out.print("insert duration time millis: " + duration + "\n");
-                        this.totalLatency.getAndAdd(duration);
-                        userProfile.insertCount.incrementAndGet();
+                        final long startTime = System.nanoTime();
+                        if (buffer == null) {
+                            this.insert(repository, strGuid, name, city, cursor.getPayload(), startTime);
+                            this.recordInsert(userProfile, arena, cursor.getIndex(), startTime);
+                        } else {
+                            final int index = cursor.getIndex();
+                            buffer.write(new UserRow(strGuid, name, city, cursor.getPayload()))
+                                .whenComplete((ignored, error) -> {
+                                    if (error == null) {
+                                        this.recordInsert(userProfile, arena, index, startTime);
+                                    } else {
+                                        this.recordException(userProfile, error);
+                                    }
+                                });
+                        }
                     } catch (final Exception e) {
-                        userProfile.exceptionCount.incrementAndGet();
-                        System.out.println("Exception: " + e);
+                        this.recordException(userProfile, e);
                     }
                 }
             };
@@ -89,37 +720,324 @@ public class UserProfile {
         }
 
         es.shutdown();
+        return es.awaitTermination(5, TimeUnit.MINUTES);
+    }
 
-        final boolean finished = es.awaitTermination(5, TimeUnit.MINUTES);
+    /**
+     * Writes users from one thread per logical client through a {@link WriteBehindBuffer write-behind buffer}, then
+     * waits for the buffer to drain.
+     * <p>
+     * The write latency of each user runs from the call that queued it to the completion of the batch or single write
+     * that carried it, so it includes the time spent in the buffer. The adaptive throttle does not apply in this mode.
+     *
+     * @return {@code true} if all writes completed within five minutes; otherwise {@code false}.
+     */
+    private boolean runWriteBehind(
+        final UserRepository repository,
+        final UserProfile userProfile,
+        final TestDataArena arena,
+        final LoadTestOptions options) throws InterruptedException {
 
-        if (finished) {
+        final WriteBehindBuffer buffer = WriteBehindBuffer.of(repository, options);
+        LOGGER.info("Running {} with {}", options, buffer);
 
-            Thread.sleep(5000);
-            final long latency = (this.totalLatency.get() / this.insertCount.get());
+        try {
+            final long startTime = System.nanoTime();
+            final boolean issued = this.runThreads(repository, userProfile, arena, options, buffer);
+            final long remainingNanos = TimeUnit.MINUTES.toNanos(5) - (System.nanoTime() - startTime);
+            return buffer.drain(Math.max(remainingNanos, 0L), TimeUnit.NANOSECONDS) && issued;
+        } finally {
+            buffer.close();
+            System.out.println("Write-behind buffer: " + buffer);
+        }
+    }
 
-            //lets look at latency for reads in local region by reading all the records just written
-            final int readcount = NUMBER_OF_THREADS * NUMBER_OF_WRITES_PER_THREAD;
-            long noOfUsersInTable = 0;
+    /**
+     * Writes users asynchronously from a handful of threads, bounded by a maximum number of in-flight requests.
+     *
+     * @return {@code true} if all writes completed within five minutes; otherwise {@code false}.
+     */
+    private boolean runAsync(
+        final UserRepository repository,
+        final UserProfile userProfile,
+        final TestDataArena arena,
+        final LoadTestOptions options) throws InterruptedException {
 
-            noOfUsersInTable = repository.selectUserCount(finalQuery);
+        final AsyncLoadEngine engine = new AsyncLoadEngine(options.getAsyncThreadCount(), options.getMaxInFlight());
+        LOGGER.info("Running {} with {}", options, engine);
 
-            for (final String id : this.docIDs) {
-                final long startTime = System.currentTimeMillis();
-                repository.selectUser(id, keyspace, table);
-                final long endTime = System.currentTimeMillis();
-                final long duration = (endTime - startTime);
-                System.out.print("read duration time millis: " + duration + "\n");
-                this.totalReadLatency.getAndAdd(duration);
+        return engine.run(options.getWriteCount(), n -> {
+            final int index = (int) n;
+            final String strGuid = arena.getId(index);
+            try {
+                final String name = arena.getName(index);
+                final String city = arena.getCity(index);
+                userProfile.recordCount.incrementAndGet();
+                final long startTime = System.nanoTime();
+                final String payload = arena.getPayload(index);
+                return this.insertAsync(repository, strGuid, name, city, payload, startTime)
+                    .whenComplete((resultSet, error) -> {
+                        if (error == null) {
+                            this.recordInsert(userProfile, arena, index, startTime);
+                        } else {
+                            this.recordException(userProfile, error);
+                        }
+                    });
+            } catch (final RuntimeException e) {
+                this.recordException(userProfile, e);
+                return CompletableFuture.completedFuture(null);
             }
+        }, 5, TimeUnit.MINUTES);
+    }
 
-            System.out.println("count of inserts attempted: " + userProfile.recordCount);
-            System.out.println("count of users in table: " + noOfUsersInTable);
+    /**
+     * Writes users with a {@link BulkInserter bulk inserter}, which groups them by replica into unlogged batches.
+     * <p>
+     * One write latency is recorded for each batch or single write request, not one for each user it carried, so that
+     * large batches do not outweigh single writes in the write latency percentiles. The adaptive throttle does not
+     * apply in this mode.
+     *
+     * @return {@code true} if all writes completed within five minutes; otherwise {@code false}.
+     */
+    private boolean runBatch(
+        final UserRepository repository,
+        final UserProfile userProfile,
+        final TestDataArena arena,
+        final LoadTestOptions options) throws InterruptedException {
 
-            final long readLatency = (this.totalReadLatency.get() / readcount);
-            System.out.print("Average write Latency: " + latency + "\n");
-            System.out.println("Average read latency: " + readLatency);
-            System.out.println("Finished executing all threads.");
+        final BulkInserter inserter = BulkInserter.of(repository, options);
+        LOGGER.info("Running {} with {}", options, inserter);
+
+        final BulkInserter.Result result = inserter.insert(
+            LongStream.range(0, options.getWriteCount()).mapToObj(n -> {
+                final int index = (int) n;
+                userProfile.recordCount.incrementAndGet();
+                return new UserRow(arena.getId(index), arena.getName(index), arena.getCity(index),
+                    arena.getPayload(index), index);
+            }),
+            (rows, batched, startNanos, error) -> {
+                if (error != null) {
+                    this.recordException(userProfile, error);
+                    return;
+                }
+                this.writeLatency.recordSince(startNanos);
+                for (final UserRow row : rows) {
+                    this.writtenIds.append(
+                        arena.getIdMostSignificantBits(row.getIndex()),
+                        arena.getIdLeastSignificantBits(row.getIndex()));
+                }
+                userProfile.insertCount.addAndGet(rows.size());
+            },
+            5,
+            TimeUnit.MINUTES);
+
+        System.out.println("Bulk insert: " + result);
+        return result.isFinished();
+    }
+
+    /**
+     * Inserts a user, first waiting for the adaptive throttle to admit the write, if it is enabled. The time from
+     * {@code queuedSince} until the write is issued is its {@link RequestEvents#markQueued queue time}.
+     */
+    private void insert(
+        final UserRepository repository,
+        final String id,
+        final String name,
+        final String city,
+        final String payload,
+        final long queuedSince) throws InterruptedException {
+
+        if (this.throttle == null) {
+            RequestEvents.markQueued(queuedSince);
+            repository.insertUser(id, name, city, payload);
+            return;
+        }
+
+        final long permit = this.throttle.acquire();
+        RequestEvents.markQueued(queuedSince);
+        ExecutionInfo executionInfo = null;
+        RuntimeException error = null;
+
+        try {
+            executionInfo = repository.insertUser(id, name, city, payload).getExecutionInfo();
+        } catch (final RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            this.throttle.release(permit, AdaptiveConcurrencyLimiter.classify(executionInfo, error));
+        }
+    }
+
+    /**
+     * Inserts a user asynchronously, first waiting for the adaptive throttle to admit the write, if it is enabled. The
+     * time from {@code queuedSince} until the write is issued is its {@link RequestEvents#markQueued queue time}.
+     */
+    private CompletionStage<AsyncResultSet> insertAsync(
+        final UserRepository repository,
+        final String id,
+        final String name,
+        final String city,
+        final String payload,
+        final long queuedSince) {
+
+        if (this.throttle == null) {
+            RequestEvents.markQueued(queuedSince);
+            return repository.insertUserAsync(id, name, city, payload);
+        }
+
+        final long permit;
+
+        try {
+            permit = this.throttle.acquire();
+        } catch (final InterruptedException error) {
+            Thread.currentThread().interrupt();
+            final CompletableFuture<AsyncResultSet> failed = new CompletableFuture<>();
+            failed.completeExceptionally(error);
+            return failed;
         }
+
+        RequestEvents.markQueued(queuedSince);
+        return repository.insertUserAsync(id, name, city, payload).whenComplete((resultSet, error) ->
+            this.throttle.release(permit, AdaptiveConcurrencyLimiter.classify(
+                resultSet == null ? null : resultSet.getExecutionInfo(),
+                error)));
+    }
+
+    /**
+     * Writes users on a fixed schedule at the target rate, measuring each latency from its intended start time.
+     *
+     * @return {@code true} if all writes completed within five minutes; otherwise {@code false}.
+     */
+    private boolean runOpenLoop(
+        final UserRepository repository,
+        final UserProfile userProfile,
+        final TestDataArena arena,
+        final LoadTestOptions options) throws InterruptedException {
+
+        final OpenLoopScheduler scheduler = newOpenLoopScheduler(options);
+        LOGGER.info("Running {} with {}", options, scheduler);
+
+        return scheduler.run(options.getWriteCount(), (n, intendedStartTime) -> {
+            final int index = (int) n;
+            final String strGuid = arena.getId(index);
+            try {
+                final String name = arena.getName(index);
+                final String city = arena.getCity(index);
+                userProfile.recordCount.incrementAndGet();
+                final String payload = arena.getPayload(index);
+                return this.insertAsync(repository, strGuid, name, city, payload, intendedStartTime)
+                    .whenComplete((resultSet, error) -> {
+                        if (error == null) {
+                            this.recordInsert(userProfile, arena, index, intendedStartTime);
+                        } else {
+                            this.recordException(userProfile, error);
+                        }
+                    });
+            } catch (final RuntimeException e) {
+                this.recordException(userProfile, e);
+                return CompletableFuture.completedFuture(null);
+            }
+        }, 5, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Waits until the first and last users written are visible to reads at the repository's read consistency, so that
+     * read-back verification does not count users that are still being replicated as missing. Reads bypass the user
+     * cache. If the users are not visible within the schema timeout, verification goes ahead anyway.
+     */
+    private void awaitVisible(final UserRepository repository, final LoadTestOptions options)
+        throws InterruptedException {
+
+        final long size = this.writtenIds.size();
+
+        if (size == 0) {
+            return;
+        }
+
+        final List<String> ids = new ArrayList<>(2);
+
+        for (final long index : new long[] { 0, size - 1 }) {
+            ids.add(new UUID(
+                this.writtenIds.getMostSignificantBits(index),
+                this.writtenIds.getLeastSignificantBits(index)).toString());
+        }
+
+        final long expected = ids.stream().distinct().count();
+
+        Backoff.ofSeconds(options.getSchemaTimeoutSeconds()).await("written users to be visible", () ->
+            repository.selectUsersAsync(ids).toCompletableFuture().join().size() == expected);
+    }
+
+    private static SteadyStateDetector.Result detectSteadyState(
+        final MetricsReporter reporter,
+        final LoadTestOptions options,
+        final ToDoubleFunction<MeasurementWindow> throughput) {
+
+        final SteadyStateDetector detector = new SteadyStateDetector(
+            options.getSteadyStateWindows(),
+            options.getSteadyStateTolerance());
+
+        return detector.detect(reporter.getWindows(), throughput);
+    }
+
+    private static void writeWindows(final MetricsReporter reporter, final LoadTestOptions options) {
+        if (options.getWindowsFile() != null) {
+            try {
+                MetricsReporter.writeWindows(Paths.get(options.getWindowsFile()), reporter.getWindows());
+            } catch (final IOException error) {
+                LOGGER.error("Could not write measurement windows to {}", options.getWindowsFile(), error);
+            }
+        }
+    }
+
+    private static OpenLoopScheduler newOpenLoopScheduler(final LoadTestOptions options) {
+        return new OpenLoopScheduler(
+            options.getTargetRate(),
+            options.getRampUpSteps(),
+            TimeUnit.SECONDS.toNanos(options.getRampUpStepSeconds()),
+            options.getAsyncThreadCount(),
+            options.getMaxInFlight());
+    }
+
+    /**
+     * Sends a worker's report to its coordinator and disconnects.
+     */
+    private void report(final LoadWorker worker, final LoadReport report) throws IOException {
+        try (LoadWorker connection = worker) {
+            connection.report(report);
+            LOGGER.info("Reported {} to the coordinator", report);
+        }
+    }
+
+    private void recordException(final UserProfile userProfile, final Throwable error) {
+        userProfile.exceptionCount.incrementAndGet();
+        if (this.printOperations) {
+            System.out.println("Exception: " + error);
+        }
+    }
+
+    private void recordInsert(
+        final UserProfile userProfile,
+        final TestDataArena arena,
+        final int index,
+        final long startTime) {
+
+        this.writtenIds.append(arena.getIdMostSignificantBits(index), arena.getIdLeastSignificantBits(index));
+        final long duration = TimeUnit.NANOSECONDS.toMillis(this.writeLatency.recordSince(startTime));
+        if (this.printOperations) {
+            System.out.print("insert duration time millis: " + duration + "\n");
+        }
+        userProfile.insertCount.incrementAndGet();
+    }
+
+    private static void parkUntil(final long deadlineNanos) {
+        for (long delay = deadlineNanos - System.nanoTime(); delay > 0; delay = deadlineNanos - System.nanoTime()) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private static long toMillis(final double nanos) {
+        return Math.round(nanos / 1E6);
     }
 
     /**
@@ -134,52 +1052,173 @@ public class UserProfile {
         final UserProfile userProfile = new UserProfile();
         final String table = "user" + System.getProperty("azure.cosmos.cassandra.run-id", "");
 
-        try (CqlSession session = CqlSession.builder().build()) {
+        final StatementRegistry statements = new StatementRegistry(keyspace, table);
 
-            final UserRepository repository = new UserRepository(session);
+        try (CqlSession session = CqlSession.builder().withSchemaChangeListener(statements).build()) {
 
-            // Create keyspace and table in database
+            final LoadTestOptions options = LoadTestOptions.fromSystemProperties();
+            userProfile.driverMetrics = new DriverMetrics(session);
 
-            repository.createKeyspace("CREATE KEYSPACE IF NOT EXISTS " + keyspace
-                + " WITH REPLICATION = { 'class' : 'NetworkTopologyStrategy', 'datacenter1' : 1 }");
+            try (DriverMetricsExporter exporter = startMetricsExporter(userProfile.driverMetrics, options)) {
 
-            repository.dropTable("DROP TABLE IF EXISTS " + keyspace + "." + table);
+                final UserCache cache = options.getCacheSize() == 0 ? null : new UserCache(
+                    options.getCacheSize(),
+                    options.getCacheTtlSeconds(),
+                    TimeUnit.SECONDS);
 
-            repository.createTable("CREATE TABLE " + keyspace + "." + table + " ("
-                + "user_id text PRIMARY KEY,"
-                + "user_name text,"
-                + "user_bcity text)");
+                final UserRepository repository = new UserRepository(
+                    session,
+                    statements,
+                    cache,
+                    options.getWriteConsistency(),
+                    options.getReadConsistency());
 
-            Thread.sleep(5_000);
+                // Create keyspace and table in database, reusing a compatible table, and wait until the table is ready
 
-            System.out.println("Done creating " + keyspace + "." + table + " table...");
-            LOGGER.info("inserting records...");
+                final SchemaBootstrapper bootstrapper = new SchemaBootstrapper(session, keyspace, table,
+                    Backoff.ofSeconds(options.getSchemaTimeoutSeconds()));
+
+                if (options.getWorkerIndex() < 0) {
+                    bootstrapper.bootstrap(
+                        "{ 'class' : 'NetworkTopologyStrategy', 'datacenter1' : 1 }",
+                        options.isReuseTable());
+                } else {
+                    bootstrapper.awaitTable();
+                }
 
-            //Setup load test queries
+                System.out.println("Done creating " + keyspace + "." + table + " table...");
+                LOGGER.info("inserting records...");
 
-            final String loadTestPreparedStatement = "INSERT INTO " + keyspace + "." + table + " ("
-                + "user_bcity,"
-                + "user_id,"
-                + "user_name) "
-                + "VALUES (?,?,?)";
+                // Prepare load test statements once, up front
 
-            final String loadTestFinalSelectQuery = "SELECT COUNT(*) as coun FROM " + keyspace + "." + table + "";
+                repository.prepareStatements();
 
-            // Run Load Test - Insert rows into user table
+                // Run Load Test - Insert rows into user table, recording the run if asked
+
+                final RequestEvents.Recording recording = startRecording(options);
+
+                try {
+                    if (options.getWorkload() != null) {
+                        userProfile.runWorkload(repository, options);
+                    } else if (options.isSweep()) {
+                        userProfile.sweep(
+                            cell -> CqlSession.builder().withConfigLoader(cell.newConfigLoader()).build(),
+                            keyspace,
+                            table,
+                            options);
+                    } else if (options.getWorkerCount() > 0 && options.getWorkerIndex() < 0) {
+                        userProfile.coordinate(repository, options);
+                    } else if (options.getCompareModes().isEmpty()) {
+                        userProfile.loadTest(repository, userProfile, options);
+                    } else {
+                        userProfile.compareModes(repository, options);
+                    }
+                } finally {
+                    stopRecording(recording, options);
+                }
+            }
 
-            userProfile.loadTest(
-                keyspace,
-                table,
-                repository,
-                userProfile,
-                loadTestPreparedStatement,
-                loadTestFinalSelectQuery,
-                NUMBER_OF_THREADS,
-                NUMBER_OF_WRITES_PER_THREAD);
+            LOGGER.info("{}", statements);
 
         } catch (final Throwable error) {
             System.out.println("Main Exception " + error);
             System.exit(1);
         }
     }
+
+    /**
+     * Exposes the session's driver metrics over JMX and, unless the metrics port is zero, at a local Prometheus
+     * endpoint. A metrics port that cannot be bound is logged rather than failing the run.
+     */
+    private static DriverMetricsExporter startMetricsExporter(
+        final DriverMetrics metrics,
+        final LoadTestOptions options) throws IOException {
+
+        final int port = options.getMetricsPort();
+
+        if (!metrics.isEnabled()) {
+            LOGGER.warn("Driver metrics are disabled; enable datastax-java-driver.advanced.metrics to export them");
+        }
+
+        if (port > 0) {
+            try {
+                return DriverMetricsExporter.start(metrics, new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    port));
+            } catch (final IOException error) {
+                LOGGER.warn("Could not serve driver metrics on port {}; exposing them over JMX only", port, error);
+            }
+        }
+
+        return DriverMetricsExporter.start(metrics, null);
+    }
+
+    /**
+     * Starts a flight recording of the run, if a recording file is given and the running JVM supports flight recorder
+     * events. A recording that cannot be started is logged rather than failing the run.
+     */
+    private static RequestEvents.Recording startRecording(final LoadTestOptions options) {
+
+        if (options.getRecordingFile() == null) {
+            return null;
+        }
+
+        if (!RequestEvents.isSupported()) {
+            LOGGER.warn("Not recording to {}: flight recordings require Java 11 or later with the jdk.jfr module",
+                options.getRecordingFile());
+            return null;
+        }
+
+        try {
+            return RequestEvents.startRecording("load-test");
+        } catch (final IOException error) {
+            LOGGER.warn("Could not start a flight recording", error);
+            return null;
+        }
+    }
+
+    /**
+     * Stops a flight recording, dumps it to the recording file, and prints the latency of the requests recorded broken
+     * down by operation and phase.
+     */
+    private static void stopRecording(final RequestEvents.Recording recording, final LoadTestOptions options) {
+
+        if (recording == null) {
+            return;
+        }
+
+        try {
+            final RequestEvents.Summary summary = recording.stop(Paths.get(options.getRecordingFile()));
+            System.out.println("Flight recording: " + options.getRecordingFile());
+            for (final String line : summary.getLines()) {
+                System.out.println("  " + line);
+            }
+        } catch (final IOException error) {
+            LOGGER.error("Could not dump flight recording to {}", options.getRecordingFile(), error);
+        }
+    }
+
+    /**
+     * Measurements taken while writing users.
+     * <p>
+     * The peak thread count covers platform threads only; virtual threads are not counted by the JVM's thread MX
+     * bean. The peak heap usage is the sum of the peak usage of each heap memory pool and so overstates the true peak.
+     */
+    private static final class WritePhase {
+
+        final boolean finished;
+        final long elapsedNanos;
+        final int peakThreadCount;
+        final long peakHeapBytes;
+
+        WritePhase(
+            final boolean finished,
+            final long elapsedNanos,
+            final int peakThreadCount,
+            final long peakHeapBytes) {
+            this.finished = finished;
+            this.elapsedNanos = elapsedNanos;
+            this.peakThreadCount = peakThreadCount;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+    }
 }
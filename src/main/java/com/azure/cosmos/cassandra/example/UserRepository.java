@@ -3,17 +3,38 @@
 
 package com.azure.cosmos.cassandra.example;
 
+import com.azure.cosmos.cassandra.example.StatementRegistry.Operation;
 import com.datastax.oss.driver.api.core.ConsistencyLevel;
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchStatementBuilder;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
-import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.servererrors.InvalidQueryException;
+import com.datastax.oss.driver.api.core.type.codec.TypeCodecs;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
-
-import static com.datastax.oss.driver.api.core.ConsistencyLevel.QUORUM;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * This class gives implementations of create, delete table on Cassandra database Insert and Select data from the table.
@@ -21,17 +42,67 @@ import static com.datastax.oss.driver.api.core.ConsistencyLevel.QUORUM;
 @SuppressWarnings("UnnecessaryLocalVariable")
 public class UserRepository {
 
-    private static final ConsistencyLevel CONSISTENCY_LEVEL = QUORUM;
     private static final Logger LOGGER = LoggerFactory.getLogger(UserRepository.class);
+    private static final String BATCH_OPERATION = "INSERT_USER_BATCH";
+    private static final ThreadLocal<UserRowMapper.Page> PAGES = ThreadLocal.withInitial(UserRowMapper.Page::new);
+
     private final CqlSession session;
+    private final StatementRegistry statements;
+    private final UserCache cache;
+    private final ConsistencyLevel writeConsistency;
+    private final ConsistencyLevel readConsistency;
+    private final AtomicReferenceArray<UserRowMapper> mappers =
+        new AtomicReferenceArray<>(Operation.values().length);
 
     /**
      * Initializes a new user repository instance.
      *
-     * @param session Reference to a {@link CqlSession CQLSession}.
+     * @param session    Reference to a {@link CqlSession CQLSession}.
+     * @param statements Reference to the {@link StatementRegistry statement registry} for the user table.
+     */
+    public UserRepository(final CqlSession session, final StatementRegistry statements) {
+        this(session, statements, null);
+    }
+
+    /**
+     * Initializes a new user repository instance that reads and writes users through a client-side cache.
+     * <p>
+     * Single-user selects are served from the cache when they can be and cache the users they read. Inserts cache the
+     * users they write once the write succeeds. Multi-key selects and counts always go to the cluster.
+     *
+     * @param session    Reference to a {@link CqlSession CQLSession}.
+     * @param statements Reference to the {@link StatementRegistry statement registry} for the user table.
+     * @param cache      Reference to a {@link UserCache user cache} or {@code null}, if users should not be cached.
      */
-    public UserRepository(final CqlSession session) {
+    public UserRepository(final CqlSession session, final StatementRegistry statements, final UserCache cache) {
+        this(session, statements, cache, null, null);
+    }
+
+    /**
+     * Initializes a new user repository instance that reads and writes users at the given consistency levels.
+     * <p>
+     * Inserts are executed at the write consistency level; selects, counts, and scans at the read consistency level.
+     * A {@code null} consistency level leaves the driver's configured {@code basic.request.consistency} in effect.
+     *
+     * @param session          Reference to a {@link CqlSession CQLSession}.
+     * @param statements       Reference to the {@link StatementRegistry statement registry} for the user table.
+     * @param cache            Reference to a {@link UserCache user cache} or {@code null}, if users should not be
+     *                         cached.
+     * @param writeConsistency Consistency level of inserts or {@code null}.
+     * @param readConsistency  Consistency level of selects, counts, and scans or {@code null}.
+     */
+    public UserRepository(
+        final CqlSession session,
+        final StatementRegistry statements,
+        final UserCache cache,
+        final ConsistencyLevel writeConsistency,
+        final ConsistencyLevel readConsistency) {
+
         this.session = session;
+        this.statements = statements;
+        this.cache = cache;
+        this.writeConsistency = writeConsistency;
+        this.readConsistency = readConsistency;
     }
 
     /**
@@ -65,45 +136,694 @@ public class UserRepository {
         this.session.execute(query);
     }
 
+    /**
+     * Prepares all statements used by this repository.
+     * <p>
+     * Call this method once the user table has been created.
+     */
+    public void prepareStatements() {
+        this.statements.prepareAll(this.session);
+        LOGGER.info("Prepared statements for table: " + this.statements.getQualifiedTableName());
+    }
+
     /**
      * Insert a row into the user table
      *
-     * @param preparedStatement A prepared statement for inserting a user into the user table.
-     * @param id                id   The user's unique ID
-     * @param name              name The user's name.
-     * @param bcity             bcity The user's city of birth.
+     * @param id    id   The user's unique ID
+     * @param name  name The user's name.
+     * @param bcity bcity The user's city of birth.
+     *
+     * @return The result of the insert, including its {@link ResultSet#getExecutionInfo execution info}.
+     */
+    public ResultSet insertUser(final String id, final String name, final String bcity) {
+        return this.insertUser(id, name, bcity, null);
+    }
+
+    /**
+     * Insert a row into the user table asynchronously.
+     *
+     * @param id    The user's unique ID.
+     * @param name  The user's name.
+     * @param bcity The user's city of birth.
+     *
+     * @return A stage that completes when the row has been written.
+     */
+    public CompletionStage<AsyncResultSet> insertUserAsync(final String id, final String name, final String bcity) {
+        return this.insertUserAsync(id, name, bcity, null);
+    }
+
+    /**
+     * Insert a row with a payload into the user table.
+     *
+     * @param id      The user's unique ID.
+     * @param name    The user's name.
+     * @param bcity   The user's city of birth.
+     * @param payload The user's payload or {@code null}, if the {@code user_payload} column should not be written.
+     *
+     * @return The result of the insert, including its {@link ResultSet#getExecutionInfo execution info}.
+     */
+    public ResultSet insertUser(final String id, final String name, final String bcity, final String payload) {
+        final ResultSet resultSet;
+        try {
+            resultSet = payload == null
+                ? this.execute(Operation.INSERT_USER, bcity, id, name)
+                : this.execute(Operation.INSERT_USER_WITH_PAYLOAD, bcity, id, name, payload);
+        } catch (final RuntimeException error) {
+            this.cacheWrite(id, null, null, error);
+            throw error;
+        }
+        this.cacheWrite(id, name, bcity, null);
+        return resultSet;
+    }
+
+    /**
+     * Insert a row with a payload into the user table asynchronously.
+     *
+     * @param id      The user's unique ID.
+     * @param name    The user's name.
+     * @param bcity   The user's city of birth.
+     * @param payload The user's payload or {@code null}, if the {@code user_payload} column should not be written.
+     *
+     * @return A stage that completes when the row has been written.
+     */
+    public CompletionStage<AsyncResultSet> insertUserAsync(
+        final String id,
+        final String name,
+        final String bcity,
+        final String payload) {
+
+        return this.cacheWriteAsync(payload == null
+            ? this.executeAsync(Operation.INSERT_USER, bcity, id, name)
+            : this.executeAsync(Operation.INSERT_USER_WITH_PAYLOAD, bcity, id, name, payload), id, name, bcity);
+    }
+
+    /**
+     * Inserts rows into the user table asynchronously as a single unlogged batch.
+     * <p>
+     * An unlogged batch is not atomic: it saves round trips, not consistency. The driver routes the batch to a replica
+     * of its first row, so rows should be grouped by {@link #getReplicas replica} for the coordinator to apply them
+     * locally. If the batch fails, some of its rows may nonetheless have been written; they are removed from the user
+     * cache, as are the rows of any failed single insert.
+     *
+     * @param rows The rows to insert.
+     *
+     * @return A stage that completes when the batch has been written.
+     */
+    public CompletionStage<AsyncResultSet> insertUsersAsync(final List<UserRow> rows) {
+
+        final RequestEvents.Trace trace = RequestEvents.beginRequest(BATCH_OPERATION);
+        final CompletableFuture<AsyncResultSet> result = new CompletableFuture<>();
+
+        this.executeAsync(
+            () -> this.bindBatchAsync(rows).thenApply(trace::dispatched),
+            BATCH_OPERATION,
+            result);
+
+        final CompletionStage<AsyncResultSet> traced = result.whenComplete((resultSet, error) ->
+            trace.end(resultSet == null ? null : resultSet.getExecutionInfo(), error));
+
+        if (this.cache == null) {
+            return traced;
+        }
+
+        return traced.whenComplete((resultSet, error) -> {
+            for (final UserRow row : rows) {
+                this.cacheWrite(row.getId(), row.getName(), row.getCity(), error);
+            }
+        });
+    }
+
+    /**
+     * Inserts the rows published by an upstream publisher and publishes each row once it has been written.
+     * <p>
+     * Rows are requested from {@code rows} as capacity frees up, so that at most {@code maxInFlight} of them are being
+     * written or waiting for the subscriber's demand at any time, and are published in the order their writes
+     * complete. The first failed write cancels the upstream subscription and is signalled as an error. Rows are written
+     * through the user cache, if any, as by {@link #insertUserAsync(String, String, String, String)}, with which each
+     * row is written; the driver's reactive execution is used only for selects.
+     *
+     * @param rows        The rows to insert.
+     * @param maxInFlight Maximum number of rows requested from {@code rows} but not yet published.
+     *
+     * @return A cold publisher of the rows written; each subscriber subscribes to {@code rows} anew.
+     */
+    public Publisher<UserRow> insertUsersReactive(final Publisher<UserRow> rows, final int maxInFlight) {
+        return new ReactiveInserter(this, rows, maxInFlight);
+    }
+
+    /**
+     * Gets the nodes that own a user's partition, according to the driver's token metadata.
+     *
+     * @param id User ID.
+     *
+     * @return The replicas of the user's partition; empty, if the driver has no token metadata.
      */
-    public void insertUser(final String preparedStatement, final String id, final String name, final String bcity) {
-        final PreparedStatement prepared = this.session.prepare(preparedStatement);
-        final BoundStatement bound = prepared.bind(bcity, id, name).setIdempotent(true);
-        this.session.execute(bound);
+    public Set<Node> getReplicas(final String id) {
+        return this.session.getMetadata().getTokenMap()
+            .map(tokenMap -> tokenMap.getReplicas(
+                this.statements.getKeyspace(),
+                TypeCodecs.TEXT.encode(id, this.session.getContext().getProtocolVersion())))
+            .orElse(Collections.emptySet());
     }
 
     /**
      * Select a row from user table.
      *
-     * @param id       User ID.
-     * @param keyspace Keyspace name.
-     * @param table    Table name.
+     * @param id User ID.
+     *
+     * @return The selected user.
+     *
+     * @throws NullPointerException If there is no user with the given ID.
      */
-    public void selectUser(final String id, final String keyspace, final String table) {
-        final String query = "SELECT * FROM " + keyspace + "." + table + " where user_id ='" + id + "'";
-        final Row row = this.session.execute(query).one();
-        LOGGER.info("Obtained row: {} | {} | {} ",
-            Objects.requireNonNull(row).getString("user_id"), row.getString("user_name"),
-            row.getString("user_bcity"));
+    public User selectUser(final String id) {
+        final User cached = this.cache == null ? null : this.cache.get(id);
+        if (cached != null) {
+            LOGGER.debug("Obtained cached row: {} ", cached);
+            return cached;
+        }
+        final long startTime = System.nanoTime();
+        final User user = this.map(Operation.SELECT_USER, Objects.requireNonNull(
+            this.execute(Operation.SELECT_USER, id).one(), "expected a user with ID " + id));
+        LOGGER.debug("Obtained row: {} ", user);
+        return this.cacheRead(user, startTime);
     }
 
     /**
-     * Computes a count of the number of rows in the user table.
+     * Select a user from the user table.
+     *
+     * @param id User ID.
+     *
+     * @return The selected user or {@code null}, if there is no user with the given ID.
+     */
+    public User findUser(final String id) {
+        final User cached = this.cache == null ? null : this.cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        final long startTime = System.nanoTime();
+        final Row row = this.execute(Operation.SELECT_USER, id).one();
+        return this.cacheRead(row == null ? null : this.map(Operation.SELECT_USER, row), startTime);
+    }
+
+    /**
+     * Select a row from user table asynchronously.
+     *
+     * @param id User ID.
+     *
+     * @return A stage that completes with the selected user or {@code null}, if there is no user with the given ID.
+     */
+    public CompletionStage<User> selectUserAsync(final String id) {
+        final User cached = this.cache == null ? null : this.cache.get(id);
+        if (cached != null) {
+            LOGGER.debug("Obtained cached row: {} ", cached);
+            return CompletableFuture.completedFuture(cached);
+        }
+        final long startTime = System.nanoTime();
+        return this.executeAsync(Operation.SELECT_USER, id).thenApply(resultSet -> {
+            final Row row = resultSet.one();
+            if (row == null) {
+                return this.cacheRead(null, startTime);
+            }
+            final User user = this.map(Operation.SELECT_USER, row);
+            LOGGER.debug("Obtained row: {} ", user);
+            return this.cacheRead(user, startTime);
+        });
+    }
+
+    /**
+     * Select a row from the user table asynchronously, bypassing the user cache.
+     * <p>
+     * The user is read from the cluster, not the user cache, and is not cached. Use this method to check what was
+     * actually written, or to measure the latency of the cluster rather than that of the cache.
+     *
+     * @param id User ID.
+     *
+     * @return A stage that completes with the selected user or {@code null}, if there is no user with the given ID.
+     */
+    public CompletionStage<User> selectUserUncachedAsync(final String id) {
+        return this.executeAsync(Operation.SELECT_USER, id).thenApply(resultSet -> {
+            final Row row = resultSet.one();
+            return row == null ? null : this.map(Operation.SELECT_USER, row);
+        });
+    }
+
+    /**
+     * Select the rows with any of a list of IDs from the user table asynchronously, using a single multi-key {@code IN}
+     * query.
+     *
+     * @param ids User IDs.
+     *
+     * @return A stage that completes with the users found; users that do not exist are omitted.
+     */
+    public CompletionStage<List<User>> selectUsersAsync(final List<String> ids) {
+        final List<User> users = new ArrayList<>(ids.size());
+        return this.executeAsync(Operation.SELECT_USERS, ids).thenCompose(resultSet -> this.collect(resultSet, users));
+    }
+
+    /**
+     * Select the rows with any of a list of IDs from the user table asynchronously, decoding each page of results into
+     * a reusable {@link UserRowMapper.Page page} rather than into a {@link User user} per row.
+     * <p>
+     * The consumer is called once for each page, on a driver thread, with a page that is reused as soon as the consumer
+     * returns; it must copy out any values it needs to keep.
+     *
+     * @param ids      User IDs.
+     * @param consumer Consumer to which each page of users is passed.
+     *
+     * @return A stage that completes with the number of users found once every page has been consumed.
+     */
+    public CompletionStage<Long> selectUsersAsync(
+        final List<String> ids,
+        final Consumer<UserRowMapper.Page> consumer) {
+
+        return this.executeAsync(Operation.SELECT_USERS, ids)
+            .thenCompose(resultSet -> this.consume(resultSet, consumer, 0L));
+    }
+
+    /**
+     * Select every row of the user table as a reactive stream, page by page.
+     * <p>
+     * The driver fetches a page only once the rows of the previous page have been requested, so a subscriber that
+     * requests rows as it processes them holds at most a page of rows in memory. Rows are read from the cluster, not
+     * the user cache, and are not cached.
+     *
+     * @param pageSize Number of rows fetched in each page or a non-positive value to use the driver's configured
+     *                 {@code basic.request.page-size}.
+     *
+     * @return A cold publisher of the users in the user table; each subscriber scans the table anew.
+     */
+    public Publisher<User> selectAllUsersReactive(final int pageSize) {
+        return new ReactiveSelect(this.session, row -> this.map(Operation.SELECT_ALL_USERS, row), () -> this.statements
+            .bindAsync(Operation.SELECT_ALL_USERS)
+            .thenApply(statement -> {
+                final BoundStatement bound = this.withConsistency(Operation.SELECT_ALL_USERS, statement);
+                return pageSize > 0 ? bound.setPageSize(pageSize) : bound;
+            }));
+    }
+
+    /**
+     * Select a row from the user table as a reactive stream.
+     * <p>
+     * The user is read from the cluster, not the user cache, and is not cached.
+     *
+     * @param id User ID.
+     *
+     * @return A cold publisher of the user with the given ID; it completes without publishing a user, if there is no
+     * user with that ID.
+     */
+    public Publisher<User> selectUserReactive(final String id) {
+        return new ReactiveSelect(this.session, row -> this.map(Operation.SELECT_USER, row), () -> this.statements
+            .bindAsync(Operation.SELECT_USER, id)
+            .thenApply(statement -> this.withConsistency(Operation.SELECT_USER, statement)));
+    }
+
+    /**
+     * Gets the client-side cache through which users are read and written.
+     *
+     * @return The user cache or {@code null}, if users are not cached.
+     */
+    public UserCache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Gets the consistency level at which selects, counts, and scans are executed.
+     *
+     * @return The read consistency level or {@code null}, if the driver's configured consistency level is used.
+     */
+    public ConsistencyLevel getReadConsistency() {
+        return this.readConsistency;
+    }
+
+    /**
+     * Gets the consistency level at which inserts are executed.
      *
-     * @param queryString A query for computing a count of the number of rows in the user tble.
+     * @return The write consistency level or {@code null}, if the driver's configured consistency level is used.
+     */
+    public ConsistencyLevel getWriteConsistency() {
+        return this.writeConsistency;
+    }
+
+    /**
+     * Computes a count of the number of rows in the user table.
      *
      * @return The number of rows in the user table.
      */
-    public long selectUserCount(final String queryString) {
-        final String query = queryString;
-        final Row row = this.session.execute(query).one();
+    public long selectUserCount() {
+        final Row row = this.execute(Operation.SELECT_USER_COUNT).one();
         return row == null ? 0 : row.getLong(0);
     }
+
+    /**
+     * Counts the users in the user table with a parallel {@link TokenRangeScanner token range scan}.
+     * <p>
+     * When the driver has no token metadata--as when token metadata is disabled in the driver configuration--this falls
+     * back to {@link #selectUserCount}.
+     *
+     * @param splitCount  Approximate number of ranges into which the token ring should be split.
+     * @param parallelism Maximum number of ranges counted at once.
+     *
+     * @return The number of rows in the user table.
+     */
+    public long countUsers(final int splitCount, final int parallelism) {
+
+        final Optional<TokenRangeScanner> scanner = this.scanner(splitCount, parallelism);
+
+        if (!scanner.isPresent()) {
+            LOGGER.warn("Token metadata is unavailable; counting users with a single query");
+            return this.selectUserCount();
+        }
+
+        LOGGER.info("Counting users with {}", scanner.get());
+
+        return scanner.get().count((completedRanges, totalRanges, rowCount) ->
+            LOGGER.debug("Counted {} of {} ranges: {} users so far", completedRanges, totalRanges, rowCount))
+            .toCompletableFuture()
+            .join();
+    }
+
+    /**
+     * Creates a {@link TokenRangeScanner token range scanner} for counting or streaming the users in the user table.
+     *
+     * @param splitCount  Approximate number of ranges into which the token ring should be split.
+     * @param parallelism Maximum number of ranges queried at once.
+     *
+     * @return A new scanner or, if the driver has no token metadata, {@link Optional#empty()}.
+     */
+    public Optional<TokenRangeScanner> scanner(final int splitCount, final int parallelism) {
+        return this.session.getMetadata().getTokenMap()
+            .map(tokenMap -> new TokenRangeScanner(this, tokenMap, splitCount, parallelism));
+    }
+
+    /**
+     * Adds the users on the current and all remaining pages of a result set to a list.
+     *
+     * @param resultSet A result set.
+     * @param users     The list to which users should be added.
+     *
+     * @return A stage that completes with {@code users} once all pages have been read.
+     */
+    private CompletionStage<List<User>> collect(final AsyncResultSet resultSet, final List<User> users) {
+        final UserRowMapper mapper = this.mapper(Operation.SELECT_USERS, resultSet.getColumnDefinitions());
+        for (final Row row : resultSet.currentPage()) {
+            users.add(mapper.map(row));
+        }
+        return resultSet.hasMorePages()
+            ? resultSet.fetchNextPage().thenCompose(next -> this.collect(next, users))
+            : CompletableFuture.completedFuture(users);
+    }
+
+    /**
+     * Passes the users on the current and all remaining pages of a result set to a consumer, a page at a time.
+     *
+     * @param resultSet A result set.
+     * @param consumer  The consumer to which each page is passed.
+     * @param count     The number of users consumed from earlier pages.
+     *
+     * @return A stage that completes with the total number of users consumed once all pages have been read.
+     */
+    private CompletionStage<Long> consume(
+        final AsyncResultSet resultSet,
+        final Consumer<UserRowMapper.Page> consumer,
+        final long count) {
+
+        final UserRowMapper.Page page = this.decode(Operation.SELECT_USERS, resultSet);
+        final long total = count + page.size();
+        consumer.accept(page);
+        return resultSet.hasMorePages()
+            ? resultSet.fetchNextPage().thenCompose(next -> this.consume(next, consumer, total))
+            : CompletableFuture.completedFuture(total);
+    }
+
+    /**
+     * Decodes the current page of a result set into the calling thread's reusable page.
+     * <p>
+     * The page returned is overwritten by the next call on the same thread, so it must be consumed before the calling
+     * thread does anything that could decode another page.
+     *
+     * @param operation The operation that produced the result set.
+     * @param resultSet A result set containing the {@code user_id}, {@code user_name}, and {@code user_bcity} columns.
+     *
+     * @return The calling thread's page, holding the users on the current page of {@code resultSet}.
+     */
+    UserRowMapper.Page decode(final Operation operation, final AsyncResultSet resultSet) {
+        final UserRowMapper.Page page = PAGES.get();
+        this.mapper(operation, resultSet.getColumnDefinitions()).mapPage(resultSet.currentPage(), page);
+        return page;
+    }
+
+    /**
+     * Converts a row of the user table to a {@link User user}.
+     *
+     * @param operation The operation that produced the row.
+     * @param row       A row containing the {@code user_id}, {@code user_name}, and {@code user_bcity} columns.
+     *
+     * @return The user represented by {@code row}.
+     */
+    User map(final Operation operation, final Row row) {
+        return this.mapper(operation, row.getColumnDefinitions()).map(row);
+    }
+
+    /**
+     * Gets the row mapper for the results of an operation, creating it if the operation has not produced results with
+     * the given column definitions before--as when its statement has been prepared again.
+     */
+    private UserRowMapper mapper(final Operation operation, final ColumnDefinitions definitions) {
+        UserRowMapper mapper = this.mappers.get(operation.ordinal());
+        if (mapper == null || !mapper.isFor(definitions)) {
+            mapper = UserRowMapper.of(definitions);
+            this.mappers.set(operation.ordinal(), mapper);
+        }
+        return mapper;
+    }
+
+    /**
+     * Records the latency of a select that missed the cache and caches the user it read, if any.
+     */
+    private User cacheRead(final User user, final long startTime) {
+        if (this.cache != null) {
+            this.cache.recordLoad(System.nanoTime() - startTime);
+            if (user != null) {
+                this.cache.put(user);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Caches a user once it has been written or, if the write failed, removes any stale copy of the user, since a
+     * failed write may still have been applied.
+     */
+    private void cacheWrite(final String id, final String name, final String bcity, final Throwable error) {
+        if (this.cache == null) {
+            return;
+        }
+        if (error == null) {
+            this.cache.put(new User(id, name, bcity));
+        } else {
+            this.cache.invalidate(id);
+        }
+    }
+
+    private CompletionStage<AsyncResultSet> cacheWriteAsync(
+        final CompletionStage<AsyncResultSet> write,
+        final String id,
+        final String name,
+        final String bcity) {
+
+        return this.cache == null
+            ? write
+            : write.whenComplete((resultSet, error) -> this.cacheWrite(id, name, bcity, error));
+    }
+
+    /**
+     * Executes the prepared statement for an operation.
+     * <p>
+     * The driver transparently re-prepares statements on nodes that report them as unprepared. If the server still
+     * rejects the statement and the user table has changed since it was bound, the statement is {@link #isStale
+     * stale}: the registry has already invalidated it, so it is prepared again and the operation is retried once. Any
+     * other error, including one raised while preparing or binding the statement, is rethrown unchanged.
+     * Each operation is traced as a single {@link RequestEvents request event}, whether or not it is retried.
+     *
+     * @param operation The operation to execute.
+     * @param values    Values for the operation's bind markers.
+     *
+     * @return The result of executing the operation.
+     */
+    private ResultSet execute(final Operation operation, final Object... values) {
+
+        final RequestEvents.Trace trace = RequestEvents.beginRequest(operation.name());
+        ResultSet resultSet = null;
+        RuntimeException failure = null;
+
+        try {
+            final long generation = this.statements.getSchemaGeneration();
+            final BoundStatement statement = this.withConsistency(operation, this.statements.bind(operation, values));
+            try {
+                resultSet = this.session.execute(trace.dispatched(statement));
+            } catch (final InvalidQueryException error) {
+                if (!isStale(error, generation, this.statements.getSchemaGeneration())) {
+                    throw error;
+                }
+                LOGGER.warn("Re-preparing {} after error: {}", operation, error.toString());
+                resultSet = this.session.execute(trace.dispatched(this.withConsistency(operation,
+                    this.statements.bind(operation, values))));
+            }
+            return resultSet;
+        } catch (final RuntimeException error) {
+            failure = error;
+            throw error;
+        } finally {
+            trace.end(resultSet == null ? null : resultSet.getExecutionInfo(), failure);
+        }
+    }
+
+    /**
+     * Executes the prepared statement for an operation asynchronously.
+     * <p>
+     * Unprepared statements are handled as described for {@link #execute}, without blocking the calling thread.
+     *
+     * @param operation The operation to execute.
+     * @param values    Values for the operation's bind markers.
+     *
+     * @return A stage that completes with the result of executing the operation.
+     */
+    private CompletionStage<AsyncResultSet> executeAsync(final Operation operation, final Object... values) {
+        return this.executeAsync(operation, UnaryOperator.identity(), values);
+    }
+
+    /**
+     * Executes the prepared statement for an operation asynchronously, customizing the bound statement first.
+     * <p>
+     * This is used by a {@link TokenRangeScanner token range scanner} to set tokens and paging state on a statement.
+     *
+     * @param operation  The operation to execute.
+     * @param customizer Function applied to the bound statement before it is executed.
+     * @param values     Values for the operation's bind markers.
+     *
+     * @return A stage that completes with the result of executing the operation.
+     */
+    CompletionStage<AsyncResultSet> executeAsync(
+        final Operation operation,
+        final UnaryOperator<BoundStatement> customizer,
+        final Object... values) {
+
+        final RequestEvents.Trace trace = RequestEvents.beginRequest(operation.name());
+        final CompletableFuture<AsyncResultSet> result = new CompletableFuture<>();
+
+        this.executeAsync(
+            () -> this.statements.bindAsync(operation, values).thenApply(statement ->
+                trace.dispatched(customizer.apply(this.withConsistency(operation, statement)))),
+            operation,
+            result);
+
+        return result.whenComplete((resultSet, error) ->
+            trace.end(resultSet == null ? null : resultSet.getExecutionInfo(), error));
+    }
+
+    /**
+     * Executes a statement asynchronously, binding it again and retrying once if the server rejects it as {@link
+     * #isStale stale}. Errors raised while preparing or binding the statement and all other errors complete {@code
+     * result} unchanged.
+     *
+     * @param bind        Supplies a stage that completes with the statement to execute; called again for the retry.
+     * @param description Describes the statement in log messages.
+     * @param result      Completed with the result of executing the statement.
+     */
+    private void executeAsync(
+        final Supplier<CompletionStage<? extends Statement<?>>> bind,
+        final Object description,
+        final CompletableFuture<AsyncResultSet> result) {
+
+        final long generation = this.statements.getSchemaGeneration();
+
+        bind.get().whenComplete((statement, bindError) -> {
+            if (bindError != null) {
+                result.completeExceptionally(unwrap(bindError));
+                return;
+            }
+            this.session.executeAsync(statement).whenComplete((resultSet, error) -> {
+                if (error == null) {
+                    result.complete(resultSet);
+                    return;
+                }
+                final Throwable cause = unwrap(error);
+                if (!isStale(cause, generation, this.statements.getSchemaGeneration())) {
+                    result.completeExceptionally(cause);
+                    return;
+                }
+                LOGGER.warn("Re-preparing {} after error: {}", description, cause.toString());
+                bind.get()
+                    .thenCompose(this.session::executeAsync)
+                    .whenComplete((retryResultSet, retryError) -> {
+                        if (retryError == null) {
+                            result.complete(retryResultSet);
+                        } else {
+                            result.completeExceptionally(unwrap(retryError));
+                        }
+                    });
+            });
+        });
+    }
+
+    /**
+     * Gets a value indicating whether an error means that a prepared statement is stale: that the user table was
+     * dropped and recreated or altered after the statement was bound.
+     * <p>
+     * When a node reports a prepared ID as unknown, the driver prepares the statement again on that node and, if that
+     * fails, reports the failure as an {@link InvalidQueryException}. The same error type reports bad bind values,
+     * invalid TTLs, and undefined columns, none of which preparing again can fix. So an error is taken as stale only
+     * if the {@link StatementRegistry#getSchemaGeneration schema generation} has moved since the statement was bound.
+     * Other errors, such as timeouts, overload, or syntax errors, are never worth preparing again.
+     *
+     * @param error             An error raised by executing a prepared statement.
+     * @param generation        The schema generation read before the statement was bound.
+     * @param currentGeneration The schema generation read after the error was raised.
+     *
+     * @return {@code true} if {@code error} is an {@link InvalidQueryException} and the schema generation has moved;
+     * otherwise {@code false}.
+     */
+    static boolean isStale(final Throwable error, final long generation, final long currentGeneration) {
+        return error instanceof InvalidQueryException && currentGeneration != generation;
+    }
+
+    private static Throwable unwrap(final Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Binds an insert for each row and collects them into an unlogged batch at the write consistency level, if set.
+     */
+    private CompletionStage<BatchStatement> bindBatchAsync(final List<UserRow> rows) {
+
+        final List<CompletableFuture<BoundStatement>> inserts = new ArrayList<>(rows.size());
+
+        for (final UserRow row : rows) {
+            inserts.add((row.getPayload() == null
+                ? this.statements.bindAsync(Operation.INSERT_USER, row.getCity(), row.getId(), row.getName())
+                : this.statements.bindAsync(Operation.INSERT_USER_WITH_PAYLOAD, row.getCity(), row.getId(),
+                    row.getName(), row.getPayload())).toCompletableFuture());
+        }
+
+        return CompletableFuture.allOf(inserts.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            final BatchStatementBuilder builder = BatchStatement.builder(DefaultBatchType.UNLOGGED)
+                .setIdempotence(Operation.INSERT_USER.isIdempotent());
+            for (final CompletableFuture<BoundStatement> insert : inserts) {
+                builder.addStatement(insert.join());
+            }
+            if (this.writeConsistency != null) {
+                builder.setConsistencyLevel(this.writeConsistency);
+            }
+            return builder.build();
+        });
+    }
+
+    /**
+     * Sets the consistency level of a bound statement to the read or write consistency level, according to whether the
+     * operation {@link Operation#isWrite writes}, if that consistency level is set.
+     */
+    private BoundStatement withConsistency(final Operation operation, final BoundStatement statement) {
+        final ConsistencyLevel consistency = operation.isWrite() ? this.writeConsistency : this.readConsistency;
+        return consistency == null ? statement : statement.setConsistencyLevel(consistency);
+    }
 }
@@ -0,0 +1,152 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Objects;
+
+/**
+ * A row to be written to the user table, including the {@code user_payload} column, which is written but never read.
+ */
+public final class UserRow {
+
+    private final String id;
+    private final String name;
+    private final String city;
+    private final String payload;
+    private final int index;
+
+    /**
+     * Initializes a new user row.
+     *
+     * @param id      The user's unique ID.
+     * @param name    The user's name.
+     * @param city    The user's city of birth.
+     * @param payload The user's payload or {@code null}, if the {@code user_payload} column should not be written.
+     */
+    public UserRow(@NonNull final String id, final String name, final String city, final String payload) {
+        this(id, name, city, payload, -1);
+    }
+
+    /**
+     * Initializes a new user row generated from a record of a {@link TestDataArena test data arena}.
+     *
+     * @param id      The user's unique ID.
+     * @param name    The user's name.
+     * @param city    The user's city of birth.
+     * @param payload The user's payload or {@code null}, if the {@code user_payload} column should not be written.
+     * @param index   The index of the record in the arena.
+     */
+    public UserRow(
+        @NonNull final String id,
+        final String name,
+        final String city,
+        final String payload,
+        final int index) {
+
+        this.id = Objects.requireNonNull(id, "expected non-null id");
+        this.name = name;
+        this.city = city;
+        this.payload = payload;
+        this.index = index;
+    }
+
+    /**
+     * Gets the user's city of birth.
+     *
+     * @return The value of the {@code user_bcity} column.
+     */
+    public String getCity() {
+        return this.city;
+    }
+
+    /**
+     * Gets the user's unique ID.
+     *
+     * @return The value of the {@code user_id} column.
+     */
+    @NonNull
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Gets the index of the {@link TestDataArena test data arena} record from which this row was generated.
+     * <p>
+     * The index is not part of the row's value and is ignored by {@link #equals} and {@link #hashCode}.
+     *
+     * @return The index of the record or {@code -1}, if the row was not generated from an arena.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Gets the user's name.
+     *
+     * @return The value of the {@code user_name} column.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the user's payload.
+     *
+     * @return The value of the {@code user_payload} column or {@code null}, if the column is not written.
+     */
+    public String getPayload() {
+        return this.payload;
+    }
+
+    /**
+     * Estimates the number of bytes the row adds to a request: the lengths of its values plus a fixed overhead for
+     * each bound statement.
+     *
+     * @return An estimate of the row's size in bytes.
+     */
+    public int getSizeEstimate() {
+        return 32 + length(this.id) + length(this.name) + length(this.city) + length(this.payload);
+    }
+
+    /**
+     * Gets the user this row writes, as it would be read back.
+     *
+     * @return The user, without its payload.
+     */
+    @NonNull
+    public User toUser() {
+        return new User(this.id, this.name, this.city);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof UserRow)) {
+            return false;
+        }
+        final UserRow that = (UserRow) other;
+        return this.id.equals(that.id)
+            && Objects.equals(this.name, that.name)
+            && Objects.equals(this.city, that.city)
+            && Objects.equals(this.payload, that.payload);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id, this.name, this.city, this.payload);
+    }
+
+    @Override
+    public String toString() {
+        return this.id + " | " + this.name + " | " + this.city + " | " + length(this.payload) + " payload chars";
+    }
+
+    private static int length(final String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,286 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinition;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.core.type.codec.TypeCodecs;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Maps rows of the user table to {@link User users} by column index.
+ * <p>
+ * The indexes of the {@code user_id}, {@code user_name}, and {@code user_bcity} columns are resolved once from the
+ * result metadata of a statement, and each value is decoded with the text codec directly, so mapping a row involves
+ * neither a column name lookup nor a codec registry lookup. A mapper is valid for the {@link ColumnDefinitions column
+ * definitions} it was created from; {@link #isFor} tells whether a row's definitions are those, as they are for every
+ * row returned by a prepared statement until it is prepared again.
+ * <p>
+ * For bulk reads, {@link #mapPage} decodes a page of rows into the column arrays of a reusable {@link Page page}
+ * rather than into a {@link User user} object per row.
+ */
+public final class UserRowMapper {
+
+    private static final CqlIdentifier USER_ID = CqlIdentifier.fromCql("user_id");
+    private static final CqlIdentifier USER_NAME = CqlIdentifier.fromCql("user_name");
+    private static final CqlIdentifier USER_BCITY = CqlIdentifier.fromCql("user_bcity");
+
+    private final ColumnDefinitions definitions;
+    private final int idIndex;
+    private final int nameIndex;
+    private final int cityIndex;
+
+    private UserRowMapper(final ColumnDefinitions definitions) {
+        this.definitions = definitions;
+        this.idIndex = indexOf(definitions, USER_ID);
+        this.nameIndex = indexOf(definitions, USER_NAME);
+        this.cityIndex = indexOf(definitions, USER_BCITY);
+    }
+
+    // region Methods
+
+    /**
+     * Creates a mapper for rows with the given column definitions.
+     *
+     * @param definitions The column definitions of the rows to map.
+     *
+     * @return A new mapper.
+     *
+     * @throws IllegalArgumentException If the definitions lack a text {@code user_id}, {@code user_name}, or {@code
+     *                                  user_bcity} column.
+     */
+    @NonNull
+    public static UserRowMapper of(@NonNull final ColumnDefinitions definitions) {
+        return new UserRowMapper(definitions);
+    }
+
+    /**
+     * Determines whether this mapper was created from the given column definitions.
+     * <p>
+     * The check is by identity: the driver shares a single instance of the definitions among all rows of a page and,
+     * for a prepared statement, among all its executions.
+     *
+     * @param definitions Column definitions of a row.
+     *
+     * @return {@code true} if rows with the given definitions can be mapped by this mapper; otherwise {@code false}.
+     */
+    public boolean isFor(@NonNull final ColumnDefinitions definitions) {
+        return this.definitions == definitions;
+    }
+
+    /**
+     * Maps a row to a user.
+     *
+     * @param row A row with the column definitions from which this mapper was created.
+     *
+     * @return The user represented by {@code row}.
+     */
+    @NonNull
+    public User map(@NonNull final Row row) {
+        return new User(
+            Objects.requireNonNull(row.get(this.idIndex, TypeCodecs.TEXT), "expected non-null user_id"),
+            row.get(this.nameIndex, TypeCodecs.TEXT),
+            row.get(this.cityIndex, TypeCodecs.TEXT));
+    }
+
+    /**
+     * Decodes a page of rows into the column arrays of a page, replacing its contents.
+     *
+     * @param rows The rows to decode, each with the column definitions from which this mapper was created.
+     * @param page The page into which rows are decoded.
+     *
+     * @return The number of rows decoded.
+     */
+    public int mapPage(@NonNull final Iterable<? extends Row> rows, @NonNull final Page page) {
+        page.clear();
+        for (final Row row : rows) {
+            page.add(
+                Objects.requireNonNull(row.get(this.idIndex, TypeCodecs.TEXT), "expected non-null user_id"),
+                row.get(this.nameIndex, TypeCodecs.TEXT),
+                row.get(this.cityIndex, TypeCodecs.TEXT));
+        }
+        return page.size();
+    }
+
+    @Override
+    public String toString() {
+        return "UserRowMapper(user_id=" + this.idIndex + ", user_name=" + this.nameIndex + ", user_bcity="
+            + this.cityIndex + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static int indexOf(final ColumnDefinitions definitions, final CqlIdentifier name) {
+
+        final int index = definitions.firstIndexOf(name);
+
+        if (index < 0) {
+            throw new IllegalArgumentException("expected a " + name.asCql(true) + " column, not " + definitions);
+        }
+
+        final ColumnDefinition definition = definitions.get(index);
+
+        if (!definition.getType().equals(DataTypes.TEXT)) {
+            throw new IllegalArgumentException("expected " + name.asCql(true) + " to be text, not "
+                + definition.getType());
+        }
+
+        return index;
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * The users on a page of results, held in column arrays that are reused from one page to the next.
+     * <p>
+     * A page is not thread safe. Its arrays grow to the size of the largest page decoded into it and are never shrunk,
+     * so decoding a page allocates nothing beyond the column values themselves.
+     */
+    public static final class Page {
+
+        private String[] ids;
+        private String[] names;
+        private String[] cities;
+        private int size;
+
+        /**
+         * Initializes a new empty page.
+         */
+        public Page() {
+            this(16);
+        }
+
+        /**
+         * Initializes a new empty page with room for the given number of users before it must grow.
+         *
+         * @param capacity Initial capacity of the page.
+         */
+        public Page(final int capacity) {
+
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacity must be positive, not " + capacity);
+            }
+
+            this.ids = new String[capacity];
+            this.names = new String[capacity];
+            this.cities = new String[capacity];
+        }
+
+        /**
+         * Removes all users from this page, keeping its arrays for reuse.
+         */
+        public void clear() {
+            Arrays.fill(this.ids, 0, this.size, null);
+            Arrays.fill(this.names, 0, this.size, null);
+            Arrays.fill(this.cities, 0, this.size, null);
+            this.size = 0;
+        }
+
+        /**
+         * Gets the city of birth of a user on this page.
+         *
+         * @param index Index of the user.
+         *
+         * @return The value of the user's {@code user_bcity} column.
+         */
+        public String getCity(final int index) {
+            return this.cities[this.checkIndex(index)];
+        }
+
+        /**
+         * Gets the ID of a user on this page.
+         *
+         * @param index Index of the user.
+         *
+         * @return The value of the user's {@code user_id} column.
+         */
+        @NonNull
+        public String getId(final int index) {
+            return this.ids[this.checkIndex(index)];
+        }
+
+        /**
+         * Gets the name of a user on this page.
+         *
+         * @param index Index of the user.
+         *
+         * @return The value of the user's {@code user_name} column.
+         */
+        public String getName(final int index) {
+            return this.names[this.checkIndex(index)];
+        }
+
+        /**
+         * Determines whether a user on this page has the same values as a given user.
+         *
+         * @param index Index of the user.
+         * @param user  The user to compare.
+         *
+         * @return {@code true} if the user at {@code index} equals {@code user}; otherwise {@code false}.
+         */
+        public boolean matches(final int index, @NonNull final User user) {
+            return this.getId(index).equals(user.getId())
+                && Objects.equals(this.names[index], user.getName())
+                && Objects.equals(this.cities[index], user.getCity());
+        }
+
+        /**
+         * Gets the number of users on this page.
+         *
+         * @return The number of users decoded into this page.
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Creates a {@link User user} from a user on this page, for callers that must keep it after the page is reused.
+         *
+         * @param index Index of the user.
+         *
+         * @return A new user with the values at {@code index}.
+         */
+        @NonNull
+        public User toUser(final int index) {
+            return new User(this.getId(index), this.names[index], this.cities[index]);
+        }
+
+        @Override
+        public String toString() {
+            return "UserRowMapper.Page(size=" + this.size + ", capacity=" + this.ids.length + ")";
+        }
+
+        private void add(final String id, final String name, final String city) {
+            if (this.size == this.ids.length) {
+                final int capacity = this.ids.length * 2;
+                this.ids = Arrays.copyOf(this.ids, capacity);
+                this.names = Arrays.copyOf(this.names, capacity);
+                this.cities = Arrays.copyOf(this.cities, capacity);
+            }
+            this.ids[this.size] = id;
+            this.names[this.size] = name;
+            this.cities[this.size] = city;
+            this.size++;
+        }
+
+        private int checkIndex(final int index) {
+            if (index < 0 || index >= this.size) {
+                throw new IndexOutOfBoundsException("index must be in [0, " + this.size + "), not " + index);
+            }
+            return index;
+        }
+    }
+
+    // endregion
+}
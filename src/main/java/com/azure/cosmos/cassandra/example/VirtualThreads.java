@@ -0,0 +1,68 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provides access to virtual threads on Java 21 or later, while this code continues to compile for Java 8.
+ * <p>
+ * {@link Executors#newVirtualThreadPerTaskExecutor} is looked up reflectively once. The number of carrier threads may
+ * be set with the {@code jdk.virtualThreadScheduler.parallelism} system property.
+ */
+final class VirtualThreads {
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = lookUpNewVirtualThreadPerTaskExecutor();
+
+    private VirtualThreads() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Gets a value indicating whether the running JVM supports virtual threads.
+     *
+     * @return {@code true} if virtual threads are supported; otherwise {@code false}.
+     */
+    static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     *
+     * @return A new virtual-thread-per-task executor.
+     *
+     * @throws UnsupportedOperationException If the running JVM does not support virtual threads.
+     */
+    @NonNull
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            throw new UnsupportedOperationException("virtual threads require Java 21 or later, not Java "
+                + System.getProperty("java.version"));
+        }
+
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (final IllegalAccessException error) {
+            throw new IllegalStateException(error);
+        } catch (final InvocationTargetException error) {
+            final Throwable cause = error.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+    }
+
+    private static Method lookUpNewVirtualThreadPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (final NoSuchMethodException error) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Issues unmeasured operations before a load test's measured phase, so that connection pool startup, JIT compilation,
+ * and the first executions of prepared statements are not counted against it.
+ * <p>
+ * Each logical client runs on its own thread--or virtual thread--and blocks on each operation, pacing itself to its
+ * share of the target rate, if there is one. Clients claim operation numbers from a shared counter until the operation
+ * count is reached or the duration has elapsed, whichever comes first. Failed operations are counted and logged, but
+ * do not stop the warm-up.
+ */
+public final class WarmUp {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUp.class);
+    private static final long TIMEOUT_MINUTES = 5;
+
+    private final int clientCount;
+    private final long clientIntervalNanos;
+    private final boolean virtualThreads;
+
+    /**
+     * Initializes a new warm-up.
+     *
+     * @param clientCount         Number of logical clients.
+     * @param clientIntervalNanos Interval between operations issued by each client in nanoseconds or zero, if clients
+     *                            should issue operations as fast as possible.
+     * @param virtualThreads      {@code true} if clients should run on virtual threads rather than platform threads.
+     */
+    public WarmUp(final int clientCount, final long clientIntervalNanos, final boolean virtualThreads) {
+        if (clientCount <= 0) {
+            throw new IllegalArgumentException("clientCount must be positive, not " + clientCount);
+        }
+        if (clientIntervalNanos < 0) {
+            throw new IllegalArgumentException("clientIntervalNanos must be non-negative, not " + clientIntervalNanos);
+        }
+        this.clientCount = clientCount;
+        this.clientIntervalNanos = clientIntervalNanos;
+        this.virtualThreads = virtualThreads;
+    }
+
+    // region Methods
+
+    /**
+     * Initializes a warm-up with the clients, pacing, and threads of a load test.
+     *
+     * @param options Options that control how load is generated.
+     *
+     * @return A new warm-up.
+     */
+    @NonNull
+    public static WarmUp of(@NonNull final LoadTestOptions options) {
+        return new WarmUp(
+            options.getThreadCount(),
+            options.getClientIntervalNanos(),
+            options.getMode() == LoadTestOptions.Mode.VIRTUAL_THREADS);
+    }
+
+    /**
+     * Runs operations until {@code operationCount} have been issued or {@code durationNanos} have elapsed, whichever
+     * comes first, and waits for the clients to finish.
+     * <p>
+     * The {@code operation} function is called with each operation number in turn, starting from zero. It should block
+     * until its work is done and report failures by throwing.
+     *
+     * @param operationCount Number of operations to issue or zero, if the warm-up is bounded by duration alone.
+     * @param durationNanos  Length of the warm-up in nanoseconds or zero, if it is bounded by operation count alone.
+     * @param operation      Function that performs an operation.
+     *
+     * @return The number of operations issued, including those that failed. Zero, if both bounds are zero.
+     *
+     * @throws InterruptedException If interrupted while waiting for the clients to finish.
+     */
+    public long run(final long operationCount, final long durationNanos, @NonNull final LongConsumer operation)
+        throws InterruptedException {
+
+        if (operationCount < 0) {
+            throw new IllegalArgumentException("operationCount must be non-negative, not " + operationCount);
+        }
+        if (durationNanos < 0) {
+            throw new IllegalArgumentException("durationNanos must be non-negative, not " + durationNanos);
+        }
+        if (operationCount == 0 && durationNanos == 0) {
+            return 0L;
+        }
+
+        final long startTime = System.nanoTime();
+        final long deadline = startTime + durationNanos;
+        final AtomicLong next = new AtomicLong();
+        final AtomicLong issuedCount = new AtomicLong();
+        final AtomicLong failedCount = new AtomicLong();
+
+        final ExecutorService executor = this.virtualThreads
+            ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+            : Executors.newCachedThreadPool();
+
+        for (int i = 0; i < this.clientCount; i++) {
+            executor.execute(() -> {
+                long nextStartTime = System.nanoTime();
+                while (durationNanos == 0 || System.nanoTime() - deadline < 0) {
+                    final long n = next.getAndIncrement();
+                    if (operationCount > 0 && n >= operationCount) {
+                        return;
+                    }
+                    if (this.clientIntervalNanos > 0) {
+                        parkUntil(nextStartTime);
+                        nextStartTime += this.clientIntervalNanos;
+                    }
+                    issuedCount.incrementAndGet();
+                    try {
+                        operation.accept(n);
+                    } catch (final RuntimeException error) {
+                        failedCount.incrementAndGet();
+                        LOGGER.debug("Warm-up operation {} failed", n, error);
+                    }
+                }
+            });
+        }
+
+        executor.shutdown();
+
+        if (!executor.awaitTermination(durationNanos + TimeUnit.MINUTES.toNanos(TIMEOUT_MINUTES),
+            TimeUnit.NANOSECONDS)) {
+            LOGGER.warn("Warm-up did not finish within five minutes of its duration");
+        }
+
+        LOGGER.info("Warmed up with {} operations in {} ms ({} failed)", issuedCount.get(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), failedCount.get());
+
+        return issuedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUp(clients=" + this.clientCount
+            + ", client-interval-nanos=" + this.clientIntervalNanos
+            + ", virtual-threads=" + this.virtualThreads + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static void parkUntil(final long deadlineNanos) {
+        for (long delay = deadlineNanos - System.nanoTime(); delay > 0; delay = deadlineNanos - System.nanoTime()) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,375 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigParseOptions;
+import com.typesafe.config.ConfigUtil;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * A named workload run by {@link WorkloadRunner}: how many clients issue which mix of reads, inserts, and updates, for
+ * how long, against which keys.
+ * <p>
+ * Profiles are defined in HOCON under {@code workloads.<name>} in {@code workloads.conf}, which is bundled with the
+ * application and may be overridden by a file given on the command line. Each profile falls back to the values under
+ * {@code workloads.defaults}, except for its {@code mix}, which is taken as a whole.
+ */
+public final class WorkloadProfile {
+
+    /**
+     * Name of the bundled resource that defines the workload profiles.
+     */
+    public static final String RESOURCE_NAME = "workloads.conf";
+
+    private static final String DEFAULTS = "defaults";
+
+    private final String name;
+    private final int threadCount;
+    private final int operationsPerThread;
+    private final Duration duration;
+    private final int preloadCount;
+    private final double readWeight;
+    private final double insertWeight;
+    private final double updateWeight;
+    private final KeyDistribution keyDistribution;
+    private final double zipfianExponent;
+    private final int payloadSize;
+    private final double targetRate;
+
+    private WorkloadProfile(final String name, final Config profile, final Config mix) {
+
+        this.name = name;
+        this.threadCount = requirePositive(name, "threads", profile.getInt("threads"));
+        this.operationsPerThread = requirePositive(name, "operations-per-thread",
+            profile.getInt("operations-per-thread"));
+        this.duration = profile.getDuration("duration");
+        this.preloadCount = requireNonNegative(name, "preload", profile.getInt("preload"));
+        this.readWeight = getWeight(name, mix, "read");
+        this.insertWeight = getWeight(name, mix, "insert");
+        this.updateWeight = getWeight(name, mix, "update");
+        this.zipfianExponent = profile.getDouble("zipfian-exponent");
+        this.payloadSize = requireNonNegative(name, "payload-size", profile.getInt("payload-size"));
+        this.targetRate = requireNonNegative(name, "target-rate", profile.getDouble("target-rate"));
+
+        try {
+            this.keyDistribution = KeyDistribution.parse(profile.getString("key-distribution"));
+        } catch (final IllegalArgumentException error) {
+            throw new IllegalArgumentException(path(name, "key-distribution") + ": expected uniform, zipfian, or "
+                + "latest, not " + profile.getString("key-distribution"), error);
+        }
+
+        if (this.duration.isNegative()) {
+            throw new IllegalArgumentException(path(name, "duration") + ": expected a non-negative duration, not "
+                + profile.getString("duration"));
+        }
+
+        if (!(this.zipfianExponent > 0.0) || Double.isInfinite(this.zipfianExponent)) {
+            throw new IllegalArgumentException(path(name, "zipfian-exponent") + ": expected a positive number, not "
+                + this.zipfianExponent);
+        }
+
+        if (this.readWeight + this.insertWeight + this.updateWeight == 0.0) {
+            throw new IllegalArgumentException(path(name, "mix") + ": expected at least one positive weight");
+        }
+
+        if (this.insertWeight == 0.0 && this.preloadCount == 0) {
+            throw new IllegalArgumentException(path(name, "preload") + ": expected a positive value when the mix has "
+                + "no inserts, so that there are keys to read and update");
+        }
+    }
+
+    // region Methods
+
+    /**
+     * Gets the profile that holds the values shared by all profiles.
+     * <p>
+     * The classic load test takes its default number of threads and writes per thread from this profile.
+     *
+     * @return The {@code defaults} profile from the bundled {@code workloads.conf}.
+     */
+    @NonNull
+    public static WorkloadProfile defaults() {
+        return DefaultsHolder.INSTANCE;
+    }
+
+    /**
+     * Reads a profile from a configuration.
+     *
+     * @param name   The name of the profile.
+     * @param config A configuration with a {@code workloads} object that defines the profile and the defaults from
+     *               which its values fall back.
+     *
+     * @return The profile named {@code name}.
+     *
+     * @throws IllegalArgumentException If there is no such profile or it has a missing or invalid value.
+     */
+    @NonNull
+    public static WorkloadProfile fromConfig(@NonNull final String name, @NonNull final Config config) {
+
+        final String path = path(name, null);
+
+        if (!config.hasPath(path)) {
+            throw new IllegalArgumentException(path + ": no such workload profile; expected one of "
+                + new TreeSet<>(config.getObject("workloads").keySet()));
+        }
+
+        try {
+            final Config profile = config.getConfig(path);
+            final Config defaults = config.getConfig(path(DEFAULTS, null));
+            final Config mix = profile.hasPath("mix") ? profile.getConfig("mix") : defaults.getConfig("mix");
+            return new WorkloadProfile(name, profile.withFallback(defaults), mix);
+        } catch (final ConfigException error) {
+            throw new IllegalArgumentException(error.getMessage(), error);
+        }
+    }
+
+    /**
+     * Reads a profile from the bundled {@code workloads.conf} layered under an optional file.
+     *
+     * @param name The name of the profile.
+     * @param file The path of a HOCON file whose profiles add to or override the bundled ones or {@code null}, if
+     *             only the bundled profiles should be read.
+     *
+     * @return The profile named {@code name}.
+     *
+     * @throws IllegalArgumentException If the file cannot be read, or there is no such profile, or it has a missing or
+     *                                  invalid value.
+     */
+    @NonNull
+    public static WorkloadProfile load(@NonNull final String name, final String file) {
+
+        Config config = ConfigFactory.parseResources(WorkloadProfile.class.getClassLoader(), RESOURCE_NAME);
+
+        if (file != null) {
+            try {
+                config = ConfigFactory.parseFile(new File(file), ConfigParseOptions.defaults().setAllowMissing(false))
+                    .withFallback(config);
+            } catch (final ConfigException error) {
+                throw new IllegalArgumentException(LoadTestOptions.PROPERTY_PREFIX + "workload-file: "
+                    + error.getMessage(), error);
+            }
+        }
+
+        return fromConfig(name, config.resolve());
+    }
+
+    /**
+     * Gets the length of the measured phase.
+     *
+     * @return The duration of the measured phase or {@link Duration#ZERO}, if each client issues {@link
+     * #getOperationsPerThread} operations instead.
+     */
+    @NonNull
+    public Duration getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Gets the relative weight of inserts of new keys in the measured phase.
+     *
+     * @return A non-negative weight.
+     */
+    public double getInsertWeight() {
+        return this.insertWeight;
+    }
+
+    /**
+     * Gets the distribution from which reads and updates select keys.
+     *
+     * @return The key distribution.
+     */
+    @NonNull
+    public KeyDistribution getKeyDistribution() {
+        return this.keyDistribution;
+    }
+
+    /**
+     * Gets the name of this profile.
+     *
+     * @return The profile name.
+     */
+    @NonNull
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of operations issued by each client when the profile has no {@link #getDuration duration}.
+     *
+     * @return A positive number of operations.
+     */
+    public int getOperationsPerThread() {
+        return this.operationsPerThread;
+    }
+
+    /**
+     * Gets the size of the payload written with each user.
+     *
+     * @return The payload size in characters; zero, if users are written without a payload.
+     */
+    public int getPayloadSize() {
+        return this.payloadSize;
+    }
+
+    /**
+     * Gets the number of users written before the measured phase begins.
+     *
+     * @return A non-negative number of users.
+     */
+    public int getPreloadCount() {
+        return this.preloadCount;
+    }
+
+    /**
+     * Gets the relative weight of reads in the measured phase.
+     *
+     * @return A non-negative weight.
+     */
+    public double getReadWeight() {
+        return this.readWeight;
+    }
+
+    /**
+     * Gets the total rate at which operations should be issued.
+     *
+     * @return The target rate in operations per second or zero, if operations should be issued as fast as possible.
+     */
+    public double getTargetRate() {
+        return this.targetRate;
+    }
+
+    /**
+     * Gets the number of logical clients.
+     *
+     * @return A positive number of clients.
+     */
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+
+    /**
+     * Gets the relative weight of updates of existing keys in the measured phase.
+     *
+     * @return A non-negative weight.
+     */
+    public double getUpdateWeight() {
+        return this.updateWeight;
+    }
+
+    /**
+     * Gets the skew of the {@link KeyDistribution#ZIPFIAN zipfian} and {@link KeyDistribution#LATEST latest} key
+     * distributions.
+     *
+     * @return A positive exponent.
+     */
+    public double getZipfianExponent() {
+        return this.zipfianExponent;
+    }
+
+    /**
+     * Selects the next operation according to the weights of the mix.
+     *
+     * @param random The source of randomness.
+     *
+     * @return The operation to issue.
+     */
+    @NonNull
+    public Operation selectOperation(@NonNull final Random random) {
+        final double value = random.nextDouble() * (this.readWeight + this.insertWeight + this.updateWeight);
+        if (value < this.readWeight) {
+            return Operation.READ;
+        }
+        return value < this.readWeight + this.insertWeight ? Operation.INSERT : Operation.UPDATE;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkloadProfile(name=" + this.name
+            + ", threads=" + this.threadCount
+            + ", operations-per-thread=" + this.operationsPerThread
+            + ", duration=" + this.duration
+            + ", preload=" + this.preloadCount
+            + ", mix={read=" + this.readWeight + ", insert=" + this.insertWeight + ", update=" + this.updateWeight + "}"
+            + ", key-distribution=" + this.keyDistribution
+            + ", zipfian-exponent=" + this.zipfianExponent
+            + ", payload-size=" + this.payloadSize
+            + ", target-rate=" + this.targetRate + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static double getWeight(final String name, final Config mix, final String operation) {
+        return mix.hasPath(operation) ? requireNonNegative(name, "mix." + operation, mix.getDouble(operation)) : 0.0;
+    }
+
+    private static String path(final String name, final String key) {
+        final String path = ConfigUtil.joinPath("workloads", name);
+        return key == null ? path : path + "." + key;
+    }
+
+    private static int requireNonNegative(final String name, final String key, final int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(path(name, key) + ": expected a non-negative value, not " + value);
+        }
+        return value;
+    }
+
+    private static double requireNonNegative(final String name, final String key, final double value) {
+        if (!(value >= 0.0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(path(name, key) + ": expected a non-negative number, not " + value);
+        }
+        return value;
+    }
+
+    private static int requirePositive(final String name, final String key, final int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(path(name, key) + ": expected a positive value, not " + value);
+        }
+        return value;
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * Operations issued by a workload.
+     */
+    public enum Operation {
+
+        /**
+         * Reads an existing user.
+         */
+        READ,
+
+        /**
+         * Writes a new user.
+         */
+        INSERT,
+
+        /**
+         * Overwrites the payload of an existing user.
+         */
+        UPDATE
+    }
+
+    /**
+     * Holds the {@code defaults} profile, which is read when it is first used.
+     */
+    private static final class DefaultsHolder {
+        static final WorkloadProfile INSTANCE = load(DEFAULTS, null);
+    }
+
+    // endregion
+}
@@ -0,0 +1,439 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.WorkloadProfile.Operation;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link WorkloadProfile workload profile}: a preload phase that writes the profile's initial keys, followed by
+ * a measured phase in which each logical client issues the profile's mix of reads, inserts, and updates. An optional
+ * {@link WarmUp warm-up} between the two issues the same mix without recording latencies or counting operations.
+ * <p>
+ * Each client runs on its own thread--or, in {@link LoadTestOptions.Mode#VIRTUAL_THREADS virtual-threads} mode, its
+ * own virtual thread--and blocks on each request, pacing itself to its share of the target rate, if there is one.
+ * Keys are numbered in the order they are claimed for writing and each key's ID, name, city, and payload are computed
+ * from its number, so that reads and updates can select keys without keeping a list of them. Reads may select a key
+ * whose insert is still in flight; such reads are counted as misses rather than as errors.
+ */
+public final class WorkloadRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkloadRunner.class);
+    private static final long TIMEOUT_MINUTES = 5;
+
+    private final UserRepository repository;
+    private final LoadTestOptions options;
+    private final WorkloadProfile profile;
+    private final TestDataArena arena;
+    private final LatencyRecorder writeLatency;
+    private final LatencyRecorder readLatency;
+    private final long keySalt;
+    private final AtomicLong keyCount = new AtomicLong();
+    private final AtomicLong readCount = new AtomicLong();
+    private final AtomicLong readMissCount = new AtomicLong();
+    private final AtomicLong insertCount = new AtomicLong();
+    private final AtomicLong updateCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * Initializes a new workload runner.
+     *
+     * @param repository   The repository against which the workload is run.
+     * @param options      Load test options with a {@link LoadTestOptions#getWorkload workload}. The number of
+     *                     threads, writes per thread, payload size, and target rate are taken from the options, which
+     *                     default them to the profile's values.
+     * @param writeLatency Recorder of the latencies of inserts and updates in the measured phase.
+     * @param readLatency  Recorder of the latencies of reads in the measured phase.
+     */
+    public WorkloadRunner(
+        @NonNull final UserRepository repository,
+        @NonNull final LoadTestOptions options,
+        @NonNull final LatencyRecorder writeLatency,
+        @NonNull final LatencyRecorder readLatency) {
+
+        if (options.getWorkload() == null) {
+            throw new IllegalArgumentException("options must specify a workload");
+        }
+
+        final long seed = System.nanoTime();
+
+        this.repository = repository;
+        this.options = options;
+        this.profile = options.getWorkload();
+        this.arena = TestDataArena.generate(0, options.getDataPoolSize(), options.getPayloadSize(), seed);
+        this.writeLatency = writeLatency;
+        this.readLatency = readLatency;
+        this.keySalt = seed;
+    }
+
+    // region Methods
+
+    /**
+     * Gets the number of operations that have failed in the measured phase so far.
+     *
+     * @return The number of failed operations.
+     */
+    public long getErrorCount() {
+        return this.errorCount.get();
+    }
+
+    /**
+     * Writes the profile's initial keys from all clients at once, without recording latencies.
+     *
+     * @return {@code true} if all keys were written within five minutes; otherwise {@code false}.
+     *
+     * @throws InterruptedException If interrupted while waiting for the clients to finish.
+     */
+    public boolean preload() throws InterruptedException {
+
+        final int preloadCount = this.profile.getPreloadCount();
+        final AtomicLong failedCount = new AtomicLong();
+        final long startTime = System.nanoTime();
+
+        final boolean finished = this.runClients(TimeUnit.MINUTES.toNanos(TIMEOUT_MINUTES), () -> {
+            for (long index = this.keyCount.getAndIncrement(); index < preloadCount;
+                 index = this.keyCount.getAndIncrement()) {
+                try {
+                    this.write(index, null);
+                } catch (final RuntimeException error) {
+                    failedCount.incrementAndGet();
+                    LOGGER.debug("Preload of key {} failed", index, error);
+                }
+            }
+        });
+
+        // Clients overshoot the count by one claim each
+
+        this.keyCount.set(preloadCount);
+
+        LOGGER.info("Preloaded {} keys in {} ms ({} failed)", preloadCount,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), failedCount.get());
+
+        return finished;
+    }
+
+    /**
+     * Runs the measured phase, for the profile's duration or until each client has issued its operations.
+     *
+     * @return The result of the measured phase.
+     *
+     * @throws InterruptedException If interrupted while waiting for the clients to finish.
+     */
+    @NonNull
+    public Result run() throws InterruptedException {
+
+        final long durationNanos = this.profile.getDuration().toNanos();
+        final int operationsPerThread = this.options.getWritesPerThread();
+        final long intervalNanos = this.options.getClientIntervalNanos();
+        final long startTime = System.nanoTime();
+        final long deadline = startTime + durationNanos;
+
+        LOGGER.info("Running {} with {}", this.profile, this.options);
+
+        final boolean finished = this.runClients(durationNanos + TimeUnit.MINUTES.toNanos(TIMEOUT_MINUTES), () -> {
+            final Random random = ThreadLocalRandom.current();
+            long nextStartTime = System.nanoTime();
+            for (int i = 0; durationNanos > 0 ? System.nanoTime() - deadline < 0 : i < operationsPerThread; i++) {
+                if (intervalNanos > 0) {
+                    // Pace this client; a client that falls behind schedule issues its next request immediately
+                    parkUntil(nextStartTime);
+                    nextStartTime += intervalNanos;
+                }
+                try {
+                    this.execute(this.profile.selectOperation(random), random, true);
+                } catch (final RuntimeException error) {
+                    this.errorCount.incrementAndGet();
+                    LOGGER.debug("Operation failed", error);
+                }
+            }
+        });
+
+        return new Result(this, finished, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Issues the profile's mix of operations for the warm-up duration or operation count given by the options, without
+     * recording latencies or counting operations. Keys inserted during the warm-up remain available to the measured
+     * phase.
+     *
+     * @return The number of operations issued.
+     *
+     * @throws InterruptedException If interrupted while waiting for the clients to finish.
+     */
+    public long warmUp() throws InterruptedException {
+        return WarmUp.of(this.options).run(
+            this.options.getWarmUpOperations(),
+            TimeUnit.SECONDS.toNanos(this.options.getWarmUpSeconds()),
+            n -> {
+                final Random random = ThreadLocalRandom.current();
+                this.execute(this.profile.selectOperation(random), random, false);
+            });
+    }
+
+    @Override
+    public String toString() {
+        return "WorkloadRunner(profile=" + this.profile.getName()
+            + ", threads=" + this.options.getThreadCount()
+            + ", keys=" + this.keyCount.get() + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    /**
+     * Executes an operation, recording its latency and counting it only if it is {@code measured}.
+     */
+    private void execute(final Operation operation, final Random random, final boolean measured) {
+
+        final long count = this.keyCount.get();
+
+        if (operation == Operation.INSERT || count == 0) {
+            final long startTime = System.nanoTime();
+            this.write(this.keyCount.getAndIncrement(), null);
+            if (measured) {
+                this.writeLatency.recordSince(startTime);
+                this.insertCount.incrementAndGet();
+            }
+            return;
+        }
+
+        final long index = this.profile.getKeyDistribution().select(count, this.profile.getZipfianExponent(), random);
+
+        if (operation == Operation.UPDATE) {
+            final long startTime = System.nanoTime();
+            this.write(index, random.nextLong());
+            if (measured) {
+                this.writeLatency.recordSince(startTime);
+                this.updateCount.incrementAndGet();
+            }
+            return;
+        }
+
+        final long startTime = System.nanoTime();
+        final User user = this.repository.findUser(new UUID(this.getMostSignificantBits(index), index).toString());
+
+        if (measured) {
+            this.readLatency.recordSince(startTime);
+            this.readCount.incrementAndGet();
+            if (user == null) {
+                this.readMissCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Computes the most significant bits of a key's ID by scrambling its number, so that consecutive keys are spread
+     * over the ring, with a SplitMix64 hash.
+     */
+    private long getMostSignificantBits(final long index) {
+        long z = this.keySalt + index * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private void runClient(final Runnable client) {
+        try {
+            client.run();
+        } catch (final RuntimeException error) {
+            LOGGER.error("Workload client failed", error);
+        }
+    }
+
+    private boolean runClients(final long timeoutNanos, final Runnable client) throws InterruptedException {
+
+        final ExecutorService executor = this.options.getMode() == LoadTestOptions.Mode.VIRTUAL_THREADS
+            ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+            : Executors.newCachedThreadPool();
+
+        for (int i = 0; i < this.options.getThreadCount(); i++) {
+            executor.execute(() -> this.runClient(client));
+        }
+
+        executor.shutdown();
+        return executor.awaitTermination(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Writes a key, either with its original payload or, when {@code payloadSeed} is given, with a payload chosen by
+     * the seed.
+     */
+    private void write(final long index, final Long payloadSeed) {
+        final long mostSignificantBits = this.getMostSignificantBits(index);
+        final User user = this.arena.newUser(mostSignificantBits, index);
+        final String payload = this.arena.getPayload(mostSignificantBits, payloadSeed == null ? index : payloadSeed);
+        this.repository.insertUser(user.getId(), user.getName(), user.getCity(), payload);
+    }
+
+    private static void parkUntil(final long deadlineNanos) {
+        for (long delay = deadlineNanos - System.nanoTime(); delay > 0; delay = deadlineNanos - System.nanoTime()) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * The counts and elapsed time of the measured phase of a workload.
+     */
+    public static final class Result {
+
+        private final String profileName;
+        private final boolean finished;
+        private final long elapsedNanos;
+        private final long readCount;
+        private final long readMissCount;
+        private final long insertCount;
+        private final long updateCount;
+        private final long errorCount;
+        private final long keyCount;
+
+        private Result(final WorkloadRunner runner, final boolean finished, final long elapsedNanos) {
+            this.profileName = runner.profile.getName();
+            this.finished = finished;
+            this.elapsedNanos = elapsedNanos;
+            this.readCount = runner.readCount.get();
+            this.readMissCount = runner.readMissCount.get();
+            this.insertCount = runner.insertCount.get();
+            this.updateCount = runner.updateCount.get();
+            this.errorCount = runner.errorCount.get();
+            this.keyCount = runner.keyCount.get();
+        }
+
+        /**
+         * Gets the length of the measured phase.
+         *
+         * @return The elapsed time in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return this.elapsedNanos;
+        }
+
+        /**
+         * Gets the number of operations that failed.
+         *
+         * @return The number of failed operations.
+         */
+        public long getErrorCount() {
+            return this.errorCount;
+        }
+
+        /**
+         * Gets the number of inserts that succeeded.
+         *
+         * @return The number of inserts.
+         */
+        public long getInsertCount() {
+            return this.insertCount;
+        }
+
+        /**
+         * Gets the number of keys claimed for writing by the end of the run, including any whose writes failed.
+         *
+         * @return The number of keys.
+         */
+        public long getKeyCount() {
+            return this.keyCount;
+        }
+
+        /**
+         * Gets the number of operations that succeeded.
+         *
+         * @return The sum of the read, insert, and update counts.
+         */
+        public long getOperationCount() {
+            return this.readCount + this.insertCount + this.updateCount;
+        }
+
+        /**
+         * Gets the name of the profile that was run.
+         *
+         * @return The profile name.
+         */
+        @NonNull
+        public String getProfileName() {
+            return this.profileName;
+        }
+
+        /**
+         * Gets the number of reads that succeeded.
+         *
+         * @return The number of reads, including {@link #getReadMissCount misses}.
+         */
+        public long getReadCount() {
+            return this.readCount;
+        }
+
+        /**
+         * Gets the number of reads that found no user, typically because the key's insert was still in flight or
+         * failed.
+         *
+         * @return The number of read misses.
+         */
+        public long getReadMissCount() {
+            return this.readMissCount;
+        }
+
+        /**
+         * Gets the rate at which operations succeeded.
+         *
+         * @return The throughput in operations per second.
+         */
+        public double getThroughput() {
+            return this.elapsedNanos == 0 ? 0.0 : this.getOperationCount() * 1E9 / this.elapsedNanos;
+        }
+
+        /**
+         * Gets the number of updates that succeeded.
+         *
+         * @return The number of updates.
+         */
+        public long getUpdateCount() {
+            return this.updateCount;
+        }
+
+        /**
+         * Gets a value indicating whether all clients finished before the run timed out.
+         *
+         * @return {@code true} if the run finished; otherwise {@code false}.
+         */
+        public boolean isFinished() {
+            return this.finished;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: %d operations in %.1f s (%.1f ops/sec%s), reads=%d, "
+                    + "read-misses=%d, inserts=%d, updates=%d, errors=%d, keys=%d",
+                this.profileName,
+                this.getOperationCount(),
+                this.elapsedNanos / 1E9,
+                this.getThroughput(),
+                this.finished ? "" : ", timed out",
+                this.readCount,
+                this.readMissCount,
+                this.insertCount,
+                this.updateCount,
+                this.errorCount,
+                this.keyCount);
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,544 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Buffers user inserts in memory and writes them to a {@link UserRepository user repository} in groups, trading a few
+ * milliseconds of visibility for fewer round trips.
+ * <p>
+ * A write is queued and its caller gets a stage that completes once the user has been written. The IDs of queued users
+ * are held in a lock-free queue and their latest values in a concurrent map, so a write to a user that is still queued
+ * replaces the queued values rather than adding a second insert; every caller that wrote to the user then shares the
+ * completion of the one insert that carries the latest values. The buffer is flushed when {@code flushSize} users are
+ * queued and, whatever the number queued, every {@code flushInterval}. A flush takes the queued users from the head of
+ * the queue in chunks of at most {@code flushSize}, groups each chunk by the replicas that own its users, and sends
+ * each group of two or more as an unlogged batch and each remaining user as a single insert.
+ * <p>
+ * The buffer holds at most {@code capacity} distinct users, counting both queued users and users being written. A
+ * writer blocks while the buffer is full--or fails after a timeout--so a client that writes faster than the cluster
+ * accepts is slowed to its pace rather than exhausting memory. Writes to a user that is already queued are never
+ * blocked.
+ * <p>
+ * Reads do not see queued users: a user becomes visible when its stage completes.
+ * <p>
+ * Closing the buffer waits at most {@code closeTimeout} for it to drain. Users left queued or being written when the
+ * timeout elapses are counted as abandoned, and the stages of those still queued fail with {@link TimeoutException}.
+ */
+public final class WriteBehindBuffer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindBuffer.class);
+    private static final long DEFAULT_CLOSE_TIMEOUT_SECONDS = 30L;
+    private static final long MAX_DRAIN_MILLIS = TimeUnit.DAYS.toMillis(1L);
+
+    private final UserRepository repository;
+    private final int capacity;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final long closeTimeoutNanos;
+
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder singleCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder abandonedCount = new LongAdder();
+
+    // Writers hold the read lock while they queue a user, so that close never misses a user queued as it closes
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private volatile boolean closed;
+
+    /**
+     * Initializes a new write-behind buffer that waits at most 30 seconds to drain when closed, and starts its flush
+     * timer.
+     *
+     * @param repository    Reference to the {@link UserRepository user repository} to which users are written.
+     * @param capacity      Maximum number of distinct users queued or being written at once.
+     * @param flushSize     Number of queued users at which the buffer is flushed, and the most users flushed as a
+     *                      group.
+     * @param flushInterval Longest time between flushes.
+     * @param unit          Time unit of {@code flushInterval}.
+     */
+    public WriteBehindBuffer(
+        @NonNull final UserRepository repository,
+        final int capacity,
+        final int flushSize,
+        final long flushInterval,
+        @NonNull final TimeUnit unit) {
+
+        this(repository, capacity, flushSize, flushInterval, unit, DEFAULT_CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Initializes a new write-behind buffer and starts its flush timer.
+     *
+     * @param repository    Reference to the {@link UserRepository user repository} to which users are written.
+     * @param capacity      Maximum number of distinct users queued or being written at once.
+     * @param flushSize     Number of queued users at which the buffer is flushed, and the most users flushed as a
+     *                      group.
+     * @param flushInterval Longest time between flushes.
+     * @param unit          Time unit of {@code flushInterval}.
+     * @param closeTimeout  Longest time that {@link #close()} waits for queued and in-flight users to be written.
+     * @param closeUnit     Time unit of {@code closeTimeout}.
+     */
+    public WriteBehindBuffer(
+        @NonNull final UserRepository repository,
+        final int capacity,
+        final int flushSize,
+        final long flushInterval,
+        @NonNull final TimeUnit unit,
+        final long closeTimeout,
+        @NonNull final TimeUnit closeUnit) {
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, not " + capacity);
+        }
+        if (flushSize <= 0 || flushSize > capacity) {
+            throw new IllegalArgumentException("flushSize must be positive and no greater than capacity, not "
+                + flushSize);
+        }
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("flushInterval must be positive, not " + flushInterval);
+        }
+        if (closeTimeout <= 0) {
+            throw new IllegalArgumentException("closeTimeout must be positive, not " + closeTimeout);
+        }
+
+        this.repository = repository;
+        this.capacity = capacity;
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = unit.toNanos(flushInterval);
+        this.closeTimeoutNanos = closeUnit.toNanos(closeTimeout);
+        this.permits = new Semaphore(capacity);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "write-behind-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.flusher.scheduleWithFixedDelay(
+            this::flush,
+            this.flushIntervalNanos,
+            this.flushIntervalNanos,
+            TimeUnit.NANOSECONDS);
+    }
+
+    // region Methods
+
+    /**
+     * Initializes a new write-behind buffer with the capacity, flush size, flush interval, and close timeout given by
+     * the {@link LoadTestOptions load test options}.
+     *
+     * @param repository Reference to the {@link UserRepository user repository} to which users are written.
+     * @param options    Load test options.
+     *
+     * @return A new write-behind buffer.
+     */
+    @NonNull
+    public static WriteBehindBuffer of(
+        @NonNull final UserRepository repository,
+        @NonNull final LoadTestOptions options) {
+
+        return new WriteBehindBuffer(
+            repository,
+            options.getWriteBehindCapacity(),
+            options.getWriteBehindFlushSize(),
+            options.getWriteBehindFlushMillis(),
+            TimeUnit.MILLISECONDS,
+            options.getWriteBehindCloseTimeoutSeconds(),
+            TimeUnit.SECONDS);
+    }
+
+    /**
+     * Flushes every queued user, waits at most the close timeout for all writes to complete, and stops the flush
+     * timer. Writes made after the buffer is closed are rejected.
+     * <p>
+     * If the timeout elapses first, the users still queued or being written are logged and counted as abandoned, and
+     * the stages of those still queued fail with {@link TimeoutException}. Inserts already sent may yet complete.
+     *
+     * @throws InterruptedException If interrupted while waiting for writes to complete.
+     */
+    @Override
+    public void close() throws InterruptedException {
+
+        this.closeLock.writeLock().lock();
+
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        } finally {
+            this.closeLock.writeLock().unlock();
+        }
+
+        if (this.drain(this.closeTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            this.flusher.shutdown();
+            return;
+        }
+
+        final int abandoned = this.capacity - this.permits.availablePermits();
+        this.abandonedCount.add(abandoned);
+        this.flusher.shutdown();
+
+        LOGGER.warn("Write-behind buffer did not drain within {} ms; abandoned {} users ({} queued)",
+            TimeUnit.NANOSECONDS.toMillis(this.closeTimeoutNanos),
+            abandoned,
+            Math.max(0, this.queued.get()));
+
+        final TimeoutException timeout = new TimeoutException("write-behind buffer closed before user was written");
+        List<Entry> chunk;
+
+        while (!(chunk = this.take()).isEmpty()) {
+            this.complete(chunk, timeout);
+        }
+    }
+
+    /**
+     * Flushes every queued user and waits until no user is queued or being written.
+     * <p>
+     * Users written while this method waits are flushed and waited for too.
+     *
+     * @param timeout Maximum time to wait.
+     * @param unit    Time unit of {@code timeout}.
+     *
+     * @return {@code true} if the buffer emptied before the timeout elapsed; otherwise {@code false}.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean drain(final long timeout, @NonNull final TimeUnit unit) throws InterruptedException {
+        return new Backoff(1L, 50L, Math.min(unit.toMillis(timeout), MAX_DRAIN_MILLIS), TimeUnit.MILLISECONDS)
+            .await("write-behind buffer to drain", () -> {
+                if (!this.queue.isEmpty()) {
+                    this.scheduleFlush();
+                }
+                return this.permits.availablePermits() == this.capacity;
+            });
+    }
+
+    /**
+     * Gets the number of users still queued or being written when {@link #close()} gave up waiting for the buffer to
+     * drain.
+     *
+     * @return The number of users abandoned on close.
+     */
+    public long getAbandonedCount() {
+        return this.abandonedCount.sum();
+    }
+
+    /**
+     * Gets the number of flushed groups sent as unlogged batches.
+     *
+     * @return The number of batches sent.
+     */
+    public long getBatchCount() {
+        return this.batchCount.sum();
+    }
+
+    /**
+     * Gets the number of writes that replaced the values of a user that was still queued.
+     *
+     * @return The number of coalesced writes.
+     */
+    public long getCoalescedCount() {
+        return this.coalescedCount.sum();
+    }
+
+    /**
+     * Gets the number of users whose insert failed.
+     *
+     * @return The number of users not written.
+     */
+    public long getFailedCount() {
+        return this.failedCount.sum();
+    }
+
+    /**
+     * Gets the number of users flushed as single inserts.
+     *
+     * @return The number of single inserts sent.
+     */
+    public long getSingleCount() {
+        return this.singleCount.sum();
+    }
+
+    /**
+     * Gets the number of users written.
+     *
+     * @return The number of users whose insert succeeded.
+     */
+    public long getWrittenCount() {
+        return this.writtenCount.sum();
+    }
+
+    /**
+     * Queues a user to be written, blocking while the buffer is full.
+     *
+     * @param row The user to write.
+     *
+     * @return A stage that completes when the user--or a later write to the same user--has been written.
+     *
+     * @throws IllegalStateException If the buffer has been closed.
+     * @throws InterruptedException  If interrupted while waiting for room in the buffer.
+     */
+    @NonNull
+    public CompletionStage<Void> write(@NonNull final UserRow row) throws InterruptedException {
+        return this.write(row, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Queues a user to be written, waiting at most the given time for room in the buffer.
+     *
+     * @param row     The user to write.
+     * @param timeout Maximum time to wait for room in the buffer.
+     * @param unit    Time unit of {@code timeout}.
+     *
+     * @return A stage that completes when the user--or a later write to the same user--has been written, or that fails
+     * with {@link RejectedExecutionException} if there was no room in the buffer within the timeout or with {@link
+     * IllegalStateException} if the buffer was closed while waiting for room.
+     *
+     * @throws IllegalStateException If the buffer has been closed.
+     * @throws InterruptedException  If interrupted while waiting for room in the buffer.
+     */
+    @NonNull
+    public CompletionStage<Void> write(@NonNull final UserRow row, final long timeout, @NonNull final TimeUnit unit)
+        throws InterruptedException {
+
+        if (this.closed) {
+            throw new IllegalStateException("write-behind buffer is closed");
+        }
+
+        final Entry coalesced = this.entries.computeIfPresent(row.getId(), (id, entry) -> entry.replace(row));
+
+        if (coalesced != null) {
+            this.coalescedCount.increment();
+            return coalesced.future;
+        }
+
+        if (!this.permits.tryAcquire(timeout, unit)) {
+            return failed(new RejectedExecutionException("write-behind buffer is full (" + this.capacity + " users)"));
+        }
+
+        final Entry entry;
+        this.closeLock.readLock().lock();
+
+        try {
+            if (this.closed) {
+                // The buffer was closed while this writer waited for a permit; close will not flush anything queued now
+                this.permits.release();
+                return failed(new IllegalStateException("write-behind buffer is closed"));
+            }
+
+            final Entry added = new Entry(row);
+            entry = this.entries.merge(row.getId(), added, (existing, ignored) -> existing.replace(row));
+
+            if (entry != added) {
+                // Another writer queued the same user while this one waited for a permit
+                this.permits.release();
+                this.coalescedCount.increment();
+                return entry.future;
+            }
+
+            this.queue.offer(row.getId());
+        } finally {
+            this.closeLock.readLock().unlock();
+        }
+
+        if (this.queued.incrementAndGet() >= this.flushSize) {
+            this.scheduleFlush();
+        }
+
+        return entry.future;
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindBuffer(capacity=" + this.capacity
+            + ", flush-size=" + this.flushSize
+            + ", flush-interval-ms=" + TimeUnit.NANOSECONDS.toMillis(this.flushIntervalNanos)
+            + ", written=" + this.getWrittenCount()
+            + ", failed=" + this.getFailedCount()
+            + ", abandoned=" + this.getAbandonedCount()
+            + ", coalesced=" + this.getCoalescedCount()
+            + ", batches=" + this.getBatchCount()
+            + ", singles=" + this.getSingleCount() + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    /**
+     * Takes every queued user from the head of the queue and writes them in groups of at most {@code flushSize}.
+     */
+    private void flush() {
+
+        this.flushScheduled.set(false);
+
+        try {
+            List<Entry> chunk;
+            while (!(chunk = this.take()).isEmpty()) {
+                this.send(chunk);
+            }
+        } catch (final RuntimeException error) {
+            LOGGER.error("Write-behind flush failed", error);
+        }
+    }
+
+    private static CompletionStage<Void> failed(final Throwable error) {
+        final CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(error);
+        return failed;
+    }
+
+    private void complete(final List<Entry> group, final Throwable error) {
+
+        final Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+
+        for (final Entry entry : group) {
+            if (cause == null) {
+                this.writtenCount.increment();
+                entry.future.complete(null);
+            } else {
+                this.failedCount.increment();
+                entry.future.completeExceptionally(cause);
+            }
+            this.permits.release();
+        }
+
+        if (cause != null) {
+            LOGGER.warn("Failed to write {} buffered users: {}", group.size(), cause.toString());
+        }
+    }
+
+    private void scheduleFlush() {
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            try {
+                this.flusher.execute(this::flush);
+            } catch (final RejectedExecutionException error) {
+                this.flushScheduled.set(false);
+                this.flush();
+            }
+        }
+    }
+
+    /**
+     * Groups a chunk of users by the replicas that own them and writes each group of two or more as an unlogged batch
+     * and each remaining user on its own.
+     */
+    private void send(final List<Entry> chunk) {
+
+        final Map<Set<Node>, List<Entry>> groups = new LinkedHashMap<>();
+
+        for (final Entry entry : chunk) {
+            groups.computeIfAbsent(this.repository.getReplicas(entry.row.getId()), replicas -> new ArrayList<>())
+                .add(entry);
+        }
+
+        for (final List<Entry> group : groups.values()) {
+
+            final CompletionStage<AsyncResultSet> write;
+
+            try {
+                if (group.size() == 1) {
+                    final UserRow row = group.get(0).row;
+                    this.singleCount.increment();
+                    write = this.repository.insertUserAsync(row.getId(), row.getName(), row.getCity(),
+                        row.getPayload());
+                } else {
+                    final List<UserRow> rows = new ArrayList<>(group.size());
+                    for (final Entry entry : group) {
+                        rows.add(entry.row);
+                    }
+                    this.batchCount.increment();
+                    write = this.repository.insertUsersAsync(rows);
+                }
+            } catch (final RuntimeException error) {
+                this.complete(group, error);
+                continue;
+            }
+
+            write.whenComplete((resultSet, error) -> this.complete(group, error));
+        }
+    }
+
+    /**
+     * Takes up to {@code flushSize} users from the head of the queue. Once a user is taken, later writes to it are
+     * queued anew rather than coalesced with it.
+     */
+    private List<Entry> take() {
+
+        final List<Entry> chunk = new ArrayList<>(Math.min(this.flushSize, Math.max(0, this.queued.get())));
+
+        while (chunk.size() < this.flushSize) {
+            final String id = this.queue.poll();
+            if (id == null) {
+                break;
+            }
+            this.queued.decrementAndGet();
+            chunk.add(this.entries.remove(id));
+        }
+
+        return chunk;
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * A queued user: the latest values written to it and the stage shared by every writer of those values.
+     */
+    private static final class Entry {
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private volatile UserRow row;
+
+        Entry(final UserRow row) {
+            this.row = row;
+        }
+
+        Entry replace(final UserRow row) {
+            this.row = row;
+            return this;
+        }
+    }
+
+    // endregion
+}
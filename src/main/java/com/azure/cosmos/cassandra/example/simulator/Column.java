@@ -0,0 +1,233 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.core.type.ListType;
+import com.datastax.oss.driver.api.core.type.MapType;
+import com.datastax.oss.driver.api.core.type.SetType;
+import com.datastax.oss.driver.api.core.type.codec.TypeCodec;
+import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.protocol.internal.response.result.ColumnSpec;
+import com.datastax.oss.protocol.internal.response.result.RawType;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A named, typed column of a simulated table or query result.
+ * <p>
+ * Values are kept in their serialized form; the column's codec is used only to serialize values the simulator
+ * generates itself, such as the rows of system tables.
+ */
+final class Column {
+
+    private static final Map<String, DataType> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        PRIMITIVE_TYPES.put("ascii", DataTypes.ASCII);
+        PRIMITIVE_TYPES.put("bigint", DataTypes.BIGINT);
+        PRIMITIVE_TYPES.put("blob", DataTypes.BLOB);
+        PRIMITIVE_TYPES.put("boolean", DataTypes.BOOLEAN);
+        PRIMITIVE_TYPES.put("counter", DataTypes.COUNTER);
+        PRIMITIVE_TYPES.put("date", DataTypes.DATE);
+        PRIMITIVE_TYPES.put("decimal", DataTypes.DECIMAL);
+        PRIMITIVE_TYPES.put("double", DataTypes.DOUBLE);
+        PRIMITIVE_TYPES.put("duration", DataTypes.DURATION);
+        PRIMITIVE_TYPES.put("float", DataTypes.FLOAT);
+        PRIMITIVE_TYPES.put("inet", DataTypes.INET);
+        PRIMITIVE_TYPES.put("int", DataTypes.INT);
+        PRIMITIVE_TYPES.put("smallint", DataTypes.SMALLINT);
+        PRIMITIVE_TYPES.put("text", DataTypes.TEXT);
+        PRIMITIVE_TYPES.put("time", DataTypes.TIME);
+        PRIMITIVE_TYPES.put("timestamp", DataTypes.TIMESTAMP);
+        PRIMITIVE_TYPES.put("timeuuid", DataTypes.TIMEUUID);
+        PRIMITIVE_TYPES.put("tinyint", DataTypes.TINYINT);
+        PRIMITIVE_TYPES.put("uuid", DataTypes.UUID);
+        PRIMITIVE_TYPES.put("varchar", DataTypes.TEXT);
+        PRIMITIVE_TYPES.put("varint", DataTypes.VARINT);
+    }
+
+    private final String name;
+    private final DataType type;
+    private final RawType rawType;
+    private final TypeCodec<Object> codec;
+
+    Column(@NonNull final String name, @NonNull final DataType type) {
+        this.name = name;
+        this.type = type;
+        this.rawType = toRawType(type);
+        this.codec = CodecRegistry.DEFAULT.codecFor(type);
+    }
+
+    // region Methods
+
+    /**
+     * Creates a column from a CQL type name such as {@code text} or {@code map<text, text>}.
+     *
+     * @param name    The name of the column.
+     * @param cqlType The CQL name of the column's type. The {@code frozen} qualifier is accepted and ignored.
+     *
+     * @return A new column.
+     *
+     * @throws IllegalArgumentException If {@code cqlType} is not a primitive or collection type.
+     */
+    @NonNull
+    static Column parse(@NonNull final String name, @NonNull final String cqlType) {
+        return new Column(name, parseType(cqlType.replace(" ", "").toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Serializes a value of this column's type.
+     *
+     * @param value The value to serialize, which may be {@code null}.
+     *
+     * @return The serialized value or {@code null}, if {@code value} is {@code null}.
+     */
+    ByteBuffer encode(final Object value) {
+        return this.codec.encode(value, ProtocolVersion.V4);
+    }
+
+    /**
+     * Deserializes a value of this column's type.
+     *
+     * @param value The serialized value, which may be {@code null}.
+     *
+     * @return The value or {@code null}, if {@code value} is {@code null}.
+     */
+    Object decode(final ByteBuffer value) {
+        return value == null ? null : this.codec.decode(value.duplicate(), ProtocolVersion.V4);
+    }
+
+    /**
+     * Serializes a CQL literal of this column's type, such as {@code 'local'} or {@code 42}.
+     *
+     * @param literal The CQL literal.
+     *
+     * @return The serialized value.
+     *
+     * @throws CqlException If {@code literal} is not a valid literal of this column's type.
+     */
+    ByteBuffer encodeLiteral(@NonNull final String literal) {
+        final Object value;
+        try {
+            value = this.codec.parse(literal);
+        } catch (final IllegalArgumentException error) {
+            throw CqlException.invalid("Invalid literal " + literal + " for " + this.name + " of type "
+                + this.type.asCql(false, true));
+        }
+        return this.encode(value);
+    }
+
+    @NonNull
+    String getName() {
+        return this.name;
+    }
+
+    @NonNull
+    DataType getType() {
+        return this.type;
+    }
+
+    /**
+     * Describes this column in the metadata of a result or prepared statement.
+     *
+     * @param keyspace The keyspace to report.
+     * @param table    The table to report.
+     * @param index    The position of this column in the result or among the statement's bind markers.
+     *
+     * @return A column specification.
+     */
+    @NonNull
+    ColumnSpec toColumnSpec(@NonNull final String keyspace, @NonNull final String table, final int index) {
+        return new ColumnSpec(keyspace, table, this.name, index, this.rawType);
+    }
+
+    @Override
+    public String toString() {
+        return this.name + " " + this.type.asCql(false, true);
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static DataType parseType(final String cqlType) {
+
+        final int open = cqlType.indexOf('<');
+
+        if (open < 0) {
+            final DataType type = PRIMITIVE_TYPES.get(cqlType);
+            if (type == null) {
+                throw new IllegalArgumentException("unsupported type: " + cqlType);
+            }
+            return type;
+        }
+
+        if (!cqlType.endsWith(">")) {
+            throw new IllegalArgumentException("malformed type: " + cqlType);
+        }
+
+        final String collection = cqlType.substring(0, open);
+        final String arguments = cqlType.substring(open + 1, cqlType.length() - 1);
+
+        switch (collection) {
+            case "frozen":
+                return parseType(arguments);
+            case "list":
+                return DataTypes.listOf(parseType(arguments));
+            case "set":
+                return DataTypes.setOf(parseType(arguments));
+            case "map":
+                final int comma = indexOfTopLevelComma(arguments);
+                if (comma < 0) {
+                    throw new IllegalArgumentException("malformed type: " + cqlType);
+                }
+                return DataTypes.mapOf(parseType(arguments.substring(0, comma)),
+                    parseType(arguments.substring(comma + 1)));
+            default:
+                throw new IllegalArgumentException("unsupported type: " + cqlType);
+        }
+    }
+
+    private static int indexOfTopLevelComma(final String arguments) {
+        int depth = 0;
+        for (int i = 0; i < arguments.length(); i++) {
+            final char c = arguments.charAt(i);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static RawType toRawType(final DataType type) {
+        if (type instanceof ListType) {
+            return new RawType.RawList(toRawType(((ListType) type).getElementType()));
+        }
+        if (type instanceof SetType) {
+            return new RawType.RawSet(toRawType(((SetType) type).getElementType()));
+        }
+        if (type instanceof MapType) {
+            final MapType mapType = (MapType) type;
+            return new RawType.RawMap(toRawType(mapType.getKeyType()), toRawType(mapType.getValueType()));
+        }
+        final RawType rawType = RawType.PRIMITIVES.get(type.getProtocolCode());
+        if (rawType == null) {
+            throw new IllegalArgumentException("unsupported type: " + type);
+        }
+        return rawType;
+    }
+
+    // endregion
+}
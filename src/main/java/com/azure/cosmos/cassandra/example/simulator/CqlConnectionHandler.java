@@ -0,0 +1,178 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import com.azure.cosmos.cassandra.example.simulator.SimulatedDatabase.Outcome;
+import com.datastax.oss.driver.internal.core.protocol.ByteBufPrimitiveCodec;
+import com.datastax.oss.protocol.internal.Compressor;
+import com.datastax.oss.protocol.internal.Frame;
+import com.datastax.oss.protocol.internal.FrameCodec;
+import com.datastax.oss.protocol.internal.Message;
+import com.datastax.oss.protocol.internal.ProtocolConstants;
+import com.datastax.oss.protocol.internal.request.Batch;
+import com.datastax.oss.protocol.internal.request.Execute;
+import com.datastax.oss.protocol.internal.request.Prepare;
+import com.datastax.oss.protocol.internal.request.Query;
+import com.datastax.oss.protocol.internal.response.AuthSuccess;
+import com.datastax.oss.protocol.internal.response.Error;
+import com.datastax.oss.protocol.internal.response.Ready;
+import com.datastax.oss.protocol.internal.response.Supported;
+import com.datastax.oss.protocol.internal.response.result.SetKeyspace;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the CQL native protocol on a single client connection to a {@link SimulatedNode node}.
+ * <p>
+ * Only protocol version 4 is supported; clients offering a newer version are told to downgrade, as Cassandra 3.11
+ * tells them. Clients are not asked to authenticate. Each response is sent after the latency of the node's region
+ * and, when the request was charged, carries its charge in a {@value #REQUEST_CHARGE} custom payload entry, as the
+ * Cosmos Cassandra API's responses do.
+ */
+final class CqlConnectionHandler extends ChannelInboundHandlerAdapter {
+
+    static final String REQUEST_CHARGE = "RequestCharge";
+
+    private static final Logger LOG = LoggerFactory.getLogger(CqlConnectionHandler.class);
+
+    private static final Map<String, List<String>> SUPPORTED_OPTIONS;
+
+    static {
+        final Map<String, List<String>> options = new HashMap<>();
+        options.put("CQL_VERSION", Collections.singletonList("3.4.4"));
+        options.put("COMPRESSION", Collections.emptyList());
+        options.put("PROTOCOL_VERSIONS", Arrays.asList("3/v3", "4/v4"));
+        SUPPORTED_OPTIONS = Collections.unmodifiableMap(options);
+    }
+
+    private final SimulatedNode node;
+    private FrameCodec<ByteBuf> codec;
+    private String keyspace;
+
+    CqlConnectionHandler(@NonNull final SimulatedNode node) {
+        this.node = node;
+    }
+
+    // region Methods
+
+    @Override
+    public void channelActive(final ChannelHandlerContext context) throws Exception {
+        this.codec = FrameCodec.defaultServer(new ByteBufPrimitiveCodec(context.alloc()), Compressor.none());
+        super.channelActive(context);
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext context, final Object message) {
+
+        final ByteBuf buffer = (ByteBuf) message;
+
+        try {
+            final int version = buffer.getByte(buffer.readerIndex()) & 0x7F;
+            final int streamId = buffer.getShort(buffer.readerIndex() + 2);
+
+            if (version != ProtocolConstants.Version.V4) {
+                this.respond(context, streamId, new Error(ProtocolConstants.ErrorCode.PROTOCOL_ERROR,
+                    "Invalid or unsupported protocol version (" + version + "); supported versions are (3/v3, 4/v4)"),
+                    0.0, 0);
+                return;
+            }
+
+            final Frame frame = this.codec.decode(buffer);
+            Outcome outcome;
+
+            try {
+                outcome = this.handle(frame.message);
+            } catch (final CqlException error) {
+                outcome = new Outcome(error.getError(), 0.0);
+            } catch (final RuntimeException error) {
+                LOG.error("{} failed to serve {}", this.node, frame.message, error);
+                outcome = new Outcome(new Error(ProtocolConstants.ErrorCode.SERVER_ERROR, error.toString()), 0.0);
+            }
+
+            if (outcome.response instanceof SetKeyspace) {
+                this.keyspace = ((SetKeyspace) outcome.response).keyspace;
+            }
+
+            this.respond(context, frame.streamId, outcome.response, outcome.requestCharge,
+                this.node.getRegion().getLatencyMillis());
+
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public void exceptionCaught(final ChannelHandlerContext context, final Throwable cause) {
+        LOG.debug("{} closing connection from {}", this.node, context.channel().remoteAddress(), cause);
+        context.close();
+    }
+
+    // endregion
+
+    // region Privates
+
+    private Outcome handle(final Message request) {
+        switch (request.opcode) {
+            case ProtocolConstants.Opcode.STARTUP:
+            case ProtocolConstants.Opcode.REGISTER:
+                return new Outcome(new Ready(), 0.0);
+            case ProtocolConstants.Opcode.OPTIONS:
+                return new Outcome(new Supported(SUPPORTED_OPTIONS), 0.0);
+            case ProtocolConstants.Opcode.AUTH_RESPONSE:
+                return new Outcome(new AuthSuccess(null), 0.0);
+            case ProtocolConstants.Opcode.QUERY:
+                return this.node.query((Query) request, this.keyspace);
+            case ProtocolConstants.Opcode.PREPARE:
+                return this.node.prepare((Prepare) request, this.keyspace);
+            case ProtocolConstants.Opcode.EXECUTE:
+                return this.node.execute((Execute) request, this.keyspace);
+            case ProtocolConstants.Opcode.BATCH:
+                return this.node.batch((Batch) request, this.keyspace);
+            default:
+                return new Outcome(new Error(ProtocolConstants.ErrorCode.PROTOCOL_ERROR,
+                    "Unsupported opcode " + request.opcode), 0.0);
+        }
+    }
+
+    private void respond(
+        final ChannelHandlerContext context,
+        final int streamId,
+        final Message response,
+        final double requestCharge,
+        final int latencyMillis) {
+
+        final Map<String, ByteBuffer> payload = requestCharge > 0.0
+            ? Collections.singletonMap(REQUEST_CHARGE, ByteBuffer.allocate(Double.BYTES)
+                .putDouble(0, requestCharge))
+            : Frame.NO_PAYLOAD;
+
+        final ByteBuf encoded = this.codec.encode(Frame.forResponse(
+            ProtocolConstants.Version.V4,
+            streamId,
+            null,
+            payload,
+            Collections.emptyList(),
+            response));
+
+        if (latencyMillis > 0) {
+            context.executor().schedule(() -> context.writeAndFlush(encoded), latencyMillis, TimeUnit.MILLISECONDS);
+        } else {
+            context.writeAndFlush(encoded);
+        }
+    }
+
+    // endregion
+}
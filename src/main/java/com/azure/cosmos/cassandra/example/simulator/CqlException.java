@@ -0,0 +1,80 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import com.datastax.oss.protocol.internal.ProtocolConstants;
+import com.datastax.oss.protocol.internal.response.Error;
+import com.datastax.oss.protocol.internal.response.error.AlreadyExists;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Thrown when the simulator rejects a request with a CQL error response.
+ */
+final class CqlException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Error error;
+
+    private CqlException(@NonNull final Error error) {
+        super(error.message);
+        this.error = error;
+    }
+
+    // region Methods
+
+    /**
+     * Creates an exception reporting that a keyspace or table already exists.
+     *
+     * @param keyspace The keyspace.
+     * @param table    The table or an empty string, if the keyspace already exists.
+     *
+     * @return A new exception.
+     */
+    @NonNull
+    static CqlException alreadyExists(@NonNull final String keyspace, @NonNull final String table) {
+        return new CqlException(new AlreadyExists(table.isEmpty()
+            ? "Cannot add existing keyspace \"" + keyspace + "\""
+            : "Cannot add already existing table \"" + table + "\" to keyspace \"" + keyspace + "\"",
+            keyspace,
+            table));
+    }
+
+    /**
+     * Creates an exception reporting a valid request that cannot be executed, such as one that names an unknown
+     * table.
+     *
+     * @param message The error message.
+     *
+     * @return A new exception.
+     */
+    @NonNull
+    static CqlException invalid(@NonNull final String message) {
+        return new CqlException(new Error(ProtocolConstants.ErrorCode.INVALID, message));
+    }
+
+    /**
+     * Creates an exception reporting a statement that the simulator cannot parse.
+     *
+     * @param message The error message.
+     *
+     * @return A new exception.
+     */
+    @NonNull
+    static CqlException syntaxError(@NonNull final String message) {
+        return new CqlException(new Error(ProtocolConstants.ErrorCode.SYNTAX_ERROR, message));
+    }
+
+    /**
+     * Gets the error response sent to the client.
+     *
+     * @return The error response.
+     */
+    @NonNull
+    Error getError() {
+        return this.error;
+    }
+
+    // endregion
+}
@@ -0,0 +1,275 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions.Region;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.KeyManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local stand-in for a Cosmos Cassandra API account that speaks enough of the CQL native protocol to run
+ * {@link com.azure.cosmos.cassandra.example.UserProfile UserProfile} and its load tests unchanged.
+ * <p>
+ * Each simulated region listens on its own port and appears to the driver as a single node in a datacenter named
+ * after the region, so that load balancing settings such as preferred regions can be exercised. Responses are delayed
+ * by the region's latency, and requests that exceed a region's provisioned throughput fail with the same
+ * {@code Overloaded} error and {@code RetryAfterMs} hint that the Cosmos Cassandra API returns with its 429 responses,
+ * so that retry and throttling behavior can be tested without an account.
+ * <p>
+ * The simulator keeps all data in memory and understands only the subset of CQL described by {@link CqlStatement}.
+ * It does not ask clients to authenticate, and it accepts plain text connections unless it is given a keystore.
+ */
+public final class CqlSimulator implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CqlSimulator.class);
+
+    /**
+     * The maximum size of a request frame, which is also Cassandra's default.
+     */
+    private static final int MAX_FRAME_LENGTH = 256 * 1024 * 1024;
+
+    private final SimulatorOptions options;
+    private final List<SimulatedNode> nodes;
+    private final List<Channel> channels = new ArrayList<>();
+    private EventLoopGroup eventLoopGroup;
+
+    /**
+     * Initializes a new simulator. Call {@link #start} to begin serving requests.
+     *
+     * @param options The simulator options.
+     */
+    public CqlSimulator(@NonNull final SimulatorOptions options) {
+
+        final SimulatedDatabase database = new SimulatedDatabase(options);
+        final List<Region> regions = options.getRegions();
+        final List<SimulatedNode> list = new ArrayList<>(regions.size());
+
+        for (int i = 0; i < regions.size(); i++) {
+            list.add(new SimulatedNode(regions.get(i), i, regions.size(), database, options));
+        }
+
+        this.options = options;
+        this.nodes = Collections.unmodifiableList(list);
+    }
+
+    // region Methods
+
+    /**
+     * Stops serving requests and releases the simulator's threads.
+     */
+    @Override
+    public synchronized void close() {
+
+        if (this.eventLoopGroup == null) {
+            return;
+        }
+
+        for (final Channel channel : this.channels) {
+            channel.close().syncUninterruptibly();
+        }
+
+        this.eventLoopGroup.shutdownGracefully(0L, 1L, TimeUnit.SECONDS).syncUninterruptibly();
+        this.eventLoopGroup = null;
+        this.channels.clear();
+
+        for (final SimulatedNode node : this.nodes) {
+            LOG.info("{} stopped", node);
+        }
+    }
+
+    /**
+     * Gets the addresses on which the simulated regions listen, in the order the regions were configured.
+     *
+     * @return The contact points of the regions.
+     *
+     * @throws IllegalStateException If the simulator has not been started.
+     */
+    @NonNull
+    public List<InetSocketAddress> getContactPoints() {
+        final List<InetSocketAddress> contactPoints = new ArrayList<>(this.nodes.size());
+        for (final SimulatedNode node : this.nodes) {
+            if (node.getAddress() == null) {
+                throw new IllegalStateException("simulator has not been started");
+            }
+            contactPoints.add(node.getAddress());
+        }
+        return contactPoints;
+    }
+
+    /**
+     * Gets the number of requests served by all regions, including those that were throttled.
+     *
+     * @return The number of requests served.
+     */
+    public long getRequestCount() {
+        long count = 0L;
+        for (final SimulatedNode node : this.nodes) {
+            count += node.getRequestCount();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of request units (RUs) consumed by all regions.
+     *
+     * @return The number of RUs consumed by requests that were not throttled.
+     */
+    public double getRequestUnits() {
+        double requestUnits = 0.0;
+        for (final SimulatedNode node : this.nodes) {
+            requestUnits += node.getRequestUnits();
+        }
+        return requestUnits;
+    }
+
+    /**
+     * Gets the number of requests rejected by all regions because they exceeded the provisioned throughput.
+     *
+     * @return The number of throttled requests.
+     */
+    public long getThrottledCount() {
+        long count = 0L;
+        for (final SimulatedNode node : this.nodes) {
+            count += node.getThrottledCount();
+        }
+        return count;
+    }
+
+    /**
+     * Starts the simulator, which reads its options from system properties, and serves requests until the process is
+     * stopped.
+     *
+     * @param args The command line arguments, which are ignored.
+     *
+     * @throws GeneralSecurityException If the keystore cannot be read.
+     * @throws InterruptedException     If the thread is interrupted while starting or serving.
+     * @throws IOException              If the keystore cannot be read.
+     */
+    public static void main(final String[] args) throws GeneralSecurityException, InterruptedException, IOException {
+
+        final SimulatorOptions options = SimulatorOptions.fromSystemProperties();
+        final CqlSimulator simulator = new CqlSimulator(options);
+        final CountDownLatch stopped = new CountDownLatch(1);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            simulator.close();
+            stopped.countDown();
+        }, "cql-simulator-shutdown"));
+
+        simulator.start();
+
+        System.out.println("Simulating " + options);
+
+        for (final SimulatedNode node : simulator.nodes) {
+            System.out.println("  " + node.getRegion().getName() + " at " + node.getAddress() + " ("
+                + node.getRegion().getLatencyMillis() + " ms)");
+        }
+
+        stopped.await();
+    }
+
+    /**
+     * Starts listening for connections in each region.
+     *
+     * @throws GeneralSecurityException If the keystore cannot be read.
+     * @throws IllegalStateException    If the simulator is already started.
+     * @throws InterruptedException     If the thread is interrupted while binding.
+     * @throws IOException              If the keystore cannot be read.
+     */
+    public synchronized void start() throws GeneralSecurityException, InterruptedException, IOException {
+
+        if (this.eventLoopGroup != null) {
+            throw new IllegalStateException("simulator is already started");
+        }
+
+        final SslContext sslContext = this.options.getKeystorePath() == null ? null : this.newSslContext();
+        this.eventLoopGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("cql-simulator", true));
+
+        try {
+            for (int i = 0; i < this.nodes.size(); i++) {
+
+                final SimulatedNode node = this.nodes.get(i);
+                final int port = this.options.getPort() == 0 ? 0 : this.options.getPort() + i;
+
+                final Channel channel = new ServerBootstrap()
+                    .group(this.eventLoopGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel channel) {
+                            if (sslContext != null) {
+                                channel.pipeline().addLast(sslContext.newHandler(channel.alloc()));
+                            }
+                            channel.pipeline().addLast(new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 5, 4, 0, 0));
+                            channel.pipeline().addLast(new CqlConnectionHandler(node));
+                        }
+                    })
+                    .bind(this.options.getHost(), port)
+                    .sync()
+                    .channel();
+
+                this.channels.add(channel);
+                node.setAddress((InetSocketAddress) channel.localAddress());
+            }
+        } catch (final InterruptedException | RuntimeException error) {
+            this.close();
+            throw error;
+        }
+
+        for (final SimulatedNode node : this.nodes) {
+            node.setPeers(this.nodes);
+            LOG.info("{} started", node);
+        }
+    }
+
+    // endregion
+
+    // region Privates
+
+    private SslContext newSslContext() throws GeneralSecurityException, IOException {
+
+        final char[] password = this.options.getKeystorePassword().toCharArray();
+        final KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+
+        try (InputStream stream = Files.newInputStream(Paths.get(this.options.getKeystorePath()))) {
+            keyStore.load(stream, password);
+        }
+
+        final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(
+            KeyManagerFactory.getDefaultAlgorithm());
+
+        keyManagerFactory.init(keyStore, password);
+        return SslContextBuilder.forServer(keyManagerFactory).build();
+    }
+
+    // endregion
+}
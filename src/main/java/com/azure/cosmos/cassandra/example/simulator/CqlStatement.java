@@ -0,0 +1,672 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A parsed CQL statement.
+ * <p>
+ * The simulator understands the subset of CQL used by the example and by the driver's control connection: keyspace
+ * and table DDL, {@code USE}, {@code TRUNCATE}, {@code INSERT}, and single-table {@code SELECT} statements, including
+ * {@code COUNT(*)}, with restrictions on columns or on the token of the partition key. Values may be given as bind
+ * markers or as literals.
+ */
+final class CqlStatement {
+
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL;
+
+    private static final String NAME = "(\"(?:[^\"]|\"\")+\"|\\w+)";
+    private static final String QUALIFIED_NAME = "(?:" + NAME + "\\s*\\.\\s*)?" + NAME;
+
+    private static final Pattern AND = Pattern.compile("\\s+AND\\s+", FLAGS);
+    private static final Pattern COLUMN_DEFINITION = Pattern.compile(
+        NAME + "\\s+(.+?)(\\s+STATIC)?(\\s+PRIMARY\\s+KEY)?", FLAGS);
+    private static final Pattern COUNT = Pattern.compile(
+        "COUNT\\s*\\(\\s*(?:\\*|1)\\s*\\)(?:\\s+AS\\s+" + NAME + ")?", FLAGS);
+    private static final Pattern CREATE_KEYSPACE = Pattern.compile(
+        "CREATE\\s+KEYSPACE\\s+(IF\\s+NOT\\s+EXISTS\\s+)?" + NAME + "\\s+WITH\\s+(.*)", FLAGS);
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+        "CREATE\\s+(?:TABLE|COLUMNFAMILY)\\s+(IF\\s+NOT\\s+EXISTS\\s+)?" + QUALIFIED_NAME + "\\s*\\((.*)", FLAGS);
+    private static final Pattern DROP_KEYSPACE = Pattern.compile(
+        "DROP\\s+KEYSPACE\\s+(IF\\s+EXISTS\\s+)?" + NAME, FLAGS);
+    private static final Pattern DROP_TABLE = Pattern.compile(
+        "DROP\\s+(?:TABLE|COLUMNFAMILY)\\s+(IF\\s+EXISTS\\s+)?" + QUALIFIED_NAME, FLAGS);
+    private static final Pattern INSERT = Pattern.compile(
+        "INSERT\\s+INTO\\s+" + QUALIFIED_NAME + "\\s*\\(([^)]*)\\)\\s*VALUES\\s*\\((.*)\\)"
+            + "(\\s+IF\\s+NOT\\s+EXISTS)?(?:\\s+USING\\s+.*)?", FLAGS);
+    private static final Pattern MAP_ENTRY = Pattern.compile("'([^']*)'\\s*:\\s*(?:'([^']*)'|([\\w.]+))", FLAGS);
+    private static final Pattern PRIMARY_KEY = Pattern.compile("PRIMARY\\s+KEY\\s*\\((.*)\\)", FLAGS);
+    private static final Pattern REPLICATION = Pattern.compile("REPLICATION\\s*=\\s*\\{(.*?)}", FLAGS);
+    private static final Pattern RESTRICTION = Pattern.compile(
+        "(?:TOKEN\\s*\\(\\s*" + NAME + "\\s*\\)|" + NAME + ")\\s*(=|>=|<=|>|<|IN)\\s*(\\?|'(?:[^']|'')*'|[-+\\w.]+)",
+        FLAGS);
+    private static final Pattern SELECT = Pattern.compile(
+        "SELECT\\s+(.+?)\\s+FROM\\s+" + QUALIFIED_NAME + "(?:\\s+WHERE\\s+(.+?))?(?:\\s+LIMIT\\s+(\\d+))?"
+            + "(?:\\s+ALLOW\\s+FILTERING)?", FLAGS);
+    private static final Pattern TRUNCATE = Pattern.compile(
+        "TRUNCATE\\s+(?:TABLE\\s+|COLUMNFAMILY\\s+)?" + QUALIFIED_NAME, FLAGS);
+    private static final Pattern USE = Pattern.compile("USE\\s+" + NAME, FLAGS);
+
+    private final Kind kind;
+    private String keyspace;
+    private String table = "";
+    private boolean conditional;
+    private Map<String, String> replication = Collections.emptyMap();
+    private List<Column> columnDefinitions = Collections.emptyList();
+    private String partitionKey;
+    private List<String> columnNames;
+    private List<Term> values = Collections.emptyList();
+    private List<Restriction> restrictions = Collections.emptyList();
+    private String countAlias;
+    private int limit = -1;
+    private int bindMarkerCount;
+
+    private CqlStatement(@NonNull final Kind kind) {
+        this.kind = kind;
+    }
+
+    // region Methods
+
+    /**
+     * Parses a CQL statement.
+     *
+     * @param query The text of the statement.
+     *
+     * @return The parsed statement.
+     *
+     * @throws CqlException If the statement is not in the subset of CQL understood by the simulator.
+     */
+    @NonNull
+    static CqlStatement parse(@NonNull final String query) {
+
+        String text = query.trim();
+
+        if (text.endsWith(";")) {
+            text = text.substring(0, text.length() - 1).trim();
+        }
+
+        final String keyword = text.split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+
+        try {
+            switch (keyword) {
+                case "CREATE":
+                    return text.matches("(?is)CREATE\\s+KEYSPACE\\s.*")
+                        ? parseCreateKeyspace(text)
+                        : parseCreateTable(text);
+                case "DROP":
+                    return text.matches("(?is)DROP\\s+KEYSPACE\\s.*") ? parseDropKeyspace(text) : parseDropTable(text);
+                case "INSERT":
+                    return parseInsert(text);
+                case "SELECT":
+                    return parseSelect(text);
+                case "TRUNCATE":
+                    return parseTruncate(text);
+                case "USE":
+                    return parseUse(text);
+                default:
+                    throw unsupported(query);
+            }
+        } catch (final IllegalArgumentException error) {
+            throw CqlException.syntaxError(error.getMessage() + " in statement: " + query);
+        }
+    }
+
+    /**
+     * Gets the number of bind markers in this statement.
+     *
+     * @return The number of bind markers.
+     */
+    int getBindMarkerCount() {
+        return this.bindMarkerCount;
+    }
+
+    /**
+     * Gets the columns defined by a {@code CREATE TABLE} statement.
+     *
+     * @return The column definitions, in the order given.
+     */
+    @NonNull
+    List<Column> getColumnDefinitions() {
+        return this.columnDefinitions;
+    }
+
+    /**
+     * Gets the columns named by an {@code INSERT} statement or selected by a {@code SELECT} statement.
+     *
+     * @return The column names or {@code null}, if a {@code SELECT} statement selects all columns or counts rows.
+     */
+    List<String> getColumnNames() {
+        return this.columnNames;
+    }
+
+    /**
+     * Gets the name of the column returned by a {@code SELECT COUNT(*)} statement.
+     *
+     * @return The column name or {@code null}, if this statement does not count rows.
+     */
+    String getCountAlias() {
+        return this.countAlias;
+    }
+
+    /**
+     * Gets the keyspace named by this statement.
+     *
+     * @return The keyspace or {@code null}, if this statement names an unqualified table.
+     */
+    String getKeyspace() {
+        return this.keyspace;
+    }
+
+    /**
+     * Gets the kind of this statement.
+     *
+     * @return The kind of this statement.
+     */
+    @NonNull
+    Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Gets the {@code LIMIT} of a {@code SELECT} statement.
+     *
+     * @return The limit or {@code -1}, if there is no limit.
+     */
+    int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Gets the partition key of a {@code CREATE TABLE} statement.
+     *
+     * @return The name of the partition key column.
+     */
+    String getPartitionKey() {
+        return this.partitionKey;
+    }
+
+    /**
+     * Gets the replication options of a {@code CREATE KEYSPACE} statement.
+     *
+     * @return The replication options.
+     */
+    @NonNull
+    Map<String, String> getReplication() {
+        return this.replication;
+    }
+
+    /**
+     * Gets the restrictions in the {@code WHERE} clause of a {@code SELECT} statement.
+     *
+     * @return The restrictions, in the order given.
+     */
+    @NonNull
+    List<Restriction> getRestrictions() {
+        return this.restrictions;
+    }
+
+    /**
+     * Gets the table named by this statement.
+     *
+     * @return The table name or an empty string, if this statement names only a keyspace.
+     */
+    @NonNull
+    String getTable() {
+        return this.table;
+    }
+
+    /**
+     * Gets the values of an {@code INSERT} statement.
+     *
+     * @return The values, in the same order as {@link #getColumnNames the column names}.
+     */
+    @NonNull
+    List<Term> getValues() {
+        return this.values;
+    }
+
+    /**
+     * Gets a value indicating whether this statement includes an {@code IF EXISTS} or {@code IF NOT EXISTS} clause.
+     *
+     * @return {@code true} if this statement is conditional; otherwise {@code false}.
+     */
+    boolean isConditional() {
+        return this.conditional;
+    }
+
+    /**
+     * Gets a value indicating whether this statement changes the schema.
+     *
+     * @return {@code true} if this is a DDL statement; otherwise {@code false}.
+     */
+    boolean isSchemaChange() {
+        return this.kind == Kind.CREATE_KEYSPACE
+            || this.kind == Kind.CREATE_TABLE
+            || this.kind == Kind.DROP_KEYSPACE
+            || this.kind == Kind.DROP_TABLE;
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static String identifier(final String name) {
+        if (name == null) {
+            return null;
+        }
+        return name.startsWith("\"")
+            ? name.substring(1, name.length() - 1).replace("\"\"", "\"")
+            : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static CqlStatement parseCreateKeyspace(final String text) {
+
+        final Matcher matcher = CREATE_KEYSPACE.matcher(text);
+
+        if (!matcher.matches()) {
+            throw unsupported(text);
+        }
+
+        final CqlStatement statement = new CqlStatement(Kind.CREATE_KEYSPACE);
+        statement.conditional = matcher.group(1) != null;
+        statement.keyspace = identifier(matcher.group(2));
+
+        final Matcher replication = REPLICATION.matcher(matcher.group(3));
+
+        if (!replication.find()) {
+            throw new IllegalArgumentException("missing replication strategy");
+        }
+
+        final Map<String, String> options = new LinkedHashMap<>();
+        final Matcher entry = MAP_ENTRY.matcher(replication.group(1));
+
+        while (entry.find()) {
+            options.put(entry.group(1), entry.group(2) != null ? entry.group(2) : entry.group(3));
+        }
+
+        statement.replication = Collections.unmodifiableMap(options);
+        return statement;
+    }
+
+    private static CqlStatement parseCreateTable(final String text) {
+
+        final Matcher matcher = CREATE_TABLE.matcher(text);
+
+        if (!matcher.matches()) {
+            throw unsupported(text);
+        }
+
+        final CqlStatement statement = new CqlStatement(Kind.CREATE_TABLE);
+        statement.conditional = matcher.group(1) != null;
+        statement.keyspace = identifier(matcher.group(2));
+        statement.table = identifier(matcher.group(3));
+
+        final String remainder = matcher.group(4);
+        final int end = indexOfClosingParenthesis(remainder);
+
+        if (end < 0) {
+            throw new IllegalArgumentException("unbalanced parentheses");
+        }
+
+        final String options = remainder.substring(end + 1).trim();
+
+        if (!options.isEmpty() && !options.toUpperCase(Locale.ROOT).startsWith("WITH")) {
+            throw new IllegalArgumentException("unexpected input '" + options + "'");
+        }
+
+        final List<Column> columns = new ArrayList<>();
+        String primaryKey = null;
+
+        for (final String definition : splitTopLevel(remainder.substring(0, end))) {
+
+            final Matcher key = PRIMARY_KEY.matcher(definition);
+
+            if (key.matches()) {
+                final List<String> keyColumns = splitTopLevel(key.group(1));
+                if (keyColumns.size() != 1 || keyColumns.get(0).startsWith("(")) {
+                    throw CqlException.invalid("The simulator supports single-column primary keys only: "
+                        + definition);
+                }
+                primaryKey = identifier(keyColumns.get(0));
+                continue;
+            }
+
+            final Matcher column = COLUMN_DEFINITION.matcher(definition);
+
+            if (!column.matches()) {
+                throw new IllegalArgumentException("malformed column definition '" + definition + "'");
+            }
+
+            final String name = identifier(column.group(1));
+            columns.add(Column.parse(name, column.group(2)));
+
+            if (column.group(4) != null) {
+                if (primaryKey != null) {
+                    throw CqlException.invalid("Multiple PRIMARY KEYs specified (exactly one required)");
+                }
+                primaryKey = name;
+            }
+        }
+
+        if (primaryKey == null) {
+            throw CqlException.invalid("No PRIMARY KEY specifed (exactly one required)");
+        }
+
+        statement.columnDefinitions = Collections.unmodifiableList(columns);
+        statement.partitionKey = primaryKey;
+        return statement;
+    }
+
+    private static CqlStatement parseDropKeyspace(final String text) {
+
+        final Matcher matcher = DROP_KEYSPACE.matcher(text);
+
+        if (!matcher.matches()) {
+            throw unsupported(text);
+        }
+
+        final CqlStatement statement = new CqlStatement(Kind.DROP_KEYSPACE);
+        statement.conditional = matcher.group(1) != null;
+        statement.keyspace = identifier(matcher.group(2));
+        return statement;
+    }
+
+    private static CqlStatement parseDropTable(final String text) {
+
+        final Matcher matcher = DROP_TABLE.matcher(text);
+
+        if (!matcher.matches()) {
+            throw unsupported(text);
+        }
+
+        final CqlStatement statement = new CqlStatement(Kind.DROP_TABLE);
+        statement.conditional = matcher.group(1) != null;
+        statement.keyspace = identifier(matcher.group(2));
+        statement.table = identifier(matcher.group(3));
+        return statement;
+    }
+
+    private static CqlStatement parseInsert(final String text) {
+
+        final Matcher matcher = INSERT.matcher(text);
+
+        if (!matcher.matches()) {
+            throw unsupported(text);
+        }
+
+        final CqlStatement statement = new CqlStatement(Kind.INSERT);
+        statement.keyspace = identifier(matcher.group(1));
+        statement.table = identifier(matcher.group(2));
+        statement.conditional = matcher.group(5) != null;
+
+        final List<String> names = new ArrayList<>();
+
+        for (final String name : splitTopLevel(matcher.group(3))) {
+            names.add(identifier(name));
+        }
+
+        final List<Term> terms = new ArrayList<>();
+
+        for (final String value : splitTopLevel(matcher.group(4))) {
+            terms.add(statement.term(value));
+        }
+
+        if (names.size() != terms.size()) {
+            throw CqlException.invalid("Unmatched column names/values");
+        }
+
+        statement.columnNames = Collections.unmodifiableList(names);
+        statement.values = Collections.unmodifiableList(terms);
+        return statement;
+    }
+
+    private static CqlStatement parseSelect(final String text) {
+
+        final Matcher matcher = SELECT.matcher(text);
+
+        if (!matcher.matches()) {
+            throw unsupported(text);
+        }
+
+        final CqlStatement statement = new CqlStatement(Kind.SELECT);
+        final String selection = matcher.group(1).trim();
+        statement.keyspace = identifier(matcher.group(2));
+        statement.table = identifier(matcher.group(3));
+
+        final Matcher count = COUNT.matcher(selection);
+
+        if (count.matches()) {
+            statement.countAlias = count.group(1) == null ? "count" : identifier(count.group(1));
+        } else if (!"*".equals(selection)) {
+            final List<String> names = new ArrayList<>();
+            for (final String name : splitTopLevel(selection)) {
+                if (!name.matches(NAME)) {
+                    throw new IllegalArgumentException("unsupported selector '" + name + "'");
+                }
+                names.add(identifier(name));
+            }
+            statement.columnNames = Collections.unmodifiableList(names);
+        }
+
+        if (matcher.group(4) != null) {
+            final List<Restriction> restrictions = new ArrayList<>();
+            for (final String condition : AND.split(matcher.group(4).trim())) {
+                final Matcher restriction = RESTRICTION.matcher(condition.trim());
+                if (!restriction.matches()) {
+                    throw new IllegalArgumentException("unsupported restriction '" + condition + "'");
+                }
+                final boolean token = restriction.group(1) != null;
+                restrictions.add(new Restriction(
+                    identifier(token ? restriction.group(1) : restriction.group(2)),
+                    token,
+                    Operator.fromSymbol(restriction.group(3)),
+                    statement.term(restriction.group(4))));
+            }
+            statement.restrictions = Collections.unmodifiableList(restrictions);
+        }
+
+        if (matcher.group(5) != null) {
+            statement.limit = Integer.parseInt(matcher.group(5));
+        }
+
+        return statement;
+    }
+
+    private static CqlStatement parseTruncate(final String text) {
+
+        final Matcher matcher = TRUNCATE.matcher(text);
+
+        if (!matcher.matches()) {
+            throw unsupported(text);
+        }
+
+        final CqlStatement statement = new CqlStatement(Kind.TRUNCATE);
+        statement.keyspace = identifier(matcher.group(1));
+        statement.table = identifier(matcher.group(2));
+        return statement;
+    }
+
+    private static CqlStatement parseUse(final String text) {
+
+        final Matcher matcher = USE.matcher(text);
+
+        if (!matcher.matches()) {
+            throw unsupported(text);
+        }
+
+        final CqlStatement statement = new CqlStatement(Kind.USE);
+        statement.keyspace = identifier(matcher.group(1));
+        return statement;
+    }
+
+    private static int indexOfClosingParenthesis(final String text) {
+        int depth = 0;
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && c == '(') {
+                depth++;
+            } else if (!quoted && c == ')') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+        return -1;
+    }
+
+    private static List<String> splitTopLevel(final String text) {
+
+        final List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean quoted = false;
+        int start = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && (c == '(' || c == '<')) {
+                depth++;
+            } else if (!quoted && (c == ')' || c == '>')) {
+                depth--;
+            } else if (!quoted && depth == 0 && c == ',') {
+                parts.add(text.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+
+        final String last = text.substring(start).trim();
+
+        if (!last.isEmpty() || !parts.isEmpty()) {
+            parts.add(last);
+        }
+
+        return parts;
+    }
+
+    private static CqlException unsupported(final String text) {
+        return CqlException.syntaxError("The simulator does not support this statement: " + text);
+    }
+
+    private Term term(final String text) {
+        return "?".equals(text) ? new Term(this.bindMarkerCount++, null) : new Term(-1, text);
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * The kinds of statement understood by the simulator.
+     */
+    enum Kind {
+        CREATE_KEYSPACE,
+        CREATE_TABLE,
+        DROP_KEYSPACE,
+        DROP_TABLE,
+        INSERT,
+        SELECT,
+        TRUNCATE,
+        USE
+    }
+
+    /**
+     * The relational operators of a restriction.
+     */
+    enum Operator {
+        EQ("="),
+        GT(">"),
+        GTE(">="),
+        IN("IN"),
+        LT("<"),
+        LTE("<=");
+
+        private final String symbol;
+
+        Operator(final String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator fromSymbol(final String symbol) {
+            for (final Operator operator : values()) {
+                if (operator.symbol.equalsIgnoreCase(symbol)) {
+                    return operator;
+                }
+            }
+            throw new IllegalArgumentException("unsupported operator '" + symbol + "'");
+        }
+
+        @Override
+        public String toString() {
+            return this.symbol;
+        }
+    }
+
+    /**
+     * A restriction in the {@code WHERE} clause of a {@code SELECT} statement.
+     */
+    static final class Restriction {
+
+        final String column;
+        final boolean token;
+        final Operator operator;
+        final Term value;
+
+        Restriction(final String column, final boolean token, final Operator operator, final Term value) {
+            this.column = column;
+            this.token = token;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return (this.token ? "token(" + this.column + ")" : this.column) + " " + this.operator + " " + this.value;
+        }
+    }
+
+    /**
+     * A value in a statement: either a bind marker or a literal.
+     */
+    static final class Term {
+
+        final int bindMarkerIndex;
+        final String literal;
+
+        Term(final int bindMarkerIndex, final String literal) {
+            this.bindMarkerIndex = bindMarkerIndex;
+            this.literal = literal;
+        }
+
+        /**
+         * Gets a value indicating whether this term is a bind marker.
+         *
+         * @return {@code true} if this term is a bind marker; otherwise, if it is a literal, {@code false}.
+         */
+        boolean isBindMarker() {
+            return this.bindMarkerIndex >= 0;
+        }
+
+        @Override
+        public String toString() {
+            return this.isBindMarker() ? "?" : this.literal;
+        }
+    }
+
+    // endregion
+}
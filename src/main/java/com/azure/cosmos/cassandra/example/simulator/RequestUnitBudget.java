@@ -0,0 +1,56 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+/**
+ * A token bucket of request units (RUs) refilled continuously at a region's provisioned throughput.
+ * <p>
+ * The bucket holds at most one second of throughput. A request is admitted when the bucket holds its charge, or a
+ * full second of throughput if the charge is larger, and its charge is then deducted, possibly leaving the bucket in
+ * debt. A rejected request is told how long to wait until the bucket will hold enough to admit it.
+ */
+final class RequestUnitBudget {
+
+    private final double requestUnitsPerSecond;
+    private double available;
+    private long refilledNanos;
+
+    RequestUnitBudget(final double requestUnitsPerSecond) {
+        this.requestUnitsPerSecond = requestUnitsPerSecond;
+        this.available = requestUnitsPerSecond;
+        this.refilledNanos = System.nanoTime();
+    }
+
+    // region Methods
+
+    /**
+     * Attempts to charge a request against this budget.
+     *
+     * @param requestCharge The request charge in RUs.
+     *
+     * @return Zero, if the request was charged; otherwise the number of milliseconds after which a retry can be
+     * charged.
+     */
+    synchronized long tryCharge(final double requestCharge) {
+
+        final long now = System.nanoTime();
+
+        this.available = Math.min(
+            this.requestUnitsPerSecond,
+            this.available + (now - this.refilledNanos) * this.requestUnitsPerSecond / 1E9);
+
+        this.refilledNanos = now;
+
+        final double required = Math.min(requestCharge, this.requestUnitsPerSecond);
+
+        if (this.available >= required) {
+            this.available -= requestCharge;
+            return 0L;
+        }
+
+        return Math.max(1L, (long) Math.ceil((required - this.available) * 1000.0 / this.requestUnitsPerSecond));
+    }
+
+    // endregion
+}
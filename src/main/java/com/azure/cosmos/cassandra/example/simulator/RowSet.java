@@ -0,0 +1,211 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import com.datastax.oss.protocol.internal.response.result.ColumnSpec;
+import com.datastax.oss.protocol.internal.response.result.DefaultRows;
+import com.datastax.oss.protocol.internal.response.result.RowsMetadata;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * The serialized rows of a simulated table or query result, together with their columns.
+ */
+final class RowSet {
+
+    private final String keyspace;
+    private final String table;
+    private final List<Column> columns;
+    private final List<ByteBuffer[]> rows;
+
+    RowSet(
+        @NonNull final String keyspace,
+        @NonNull final String table,
+        @NonNull final List<Column> columns,
+        @NonNull final List<ByteBuffer[]> rows) {
+
+        this.keyspace = keyspace;
+        this.table = table;
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    // region Methods
+
+    /**
+     * Keeps only the rows whose values equal those given.
+     *
+     * @param values Serialized values keyed by column name.
+     *
+     * @return A new row set or this row set, if {@code values} is empty.
+     *
+     * @throws IllegalArgumentException If a column is not in this row set.
+     */
+    @NonNull
+    RowSet filter(@NonNull final Map<String, ByteBuffer> values) {
+
+        if (values.isEmpty()) {
+            return this;
+        }
+
+        final List<ByteBuffer[]> matches = new ArrayList<>();
+
+        for (final ByteBuffer[] row : this.rows) {
+            boolean match = true;
+            for (final Map.Entry<String, ByteBuffer> value : values.entrySet()) {
+                if (!value.getValue().equals(row[this.indexOf(value.getKey())])) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                matches.add(row);
+            }
+        }
+
+        return new RowSet(this.keyspace, this.table, this.columns, matches);
+    }
+
+    @NonNull
+    List<Column> getColumns() {
+        return this.columns;
+    }
+
+    @NonNull
+    List<ByteBuffer[]> getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Gets the position of a column.
+     *
+     * @param name The name of the column.
+     *
+     * @return The position of the column.
+     *
+     * @throws IllegalArgumentException If the column is not in this row set.
+     */
+    int indexOf(@NonNull final String name) {
+        for (int i = 0; i < this.columns.size(); i++) {
+            if (this.columns.get(i).getName().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Undefined column name " + name + " in table " + this.keyspace + "."
+            + this.table);
+    }
+
+    /**
+     * Keeps only the first rows of this row set, as a {@code LIMIT} clause does.
+     *
+     * @param limit The maximum number of rows to keep.
+     *
+     * @return A new row set or this row set, if it has no more than {@code limit} rows.
+     */
+    @NonNull
+    RowSet limit(final int limit) {
+        return this.rows.size() <= limit
+            ? this
+            : new RowSet(this.keyspace, this.table, this.columns, this.rows.subList(0, limit));
+    }
+
+    /**
+     * Keeps only the named columns, in the order given.
+     *
+     * @param names The names of the columns to keep or {@code null} to keep all columns.
+     *
+     * @return A new row set or this row set, if {@code names} is {@code null}.
+     *
+     * @throws IllegalArgumentException If a column is not in this row set.
+     */
+    @NonNull
+    RowSet project(final List<String> names) {
+
+        if (names == null) {
+            return this;
+        }
+
+        final int[] indexes = new int[names.size()];
+        final List<Column> projectedColumns = new ArrayList<>(names.size());
+
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = this.indexOf(names.get(i));
+            projectedColumns.add(this.columns.get(indexes[i]));
+        }
+
+        final List<ByteBuffer[]> projectedRows = new ArrayList<>(this.rows.size());
+
+        for (final ByteBuffer[] row : this.rows) {
+            final ByteBuffer[] projectedRow = new ByteBuffer[indexes.length];
+            for (int i = 0; i < indexes.length; i++) {
+                projectedRow[i] = row[indexes[i]];
+            }
+            projectedRows.add(projectedRow);
+        }
+
+        return new RowSet(this.keyspace, this.table, projectedColumns, projectedRows);
+    }
+
+    /**
+     * Describes the columns of this row set as the metadata of a prepared statement's result.
+     *
+     * @return Rows metadata without a paging state.
+     */
+    @NonNull
+    RowsMetadata toMetadata() {
+        return new RowsMetadata(this.toColumnSpecs(), null, null, null);
+    }
+
+    /**
+     * Converts one page of this row set to a rows response.
+     *
+     * @param pageSize     The maximum number of rows to return or a non-positive value to return all rows.
+     * @param offset       The position of the first row to return.
+     * @param skipMetadata {@code true} if the client already has the result metadata.
+     *
+     * @return A rows response, with a paging state if rows remain after the page.
+     */
+    @NonNull
+    DefaultRows toRows(final int pageSize, final int offset, final boolean skipMetadata) {
+
+        final int end = pageSize > 0 ? Math.min(this.rows.size(), offset + pageSize) : this.rows.size();
+        final Queue<List<ByteBuffer>> data = new ArrayDeque<>(Math.max(0, end - offset));
+
+        for (int i = offset; i < end; i++) {
+            data.add(Arrays.asList(this.rows.get(i)));
+        }
+
+        final ByteBuffer pagingState = end < this.rows.size()
+            ? ByteBuffer.allocate(Integer.BYTES).putInt(0, end)
+            : null;
+
+        final RowsMetadata metadata = skipMetadata
+            ? new RowsMetadata(this.columns.size(), pagingState, null, null)
+            : new RowsMetadata(this.toColumnSpecs(), pagingState, null, null);
+
+        return new DefaultRows(metadata, data);
+    }
+
+    // endregion
+
+    // region Privates
+
+    private List<ColumnSpec> toColumnSpecs() {
+        final List<ColumnSpec> specs = new ArrayList<>(this.columns.size());
+        for (int i = 0; i < this.columns.size(); i++) {
+            specs.add(this.columns.get(i).toColumnSpec(this.keyspace, this.table, i));
+        }
+        return Collections.unmodifiableList(specs);
+    }
+
+    // endregion
+}
@@ -0,0 +1,654 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import com.azure.cosmos.cassandra.example.simulator.CqlStatement.Kind;
+import com.azure.cosmos.cassandra.example.simulator.CqlStatement.Operator;
+import com.azure.cosmos.cassandra.example.simulator.CqlStatement.Restriction;
+import com.azure.cosmos.cassandra.example.simulator.CqlStatement.Term;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.protocol.internal.Message;
+import com.datastax.oss.protocol.internal.ProtocolConstants;
+import com.datastax.oss.protocol.internal.ProtocolConstants.SchemaChangeTarget;
+import com.datastax.oss.protocol.internal.ProtocolConstants.SchemaChangeType;
+import com.datastax.oss.protocol.internal.request.query.QueryOptions;
+import com.datastax.oss.protocol.internal.response.result.ColumnSpec;
+import com.datastax.oss.protocol.internal.response.result.Prepared;
+import com.datastax.oss.protocol.internal.response.result.RowsMetadata;
+import com.datastax.oss.protocol.internal.response.result.SchemaChange;
+import com.datastax.oss.protocol.internal.response.result.SetKeyspace;
+import com.datastax.oss.protocol.internal.response.result.Void;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The keyspaces, tables, and prepared statements shared by all simulated regions.
+ * <p>
+ * Writes are visible in every region as soon as they complete, as if replication were instantaneous. Each statement
+ * is assigned a request charge in request units (RUs), which the {@link SimulatedNode node} serving it deducts from
+ * its region's budget: an {@code INSERT} or {@code TRUNCATE} costs {@link SimulatorOptions#getWriteCharge the write
+ * charge}; a {@code SELECT} costs {@link SimulatorOptions#getReadCharge the read charge} for each row returned, or for
+ * each {@value #ROWS_PER_COUNT_CHARGE} rows counted by {@code COUNT(*)}, with a minimum of one read charge. DDL
+ * statements and queries of system tables are free.
+ */
+final class SimulatedDatabase {
+
+    static final int ROWS_PER_COUNT_CHARGE = 100;
+
+    private static final String REPLICATION_STRATEGY_PACKAGE = "org.apache.cassandra.locator.";
+
+    private static final Column APPLIED = new Column("[applied]", DataTypes.BOOLEAN);
+    private static final Column PARTITION_KEY_TOKEN = new Column("partition key token", DataTypes.BIGINT);
+    private static final RowsMetadata NO_METADATA = new RowsMetadata(Collections.emptyList(), null, null, null);
+
+    private final SimulatorOptions options;
+    private final ConcurrentMap<String, Map<String, String>> keyspaces = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, SimulatedTable> tables = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<ByteBuffer, PreparedQuery> preparedQueries = new ConcurrentHashMap<>();
+    private volatile UUID schemaVersion = UUID.randomUUID();
+
+    SimulatedDatabase(@NonNull final SimulatorOptions options) {
+        this.options = options;
+    }
+
+    // region Methods
+
+    /**
+     * Executes a statement.
+     *
+     * @param statement       The statement.
+     * @param sessionKeyspace The keyspace used to qualify table names or {@code null}, if none is set.
+     * @param queryOptions    The bound values and paging options sent with the statement.
+     * @param node            The node serving the statement.
+     *
+     * @return The response and its request charge.
+     *
+     * @throws CqlException If the statement cannot be executed.
+     */
+    @NonNull
+    Outcome execute(
+        @NonNull final CqlStatement statement,
+        final String sessionKeyspace,
+        @NonNull final QueryOptions queryOptions,
+        @NonNull final SimulatedNode node) {
+
+        switch (statement.getKind()) {
+            case CREATE_KEYSPACE:
+                return new Outcome(this.createKeyspace(statement), 0.0);
+            case CREATE_TABLE:
+                return new Outcome(this.createTable(statement, this.keyspaceOf(statement, sessionKeyspace)), 0.0);
+            case DROP_KEYSPACE:
+                return new Outcome(this.dropKeyspace(statement), 0.0);
+            case DROP_TABLE:
+                return new Outcome(this.dropTable(statement, this.keyspaceOf(statement, sessionKeyspace)), 0.0);
+            case INSERT:
+                return this.insert(statement, this.keyspaceOf(statement, sessionKeyspace), queryOptions);
+            case SELECT:
+                return this.select(statement, this.keyspaceOf(statement, sessionKeyspace), queryOptions, node);
+            case TRUNCATE:
+                this.requireTable(this.keyspaceOf(statement, sessionKeyspace), statement.getTable()).clear();
+                return new Outcome(Void.INSTANCE, this.options.getWriteCharge());
+            case USE:
+                if (!this.keyspaces.containsKey(statement.getKeyspace())) {
+                    throw CqlException.invalid("Keyspace '" + statement.getKeyspace() + "' does not exist");
+                }
+                return new Outcome(new SetKeyspace(statement.getKeyspace()), 0.0);
+            default:
+                throw new IllegalStateException("unexpected statement kind: " + statement.getKind());
+        }
+    }
+
+    /**
+     * Gets the keyspaces and their replication options, ordered by name.
+     *
+     * @return An unmodifiable view of the keyspaces.
+     */
+    @NonNull
+    Map<String, Map<String, String>> getKeyspaces() {
+        return Collections.unmodifiableMap(this.keyspaces);
+    }
+
+    /**
+     * Gets a prepared statement.
+     *
+     * @param id The ID returned when the statement was prepared.
+     *
+     * @return The prepared statement or {@code null}, if there is no such statement or it was invalidated by a
+     * schema change.
+     */
+    PreparedQuery getPreparedQuery(@NonNull final byte[] id) {
+        return this.preparedQueries.get(ByteBuffer.wrap(id));
+    }
+
+    /**
+     * Gets the version of the schema, which changes with each DDL statement.
+     *
+     * @return The schema version.
+     */
+    @NonNull
+    UUID getSchemaVersion() {
+        return this.schemaVersion;
+    }
+
+    /**
+     * Gets the tables, ordered by qualified name.
+     *
+     * @return An unmodifiable view of the tables.
+     */
+    @NonNull
+    Collection<SimulatedTable> getTables() {
+        return Collections.unmodifiableCollection(this.tables.values());
+    }
+
+    /**
+     * Prepares a statement.
+     * <p>
+     * The statement ID is a hash of the statement and the session keyspace, so that preparing the same statement on
+     * any node returns the same ID.
+     *
+     * @param query           The text of the statement.
+     * @param sessionKeyspace The keyspace used to qualify table names or {@code null}, if none is set.
+     * @param node            The node preparing the statement.
+     *
+     * @return The prepared statement.
+     *
+     * @throws CqlException If the statement cannot be parsed or names an unknown table or column.
+     */
+    @NonNull
+    PreparedQuery prepare(
+        @NonNull final String query,
+        final String sessionKeyspace,
+        @NonNull final SimulatedNode node) {
+
+        final CqlStatement statement = CqlStatement.parse(query);
+        final ColumnSpec[] variables = new ColumnSpec[statement.getBindMarkerCount()];
+        final List<Integer> partitionKeyIndexes = new ArrayList<>(1);
+        RowsMetadata result = NO_METADATA;
+        String table = null;
+
+        if (statement.getKind() == Kind.INSERT) {
+
+            final String keyspace = this.keyspaceOf(statement, sessionKeyspace);
+            final SimulatedTable simulatedTable = this.requireTable(keyspace, statement.getTable());
+            final List<String> names = statement.getColumnNames();
+            final List<Term> values = statement.getValues();
+
+            for (int i = 0; i < values.size(); i++) {
+                final Term value = values.get(i);
+                if (value.isBindMarker()) {
+                    final int columnIndex = simulatedTable.indexOf(names.get(i));
+                    variables[value.bindMarkerIndex] = simulatedTable.getColumns().get(columnIndex)
+                        .toColumnSpec(keyspace, statement.getTable(), value.bindMarkerIndex);
+                    if (columnIndex == simulatedTable.getPartitionKeyIndex()) {
+                        partitionKeyIndexes.add(value.bindMarkerIndex);
+                    }
+                }
+            }
+
+            table = keyspace + "." + statement.getTable();
+
+        } else if (statement.getKind() == Kind.SELECT) {
+
+            final String keyspace = this.keyspaceOf(statement, sessionKeyspace);
+            final RowSet shape = this.shapeOf(keyspace, statement.getTable(), node);
+            final String partitionKey = SystemTables.isSystemKeyspace(keyspace)
+                ? null
+                : this.requireTable(keyspace, statement.getTable()).getPartitionKey().getName();
+
+            for (final Restriction restriction : statement.getRestrictions()) {
+                if (restriction.value.isBindMarker()) {
+                    final Column column = this.variableOf(restriction, shape);
+                    variables[restriction.value.bindMarkerIndex] = column.toColumnSpec(keyspace, statement.getTable(),
+                        restriction.value.bindMarkerIndex);
+                    if (!restriction.token && restriction.operator == Operator.EQ
+                        && restriction.column.equals(partitionKey)) {
+                        partitionKeyIndexes.add(restriction.value.bindMarkerIndex);
+                    }
+                }
+            }
+
+            result = (statement.getCountAlias() == null
+                ? shape.project(statement.getColumnNames())
+                : countOf(keyspace, statement.getTable(), statement.getCountAlias(), 0L)).toMetadata();
+
+            table = keyspace + "." + statement.getTable();
+        }
+
+        final int[] partitionKeyIndices = partitionKeyIndexes.isEmpty()
+            ? null
+            : partitionKeyIndexes.stream().mapToInt(Integer::intValue).toArray();
+
+        final byte[] id = md5((sessionKeyspace == null ? "" : sessionKeyspace) + "|" + query);
+
+        final Prepared response = new Prepared(
+            id,
+            null,
+            new RowsMetadata(Arrays.asList(variables), null, partitionKeyIndices, null),
+            result);
+
+        final PreparedQuery prepared = new PreparedQuery(statement, sessionKeyspace, table, response);
+        this.preparedQueries.put(ByteBuffer.wrap(id), prepared);
+        return prepared;
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static RowSet countOf(final String keyspace, final String table, final String alias, final long count) {
+        final Column column = new Column(alias, DataTypes.BIGINT);
+        return new RowSet(keyspace, table, Collections.singletonList(column),
+            Collections.singletonList(new ByteBuffer[] { column.encode(count) }));
+    }
+
+    private static byte[] md5(final String text) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (final NoSuchAlgorithmException error) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    private static ByteBuffer valueOf(final Term term, final Column column, final QueryOptions queryOptions) {
+
+        if (!term.isBindMarker()) {
+            return column.encodeLiteral(term.literal);
+        }
+
+        final List<ByteBuffer> values = queryOptions.positionalValues;
+
+        if (term.bindMarkerIndex >= values.size()) {
+            throw CqlException.invalid("Expected at least " + (term.bindMarkerIndex + 1) + " bound values, but got "
+                + values.size() + (queryOptions.namedValues.isEmpty() ? "" : "; named values are not supported"));
+        }
+
+        return values.get(term.bindMarkerIndex);
+    }
+
+    private synchronized Message createKeyspace(final CqlStatement statement) {
+
+        final String keyspace = statement.getKeyspace();
+
+        if (SystemTables.isSystemKeyspace(keyspace) || this.keyspaces.containsKey(keyspace)) {
+            if (statement.isConditional()) {
+                return Void.INSTANCE;
+            }
+            throw CqlException.alreadyExists(keyspace, "");
+        }
+
+        // Cassandra stores the fully qualified name of the replication strategy, and the driver expects it
+
+        final Map<String, String> replication = new TreeMap<>(statement.getReplication());
+        final String strategy = replication.get("class");
+
+        if (strategy != null && strategy.indexOf('.') < 0) {
+            replication.put("class", REPLICATION_STRATEGY_PACKAGE + strategy);
+        }
+
+        this.keyspaces.put(keyspace, Collections.unmodifiableMap(replication));
+        this.schemaVersion = UUID.randomUUID();
+        return new SchemaChange(SchemaChangeType.CREATED, SchemaChangeTarget.KEYSPACE, keyspace, null, null);
+    }
+
+    private synchronized Message createTable(final CqlStatement statement, final String keyspace) {
+
+        final String name = statement.getTable();
+
+        if (!this.keyspaces.containsKey(keyspace)) {
+            throw CqlException.invalid("Keyspace " + keyspace + " doesn't exist");
+        }
+
+        if (this.tables.containsKey(keyspace + "." + name)) {
+            if (statement.isConditional()) {
+                return Void.INSTANCE;
+            }
+            throw CqlException.alreadyExists(keyspace, name);
+        }
+
+        final List<Column> columns = statement.getColumnDefinitions();
+        int partitionKeyIndex = -1;
+
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equals(statement.getPartitionKey())) {
+                partitionKeyIndex = i;
+            }
+        }
+
+        if (partitionKeyIndex < 0) {
+            throw CqlException.invalid("Unknown definition " + statement.getPartitionKey()
+                + " referenced in PRIMARY KEY");
+        }
+
+        this.tables.put(keyspace + "." + name, new SimulatedTable(keyspace, name, columns, partitionKeyIndex));
+        this.schemaVersion = UUID.randomUUID();
+        return new SchemaChange(SchemaChangeType.CREATED, SchemaChangeTarget.TABLE, keyspace, name, null);
+    }
+
+    private synchronized Message dropKeyspace(final CqlStatement statement) {
+
+        final String keyspace = statement.getKeyspace();
+
+        if (this.keyspaces.remove(keyspace) == null) {
+            if (statement.isConditional()) {
+                return Void.INSTANCE;
+            }
+            throw CqlException.invalid("Cannot drop non existing keyspace '" + keyspace + "'.");
+        }
+
+        this.tables.keySet().removeIf(name -> name.startsWith(keyspace + "."));
+        this.preparedQueries.values().removeIf(prepared ->
+            prepared.table != null && prepared.table.startsWith(keyspace + "."));
+        this.schemaVersion = UUID.randomUUID();
+        return new SchemaChange(SchemaChangeType.DROPPED, SchemaChangeTarget.KEYSPACE, keyspace, null, null);
+    }
+
+    private synchronized Message dropTable(final CqlStatement statement, final String keyspace) {
+
+        final String name = keyspace + "." + statement.getTable();
+
+        if (this.tables.remove(name) == null) {
+            if (statement.isConditional()) {
+                return Void.INSTANCE;
+            }
+            throw CqlException.invalid("unconfigured table " + statement.getTable());
+        }
+
+        // As Cassandra does, evict statements on the dropped table so that clients re-prepare them
+
+        this.preparedQueries.values().removeIf(prepared -> name.equals(prepared.table));
+        this.schemaVersion = UUID.randomUUID();
+        return new SchemaChange(SchemaChangeType.DROPPED, SchemaChangeTarget.TABLE, keyspace, statement.getTable(),
+            null);
+    }
+
+    private Outcome insert(final CqlStatement statement, final String keyspace, final QueryOptions queryOptions) {
+
+        final SimulatedTable table = this.requireTable(keyspace, statement.getTable());
+        final List<String> names = statement.getColumnNames();
+        final List<Term> terms = statement.getValues();
+        final int[] columnIndexes = new int[names.size()];
+        final ByteBuffer[] values = new ByteBuffer[names.size()];
+        int count = 0;
+
+        for (int i = 0; i < names.size(); i++) {
+            final int columnIndex = table.indexOf(names.get(i));
+            final ByteBuffer value = valueOf(terms.get(i), table.getColumns().get(columnIndex), queryOptions);
+            if (value != ProtocolConstants.UNSET_VALUE) {
+                columnIndexes[count] = columnIndex;
+                values[count++] = value;
+            }
+        }
+
+        final boolean applied = table.upsert(
+            Arrays.copyOf(columnIndexes, count),
+            Arrays.copyOf(values, count),
+            statement.isConditional());
+
+        final Message response = statement.isConditional()
+            ? new RowSet(keyspace, statement.getTable(), Collections.singletonList(APPLIED),
+                Collections.singletonList(new ByteBuffer[] { APPLIED.encode(applied) })).toRows(0, 0, false)
+            : Void.INSTANCE;
+
+        return new Outcome(response, this.options.getWriteCharge());
+    }
+
+    private String keyspaceOf(final CqlStatement statement, final String sessionKeyspace) {
+        if (statement.getKeyspace() != null) {
+            return statement.getKeyspace();
+        }
+        if (sessionKeyspace == null) {
+            throw CqlException.invalid("No keyspace has been specified. USE a keyspace, or explicitly specify "
+                + "keyspace.tablename");
+        }
+        return sessionKeyspace;
+    }
+
+    private SimulatedTable requireTable(final String keyspace, final String table) {
+        final SimulatedTable simulatedTable = this.tables.get(keyspace + "." + table);
+        if (simulatedTable == null) {
+            throw CqlException.invalid("unconfigured table " + table);
+        }
+        return simulatedTable;
+    }
+
+    private Outcome select(
+        final CqlStatement statement,
+        final String keyspace,
+        final QueryOptions queryOptions,
+        final SimulatedNode node) {
+
+        final String table = statement.getTable();
+        final boolean system = SystemTables.isSystemKeyspace(keyspace);
+        final RowSet rows;
+        long rowCount = -1L;
+
+        if (system) {
+            final RowSet all = SystemTables.select(keyspace, table, node, this);
+            final Map<String, ByteBuffer> filter = new LinkedHashMap<>();
+            for (final Restriction restriction : statement.getRestrictions()) {
+                if (restriction.token || restriction.operator != Operator.EQ) {
+                    throw CqlException.invalid("The simulator supports only equality restrictions on system tables");
+                }
+                filter.put(restriction.column, valueOf(restriction.value, all.getColumns().get(
+                    all.indexOf(restriction.column)), queryOptions));
+            }
+            rows = all.filter(filter);
+        } else {
+            final SimulatedTable simulatedTable = this.requireTable(keyspace, table);
+            final Selection selection = new Selection(simulatedTable, statement, queryOptions);
+            if (statement.getCountAlias() != null && selection.isTokenRangeOnly()) {
+                rowCount = simulatedTable.count(selection.start, selection.end);
+                rows = null;
+            } else {
+                rows = simulatedTable.toRowSet(selection.select());
+            }
+        }
+
+        final RowSet result;
+
+        if (statement.getCountAlias() != null) {
+            if (rowCount < 0) {
+                rowCount = rows.getRows().size();
+            }
+            result = countOf(keyspace, table, statement.getCountAlias(), rowCount);
+        } else {
+            final RowSet projection = rows.project(statement.getColumnNames());
+            result = statement.getLimit() >= 0 ? projection.limit(statement.getLimit()) : projection;
+            rowCount = result.getRows().size();
+        }
+
+        final double charge;
+
+        if (system) {
+            charge = 0.0;
+        } else if (statement.getCountAlias() == null) {
+            charge = this.options.getReadCharge() * Math.max(1L, rowCount);
+        } else {
+            final long units = (rowCount + ROWS_PER_COUNT_CHARGE - 1) / ROWS_PER_COUNT_CHARGE;
+            charge = this.options.getReadCharge() * Math.max(1L, units);
+        }
+
+        final ByteBuffer pagingState = queryOptions.pagingState;
+        final int offset = pagingState == null ? 0 : pagingState.getInt(pagingState.position());
+
+        return new Outcome(result.toRows(queryOptions.pageSize, offset, queryOptions.skipMetadata), charge);
+    }
+
+    private RowSet shapeOf(final String keyspace, final String table, final SimulatedNode node) {
+        return SystemTables.isSystemKeyspace(keyspace)
+            ? SystemTables.select(keyspace, table, node, this)
+            : this.requireTable(keyspace, table).toRowSet(Collections.emptyList());
+    }
+
+    private Column variableOf(final Restriction restriction, final RowSet shape) {
+        if (restriction.token) {
+            return PARTITION_KEY_TOKEN;
+        }
+        final Column column = shape.getColumns().get(shape.indexOf(restriction.column));
+        return restriction.operator == Operator.IN
+            ? new Column("in(" + column.getName() + ")", DataTypes.listOf(column.getType()))
+            : column;
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * The response to a statement and its request charge.
+     */
+    static final class Outcome {
+
+        final Message response;
+        final double requestCharge;
+
+        Outcome(final Message response, final double requestCharge) {
+            this.response = response;
+            this.requestCharge = requestCharge;
+        }
+    }
+
+    /**
+     * A statement prepared by a client.
+     */
+    static final class PreparedQuery {
+
+        final CqlStatement statement;
+        final String keyspace;
+        final String table;
+        final Prepared response;
+
+        PreparedQuery(
+            final CqlStatement statement,
+            final String keyspace,
+            final String table,
+            final Prepared response) {
+
+            this.statement = statement;
+            this.keyspace = keyspace;
+            this.table = table;
+            this.response = response;
+        }
+    }
+
+    /**
+     * The rows of a user table selected by the restrictions of a {@code SELECT} statement.
+     * <p>
+     * Restrictions on the partition key or its token determine which rows are read; equality restrictions on other
+     * columns filter those rows, as they would with {@code ALLOW FILTERING}.
+     */
+    private static final class Selection {
+
+        final SimulatedTable table;
+        Long start;
+        Long end;
+        Set<ByteBuffer> keys;
+        final Map<String, ByteBuffer> filter = new LinkedHashMap<>();
+
+        Selection(final SimulatedTable table, final CqlStatement statement, final QueryOptions queryOptions) {
+
+            this.table = table;
+            final Column partitionKey = table.getPartitionKey();
+
+            for (final Restriction restriction : statement.getRestrictions()) {
+
+                if (restriction.token) {
+                    final Long token = (Long) PARTITION_KEY_TOKEN.decode(
+                        valueOf(restriction.value, PARTITION_KEY_TOKEN, queryOptions));
+                    if (token == null) {
+                        throw CqlException.invalid("Invalid null value for partition key token");
+                    }
+                    this.restrictToken(restriction.operator, token);
+                    continue;
+                }
+
+                final Column column = table.getColumns().get(table.indexOf(restriction.column));
+
+                if (restriction.operator == Operator.IN) {
+                    if (column != partitionKey) {
+                        throw CqlException.invalid("IN restrictions are supported only on the partition key");
+                    }
+                    final Column list = new Column(column.getName(), DataTypes.listOf(column.getType()));
+                    this.keys = new LinkedHashSet<>();
+                    for (final Object key : (List<?>) list.decode(valueOf(restriction.value, list, queryOptions))) {
+                        this.keys.add(column.encode(key));
+                    }
+                } else if (restriction.operator != Operator.EQ) {
+                    throw CqlException.invalid("Only EQ and IN relation are supported on the partition key (unless "
+                        + "you use the token() function)");
+                } else if (column == partitionKey) {
+                    this.keys = Collections.singleton(valueOf(restriction.value, column, queryOptions));
+                } else {
+                    this.filter.put(column.getName(), valueOf(restriction.value, column, queryOptions));
+                }
+            }
+        }
+
+        boolean isTokenRangeOnly() {
+            return this.keys == null && this.filter.isEmpty();
+        }
+
+        List<ByteBuffer[]> select() {
+
+            final List<ByteBuffer[]> rows;
+
+            if (this.keys == null) {
+                rows = this.table.select(this.start, this.end);
+            } else {
+                rows = new ArrayList<>(this.keys.size());
+                for (final ByteBuffer key : this.keys) {
+                    final ByteBuffer[] row = this.table.get(key);
+                    if (row != null) {
+                        rows.add(row);
+                    }
+                }
+            }
+
+            return this.table.toRowSet(rows).filter(this.filter).getRows();
+        }
+
+        private void restrictToken(final Operator operator, final long token) {
+            switch (operator) {
+                case GT:
+                    this.start = token;
+                    break;
+                case GTE:
+                    this.start = token == Long.MIN_VALUE ? null : token - 1;
+                    break;
+                case LT:
+                    this.end = token == Long.MIN_VALUE ? Long.MIN_VALUE : token - 1;
+                    break;
+                case LTE:
+                    this.end = token;
+                    break;
+                case EQ:
+                    this.start = token == Long.MIN_VALUE ? null : token - 1;
+                    this.end = token;
+                    break;
+                default:
+                    throw CqlException.invalid("IN restrictions are not supported on token()");
+            }
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,302 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import com.azure.cosmos.cassandra.example.simulator.CqlStatement.Kind;
+import com.azure.cosmos.cassandra.example.simulator.SimulatedDatabase.Outcome;
+import com.azure.cosmos.cassandra.example.simulator.SimulatedDatabase.PreparedQuery;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions.Region;
+import com.datastax.oss.protocol.internal.ProtocolConstants;
+import com.datastax.oss.protocol.internal.request.Batch;
+import com.datastax.oss.protocol.internal.request.Execute;
+import com.datastax.oss.protocol.internal.request.Prepare;
+import com.datastax.oss.protocol.internal.request.Query;
+import com.datastax.oss.protocol.internal.request.query.QueryOptions;
+import com.datastax.oss.protocol.internal.response.Error;
+import com.datastax.oss.protocol.internal.response.error.Unprepared;
+import com.datastax.oss.protocol.internal.response.result.Void;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A simulated region, presented to clients as a single Cassandra node.
+ * <p>
+ * Each node charges the requests it serves against its own {@link RequestUnitBudget budget}, as each region of a
+ * Cosmos account is provisioned separately, and rejects requests that would exceed it with an {@code Overloaded}
+ * error. The node's token is chosen so that the nodes of a simulator divide the token ring evenly.
+ */
+final class SimulatedNode {
+
+    private static final String OVERLOADED_MESSAGE = "Request rate is large: RetryAfterMs=%d, Additional details='"
+        + "Response status code does not indicate success: TooManyRequests (429); Substatus: 3200'";
+
+    private final Region region;
+    private final UUID hostId = UUID.randomUUID();
+    private final long token;
+    private final SimulatedDatabase database;
+    private final SimulatorOptions options;
+    private final RequestUnitBudget budget;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder throttledCount = new LongAdder();
+    private final DoubleAdder requestUnits = new DoubleAdder();
+    private volatile InetSocketAddress address;
+    private volatile List<SimulatedNode> peers = Collections.emptyList();
+
+    SimulatedNode(
+        @NonNull final Region region,
+        final int index,
+        final int count,
+        @NonNull final SimulatedDatabase database,
+        @NonNull final SimulatorOptions options) {
+
+        this.region = region;
+        this.database = database;
+        this.options = options;
+        this.budget = options.getRequestUnitsPerSecond() > 0.0
+            ? new RequestUnitBudget(options.getRequestUnitsPerSecond())
+            : null;
+
+        // Place each token at the middle of the node's share of the ring
+
+        final BigInteger ringSize = BigInteger.ONE.shiftLeft(64);
+        this.token = BigInteger.valueOf(Long.MIN_VALUE)
+            .add(ringSize.multiply(BigInteger.valueOf(2L * index + 1L)).divide(BigInteger.valueOf(2L * count)))
+            .longValue();
+    }
+
+    // region Methods
+
+    /**
+     * Executes a batch of {@code INSERT} statements, charging the write charge for each of them.
+     *
+     * @param batch    The batch request.
+     * @param keyspace The connection's keyspace or {@code null}, if none is set.
+     *
+     * @return The response and its request charge.
+     */
+    @NonNull
+    Outcome batch(@NonNull final Batch batch, final String keyspace) {
+
+        this.requestCount.increment();
+
+        final List<CqlStatement> statements = new ArrayList<>(batch.queriesOrIds.size());
+        final List<String> keyspaces = new ArrayList<>(batch.queriesOrIds.size());
+
+        for (final Object queryOrId : batch.queriesOrIds) {
+            if (queryOrId instanceof String) {
+                statements.add(CqlStatement.parse((String) queryOrId));
+                keyspaces.add(batch.keyspace != null ? batch.keyspace : keyspace);
+            } else {
+                final PreparedQuery prepared = this.database.getPreparedQuery((byte[]) queryOrId);
+                if (prepared == null) {
+                    return unprepared((byte[]) queryOrId);
+                }
+                statements.add(prepared.statement);
+                keyspaces.add(prepared.keyspace != null ? prepared.keyspace : keyspace);
+            }
+        }
+
+        for (final CqlStatement statement : statements) {
+            if (statement.getKind() != Kind.INSERT) {
+                throw CqlException.invalid("The simulator supports only INSERT statements in batches");
+            }
+        }
+
+        final double requestCharge = this.options.getWriteCharge() * statements.size();
+        final Outcome throttled = this.charge(requestCharge);
+
+        if (throttled != null) {
+            return throttled;
+        }
+
+        for (int i = 0; i < statements.size(); i++) {
+            final QueryOptions queryOptions = new QueryOptions(
+                batch.consistency,
+                batch.values.get(i),
+                Collections.emptyMap(),
+                false,
+                -1,
+                null,
+                batch.serialConsistency,
+                batch.defaultTimestamp,
+                keyspaces.get(i),
+                batch.nowInSeconds);
+            this.database.execute(statements.get(i), keyspaces.get(i), queryOptions, this);
+        }
+
+        return new Outcome(Void.INSTANCE, requestCharge);
+    }
+
+    /**
+     * Executes a prepared statement.
+     *
+     * @param execute  The execute request.
+     * @param keyspace The connection's keyspace or {@code null}, if none is set.
+     *
+     * @return The response and its request charge.
+     */
+    @NonNull
+    Outcome execute(@NonNull final Execute execute, final String keyspace) {
+
+        this.requestCount.increment();
+
+        final PreparedQuery prepared = this.database.getPreparedQuery(execute.queryId);
+
+        if (prepared == null) {
+            return unprepared(execute.queryId);
+        }
+
+        return this.execute(prepared.statement, prepared.keyspace != null ? prepared.keyspace : keyspace,
+            execute.options);
+    }
+
+    @NonNull
+    InetSocketAddress getAddress() {
+        return this.address;
+    }
+
+    @NonNull
+    UUID getHostId() {
+        return this.hostId;
+    }
+
+    @NonNull
+    List<SimulatedNode> getPeers() {
+        return this.peers;
+    }
+
+    @NonNull
+    Region getRegion() {
+        return this.region;
+    }
+
+    long getRequestCount() {
+        return this.requestCount.sum();
+    }
+
+    double getRequestUnits() {
+        return this.requestUnits.sum();
+    }
+
+    long getThrottledCount() {
+        return this.throttledCount.sum();
+    }
+
+    long getToken() {
+        return this.token;
+    }
+
+    /**
+     * Prepares a statement. Preparing is free and never throttled.
+     *
+     * @param prepare  The prepare request.
+     * @param keyspace The connection's keyspace or {@code null}, if none is set.
+     *
+     * @return The response.
+     */
+    @NonNull
+    Outcome prepare(@NonNull final Prepare prepare, final String keyspace) {
+        this.requestCount.increment();
+        final String sessionKeyspace = prepare.keyspace != null ? prepare.keyspace : keyspace;
+        return new Outcome(this.database.prepare(prepare.cqlQuery, sessionKeyspace, this).response, 0.0);
+    }
+
+    /**
+     * Executes an unprepared statement.
+     *
+     * @param query    The query request.
+     * @param keyspace The connection's keyspace or {@code null}, if none is set.
+     *
+     * @return The response and its request charge.
+     */
+    @NonNull
+    Outcome query(@NonNull final Query query, final String keyspace) {
+        this.requestCount.increment();
+        return this.execute(CqlStatement.parse(query.query),
+            query.options.keyspace != null ? query.options.keyspace : keyspace,
+            query.options);
+    }
+
+    void setAddress(@NonNull final InetSocketAddress value) {
+        this.address = value;
+    }
+
+    void setPeers(@NonNull final List<SimulatedNode> value) {
+        this.peers = Collections.unmodifiableList(new ArrayList<>(value));
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatedNode(region=" + this.region
+            + ", address=" + this.address
+            + ", requests=" + this.getRequestCount()
+            + ", throttled=" + this.getThrottledCount()
+            + ", request-units=" + Math.round(this.getRequestUnits()) + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static Outcome unprepared(final byte[] id) {
+        return new Outcome(new Unprepared("Prepared query with ID " + toHexString(id) + " not found (either the "
+            + "query was not prepared on this host (maybe the host has been restarted?) or you have prepared too many "
+            + "queries and it has been evicted from the internal cache)", id), 0.0);
+    }
+
+    private static String toHexString(final byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(2 * bytes.length);
+        for (final byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    private Outcome charge(final double requestCharge) {
+
+        if (this.budget != null) {
+            final long retryAfterMillis = this.budget.tryCharge(requestCharge);
+            if (retryAfterMillis > 0L) {
+                this.throttledCount.increment();
+                return new Outcome(new Error(ProtocolConstants.ErrorCode.OVERLOADED,
+                    String.format(OVERLOADED_MESSAGE, retryAfterMillis)), 0.0);
+            }
+        }
+
+        this.requestUnits.add(requestCharge);
+        return null;
+    }
+
+    private Outcome execute(final CqlStatement statement, final String keyspace, final QueryOptions queryOptions) {
+
+        // Writes are charged before they are applied, so that a throttled write has no effect; reads are charged
+        // after they are executed, because their charge depends on the number of rows they read
+
+        if (statement.getKind() == Kind.INSERT || statement.getKind() == Kind.TRUNCATE) {
+            final Outcome throttled = this.charge(this.options.getWriteCharge());
+            return throttled != null ? throttled : this.database.execute(statement, keyspace, queryOptions, this);
+        }
+
+        final Outcome outcome = this.database.execute(statement, keyspace, queryOptions, this);
+
+        if (outcome.requestCharge > 0.0) {
+            final Outcome throttled = this.charge(outcome.requestCharge);
+            if (throttled != null) {
+                return throttled;
+            }
+        }
+
+        return outcome;
+    }
+
+    // endregion
+}
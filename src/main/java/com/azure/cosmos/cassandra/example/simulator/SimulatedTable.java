@@ -0,0 +1,250 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenFactory;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * An in-memory table with a single-column partition key.
+ * <p>
+ * Rows are ordered by the Murmur3 token of their partition key, as they are by a Cassandra node using the
+ * {@code Murmur3Partitioner}, so that {@code token(...)} range restrictions select the same rows they would select
+ * from a real cluster. Values are kept in their serialized form.
+ */
+final class SimulatedTable {
+
+    private static final Murmur3TokenFactory TOKEN_FACTORY = new Murmur3TokenFactory();
+
+    private final String keyspace;
+    private final String name;
+    private final UUID id;
+    private final List<Column> columns;
+    private final int partitionKeyIndex;
+    private final ConcurrentSkipListMap<Long, ConcurrentMap<ByteBuffer, ByteBuffer[]>> partitions =
+        new ConcurrentSkipListMap<>();
+
+    SimulatedTable(
+        @NonNull final String keyspace,
+        @NonNull final String name,
+        @NonNull final List<Column> columns,
+        final int partitionKeyIndex) {
+
+        this.keyspace = keyspace;
+        this.name = name;
+        this.id = UUID.randomUUID();
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.partitionKeyIndex = partitionKeyIndex;
+    }
+
+    // region Methods
+
+    /**
+     * Computes the Murmur3 token of a partition key.
+     *
+     * @param partitionKey A serialized partition key.
+     *
+     * @return The token of {@code partitionKey}.
+     */
+    static long token(@NonNull final ByteBuffer partitionKey) {
+        return ((Murmur3Token) TOKEN_FACTORY.hash(partitionKey.duplicate())).getValue();
+    }
+
+    /**
+     * Removes all rows, as a CQL {@code TRUNCATE} does.
+     */
+    void clear() {
+        this.partitions.clear();
+    }
+
+    /**
+     * Counts the rows whose partition key token is in the range {@code (start, end]}.
+     *
+     * @param start The exclusive start of the range or {@code null} to start at the beginning of the ring.
+     * @param end   The inclusive end of the range or {@code null} to end at the end of the ring.
+     *
+     * @return The number of rows in the range.
+     */
+    long count(final Long start, final Long end) {
+        long count = 0L;
+        for (final Map<ByteBuffer, ByteBuffer[]> partition : this.range(start, end)) {
+            count += partition.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the row with a given partition key.
+     *
+     * @param partitionKey A serialized partition key.
+     *
+     * @return The row or {@code null}, if there is no such row.
+     */
+    ByteBuffer[] get(@NonNull final ByteBuffer partitionKey) {
+        final Map<ByteBuffer, ByteBuffer[]> partition = this.partitions.get(token(partitionKey));
+        return partition == null ? null : partition.get(partitionKey);
+    }
+
+    @NonNull
+    List<Column> getColumns() {
+        return this.columns;
+    }
+
+    @NonNull
+    UUID getId() {
+        return this.id;
+    }
+
+    @NonNull
+    String getKeyspace() {
+        return this.keyspace;
+    }
+
+    @NonNull
+    String getName() {
+        return this.name;
+    }
+
+    @NonNull
+    Column getPartitionKey() {
+        return this.columns.get(this.partitionKeyIndex);
+    }
+
+    int getPartitionKeyIndex() {
+        return this.partitionKeyIndex;
+    }
+
+    /**
+     * Gets the position of a column.
+     *
+     * @param name The name of the column.
+     *
+     * @return The position of the column.
+     *
+     * @throws CqlException If the column is not in this table.
+     */
+    int indexOf(@NonNull final String name) {
+        for (int i = 0; i < this.columns.size(); i++) {
+            if (this.columns.get(i).getName().equals(name)) {
+                return i;
+            }
+        }
+        throw CqlException.invalid("Undefined column name " + name);
+    }
+
+    /**
+     * Gets the rows whose partition key token is in the range {@code (start, end]}, in token order.
+     *
+     * @param start The exclusive start of the range or {@code null} to start at the beginning of the ring.
+     * @param end   The inclusive end of the range or {@code null} to end at the end of the ring.
+     *
+     * @return The rows in the range.
+     */
+    @NonNull
+    List<ByteBuffer[]> select(final Long start, final Long end) {
+        final List<ByteBuffer[]> rows = new ArrayList<>();
+        for (final Map<ByteBuffer, ByteBuffer[]> partition : this.range(start, end)) {
+            rows.addAll(partition.values());
+        }
+        return rows;
+    }
+
+    /**
+     * Inserts a row or updates the given columns of an existing row, as a CQL {@code INSERT} does.
+     *
+     * @param columnIndexes The positions of the columns to set. One of them must be the partition key.
+     * @param values        The serialized values of the columns to set.
+     * @param ifNotExists   {@code true} to leave an existing row unchanged, as {@code INSERT ... IF NOT EXISTS} does.
+     *
+     * @return {@code true} if the row was written; {@code false}, if {@code ifNotExists} is {@code true} and the row
+     * already existed.
+     *
+     * @throws CqlException If the partition key is not set.
+     */
+    boolean upsert(@NonNull final int[] columnIndexes, @NonNull final ByteBuffer[] values, final boolean ifNotExists) {
+
+        ByteBuffer partitionKey = null;
+
+        for (int i = 0; i < columnIndexes.length; i++) {
+            if (columnIndexes[i] == this.partitionKeyIndex) {
+                partitionKey = values[i];
+            }
+        }
+
+        if (partitionKey == null) {
+            throw CqlException.invalid("Invalid null value in condition for column "
+                + this.columns.get(this.partitionKeyIndex).getName());
+        }
+
+        final boolean[] applied = { true };
+
+        this.partitions
+            .computeIfAbsent(token(partitionKey), token -> new ConcurrentHashMap<>())
+            .compute(partitionKey, (key, existing) -> {
+                if (existing != null && ifNotExists) {
+                    applied[0] = false;
+                    return existing;
+                }
+                final ByteBuffer[] row = existing == null
+                    ? new ByteBuffer[this.columns.size()]
+                    : existing.clone();
+                for (int i = 0; i < columnIndexes.length; i++) {
+                    row[columnIndexes[i]] = values[i];
+                }
+                return row;
+            });
+
+        return applied[0];
+    }
+
+    /**
+     * Wraps rows of this table in a row set.
+     *
+     * @param rows Rows of this table.
+     *
+     * @return A row set with all the columns of this table.
+     */
+    @NonNull
+    RowSet toRowSet(@NonNull final List<ByteBuffer[]> rows) {
+        return new RowSet(this.keyspace, this.name, this.columns, rows);
+    }
+
+    @Override
+    public String toString() {
+        return this.keyspace + "." + this.name + this.columns;
+    }
+
+    // endregion
+
+    // region Privates
+
+    private Collection<ConcurrentMap<ByteBuffer, ByteBuffer[]>> range(final Long start, final Long end) {
+        final NavigableMap<Long, ConcurrentMap<ByteBuffer, ByteBuffer[]>> range;
+        if (start == null) {
+            range = end == null ? this.partitions : this.partitions.headMap(end, true);
+        } else if (end == null) {
+            range = this.partitions.tailMap(start, false);
+        } else if (start < end) {
+            range = this.partitions.subMap(start, false, end, true);
+        } else {
+            range = Collections.emptyNavigableMap();
+        }
+        return range.values();
+    }
+
+    // endregion
+}
@@ -0,0 +1,450 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Options that control how a {@link CqlSimulator simulator} serves requests.
+ * <p>
+ * Each option may be set using a system property of the form {@code azure.cosmos.cassandra.simulator.<option>}. For
+ * example, run with {@code -Dazure.cosmos.cassandra.simulator.regions="West US=5,East US=70"} to simulate two regions
+ * that respond after 5 and 70 milliseconds.
+ */
+public final class SimulatorOptions {
+
+    /**
+     * Prefix shared by all simulator system properties.
+     */
+    public static final String PROPERTY_PREFIX = "azure.cosmos.cassandra.simulator.";
+
+    private final String host;
+    private final int port;
+    private final List<Region> regions;
+    private final double requestUnitsPerSecond;
+    private final double readCharge;
+    private final double writeCharge;
+    private final String keystorePath;
+    private final String keystorePassword;
+
+    private SimulatorOptions(final Builder builder) {
+        this.host = builder.host;
+        this.port = builder.port;
+        this.regions = Collections.unmodifiableList(new ArrayList<>(builder.regions));
+        this.requestUnitsPerSecond = builder.requestUnitsPerSecond;
+        this.readCharge = builder.readCharge;
+        this.writeCharge = builder.writeCharge;
+        this.keystorePath = builder.keystorePath;
+        this.keystorePassword = builder.keystorePassword;
+
+        if (this.regions.isEmpty()) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "regions: expected at least one region");
+        }
+
+        if (this.keystorePath != null && this.keystorePassword == null) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + "keystore-password: must be set with keystore-path");
+        }
+    }
+
+    // region Methods
+
+    /**
+     * Creates a new {@link Builder builder} initialized with default option values.
+     *
+     * @return A new builder.
+     */
+    @NonNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Reads simulator options from system properties, falling back to defaults for any that are unset.
+     *
+     * @return Simulator options.
+     */
+    @NonNull
+    public static SimulatorOptions fromSystemProperties() {
+        final Builder builder = builder();
+        builder.host(getProperty("host", builder.host));
+        builder.port(getIntProperty("port", builder.port));
+        builder.regions(Region.parseList(getProperty("regions", Region.toString(builder.regions))));
+        builder.requestUnitsPerSecond(getDoubleProperty("request-units-per-second", builder.requestUnitsPerSecond));
+        builder.readCharge(getDoubleProperty("read-charge", builder.readCharge));
+        builder.writeCharge(getDoubleProperty("write-charge", builder.writeCharge));
+        builder.keystorePath(getProperty("keystore-path", builder.keystorePath));
+        builder.keystorePassword(getProperty("keystore-password", builder.keystorePassword));
+        return builder.build();
+    }
+
+    /**
+     * Gets the address on which the simulator listens.
+     *
+     * @return A host name or IP address.
+     */
+    @NonNull
+    public String getHost() {
+        return this.host;
+    }
+
+    /**
+     * Gets the password of the {@link #getKeystorePath keystore}.
+     *
+     * @return The keystore password or {@code null}, if TLS is disabled.
+     */
+    public String getKeystorePassword() {
+        return this.keystorePassword;
+    }
+
+    /**
+     * Gets the path of a keystore holding the private key and certificate presented to clients over TLS.
+     *
+     * @return The path of a keystore or {@code null}, if the simulator accepts plain text connections.
+     */
+    public String getKeystorePath() {
+        return this.keystorePath;
+    }
+
+    /**
+     * Gets the port on which the first region listens. Each subsequent region listens on the next port.
+     *
+     * @return A port number or zero, if each region listens on an ephemeral port.
+     */
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * Gets the number of request units (RUs) charged for each row returned by a query.
+     *
+     * @return The read charge in RUs.
+     */
+    public double getReadCharge() {
+        return this.readCharge;
+    }
+
+    /**
+     * Gets the simulated regions. Each region is presented to clients as a single node in a datacenter named after
+     * the region.
+     *
+     * @return An unmodifiable list of regions.
+     */
+    @NonNull
+    public List<Region> getRegions() {
+        return this.regions;
+    }
+
+    /**
+     * Gets the throughput provisioned in each region. Requests that would exceed it fail with an {@code Overloaded}
+     * error whose message carries a {@code RetryAfterMs} hint, as the Cosmos Cassandra API's 429 responses do.
+     *
+     * @return The provisioned throughput in request units (RUs) per second or zero, if throughput is unlimited.
+     */
+    public double getRequestUnitsPerSecond() {
+        return this.requestUnitsPerSecond;
+    }
+
+    /**
+     * Gets the number of request units (RUs) charged for each row written.
+     *
+     * @return The write charge in RUs.
+     */
+    public double getWriteCharge() {
+        return this.writeCharge;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatorOptions(host=" + this.host
+            + ", port=" + this.port
+            + ", regions=" + Region.toString(this.regions)
+            + ", request-units-per-second=" + this.requestUnitsPerSecond
+            + ", read-charge=" + this.readCharge
+            + ", write-charge=" + this.writeCharge
+            + ", keystore-path=" + this.keystorePath + ")";
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static double getDoubleProperty(final String name, final double defaultValue) {
+        final String value = getProperty(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (final NumberFormatException error) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + name + ": expected a number, not " + value, error);
+        }
+    }
+
+    private static int getIntProperty(final String name, final int defaultValue) {
+        final String value = getProperty(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (final NumberFormatException error) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + name + ": expected an integer, not " + value, error);
+        }
+    }
+
+    private static String getProperty(final String name, final String defaultValue) {
+        final String value = System.getProperty(PROPERTY_PREFIX + name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value;
+    }
+
+    private static double requireNonNegative(final String name, final double value) {
+        if (!(value >= 0.0)) {
+            throw new IllegalArgumentException(PROPERTY_PREFIX + name + ": expected a non-negative value, not "
+                + value);
+        }
+        return value;
+    }
+
+    // endregion
+
+    // region Types
+
+    /**
+     * A simulated region and the latency of requests served by it.
+     */
+    public static final class Region {
+
+        private final String name;
+        private final int latencyMillis;
+
+        /**
+         * Initializes a new region.
+         *
+         * @param name          The name of the region, e.g., {@code West US}. It is also the name of the region's
+         *                      datacenter.
+         * @param latencyMillis The time each request to the region takes, in milliseconds.
+         */
+        public Region(@NonNull final String name, final int latencyMillis) {
+            if (name.trim().isEmpty()) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "regions: expected a region name");
+            }
+            if (latencyMillis < 0) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "regions: expected a non-negative latency, not "
+                    + latencyMillis);
+            }
+            this.name = name.trim();
+            this.latencyMillis = latencyMillis;
+        }
+
+        /**
+         * Gets the time each request to this region takes.
+         *
+         * @return The latency of this region in milliseconds.
+         */
+        public int getLatencyMillis() {
+            return this.latencyMillis;
+        }
+
+        /**
+         * Gets the name of this region, which is also the name of its datacenter.
+         *
+         * @return The name of this region.
+         */
+        @NonNull
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Parses a comma-separated list of regions.
+         *
+         * @param value A comma-separated list of regions of the form {@code name=latencyMillis}, e.g., {@code West
+         *              US=5,East US=70}. The latency may be omitted, in which case it is zero. Blank entries are
+         *              ignored.
+         *
+         * @return A list of regions.
+         *
+         * @throws IllegalArgumentException If {@code value} cannot be parsed.
+         */
+        @NonNull
+        public static List<Region> parseList(@NonNull final String value) {
+            final List<Region> regions = new ArrayList<>();
+            for (final String entry : value.split(",")) {
+                if (entry.trim().isEmpty()) {
+                    continue;
+                }
+                final int separator = entry.lastIndexOf('=');
+                if (separator < 0) {
+                    regions.add(new Region(entry, 0));
+                    continue;
+                }
+                final String latency = entry.substring(separator + 1).trim();
+                try {
+                    regions.add(new Region(entry.substring(0, separator), Integer.parseInt(latency)));
+                } catch (final NumberFormatException error) {
+                    throw new IllegalArgumentException(PROPERTY_PREFIX + "regions: expected a latency in "
+                        + "milliseconds, not " + latency, error);
+                }
+            }
+            return regions;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + "=" + this.latencyMillis;
+        }
+
+        private static String toString(final List<Region> regions) {
+            final StringBuilder builder = new StringBuilder();
+            for (final Region region : regions) {
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+                builder.append(region);
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Builds {@link SimulatorOptions simulator options}.
+     */
+    public static final class Builder {
+
+        private String host = "127.0.0.1";
+        private int port = 10350;
+        private List<Region> regions = Collections.singletonList(new Region("datacenter1", 0));
+        private double requestUnitsPerSecond = 0.0;
+        private double readCharge = 1.0;
+        private double writeCharge = 5.0;
+        private String keystorePath = null;
+        private String keystorePassword = null;
+
+        private Builder() {
+        }
+
+        /**
+         * Builds simulator options from the values set on this builder.
+         *
+         * @return Simulator options.
+         */
+        @NonNull
+        public SimulatorOptions build() {
+            return new SimulatorOptions(this);
+        }
+
+        /**
+         * Sets the address on which the simulator listens.
+         *
+         * @param value A host name or IP address.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder host(@NonNull final String value) {
+            this.host = value;
+            return this;
+        }
+
+        /**
+         * Sets the password of the keystore.
+         *
+         * @param value The keystore password or {@code null}.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder keystorePassword(final String value) {
+            this.keystorePassword = value;
+            return this;
+        }
+
+        /**
+         * Sets the path of a keystore holding the private key and certificate presented to clients over TLS.
+         *
+         * @param value The path of a keystore or {@code null} to accept plain text connections.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder keystorePath(final String value) {
+            this.keystorePath = value;
+            return this;
+        }
+
+        /**
+         * Sets the port on which the first region listens. Each subsequent region listens on the next port.
+         *
+         * @param value A port number or zero to listen on ephemeral ports.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder port(final int value) {
+            if (value < 0 || value > 65535) {
+                throw new IllegalArgumentException(PROPERTY_PREFIX + "port: expected a port number, not " + value);
+            }
+            this.port = value;
+            return this;
+        }
+
+        /**
+         * Sets the number of request units (RUs) charged for each row returned by a query.
+         *
+         * @param value A non-negative number of RUs.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder readCharge(final double value) {
+            this.readCharge = requireNonNegative("read-charge", value);
+            return this;
+        }
+
+        /**
+         * Sets the simulated regions.
+         *
+         * @param value A non-empty list of regions.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder regions(@NonNull final List<Region> value) {
+            this.regions = new ArrayList<>(value);
+            return this;
+        }
+
+        /**
+         * Sets the throughput provisioned in each region.
+         *
+         * @param value A non-negative number of request units (RUs) per second; zero, if throughput is unlimited.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder requestUnitsPerSecond(final double value) {
+            this.requestUnitsPerSecond = requireNonNegative("request-units-per-second", value);
+            return this;
+        }
+
+        /**
+         * Sets the number of request units (RUs) charged for each row written.
+         *
+         * @param value A non-negative number of RUs.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder writeCharge(final double value) {
+            this.writeCharge = requireNonNegative("write-charge", value);
+            return this;
+        }
+    }
+
+    // endregion
+}
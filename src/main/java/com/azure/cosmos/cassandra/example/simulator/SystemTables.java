@@ -0,0 +1,306 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the rows of the system tables queried by the driver's control connection.
+ * <p>
+ * Each simulated region is presented as a single node in a datacenter named after the region. Nodes report Cassandra
+ * 3.11, so the driver reads schema metadata from the {@code system_schema} keyspace, and list one another in
+ * {@code system.peers_v2}, so that nodes may share an address and differ only in their port. The legacy
+ * {@code system.peers} table is served too, because the driver checks schema agreement against it.
+ */
+final class SystemTables {
+
+    static final String RELEASE_VERSION = "3.11.0";
+
+    private static final String CLUSTER_NAME = "cosmos-simulator";
+    private static final String PARTITIONER = "org.apache.cassandra.dht.Murmur3Partitioner";
+    private static final String RACK = "rack1";
+
+    private static final Map<String, String> CACHING;
+
+    static {
+        final Map<String, String> caching = new HashMap<>();
+        caching.put("keys", "ALL");
+        caching.put("rows_per_partition", "NONE");
+        CACHING = Collections.unmodifiableMap(caching);
+    }
+
+    private static final List<Column> LOCAL = Arrays.asList(
+        new Column("key", DataTypes.TEXT),
+        new Column("bootstrapped", DataTypes.TEXT),
+        new Column("broadcast_address", DataTypes.INET),
+        new Column("cluster_name", DataTypes.TEXT),
+        new Column("cql_version", DataTypes.TEXT),
+        new Column("data_center", DataTypes.TEXT),
+        new Column("host_id", DataTypes.UUID),
+        new Column("listen_address", DataTypes.INET),
+        new Column("native_protocol_version", DataTypes.TEXT),
+        new Column("partitioner", DataTypes.TEXT),
+        new Column("rack", DataTypes.TEXT),
+        new Column("release_version", DataTypes.TEXT),
+        new Column("rpc_address", DataTypes.INET),
+        new Column("schema_version", DataTypes.UUID),
+        new Column("tokens", DataTypes.setOf(DataTypes.TEXT)));
+
+    private static final List<Column> PEERS = Arrays.asList(
+        new Column("peer", DataTypes.INET),
+        new Column("data_center", DataTypes.TEXT),
+        new Column("host_id", DataTypes.UUID),
+        new Column("preferred_ip", DataTypes.INET),
+        new Column("rack", DataTypes.TEXT),
+        new Column("release_version", DataTypes.TEXT),
+        new Column("rpc_address", DataTypes.INET),
+        new Column("schema_version", DataTypes.UUID),
+        new Column("tokens", DataTypes.setOf(DataTypes.TEXT)));
+
+    private static final List<Column> PEERS_V2 = Arrays.asList(
+        new Column("peer", DataTypes.INET),
+        new Column("peer_port", DataTypes.INT),
+        new Column("data_center", DataTypes.TEXT),
+        new Column("host_id", DataTypes.UUID),
+        new Column("native_address", DataTypes.INET),
+        new Column("native_port", DataTypes.INT),
+        new Column("preferred_ip", DataTypes.INET),
+        new Column("preferred_port", DataTypes.INT),
+        new Column("rack", DataTypes.TEXT),
+        new Column("release_version", DataTypes.TEXT),
+        new Column("schema_version", DataTypes.UUID),
+        new Column("tokens", DataTypes.setOf(DataTypes.TEXT)));
+
+    private static final List<Column> KEYSPACES = Arrays.asList(
+        new Column("keyspace_name", DataTypes.TEXT),
+        new Column("durable_writes", DataTypes.BOOLEAN),
+        new Column("replication", DataTypes.mapOf(DataTypes.TEXT, DataTypes.TEXT)));
+
+    private static final List<Column> TABLES = Arrays.asList(
+        new Column("keyspace_name", DataTypes.TEXT),
+        new Column("table_name", DataTypes.TEXT),
+        new Column("caching", DataTypes.mapOf(DataTypes.TEXT, DataTypes.TEXT)),
+        new Column("comment", DataTypes.TEXT),
+        new Column("default_time_to_live", DataTypes.INT),
+        new Column("flags", DataTypes.setOf(DataTypes.TEXT)),
+        new Column("gc_grace_seconds", DataTypes.INT),
+        new Column("id", DataTypes.UUID));
+
+    private static final List<Column> COLUMNS = Arrays.asList(
+        new Column("keyspace_name", DataTypes.TEXT),
+        new Column("table_name", DataTypes.TEXT),
+        new Column("column_name", DataTypes.TEXT),
+        new Column("clustering_order", DataTypes.TEXT),
+        new Column("column_name_bytes", DataTypes.BLOB),
+        new Column("kind", DataTypes.TEXT),
+        new Column("position", DataTypes.INT),
+        new Column("type", DataTypes.TEXT));
+
+    private static final List<Column> UNSUPPORTED = Arrays.asList(
+        new Column("keyspace_name", DataTypes.TEXT),
+        new Column("table_name", DataTypes.TEXT));
+
+    private SystemTables() {
+        throw new UnsupportedOperationException();
+    }
+
+    // region Methods
+
+    /**
+     * Gets a value indicating whether a keyspace is one of the system keyspaces served by this class.
+     *
+     * @param keyspace The name of a keyspace.
+     *
+     * @return {@code true} if {@code keyspace} is a system keyspace; otherwise {@code false}.
+     */
+    static boolean isSystemKeyspace(final String keyspace) {
+        return "system".equals(keyspace) || "system_schema".equals(keyspace);
+    }
+
+    /**
+     * Gets the rows of a system table as seen by a node.
+     *
+     * @param keyspace The system keyspace.
+     * @param table    The system table.
+     * @param local    The node queried.
+     * @param database The database whose schema is described.
+     *
+     * @return The rows of the table.
+     *
+     * @throws CqlException If the simulator does not serve the table.
+     */
+    @NonNull
+    static RowSet select(
+        @NonNull final String keyspace,
+        @NonNull final String table,
+        @NonNull final SimulatedNode local,
+        @NonNull final SimulatedDatabase database) {
+
+        switch (keyspace + "." + table) {
+            case "system.local":
+                return new RowSet(keyspace, table, LOCAL, Collections.singletonList(local(local, database)));
+            case "system.peers":
+                return new RowSet(keyspace, table, PEERS, peers(local, database, false));
+            case "system.peers_v2":
+                return new RowSet(keyspace, table, PEERS_V2, peers(local, database, true));
+            case "system_schema.keyspaces":
+                return new RowSet(keyspace, table, KEYSPACES, keyspaces(database));
+            case "system_schema.tables":
+                return new RowSet(keyspace, table, TABLES, tables(database));
+            case "system_schema.columns":
+                return new RowSet(keyspace, table, COLUMNS, columns(database));
+            case "system_schema.aggregates":
+            case "system_schema.functions":
+            case "system_schema.indexes":
+            case "system_schema.triggers":
+            case "system_schema.types":
+            case "system_schema.views":
+                return new RowSet(keyspace, table, UNSUPPORTED, Collections.emptyList());
+            default:
+                throw CqlException.invalid("unconfigured table " + table);
+        }
+    }
+
+    // endregion
+
+    // region Privates
+
+    private static List<ByteBuffer[]> columns(final SimulatedDatabase database) {
+
+        final List<ByteBuffer[]> rows = new ArrayList<>();
+
+        for (final SimulatedTable table : database.getTables()) {
+            final List<Column> columns = table.getColumns();
+            for (int i = 0; i < columns.size(); i++) {
+                final Column column = columns.get(i);
+                final boolean partitionKey = i == table.getPartitionKeyIndex();
+                rows.add(encode(COLUMNS,
+                    table.getKeyspace(),
+                    table.getName(),
+                    column.getName(),
+                    "none",
+                    ByteBuffer.wrap(column.getName().getBytes(StandardCharsets.UTF_8)),
+                    partitionKey ? "partition_key" : "regular",
+                    partitionKey ? 0 : -1,
+                    column.getType().asCql(false, true)));
+            }
+        }
+
+        return rows;
+    }
+
+    private static ByteBuffer[] encode(final List<Column> columns, final Object... values) {
+        final ByteBuffer[] row = new ByteBuffer[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = columns.get(i).encode(values[i]);
+        }
+        return row;
+    }
+
+    private static List<ByteBuffer[]> keyspaces(final SimulatedDatabase database) {
+        final List<ByteBuffer[]> rows = new ArrayList<>();
+        for (final Map.Entry<String, Map<String, String>> keyspace : database.getKeyspaces().entrySet()) {
+            rows.add(encode(KEYSPACES, keyspace.getKey(), true, keyspace.getValue()));
+        }
+        return rows;
+    }
+
+    private static ByteBuffer[] local(final SimulatedNode local, final SimulatedDatabase database) {
+        final InetAddress address = local.getAddress().getAddress();
+        return encode(LOCAL,
+            "local",
+            "COMPLETED",
+            address,
+            CLUSTER_NAME,
+            "3.4.4",
+            local.getRegion().getName(),
+            local.getHostId(),
+            address,
+            "4",
+            PARTITIONER,
+            RACK,
+            RELEASE_VERSION,
+            address,
+            database.getSchemaVersion(),
+            Collections.singleton(Long.toString(local.getToken())));
+    }
+
+    private static List<ByteBuffer[]> peers(
+        final SimulatedNode local,
+        final SimulatedDatabase database,
+        final boolean v2) {
+
+        final List<ByteBuffer[]> rows = new ArrayList<>();
+
+        for (final SimulatedNode peer : local.getPeers()) {
+
+            if (peer == local) {
+                continue;
+            }
+
+            final InetAddress address = peer.getAddress().getAddress();
+            final int port = peer.getAddress().getPort();
+            final Set<String> tokens = Collections.singleton(Long.toString(peer.getToken()));
+
+            if (v2) {
+                rows.add(encode(PEERS_V2,
+                    address,
+                    port,
+                    peer.getRegion().getName(),
+                    peer.getHostId(),
+                    address,
+                    port,
+                    address,
+                    port,
+                    RACK,
+                    RELEASE_VERSION,
+                    database.getSchemaVersion(),
+                    tokens));
+            } else {
+                rows.add(encode(PEERS,
+                    address,
+                    peer.getRegion().getName(),
+                    peer.getHostId(),
+                    address,
+                    RACK,
+                    RELEASE_VERSION,
+                    address,
+                    database.getSchemaVersion(),
+                    tokens));
+            }
+        }
+
+        return rows;
+    }
+
+    private static List<ByteBuffer[]> tables(final SimulatedDatabase database) {
+        final List<ByteBuffer[]> rows = new ArrayList<>();
+        for (final SimulatedTable table : database.getTables()) {
+            rows.add(encode(TABLES,
+                table.getKeyspace(),
+                table.getName(),
+                CACHING,
+                "",
+                0,
+                Collections.singleton("compound"),
+                864000,
+                table.getId()));
+        }
+        return rows;
+    }
+
+    // endregion
+}
@@ -0,0 +1,8 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+/**
+ * A local stand-in for the Cosmos Cassandra API that speaks enough of the CQL native protocol to run the example and
+ * its load tests without an account, with configurable per-region latency and request unit throttling.
+ */
+package com.azure.cosmos.cassandra.example.simulator;
@@ -0,0 +1,107 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.AdaptiveConcurrencyLimiter.Outcome;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifies the additive-increase/multiplicative-decrease behavior of {@link AdaptiveConcurrencyLimiter}.
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    /**
+     * Verifies that clean successes grow the window by about one request per window's worth of successes.
+     *
+     * @throws InterruptedException if interrupted while acquiring a permit.
+     */
+    @Test
+    public void growsWhileRequestsSucceed() throws InterruptedException {
+
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.release(limiter.acquire(), Outcome.SUCCEEDED);
+        }
+
+        assertThat(limiter.getLimit()).isCloseTo(11.0, within(0.05));
+    }
+
+    /**
+     * Verifies that converged throughput is measured up to the time the limiter is stopped, not up to the time it is
+     * asked for.
+     *
+     * @throws InterruptedException if interrupted while acquiring a permit or sleeping.
+     */
+    @Test
+    public void freezesConvergedThroughputWhenStopped() throws InterruptedException {
+
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5);
+
+        limiter.release(limiter.acquire(), Outcome.OVERLOADED);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.release(limiter.acquire(), Outcome.SUCCEEDED);
+        }
+
+        limiter.stop();
+        final double throughput = limiter.getConvergedThroughput();
+        assertThat(throughput).isPositive();
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        limiter.stop();
+
+        assertThat(limiter.getConvergedThroughput()).isEqualTo(throughput);
+        assertThat(limiter.summarize()).endsWith(String.format(Locale.ROOT,
+            "converged throughput=%.1f ops/sec", throughput));
+    }
+
+    /**
+     * Verifies that a burst of overload signals from one generation of requests shrinks the window only once.
+     *
+     * @throws InterruptedException if interrupted while acquiring a permit.
+     */
+    @Test
+    public void shrinksOncePerGenerationOnOverload() throws InterruptedException {
+
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 100, 0.5);
+        final long[] permits = new long[8];
+
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = limiter.acquire();
+        }
+
+        for (final long permit : permits) {
+            limiter.release(permit, Outcome.OVERLOADED);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4.0);
+
+        limiter.release(limiter.acquire(), Outcome.RETRIED);
+        assertThat(limiter.getLimit()).isEqualTo(2.0);
+        assertThat(limiter.summarize()).contains("decreases=2", "retried=11.1% (1 of 9)", "overloaded=8");
+    }
+
+    /**
+     * Verifies that request outcomes are classified from the errors that caused them.
+     */
+    @Test
+    public void classifiesOutcomes() {
+        final OverloadedException overloaded = new OverloadedException(null);
+        assertThat(AdaptiveConcurrencyLimiter.classify(null, null)).isEqualTo(Outcome.SUCCEEDED);
+        assertThat(AdaptiveConcurrencyLimiter.classify(null, overloaded)).isEqualTo(Outcome.OVERLOADED);
+        assertThat(AdaptiveConcurrencyLimiter.classify(null, new CompletionException(overloaded)))
+            .isEqualTo(Outcome.OVERLOADED);
+        assertThat(AdaptiveConcurrencyLimiter.classify(null, new IllegalStateException()))
+            .isEqualTo(Outcome.FAILED);
+    }
+}
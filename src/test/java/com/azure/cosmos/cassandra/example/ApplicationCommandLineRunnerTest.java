@@ -375,6 +375,10 @@ public class ApplicationCommandLineRunnerTest {
         command.add("-Dazure.cosmos.cassandra.multi-region-writes=" + (multiRegionWrites ? "true" : "false"));
         command.add("-Dazure.cosmos.cassandra.run-id=" + RUN_ID);
 
+        // Interval reports depend on how long a run takes; disable them so that the output is predictable
+
+        command.add("-D" + LoadTestOptions.PROPERTY_PREFIX + "report-interval-seconds=0");
+
         for (final Map.Entry<String, String> property : PROPERTIES.entrySet()) {
             command.add("-D" + property.getKey() + '=' + property.getValue());
         }
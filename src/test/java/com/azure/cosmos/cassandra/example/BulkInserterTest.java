@@ -0,0 +1,219 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.simulator.CqlSimulator;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import com.datastax.oss.driver.api.core.config.TypedDriverOption;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that {@link BulkInserter} writes a stream of users to a {@link CqlSimulator simulated} account in batches,
+ * writes the rows left over one at a time, and reports failed requests with their rows.
+ */
+public class BulkInserterTest {
+
+    private static final String KEYSPACE = "uprofile";
+    private static final String TABLE = "user";
+
+    /**
+     * Verifies that full groups are sent as batches, that a leftover row is written on its own, and that every row
+     * reaches the table and the listener.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void insertsInBatchesAndSingleWrites() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE, TABLE));
+
+                new SchemaBootstrapper(session, KEYSPACE, TABLE, Backoff.ofSeconds(10)).bootstrap(
+                    "{ 'class' : 'SimpleStrategy', 'replication_factor' : 1 }", false);
+                repository.prepareStatements();
+
+                final AtomicLong listenedRows = new AtomicLong();
+                final BulkInserter.Result result = new BulkInserter(repository, 10, 64 * 1024, 2, 4).insert(
+                    rows(101, "payload"),
+                    (rows, batched, startNanos, error) -> {
+                        assertThat(error).isNull();
+                        assertThat(rows).hasSize(batched ? 10 : 1);
+                        listenedRows.addAndGet(rows.size());
+                    },
+                    1,
+                    TimeUnit.MINUTES);
+
+                assertThat(result.isFinished()).isTrue();
+                assertThat(result.getBatchCount()).isEqualTo(10L);
+                assertThat(result.getSingleCount()).isEqualTo(1L);
+                assertThat(result.getRowCount()).isEqualTo(101L);
+                assertThat(result.getFailedRowCount()).isZero();
+                assertThat(result.getFailures()).isEmpty();
+                assertThat(result.getBatchHistogram().getTotalCount()).isEqualTo(10L);
+                assertThat(result.getSingleHistogram().getTotalCount()).isEqualTo(1L);
+                assertThat(listenedRows).hasValue(101L);
+                assertThat(repository.selectUserCount()).isEqualTo(101L);
+                assertThat(repository.findUser("user-100")).isEqualTo(new User("user-100", "name-100", "city"));
+
+                // A batch is closed early once its estimated size would exceed the byte limit
+
+                final BulkInserter.Result bounded = new BulkInserter(repository, 10, 250, 2, 4).insert(rows(6,
+                    "0123456789012345678901234567890123456789"));
+
+                assertThat(bounded.getBatchCount()).isEqualTo(3L);
+                assertThat(bounded.getSingleCount()).isZero();
+            }
+        }
+    }
+
+    /**
+     * Verifies that failed requests are reported with the IDs of their rows and do not stop the insert.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void reportsFailures() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE,
+                    "missing"));
+
+                final BulkInserter.Result result = new BulkInserter(repository, 4, 64 * 1024, 2, 2).insert(rows(5,
+                    null));
+
+                assertThat(result.isFinished()).isTrue();
+                assertThat(result.getFailedRowCount()).isEqualTo(5L);
+                assertThat(result.getFailures()).hasSize(2);
+                assertThat(result.getFailures()).filteredOn(BulkInserter.Failure::isBatched).singleElement()
+                    .satisfies(failure -> assertThat(failure.getIds()).containsExactly("user-0", "user-1", "user-2",
+                        "user-3"));
+                assertThat(result.getFailures()).filteredOn(failure -> !failure.isBatched()).singleElement()
+                    .satisfies(failure -> assertThat(failure.getIds()).containsExactly("user-4"));
+                assertThat(result.getThroughput()).isZero();
+            }
+        }
+    }
+
+    /**
+     * Verifies that rows are written one at a time when the driver has no token metadata to group them by replica.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void writesSinglyWithoutTokenMetadata() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            final OptionsMap config = OptionsMap.driverDefaults();
+            config.put(TypedDriverOption.METADATA_TOKEN_MAP_ENABLED, false);
+
+            try (CqlSession session = connect(simulator, config)) {
+
+                final UserRepository repository = bootstrap(session);
+
+                final BulkInserter.Result result = new BulkInserter(repository, 10, 64 * 1024, 2, 4).insert(rows(25,
+                    null));
+
+                assertThat(result.isFinished()).isTrue();
+                assertThat(result.getBatchCount()).isZero();
+                assertThat(result.getSingleCount()).isEqualTo(25L);
+                assertThat(repository.selectUserCount()).isEqualTo(25L);
+            }
+        }
+    }
+
+    /**
+     * Verifies that requests that cannot be issued before the timeout elapses fail rather than wait for the requests
+     * ahead of them.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void failsRequestsNotIssuedInTime() throws Exception {
+
+        final SimulatorOptions options = SimulatorOptions.builder()
+            .port(0)
+            .regions(Collections.singletonList(new SimulatorOptions.Region("datacenter1", 500)))
+            .build();
+
+        try (CqlSimulator simulator = new CqlSimulator(options)) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator, OptionsMap.driverDefaults())) {
+
+                final UserRepository repository = bootstrap(session);
+
+                // One request in flight at a time; the first batch holds it for 500 ms
+
+                final long startNanos = System.nanoTime();
+                final BulkInserter.Result result = new BulkInserter(repository, 2, 64 * 1024, 2, 1).insert(
+                    rows(6, null),
+                    (rows, batched, start, error) -> { },
+                    100,
+                    TimeUnit.MILLISECONDS);
+
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)).isLessThan(450L);
+                assertThat(result.isFinished()).isFalse();
+                assertThat(result.getBatchCount()).isEqualTo(3L);
+                assertThat(result.getFailures()).hasSize(2).allSatisfy(failure ->
+                    assertThat(failure.getError()).isInstanceOf(TimeoutException.class));
+                assertThat(result.getFailedRowCount()).isEqualTo(4L);
+            }
+        }
+    }
+
+    private static UserRepository bootstrap(final CqlSession session) throws InterruptedException {
+        final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE, TABLE));
+        new SchemaBootstrapper(session, KEYSPACE, TABLE, Backoff.ofSeconds(10)).bootstrap(
+            "{ 'class' : 'SimpleStrategy', 'replication_factor' : 1 }", false);
+        repository.prepareStatements();
+        return repository;
+    }
+
+    private static CqlSession connect(final CqlSimulator simulator) {
+        return connect(simulator, OptionsMap.driverDefaults());
+    }
+
+    private static CqlSession connect(final CqlSimulator simulator, final OptionsMap config) {
+        return CqlSession.builder()
+            .withConfigLoader(DriverConfigLoader.fromMap(config))
+            .addContactPoints(simulator.getContactPoints())
+            .withLocalDatacenter("datacenter1")
+            .build();
+    }
+
+    private static Stream<UserRow> rows(final int count, final String payload) {
+        final List<UserRow> rows = IntStream.range(0, count)
+            .mapToObj(i -> new UserRow("user-" + i, "name-" + i, "city", payload))
+            .collect(Collectors.toList());
+        return rows.stream();
+    }
+}
@@ -0,0 +1,170 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.DriverMetrics.MetricsSnapshot;
+import com.azure.cosmos.cassandra.example.DriverMetrics.RegionMetrics;
+import com.azure.cosmos.cassandra.example.simulator.CqlSimulator;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions.Region;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import com.datastax.oss.driver.api.core.config.TypedDriverOption;
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that {@link DriverMetrics} aggregates driver metrics by datacenter and that {@link DriverMetricsExporter}
+ * exposes them over JMX and in Prometheus text format.
+ */
+public class DriverMetricsTest {
+
+    /**
+     * Verifies that requests are attributed to the local datacenter and exported over JMX and HTTP.
+     *
+     * @throws Exception If the simulator or exporter cannot be started.
+     */
+    @Test
+    public void exportsMetricsByDatacenter() throws Exception {
+
+        final SimulatorOptions options = SimulatorOptions.builder()
+            .port(0)
+            .regions(Region.parseList("West US=0,East US=0"))
+            .build();
+
+        try (CqlSimulator simulator = new CqlSimulator(options)) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator, true)) {
+
+                for (int i = 0; i < 20; i++) {
+                    session.execute("SELECT release_version FROM system.local");
+                }
+
+                final DriverMetrics metrics = new DriverMetrics(session);
+                final MetricsSnapshot snapshot = metrics.snapshot();
+
+                assertThat(snapshot.isEnabled()).isTrue();
+                assertThat(snapshot.getRequestCount()).isGreaterThanOrEqualTo(20L);
+                assertThat(snapshot.getRegions()).extracting(RegionMetrics::getDatacenter)
+                    .containsExactly("East US", "West US");
+                assertThat(snapshot.getRegion("West US").getRequestCount()).isGreaterThanOrEqualTo(20L);
+                assertThat(snapshot.getRegion("West US").getOpenConnections()).isPositive();
+                assertThat(snapshot.getRegion("East US").getRequestCount()).isZero();
+
+                final Map<String, Object> summary = new LinkedHashMap<>();
+                snapshot.putSummary(summary);
+                assertThat(summary).containsKeys("driver-requests", "driver-west-us-requests",
+                    "driver-east-us-p99-latency-ms");
+
+                try (DriverMetricsExporter exporter = DriverMetricsExporter.start(metrics,
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+
+                    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                    final ObjectName westUs = new ObjectName("com.azure.cosmos.cassandra.example:type=DriverMetrics,"
+                        + "session=" + ObjectName.quote(session.getName()) + ",scope=datacenter,datacenter="
+                        + ObjectName.quote("West US"));
+
+                    assertThat(exporter.getObjectNames()).hasSize(3).contains(westUs);
+                    assertThat((Long) server.getAttribute(westUs, "requests")).isGreaterThanOrEqualTo(20L);
+                    assertThatThrownBy(() -> server.setAttribute(westUs, new Attribute("requests", 0L)))
+                        .isInstanceOf(AttributeNotFoundException.class);
+                    assertThatThrownBy(() -> server.invoke(westUs, "reset", null, null))
+                        .isInstanceOf(ReflectionException.class);
+
+                    final List<String> lines = get(exporter.getAddress());
+
+                    assertThat(lines).contains("# TYPE azure_cosmos_cassandra_session_requests_total counter");
+                    assertThat(lines).anyMatch(line ->
+                        line.startsWith("azure_cosmos_cassandra_datacenter_requests_total{datacenter=\"West US\"} "));
+                    assertThat(lines).contains(
+                        "azure_cosmos_cassandra_datacenter_requests_total{datacenter=\"East US\"} 0");
+
+                    exporter.close();
+                    assertThat(server.isRegistered(westUs)).isFalse();
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies that a session without metrics yields an empty snapshot.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void reportsDisabledMetrics() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator, false)) {
+
+                final MetricsSnapshot snapshot = new DriverMetrics(session).snapshot();
+
+                assertThat(snapshot.isEnabled()).isFalse();
+                assertThat(snapshot.getRegions()).isEmpty();
+                assertThat(snapshot.toString()).isEqualTo("driver metrics are disabled");
+            }
+        }
+    }
+
+    private static CqlSession connect(final CqlSimulator simulator, final boolean metricsEnabled) {
+
+        final OptionsMap config = OptionsMap.driverDefaults();
+
+        if (metricsEnabled) {
+            config.put(TypedDriverOption.METRICS_SESSION_ENABLED, Arrays.asList("connected-nodes", "cql-requests"));
+            config.put(TypedDriverOption.METRICS_NODE_ENABLED, Arrays.asList(
+                "pool.open-connections", "pool.in-flight", "cql-messages", "retries.total", "errors.request.others"));
+        }
+
+        return CqlSession.builder()
+            .withConfigLoader(DriverConfigLoader.fromMap(config))
+            .addContactPoints(simulator.getContactPoints())
+            .withLocalDatacenter(simulator.getContactPoints().size() > 1 ? "West US" : "datacenter1")
+            .build();
+    }
+
+    private static List<String> get(final InetSocketAddress address) throws Exception {
+
+        final URL url = new URL("http://" + address.getHostString() + ":" + address.getPort() + "/metrics");
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+        try {
+            assertThat(connection.getResponseCode()).isEqualTo(200);
+            assertThat(connection.getContentType()).startsWith("text/plain");
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                StandardCharsets.UTF_8))) {
+                return reader.lines().collect(Collectors.toList());
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
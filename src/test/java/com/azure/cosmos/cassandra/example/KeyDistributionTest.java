@@ -0,0 +1,120 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that each {@link KeyDistribution} selects keys in range and with the expected skew.
+ */
+public class KeyDistributionTest {
+
+    private static final int KEY_COUNT = 10_000;
+    private static final int SAMPLE_COUNT = 200_000;
+
+    /**
+     * Verifies that uniform selection spreads keys evenly over the key space.
+     */
+    @Test
+    public void selectsUniformly() {
+
+        final long[] counts = sample(KeyDistribution.UNIFORM, 0.99);
+
+        // Each tenth of the key space should get close to a tenth of the selections
+
+        for (int decile = 0; decile < 10; decile++) {
+            long count = 0;
+            for (int key = decile * KEY_COUNT / 10; key < (decile + 1) * KEY_COUNT / 10; key++) {
+                count += counts[key];
+            }
+            assertThat(count).isBetween(SAMPLE_COUNT / 10 - 2_000L, SAMPLE_COUNT / 10 + 2_000L);
+        }
+    }
+
+    /**
+     * Verifies that zipfian selection concentrates on the earliest keys with the frequencies of a Zipf distribution.
+     */
+    @Test
+    public void selectsHotKeysFirst() {
+
+        final double exponent = 0.99;
+        final long[] counts = sample(KeyDistribution.ZIPFIAN, exponent);
+
+        double harmonic = 0.0;
+
+        for (int k = 1; k <= KEY_COUNT; k++) {
+            harmonic += Math.pow(k, -exponent);
+        }
+
+        // The first key's expected share is 1 / H(n, s), about 10% here
+
+        final double expected = SAMPLE_COUNT / harmonic;
+
+        assertThat((double) counts[0]).isBetween(expected * 0.95, expected * 1.05);
+        assertThat(counts[0]).isGreaterThan(counts[1]);
+        assertThat(counts[1]).isGreaterThan(counts[9]);
+        assertThat(sum(counts, 0, KEY_COUNT / 100)).isGreaterThan(SAMPLE_COUNT / 2);
+    }
+
+    /**
+     * Verifies that latest selection concentrates on the most recently written keys.
+     */
+    @Test
+    public void selectsLatestKeysFirst() {
+
+        final long[] counts = sample(KeyDistribution.LATEST, 0.99);
+
+        assertThat(counts[KEY_COUNT - 1]).isGreaterThan(counts[KEY_COUNT - 2]);
+        assertThat(counts[KEY_COUNT - 1]).isGreaterThan(counts[0] * 100);
+        assertThat(sum(counts, KEY_COUNT - KEY_COUNT / 100, KEY_COUNT)).isGreaterThan(SAMPLE_COUNT / 2);
+    }
+
+    /**
+     * Verifies that selections from a single key, a large key space, and an empty one behave.
+     */
+    @Test
+    public void handlesEdgeCases() {
+
+        final Random random = new Random(7);
+
+        for (final KeyDistribution distribution : KeyDistribution.values()) {
+            assertThat(distribution.select(1, 1.0, random)).isZero();
+            for (int i = 0; i < 1_000; i++) {
+                assertThat(distribution.select(Long.MAX_VALUE / 2, 1.5, random)).isBetween(0L, Long.MAX_VALUE / 2 - 1);
+            }
+            assertThatThrownBy(() -> distribution.select(0, 1.0, random))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        assertThat(KeyDistribution.parse(" Zipfian ")).isEqualTo(KeyDistribution.ZIPFIAN);
+        assertThatThrownBy(() -> KeyDistribution.parse("gaussian")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long[] sample(final KeyDistribution distribution, final double exponent) {
+
+        final Random random = new Random(42);
+        final long[] counts = new long[KEY_COUNT];
+
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            final long key = distribution.select(KEY_COUNT, exponent, random);
+            assertThat(key).isBetween(0L, KEY_COUNT - 1L);
+            counts[(int) key]++;
+        }
+
+        return counts;
+    }
+
+    private static long sum(final long[] counts, final int from, final int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += counts[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,104 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifies that {@link LatencyRecorder} merges striped histograms and corrects for coordinated omission.
+ */
+public class LatencyRecorderTest {
+
+    /**
+     * Verifies that values recorded on many threads are all present in the merged histograms.
+     *
+     * @throws InterruptedException if interrupted while waiting for a recording thread.
+     */
+    @Test
+    public void mergesValuesRecordedOnAllThreads() throws InterruptedException {
+
+        final LatencyRecorder recorder = new LatencyRecorder("write");
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            final Thread thread = new Thread(() -> {
+                for (long value = 1; value <= 1_000; value++) {
+                    recorder.record(TimeUnit.MICROSECONDS.toNanos(value));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final Histogram interval = recorder.getIntervalHistogram();
+        assertThat(interval.getTotalCount()).isEqualTo(8_000);
+        assertThat(interval.getValueAtPercentile(50.0)).isCloseTo(500_000L, within(1_000L));
+        assertThat(recorder.getIntervalHistogram().getTotalCount()).isZero();
+
+        recorder.record(TimeUnit.SECONDS.toNanos(1));
+
+        final Histogram total = recorder.getTotalHistogram();
+        assertThat(total.getTotalCount()).isEqualTo(8_001);
+        assertThat(total.getMaxValue()).isCloseTo(TimeUnit.SECONDS.toNanos(1), within(1_000_000L));
+    }
+
+    /**
+     * Verifies that a latency longer than the expected interval back-fills the requests that were never issued.
+     */
+    @Test
+    public void correctsForCoordinatedOmission() {
+
+        final long interval = TimeUnit.MILLISECONDS.toNanos(10);
+        final LatencyRecorder recorder = new LatencyRecorder("write", interval);
+
+        recorder.record(TimeUnit.MILLISECONDS.toNanos(100));
+
+        final Histogram histogram = recorder.getTotalHistogram();
+        assertThat(histogram.getTotalCount()).isEqualTo(10);
+        assertThat(histogram.getMinValue()).isCloseTo(interval, within(100_000L));
+        assertThat(LatencyRecorder.summarize(histogram)).endsWith("ms [n=10]");
+    }
+
+    /**
+     * Verifies that only paced closed-loop modes have an expected interval and that other modes reject the option.
+     */
+    @Test
+    public void correctsOnlyPacedClosedLoopModes() {
+
+        final LoadTestOptions.Builder builder = LoadTestOptions.builder()
+            .threadCount(10)
+            .targetRate(1_000.0)
+            .correctCoordinatedOmission(true);
+
+        assertThat(builder.mode(LoadTestOptions.Mode.THREADS).build().getExpectedIntervalNanos())
+            .isEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+
+        for (final LoadTestOptions.Mode mode : new LoadTestOptions.Mode[] {
+            LoadTestOptions.Mode.ASYNC, LoadTestOptions.Mode.OPEN_LOOP, LoadTestOptions.Mode.WRITE_BEHIND }) {
+            assertThatThrownBy(() -> builder.mode(mode).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("correct-coordinated-omission");
+        }
+
+        assertThatThrownBy(() -> builder.mode(LoadTestOptions.Mode.THREADS).targetRate(0.0).build())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("requires a target-rate");
+
+        assertThat(builder.correctCoordinatedOmission(false).mode(LoadTestOptions.Mode.OPEN_LOOP).targetRate(1_000.0)
+            .build().getExpectedIntervalNanos()).isZero();
+    }
+}
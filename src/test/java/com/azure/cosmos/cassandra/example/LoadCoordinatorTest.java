@@ -0,0 +1,135 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that a {@link LoadCoordinator} starts its {@link LoadWorker workers} together and merges their {@link
+ * LoadReport reports}.
+ */
+public class LoadCoordinatorTest {
+
+    /**
+     * Verifies that the coordinator waits for every worker, ignoring a connection that is not one of its workers, and
+     * that merged counters and histograms cover all workers.
+     *
+     * @throws Exception If the coordinator cannot listen on a loopback port.
+     */
+    @Test
+    public void startsWorkersAndMergesReports() throws Exception {
+
+        try (LoadCoordinator coordinator = new LoadCoordinator(2, 0)) {
+
+            final String address = InetAddress.getLoopbackAddress().getHostAddress() + ":" + coordinator.getPort();
+            final List<CompletableFuture<Void>> workers = new ArrayList<>();
+
+            try (Socket stranger = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+
+                final DataOutputStream output = new DataOutputStream(stranger.getOutputStream());
+                output.writeInt(LoadCoordinator.MAGIC);
+                output.writeInt(LoadCoordinator.VERSION);
+                output.writeInt(0);
+                output.writeInt(3);
+                output.flush();
+
+                for (int index = 0; index < 2; index++) {
+                    final int workerIndex = index;
+                    workers.add(CompletableFuture.runAsync(() -> {
+                        try (LoadWorker worker = LoadWorker.connect(address, workerIndex, 2, 1, TimeUnit.MINUTES)) {
+                            worker.awaitStart(1, TimeUnit.MINUTES);
+                            worker.report(newReport(workerIndex));
+                        } catch (final Exception error) {
+                            throw new IllegalStateException(error);
+                        }
+                    }));
+                }
+
+                coordinator.start(1, TimeUnit.MINUTES);
+            }
+
+            final LoadReport report = coordinator.collect(1, TimeUnit.MINUTES);
+            CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.MINUTES);
+
+            assertThat(report.getWorkerCount()).isEqualTo(2);
+            assertThat(report.isFinished()).isFalse();
+            assertThat(report.getAttemptedCount()).isEqualTo(200L);
+            assertThat(report.getInsertedCount()).isEqualTo(199L);
+            assertThat(report.getErrorCount()).isEqualTo(1L);
+            assertThat(report.getVerifiedCount()).isZero();
+            assertThat(report.getWriteNanos()).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+            assertThat(report.getWriteThroughput()).isEqualTo(99.5);
+
+            final Histogram writeHistogram = report.getWriteHistogram();
+
+            assertThat(writeHistogram.getTotalCount()).isEqualTo(199L);
+            assertThat(writeHistogram.getMaxValue()).isEqualTo(writeHistogram.highestEquivalentValue(
+                TimeUnit.MILLISECONDS.toNanos(198)));
+            assertThat(report.getReadHistogram().getTotalCount()).isEqualTo(2L);
+
+            final Map<String, Object> summary = new LinkedHashMap<>();
+            report.putSummary(summary);
+
+            assertThat(summary).containsEntry("workers", 2).containsEntry("write-latency-count", 199L);
+        }
+    }
+
+    /**
+     * Verifies that a local worker is launched with this JVM's options and load test properties, but with its own
+     * worker properties and a recording file of its own.
+     */
+    @Test
+    public void buildsWorkerCommands() {
+
+        final Map<String, String> properties = new LinkedHashMap<>();
+        properties.put(LoadTestOptions.PROPERTY_PREFIX + "threads", "10");
+        properties.put(LoadTestOptions.PROPERTY_PREFIX + "workers", "4");
+        properties.put(LoadTestOptions.PROPERTY_PREFIX + "summary-file", "summary.json");
+        properties.put(LoadTestOptions.PROPERTY_PREFIX + "metrics-port", "9464");
+        properties.put(LoadTestOptions.PROPERTY_PREFIX + "recording-file", "runs/load.test.jfr");
+
+        assertThat(LoadCoordinator.workerCommand("java", Arrays.asList("-Xmx1g"), properties, "app.jar", "Main", 3,
+            "127.0.0.1:5000")).containsExactly(
+                "java",
+                "-Xmx1g",
+                "-D" + LoadTestOptions.PROPERTY_PREFIX + "threads=10",
+                "-D" + LoadTestOptions.PROPERTY_PREFIX + "workers=4",
+                "-D" + LoadTestOptions.PROPERTY_PREFIX + "worker-index=3",
+                "-D" + LoadTestOptions.PROPERTY_PREFIX + "coordinator=127.0.0.1:5000",
+                "-D" + LoadTestOptions.PROPERTY_PREFIX + "metrics-port=0",
+                "-D" + LoadTestOptions.PROPERTY_PREFIX + "recording-file=runs/load.test-worker-3.jfr",
+                "-cp",
+                "app.jar",
+                "Main");
+    }
+
+    private static LoadReport newReport(final int index) {
+
+        final Histogram writeHistogram = new Histogram(3);
+        final Histogram readHistogram = new Histogram(3);
+
+        for (int i = 0; i < 100 - index; i++) {
+            writeHistogram.recordValue(TimeUnit.MILLISECONDS.toNanos(i + 100 * index));
+        }
+
+        readHistogram.recordValue(TimeUnit.MILLISECONDS.toNanos(5));
+
+        return LoadReport.of(index == 0, TimeUnit.SECONDS.toNanos(index + 1), 100L, 100L - index, index, null,
+            writeHistogram, readHistogram);
+    }
+}
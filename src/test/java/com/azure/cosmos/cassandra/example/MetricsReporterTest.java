@@ -0,0 +1,131 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that {@link MetricsReporter} prints interval reports and writes summaries.
+ */
+public class MetricsReporterTest {
+
+    /**
+     * Verifies that the final report covers latencies recorded since the reporter started without losing them from
+     * the recorders' totals.
+     *
+     * @throws InterruptedException If interrupted while stopping the reporter.
+     */
+    @Test
+    public void reportsIntervals() throws InterruptedException {
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final LatencyRecorder writes = new LatencyRecorder("write");
+        final LatencyRecorder reads = new LatencyRecorder("read");
+        final MetricsReporter reporter = new MetricsReporter(writes, reads, () -> 3L, 60,
+            new PrintStream(buffer, true));
+
+        reporter.start();
+        writes.record(TimeUnit.MILLISECONDS.toNanos(5));
+        writes.record(TimeUnit.MILLISECONDS.toNanos(7));
+        reporter.stop();
+
+        final String output = new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+
+        assertThat(output).contains("write: ").contains("[n=2]").contains("read: ").endsWith("errors: 0"
+            + System.lineSeparator());
+        assertThat(writes.getTotalHistogram().getTotalCount()).isEqualTo(2);
+    }
+
+    /**
+     * Verifies that the partial window harvested on stopping is kept and written to a time series without printing an
+     * interval report, when interval reports are disabled.
+     *
+     * @param directory A temporary directory.
+     *
+     * @throws Exception If the reporter is interrupted or the time series cannot be written or read.
+     */
+    @Test
+    public void keepsMeasurementWindows(@TempDir final Path directory) throws Exception {
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final LatencyRecorder writes = new LatencyRecorder("write");
+        final LatencyRecorder reads = new LatencyRecorder("read");
+        final MetricsReporter reporter = new MetricsReporter(writes, reads, () -> 0L, 0, 60,
+            new PrintStream(buffer, true));
+
+        reporter.start();
+        writes.record(TimeUnit.MILLISECONDS.toNanos(5));
+        reads.record(TimeUnit.MILLISECONDS.toNanos(2));
+        reads.record(TimeUnit.MILLISECONDS.toNanos(3));
+        reporter.stop();
+
+        final List<MeasurementWindow> windows = reporter.getWindows();
+
+        assertThat(buffer.size()).isZero();
+        assertThat(windows).hasSize(1);
+        assertThat(windows.get(0).isComplete()).isFalse();
+        assertThat(windows.get(0).getWriteCount()).isEqualTo(1L);
+        assertThat(windows.get(0).getReadHistogram().getTotalCount()).isEqualTo(2L);
+
+        final Path csv = directory.resolve("windows.csv");
+        MetricsReporter.writeWindows(csv, windows);
+
+        final List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).isEqualTo(MeasurementWindow.CSV_HEADER);
+        assertThat(lines.get(1)).startsWith("0,0.000,").contains(",false,");
+        assertThat(lines.get(1).split(",")).hasSize(MeasurementWindow.CSV_HEADER.split(",").length);
+    }
+
+    /**
+     * Verifies that summaries are written as JSON or CSV, according to the file extension.
+     *
+     * @param directory A temporary directory.
+     *
+     * @throws IOException If a summary cannot be written or read.
+     */
+    @Test
+    public void writesSummaries(@TempDir final Path directory) throws IOException {
+
+        final Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("mode", "async");
+        summary.put("errors", 0);
+        summary.put("write-throughput", 1234.5);
+        summary.put("note", "a, \"quoted\" value");
+
+        final Path json = directory.resolve("summary.json");
+        final Path csv = directory.resolve("summary.csv");
+
+        MetricsReporter.writeSummary(json, summary);
+        MetricsReporter.writeSummary(csv, summary);
+
+        assertThat(new String(Files.readAllBytes(json), StandardCharsets.UTF_8)).isEqualTo("{\n"
+            + "  \"mode\": \"async\",\n"
+            + "  \"errors\": 0,\n"
+            + "  \"write-throughput\": 1234.500,\n"
+            + "  \"note\": \"a, \\\"quoted\\\" value\"\n"
+            + "}\n");
+
+        final List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+
+        assertThat(lines).containsExactly(
+            "mode,errors,write-throughput,note",
+            "async,0,1234.500,\"a, \"\"quoted\"\" value\"");
+    }
+}
@@ -0,0 +1,63 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifies that {@link OpenLoopScheduler} computes its schedule correctly and dispatches every operation.
+ */
+public class OpenLoopSchedulerTest {
+
+    /**
+     * Verifies that the schedule honors ramp-up steps before settling at the target rate.
+     */
+    @Test
+    public void computesRampedSchedule() {
+
+        // Two ramp-up steps of one second each at 100/3 and 200/3 ops/sec, then 100 ops/sec
+
+        final OpenLoopScheduler scheduler = new OpenLoopScheduler(100.0, 2, TimeUnit.SECONDS.toNanos(1), 1, 1);
+
+        assertThat(scheduler.getIntendedOffsetNanos(0)).isZero();
+        assertThat(scheduler.getIntendedOffsetNanos(1)).isCloseTo(30_000_000L, within(1_000L));
+        assertThat(scheduler.getIntendedOffsetNanos(100)).isCloseTo(TimeUnit.SECONDS.toNanos(2), within(1_000L));
+        assertThat(scheduler.getIntendedOffsetNanos(200)).isCloseTo(TimeUnit.SECONDS.toNanos(3), within(1_000L));
+
+        final OpenLoopScheduler flat = new OpenLoopScheduler(1_000.0, 0, 0L, 1, 1);
+        assertThat(flat.getIntendedOffsetNanos(500)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    /**
+     * Verifies that every operation is dispatched no earlier than its intended start time.
+     *
+     * @throws InterruptedException if interrupted while waiting for the run to complete.
+     */
+    @Test
+    public void dispatchesOnSchedule() throws InterruptedException {
+
+        final OpenLoopScheduler scheduler = new OpenLoopScheduler(1_000.0, 0, 0L, 2, 16);
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong early = new AtomicLong();
+
+        final boolean finished = scheduler.run(200, (n, intendedStartNanos) -> {
+            if (System.nanoTime() < intendedStartNanos) {
+                early.incrementAndGet();
+            }
+            count.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }, 10, TimeUnit.SECONDS);
+
+        assertThat(finished).isTrue();
+        assertThat(count.get()).isEqualTo(200);
+        assertThat(early.get()).isZero();
+    }
+}
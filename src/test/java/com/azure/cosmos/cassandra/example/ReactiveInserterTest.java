@@ -0,0 +1,234 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.simulator.CqlSimulator;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies the reactive streaming API of {@link UserRepository}--{@link ReactiveInserter inserts} from an upstream
+ * publisher and {@link ReactiveSelect selects} of single users and whole tables--against a {@link CqlSimulator
+ * simulated} account.
+ */
+public class ReactiveInserterTest {
+
+    private static final String KEYSPACE = "uprofile";
+    private static final String TABLE = "user";
+
+    /**
+     * Verifies that rows are requested from upstream no faster than they are written and consumed, that every row is
+     * written and published, and that the rows written can be streamed back one user or one page at a time.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void insertsAndStreamsUsersWithBackpressure() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE, TABLE));
+
+                new SchemaBootstrapper(session, KEYSPACE, TABLE, Backoff.ofSeconds(10)).bootstrap(
+                    "{ 'class' : 'SimpleStrategy', 'replication_factor' : 1 }", false);
+                repository.prepareStatements();
+
+                final RangePublisher upstream = new RangePublisher(250);
+                final TestSubscriber<UserRow> inserted = new TestSubscriber<>(3);
+
+                repository.insertUsersReactive(upstream, 8).subscribe(inserted);
+
+                assertThat(inserted.await()).isNull();
+                assertThat(inserted.items).hasSize(250);
+                assertThat(upstream.maxOutstanding).hasValueBetween(1L, 8L);
+                assertThat(repository.selectUserCount()).isEqualTo(250L);
+
+                final TestSubscriber<User> scanned = new TestSubscriber<>(1);
+
+                repository.selectAllUsersReactive(40).subscribe(scanned);
+
+                assertThat(scanned.await()).isNull();
+                assertThat(scanned.items).hasSize(250);
+                assertThat(scanned.items).contains(new User("user-249", "name-249", "city"));
+
+                final TestSubscriber<User> selected = new TestSubscriber<>(1);
+
+                repository.selectUserReactive("user-7").subscribe(selected);
+
+                assertThat(selected.await()).isNull();
+                assertThat(selected.items).containsExactly(new User("user-7", "name-7", "city"));
+
+                final TestSubscriber<User> missing = new TestSubscriber<>(1);
+
+                repository.selectUserReactive("no-such-user").subscribe(missing);
+
+                assertThat(missing.await()).isNull();
+                assertThat(missing.items).isEmpty();
+            }
+        }
+    }
+
+    /**
+     * Verifies that a failed write is signalled as an error and cancels the upstream subscription.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void signalsFailedWrite() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE,
+                    "missing"));
+
+                final RangePublisher upstream = new RangePublisher(1_000);
+                final TestSubscriber<UserRow> inserted = new TestSubscriber<>(Long.MAX_VALUE);
+
+                repository.insertUsersReactive(upstream, 4).subscribe(inserted);
+
+                assertThat(inserted.await()).isNotNull();
+                assertThat(inserted.items).isEmpty();
+                assertThat(upstream.cancelled.getCount()).isZero();
+                assertThat(upstream.emitted.get()).isLessThan(1_000);
+            }
+        }
+    }
+
+    private static CqlSession connect(final CqlSimulator simulator) {
+        return CqlSession.builder()
+            .withConfigLoader(DriverConfigLoader.fromMap(OptionsMap.driverDefaults()))
+            .addContactPoints(simulator.getContactPoints())
+            .withLocalDatacenter("datacenter1")
+            .build();
+    }
+
+    /**
+     * Publishes a fixed number of rows on demand and records the largest number of rows requested but not yet
+     * delivered.
+     */
+    private static final class RangePublisher implements Publisher<UserRow> {
+
+        private final int count;
+        private final AtomicInteger emitted = new AtomicInteger();
+        private final AtomicLong maxOutstanding = new AtomicLong();
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+
+        RangePublisher(final int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void subscribe(final Subscriber<? super UserRow> subscriber) {
+
+            final AtomicLong outstanding = new AtomicLong();
+            final AtomicInteger wip = new AtomicInteger();
+
+            subscriber.onSubscribe(new Subscription() {
+
+                private volatile boolean done;
+
+                @Override
+                public void cancel() {
+                    this.done = true;
+                    RangePublisher.this.cancelled.countDown();
+                }
+
+                @Override
+                public void request(final long n) {
+                    RangePublisher.this.maxOutstanding.accumulateAndGet(outstanding.addAndGet(n), Math::max);
+                    if (wip.getAndIncrement() != 0) {
+                        return;
+                    }
+                    do {
+                        while (outstanding.get() > 0 && !this.done) {
+                            final int i = RangePublisher.this.emitted.get();
+                            if (i == RangePublisher.this.count) {
+                                this.done = true;
+                                subscriber.onComplete();
+                                return;
+                            }
+                            RangePublisher.this.emitted.incrementAndGet();
+                            outstanding.decrementAndGet();
+                            subscriber.onNext(new UserRow("user-" + i, "name-" + i, "city", null));
+                        }
+                    } while (wip.decrementAndGet() != 0);
+                }
+            });
+        }
+    }
+
+    /**
+     * Collects the items of a publisher, requesting them in batches of a given size.
+     */
+    private static final class TestSubscriber<T> implements Subscriber<T> {
+
+        private final long batchSize;
+        private final List<T> items = new CopyOnWriteArrayList<>();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Subscription subscription;
+        private long remaining;
+
+        TestSubscriber(final long batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        Throwable await() throws InterruptedException {
+            assertThat(this.done.await(1, TimeUnit.MINUTES)).isTrue();
+            return this.error.get();
+        }
+
+        @Override
+        public void onComplete() {
+            this.done.countDown();
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            this.error.set(throwable);
+            this.done.countDown();
+        }
+
+        @Override
+        public void onNext(final T item) {
+            this.items.add(item);
+            if (--this.remaining == 0) {
+                this.remaining = this.batchSize;
+                this.subscription.request(this.batchSize);
+            }
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            this.subscription = subscription;
+            this.remaining = this.batchSize;
+            subscription.request(this.batchSize);
+        }
+    }
+}
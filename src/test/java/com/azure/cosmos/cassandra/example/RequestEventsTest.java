@@ -0,0 +1,104 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that {@link RequestEvents} records requests and load test phases in a flight recording and breaks their
+ * latency down by phase.
+ */
+public class RequestEventsTest {
+
+    /**
+     * Verifies that request and phase events are recorded on Java 11 or later, and that a recording is refused
+     * otherwise.
+     *
+     * @param directory A temporary directory for the recording.
+     *
+     * @throws Exception If the recording cannot be written or read back.
+     */
+    @Test
+    public void recordsRequestsAndPhases(@TempDir final Path directory) throws Exception {
+
+        final String version = System.getProperty("java.specification.version");
+
+        if (version.startsWith("1.")) {
+            assertThat(RequestEvents.isSupported()).isFalse();
+            assertThatThrownBy(() -> RequestEvents.startRecording("test"))
+                .isInstanceOf(UnsupportedOperationException.class);
+            return;
+        }
+
+        assertThat(RequestEvents.isSupported()).isTrue();
+
+        final RequestEvents.Recording recording = RequestEvents.startRecording("test");
+        final RequestEvents.Phase phase = RequestEvents.beginPhase("write");
+
+        RequestEvents.markQueued(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5));
+        final RequestEvents.Trace inserted = RequestEvents.beginRequest("INSERT_USER");
+        assertThat(inserted.dispatched("statement")).isEqualTo("statement");
+        inserted.end(null, null);
+
+        final RequestEvents.Trace selected = RequestEvents.beginRequest("SELECT_USER");
+        selected.end(null, new IllegalStateException("unavailable"));
+
+        phase.end();
+
+        final Path file = directory.resolve("run.jfr");
+        final RequestEvents.Summary summary = recording.stop(file);
+
+        assertThat(file).isRegularFile();
+        assertThat(Files.size(file)).isPositive();
+        assertThat(summary.getLines()).hasSize(9);
+        assertThat(summary.getLines().get(0)).isEqualTo("INSERT_USER [requests=1, retried=0, failed=0]");
+        assertThat(summary.getLines().get(1)).startsWith("  queue:     p50=5.");
+        assertThat(summary.getLines().get(4)).isEqualTo("SELECT_USER [requests=1, retried=0, failed=1]");
+        assertThat(summary.getLines().get(8)).startsWith("Load test phases: write=");
+
+        // Once the recording has stopped, requests are no longer traced and queue marks are ignored
+
+        RequestEvents.markQueued(System.nanoTime());
+        assertThat(RequestEvents.beginRequest("INSERT_USER")).isSameAs(RequestEvents.Trace.NONE);
+    }
+
+    /**
+     * Verifies that a summary breaks the latency of each operation down into queue, bind, and execution time, and
+     * counts retried and failed requests.
+     */
+    @Test
+    public void summarizesLatencyByPhase() {
+
+        final RequestEvents.Summary summary = new RequestEvents.Summary();
+
+        summary.recordRequest("SELECT_USER", 0L, TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(4),
+            0, false);
+        summary.recordRequest("INSERT_USER", TimeUnit.MILLISECONDS.toNanos(2), 0L, TimeUnit.MILLISECONDS.toNanos(8),
+            1, false);
+        summary.recordRequest("INSERT_USER", TimeUnit.MILLISECONDS.toNanos(2), 0L, TimeUnit.MILLISECONDS.toNanos(8),
+            0, true);
+        summary.recordPhase("write", TimeUnit.SECONDS.toNanos(2));
+        summary.recordPhase("read-back", TimeUnit.MILLISECONDS.toNanos(500));
+        summary.recordPhase("write", TimeUnit.SECONDS.toNanos(1));
+
+        assertThat(summary.getLines()).containsExactly(
+            "INSERT_USER [requests=2, retried=1, failed=1]",
+            "  queue:     p50=2.00 p90=2.00 p99=2.00 p99.9=2.00 max=2.00 ms [n=2]",
+            "  bind:      p50=0.00 p90=0.00 p99=0.00 p99.9=0.00 max=0.00 ms [n=2]",
+            "  execution: p50=8.00 p90=8.00 p99=8.00 p99.9=8.00 max=8.00 ms [n=2]",
+            "SELECT_USER [requests=1, retried=0, failed=0]",
+            "  queue:     p50=0.00 p90=0.00 p99=0.00 p99.9=0.00 max=0.00 ms [n=1]",
+            "  bind:      p50=1.00 p90=1.00 p99=1.00 p99.9=1.00 max=1.00 ms [n=1]",
+            "  execution: p50=4.00 p90=4.00 p99=4.00 p99.9=4.00 max=4.00 ms [n=1]",
+            "Load test phases: write=3.0 s, read-back=0.5 s");
+    }
+}
@@ -0,0 +1,104 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.simulator.CqlSimulator;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that {@link SchemaBootstrapper} creates, reuses, and recreates the user table on a {@link CqlSimulator
+ * simulated} account, and that {@link Backoff} polls until a condition holds or its timeout elapses.
+ */
+public class SchemaBootstrapperTest {
+
+    private static final String KEYSPACE = "uprofile";
+    private static final String TABLE = "user";
+    private static final String REPLICATION = "{ 'class' : 'SimpleStrategy', 'replication_factor' : 1 }";
+
+    /**
+     * Verifies that a missing table is created, a compatible one is truncated and reused, and an incompatible one--or
+     * any existing one when reuse is disabled--is dropped and recreated.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void createsReusesAndRecreatesTable() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = CqlSession.builder()
+                .withConfigLoader(DriverConfigLoader.fromMap(OptionsMap.driverDefaults()))
+                .addContactPoints(simulator.getContactPoints())
+                .withLocalDatacenter("datacenter1")
+                .build()) {
+
+                final SchemaBootstrapper bootstrapper = new SchemaBootstrapper(session, KEYSPACE, TABLE,
+                    new Backoff(10, 100, 10_000, TimeUnit.MILLISECONDS));
+
+                final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE, TABLE));
+
+                assertThat(bootstrapper.bootstrap(REPLICATION, true).getAction())
+                    .isEqualTo(SchemaBootstrapper.Action.CREATED);
+
+                repository.prepareStatements();
+                repository.insertUser("1", "name", "city");
+                assertThat(repository.selectUserCount()).isEqualTo(1L);
+
+                assertThat(bootstrapper.bootstrap(REPLICATION, true).getAction())
+                    .isEqualTo(SchemaBootstrapper.Action.REUSED);
+                assertThat(repository.selectUserCount()).isZero();
+
+                assertThat(bootstrapper.bootstrap(REPLICATION, false).getAction())
+                    .isEqualTo(SchemaBootstrapper.Action.RECREATED);
+
+                session.execute("DROP TABLE " + KEYSPACE + "." + TABLE);
+                session.execute("CREATE TABLE " + KEYSPACE + "." + TABLE
+                    + " (user_id text PRIMARY KEY, user_name text)");
+
+                final SchemaBootstrapper.Result result = bootstrapper.bootstrap(REPLICATION, true);
+
+                assertThat(result.getAction()).isEqualTo(SchemaBootstrapper.Action.RECREATED);
+                assertThat(session.refreshSchema().getKeyspace(KEYSPACE).flatMap(keyspace -> keyspace.getTable(TABLE))
+                    .map(SchemaBootstrapper::isCompatible)).contains(true);
+                assertThat(result.toString()).startsWith("recreated uprofile.user in ");
+            }
+        }
+    }
+
+    /**
+     * Verifies that a backoff retries a condition that fails or throws and gives up once its timeout elapses.
+     *
+     * @throws Exception If interrupted.
+     */
+    @Test
+    public void pollsUntilConditionHoldsOrTimesOut() throws Exception {
+
+        final Backoff backoff = new Backoff(1, 4, 200, TimeUnit.MILLISECONDS);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertThat(backoff.await("third attempt", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("not yet");
+            }
+            return attempts.get() == 3;
+        })).isTrue();
+        assertThat(attempts).hasValue(3);
+
+        final long startTime = System.nanoTime();
+
+        assertThat(backoff.await("never", () -> false)).isFalse();
+        assertThat(System.nanoTime() - startTime).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+}
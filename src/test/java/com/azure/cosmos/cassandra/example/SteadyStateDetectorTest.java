@@ -0,0 +1,99 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that {@link SteadyStateDetector} finds the windows in which throughput stabilized and merges their
+ * measurements.
+ */
+public class SteadyStateDetectorTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Verifies that a ramp-up and a drain are excluded from the steady state.
+     */
+    @Test
+    public void excludesRampUpAndDrain() {
+
+        final List<MeasurementWindow> windows = windows(
+            new int[] { 0, 20, 60, 95, 100, 105, 98, 102, 80, 101, 99, 40, 10 },
+            new long[] { 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 });
+
+        final SteadyStateDetector.Result result = new SteadyStateDetector(4, 0.1)
+            .detect(windows, MeasurementWindow::getWriteThroughput);
+
+        // The idle first window is ignored; the dip at window 8 falls inside the steady state and stays in it
+
+        assertThat(result.isDetected()).isTrue();
+        assertThat(result.getCandidateCount()).isEqualTo(12);
+        assertThat(result.getWindows()).extracting(MeasurementWindow::getIndex)
+            .containsExactly(3, 4, 5, 6, 7, 8, 9, 10);
+        assertThat(result.getStartSeconds()).isEqualTo(3.0);
+        assertThat(result.getThroughput()).isEqualTo(97.5);
+        assertThat(result.getWriteHistogram().getTotalCount()).isEqualTo(780L);
+        assertThat(result.getErrorCount()).isEqualTo(8L);
+        assertThat(result.toString()).isEqualTo("97.5 ops/sec from 3.0 s over 8 of 12 windows");
+
+        final Map<String, Object> summary = new LinkedHashMap<>();
+        result.putSummary(summary);
+
+        assertThat(summary)
+            .containsEntry("steady-state-detected", true)
+            .containsEntry("steady-state-windows", 8)
+            .containsEntry("steady-state-throughput", 97.5);
+    }
+
+    /**
+     * Verifies that all complete windows are merged when throughput never stabilizes.
+     */
+    @Test
+    public void reportsAllWindowsWhenNotDetected() {
+
+        final List<MeasurementWindow> windows = windows(new int[] { 10, 50, 10, 50, 30 }, new long[5]);
+        final List<MeasurementWindow> partial = new ArrayList<>(windows);
+
+        partial.add(new MeasurementWindow(5, 5 * SECOND, SECOND / 10, false, histogram(1), histogram(0), 0L));
+
+        final SteadyStateDetector.Result result = new SteadyStateDetector(3, 0.2)
+            .detect(partial, MeasurementWindow::getWriteThroughput);
+
+        assertThat(result.isDetected()).isFalse();
+        assertThat(result.getWindows()).hasSize(5);
+        assertThat(result.getThroughput()).isEqualTo(30.0);
+        assertThat(result.toString()).endsWith("(not detected)");
+
+        assertThatThrownBy(() -> new SteadyStateDetector(0, 0.1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SteadyStateDetector(3, 0.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<MeasurementWindow> windows(final int[] writeCounts, final long[] errorCounts) {
+        final List<MeasurementWindow> windows = new ArrayList<>();
+        for (int i = 0; i < writeCounts.length; i++) {
+            windows.add(new MeasurementWindow(i, i * SECOND, SECOND, true, histogram(writeCounts[i]), histogram(0),
+                errorCounts[i]));
+        }
+        return windows;
+    }
+
+    private static Histogram histogram(final int count) {
+        final Histogram histogram = new Histogram(3);
+        for (int i = 0; i < count; i++) {
+            histogram.recordValue(TimeUnit.MILLISECONDS.toNanos(1 + i % 10));
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,173 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.simulator.CqlSimulator;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import com.datastax.oss.driver.api.core.config.TypedDriverOption;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that {@link SweepCell} expands a sweep into its cells and derives their options and driver configuration,
+ * and that {@link UserProfile#sweep} runs every cell against a {@link CqlSimulator simulated} account.
+ */
+public class SweepCellTest {
+
+    private static final String KEYSPACE = "uprofile";
+    private static final String TABLE = "user";
+
+    /**
+     * Verifies that a sweep is the cartesian product of its dimensions and that an unswept dimension takes the value
+     * configured for a single run.
+     */
+    @Test
+    public void expandsCartesianProduct() {
+
+        final LoadTestOptions options = LoadTestOptions.builder()
+            .threadCount(3)
+            .sweepConsistencyLevels(Arrays.asList(DefaultConsistencyLevel.ONE, DefaultConsistencyLevel.QUORUM))
+            .sweepPoolSizes(Arrays.asList(1, 2, 4))
+            .build();
+
+        final List<SweepCell> cells = SweepCell.expand(options);
+
+        assertThat(options.isSweep()).isTrue();
+        assertThat(cells).hasSize(6);
+        assertThat(cells).extracting(SweepCell::getIndex).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(cells).extracting(SweepCell::getConcurrency).containsOnly(3);
+        assertThat(cells).extracting(SweepCell::getMaxRequests).containsOnlyNulls();
+        assertThat(cells).extracting(SweepCell::getPoolSize).containsExactly(1, 2, 4, 1, 2, 4);
+        assertThat(cells).extracting(SweepCell::getConsistencyLevel).containsExactly(
+            DefaultConsistencyLevel.ONE, DefaultConsistencyLevel.ONE, DefaultConsistencyLevel.ONE,
+            DefaultConsistencyLevel.QUORUM, DefaultConsistencyLevel.QUORUM, DefaultConsistencyLevel.QUORUM);
+
+        assertThat(LoadTestOptions.builder().build().isSweep()).isFalse();
+    }
+
+    /**
+     * Verifies that a cell sets concurrency according to mode, overrides consistency, clears the sweep, and overrides
+     * the driver's pool sizes and request limit.
+     */
+    @Test
+    public void appliesToOptionsAndDriverConfig() {
+
+        final SweepCell cell = new SweepCell(0, 16, DefaultConsistencyLevel.LOCAL_QUORUM, 3, 256);
+        final LoadTestOptions sweep = LoadTestOptions.builder()
+            .readConsistency(DefaultConsistencyLevel.ONE)
+            .sweepConcurrency(Arrays.asList(1, 16))
+            .build();
+
+        final LoadTestOptions threads = cell.applyTo(sweep);
+
+        assertThat(threads.isSweep()).isFalse();
+        assertThat(threads.getThreadCount()).isEqualTo(16);
+        assertThat(threads.getWriteConsistency()).isEqualTo(DefaultConsistencyLevel.LOCAL_QUORUM);
+        assertThat(threads.getReadConsistency()).isEqualTo(DefaultConsistencyLevel.LOCAL_QUORUM);
+
+        final LoadTestOptions async = cell.applyTo(sweep.toBuilder().mode(LoadTestOptions.Mode.ASYNC).build());
+
+        assertThat(async.getMaxInFlight()).isEqualTo(16);
+        assertThat(async.getThreadCount()).isEqualTo(sweep.getThreadCount());
+
+        final LoadTestOptions unchanged = new SweepCell(0, 1, null, null, null).applyTo(sweep);
+
+        assertThat(unchanged.getReadConsistency()).isEqualTo(DefaultConsistencyLevel.ONE);
+        assertThat(unchanged.getWriteConsistency()).isNull();
+
+        assertThat(cell.getDriverOptions())
+            .containsEntry(TypedDriverOption.CONNECTION_POOL_LOCAL_SIZE, 3)
+            .containsEntry(TypedDriverOption.CONNECTION_POOL_REMOTE_SIZE, 3)
+            .containsEntry(TypedDriverOption.CONNECTION_MAX_REQUESTS, 256);
+        assertThat(new SweepCell(0, 1, null, null, null).getDriverOptions()).isEmpty();
+    }
+
+    /**
+     * Verifies that a sweep opens a session configured for each cell, writes and reads back users in each, and prints
+     * one row per cell.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void sweepsOnSimulator() throws Exception {
+
+        final LoadTestOptions options = LoadTestOptions.builder()
+            .threadCount(2)
+            .writesPerThread(10)
+            .dataPoolSize(16)
+            .sweepMaxRequests(Arrays.asList(64, 128))
+            .build();
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator, Collections.emptyMap())) {
+                final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE, TABLE));
+                repository.createKeyspace("CREATE KEYSPACE IF NOT EXISTS " + KEYSPACE + " WITH REPLICATION = { "
+                    + "'class' : 'SimpleStrategy', 'replication_factor' : 1 }");
+                repository.createTable("CREATE TABLE " + KEYSPACE + "." + TABLE + " (user_id text PRIMARY KEY,"
+                    + "user_name text,user_bcity text,user_payload text)");
+            }
+
+            final List<Integer> maxRequests = new ArrayList<>();
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final PrintStream stdout = System.out;
+
+            System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8.name()));
+
+            try {
+                new UserProfile().sweep(cell -> {
+                    final CqlSession session = connect(simulator, cell.getDriverOptions());
+                    maxRequests.add(session.getContext().getConfig().getDefaultProfile()
+                        .getInt(DefaultDriverOption.CONNECTION_MAX_REQUESTS));
+                    return session;
+                }, KEYSPACE, TABLE, options);
+            } finally {
+                System.setOut(stdout);
+            }
+
+            final String[] lines = output.toString(StandardCharsets.UTF_8.name()).split("\\R");
+
+            assertThat(maxRequests).containsExactly(64, 128);
+            assertThat(lines).hasSize(4);
+            assertThat(lines[0]).startsWith("concurrency");
+            assertThat(lines[1]).matches("2 +default +default +64 .* 0");
+            assertThat(lines[2]).matches("2 +default +default +128 .* 0");
+            assertThat(lines[3]).isEqualTo("Finished sweeping.");
+        }
+    }
+
+    private static CqlSession connect(
+        final CqlSimulator simulator,
+        final Map<TypedDriverOption<Integer>, Integer> driverOptions) {
+
+        final OptionsMap map = OptionsMap.driverDefaults();
+
+        for (final Map.Entry<TypedDriverOption<Integer>, Integer> entry : driverOptions.entrySet()) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+
+        return CqlSession.builder()
+            .withConfigLoader(DriverConfigLoader.fromMap(map))
+            .addContactPoints(simulator.getContactPoints())
+            .withLocalDatacenter("datacenter1")
+            .build();
+    }
+}
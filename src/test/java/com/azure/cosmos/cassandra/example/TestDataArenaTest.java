@@ -0,0 +1,108 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that {@link TestDataArena} generates deduplicated, reproducible test data and hands it out by cursor.
+ */
+public class TestDataArenaTest {
+
+    /**
+     * Verifies that IDs are unique, dictionaries are deduplicated, and record values can be recomputed from a seed or
+     * an ID.
+     */
+    @Test
+    public void generatesReproducibleData() {
+
+        final TestDataArena arena = TestDataArena.generate(1_000, 50, 100, 42L);
+        final TestDataArena same = TestDataArena.generate(1_000, 50, 100, 42L);
+        final Set<String> ids = new HashSet<>();
+        final Set<String> names = new HashSet<>();
+        final Set<String> payloads = new HashSet<>();
+
+        for (int n = 0; n < arena.getRecordCount(); n++) {
+            ids.add(arena.getId(n));
+            names.add(arena.getName(n));
+            payloads.add(arena.getPayload(n));
+            assertThat(arena.getId(n)).isEqualTo(same.getId(n));
+            assertThat(arena.getName(n)).isEqualTo(same.getName(n));
+            assertThat(arena.getCity(n)).isEqualTo(same.getCity(n));
+            assertThat(arena.getPayload(n)).hasSize(100).isEqualTo(same.getPayload(n));
+        }
+
+        assertThat(arena.newUser(arena.getIdMostSignificantBits(7), arena.getIdLeastSignificantBits(7)))
+            .isEqualTo(new User(arena.getId(7), arena.getName(7), arena.getCity(7)));
+        assertThat(ids).hasSize(1_000);
+        assertThat(arena.getDistinctNameCount()).isLessThanOrEqualTo(50);
+        assertThat(names).hasSizeLessThanOrEqualTo(arena.getDistinctNameCount());
+        assertThat(payloads.size()).isGreaterThan(1);
+        assertThat(TestDataArena.generate(10, 5, 0, 42L).getPayload(0)).isNull();
+        assertThat(arena.getId(7)).isEqualTo(
+            new UUID(arena.getIdMostSignificantBits(7), arena.getIdLeastSignificantBits(7)).toString());
+        assertThat(arena.getId(7)).isSameAs(arena.getId(7));
+        assertThatThrownBy(() -> TestDataArena.generate(TestDataArena.MAX_RECORD_COUNT + 1L, 5, 0, 42L))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Verifies that a cursor visits exactly the records in its range.
+     */
+    @Test
+    public void iteratesRange() {
+
+        final TestDataArena arena = TestDataArena.generate(10, 5, 0, 7L);
+        final TestDataArena.Cursor cursor = arena.cursor(3, 6);
+        final List<String> ids = new ArrayList<>();
+
+        while (cursor.next()) {
+            assertThat(cursor.getName()).isEqualTo(arena.getName(cursor.getIndex()));
+            ids.add(cursor.getId());
+        }
+
+        assertThat(ids).containsExactly(arena.getId(3), arena.getId(4), arena.getId(5));
+        assertThat(cursor.next()).isFalse();
+        assertThat(arena.cursor(4, 4).next()).isFalse();
+        assertThatThrownBy(() -> arena.cursor(5, 11)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    /**
+     * Verifies that arenas generated for different shards draw their IDs from disjoint slices of the ID space, even
+     * with the same seed.
+     */
+    @Test
+    public void drawsIdsFromShard() {
+
+        final int shardCount = 3;
+        final long width = Long.divideUnsigned(-1L, shardCount);
+        final Set<String> ids = new HashSet<>();
+
+        for (int shard = 0; shard < shardCount; shard++) {
+
+            final TestDataArena arena = TestDataArena.generate(1_000, 5, 0, 42L, shard, shardCount);
+
+            for (int i = 0; i < arena.getRecordCount(); i++) {
+                final long offset = arena.getIdMostSignificantBits(i) - shard * width;
+                assertThat(Long.compareUnsigned(offset, width)).isNegative();
+                ids.add(arena.getId(i));
+            }
+        }
+
+        assertThat(ids).hasSize(3_000);
+        assertThat(TestDataArena.generate(10, 5, 0, 42L, 0, 1).getId(0))
+            .isEqualTo(TestDataArena.generate(10, 5, 0, 42L).getId(0));
+        assertThatThrownBy(() -> TestDataArena.generate(10, 5, 0, 42L, 3, 3))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
@@ -0,0 +1,78 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenRange;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that {@link TokenRangeScanner} splits the token ring into non-wrapping ranges that cover it exactly once.
+ */
+public class TokenRangeScannerTest {
+
+    private static final BigInteger RING_SIZE = BigInteger.ONE.shiftLeft(64);
+
+    /**
+     * Verifies that the ranges owned by several nodes, one of which wraps around the ring, are split and unwrapped.
+     */
+    @Test
+    public void splitsWrappingRanges() {
+
+        final Set<TokenRange> ownedRanges = new HashSet<>(Arrays.asList(
+            range(-100L, 0L),
+            range(0L, 100L),
+            range(100L, -100L)));
+
+        final List<TokenRange> ranges = TokenRangeScanner.split(ownedRanges, 6);
+
+        assertThat(ranges).hasSize(7);
+        assertThat(ranges).noneMatch(TokenRange::isWrappedAround);
+        assertThat(ranges).filteredOn(range -> range.getEnd().compareTo(range.getStart()) <= 0)
+            .extracting(TokenRange::getEnd)
+            .containsExactly(new Murmur3Token(Long.MIN_VALUE));
+        assertThat(totalWidth(ranges)).isEqualTo(RING_SIZE);
+    }
+
+    /**
+     * Verifies that the full ring owned by a single node is split into ranges ending with the minimum token.
+     */
+    @Test
+    public void splitsFullRing() {
+
+        final TokenRange fullRing = range(Long.MIN_VALUE, Long.MIN_VALUE);
+        final List<TokenRange> ranges = TokenRangeScanner.split(Collections.singleton(fullRing), 4);
+
+        assertThat(fullRing.isFullRing()).isTrue();
+        assertThat(ranges).hasSize(4);
+        assertThat(ranges.get(ranges.size() - 1).getEnd()).isEqualTo(new Murmur3Token(Long.MIN_VALUE));
+        assertThat(ranges).noneMatch(TokenRange::isWrappedAround);
+        assertThat(totalWidth(ranges)).isEqualTo(RING_SIZE);
+    }
+
+    private static TokenRange range(final long start, final long end) {
+        return new Murmur3TokenRange(new Murmur3Token(start), new Murmur3Token(end));
+    }
+
+    private static BigInteger totalWidth(final List<TokenRange> ranges) {
+        BigInteger total = BigInteger.ZERO;
+        for (final TokenRange range : ranges) {
+            final BigInteger start = BigInteger.valueOf(((Murmur3Token) range.getStart()).getValue());
+            final BigInteger end = BigInteger.valueOf(((Murmur3Token) range.getEnd()).getValue());
+            final BigInteger width = end.subtract(start);
+            total = total.add(width.signum() > 0 ? width : width.add(RING_SIZE));
+        }
+        return total;
+    }
+}
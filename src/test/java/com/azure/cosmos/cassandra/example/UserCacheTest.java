@@ -0,0 +1,200 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.simulator.CqlSimulator;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that {@link UserCache} bounds its size, expires entries, keeps accurate statistics under concurrent access,
+ * and that {@link UserRepository} reads and writes through it.
+ */
+public class UserCacheTest {
+
+    /**
+     * Verifies that entries expire after their time-to-live and that hits, misses, and expirations are counted.
+     */
+    @Test
+    public void expiresEntries() {
+
+        final AtomicLong now = new AtomicLong();
+        final UserCache cache = new UserCache(100, 1_000L, 4, now::get);
+        final User user = new User("1", "name", "city");
+
+        assertThat(cache.get("1")).isNull();
+        cache.put(user);
+        now.set(999L);
+        assertThat(cache.get("1")).isEqualTo(user);
+        now.set(1_000L);
+        assertThat(cache.get("1")).isNull();
+        assertThat(cache.size()).isZero();
+
+        final UserCache.Stats stats = cache.stats();
+
+        assertThat(stats.getHitCount()).isEqualTo(1L);
+        assertThat(stats.getMissCount()).isEqualTo(2L);
+        assertThat(stats.getExpirationCount()).isEqualTo(1L);
+        assertThat(stats.getHitRatio()).isEqualTo(1.0 / 3.0);
+    }
+
+    /**
+     * Verifies that a full cache evicts its least recently used entry and estimates the latency saved by hits.
+     */
+    @Test
+    public void evictsLeastRecentlyUsed() {
+
+        final UserCache cache = new UserCache(3, 1_000_000L, 1, () -> 0L);
+
+        for (int i = 0; i < 3; i++) {
+            cache.put(new User(Integer.toString(i), "name", "city"));
+        }
+
+        assertThat(cache.get("0")).isNotNull();
+        cache.put(new User("3", "name", "city"));
+
+        assertThat(cache.get("1")).isNull();
+        assertThat(cache.get("0")).isNotNull();
+        assertThat(cache.size()).isEqualTo(3);
+
+        cache.recordLoad(2_000_000L);
+        cache.recordLoad(4_000_000L);
+
+        final UserCache.Stats stats = cache.stats();
+        final Map<String, Object> summary = new LinkedHashMap<>();
+
+        stats.putSummary(summary);
+
+        assertThat(stats.getEvictionCount()).isEqualTo(1L);
+        assertThat(stats.getMeanLoadNanos()).isEqualTo(3_000_000.0);
+        assertThat(stats.getSavedNanos()).isEqualTo(6_000_000.0);
+        assertThat(summary).containsEntry("cache-hits", 2L).containsEntry("cache-latency-saved-ms", 6.0);
+        assertThat(stats.toString()).startsWith("hits=2, misses=1, hit-ratio=0.667, evictions=1");
+    }
+
+    /**
+     * Verifies that concurrent readers and writers keep the cache within its bounds and count every lookup.
+     *
+     * @throws Exception If a worker fails.
+     */
+    @Test
+    public void boundsSizeUnderConcurrentAccess() throws Exception {
+
+        final int threadCount = 8;
+        final int operationCount = 20_000;
+        final UserCache cache = new UserCache(1_024, 60, TimeUnit.SECONDS);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < threadCount; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < operationCount; i++) {
+                        final String id = Integer.toString((thread * 7919 + i) % 4_096);
+                        if (cache.get(id) == null) {
+                            cache.put(new User(id, "name", "city"));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final UserCache.Stats stats = cache.stats();
+
+        assertThat(stats.getHitCount() + stats.getMissCount()).isEqualTo((long) threadCount * operationCount);
+        assertThat(stats.getSize()).isLessThanOrEqualTo(1_024 + cache.getStripeCount());
+        assertThat(stats.getEvictionCount()).isPositive();
+        assertThat(cache.getStripeCount()).isGreaterThan(1);
+    }
+
+    /**
+     * Verifies that a repository serves users it has written or read from its cache without going to the cluster, and
+     * that an uncached read bypasses the cache.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void readsAndWritesThroughRepository() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = CqlSession.builder()
+                .withConfigLoader(DriverConfigLoader.fromMap(OptionsMap.driverDefaults()))
+                .addContactPoints(simulator.getContactPoints())
+                .withLocalDatacenter("datacenter1")
+                .build()) {
+
+                final UserCache cache = new UserCache(100, 60, TimeUnit.SECONDS);
+                final UserRepository repository = new UserRepository(session, new StatementRegistry("ks", "user"),
+                    cache);
+
+                repository.createKeyspace("CREATE KEYSPACE ks WITH REPLICATION = { 'class' : 'SimpleStrategy', "
+                    + "'replication_factor' : 1 }");
+                repository.createTable("CREATE TABLE ks.user (user_id text PRIMARY KEY,user_name text,"
+                    + "user_bcity text,user_payload text)");
+                repository.prepareStatements();
+
+                repository.insertUser("written", "name", "city");
+                session.execute("INSERT INTO ks.user (user_id, user_name, user_bcity) VALUES ('other', 'n', 'c')");
+
+                final long requestCount = simulator.getRequestCount();
+
+                assertThat(repository.findUser("written")).isEqualTo(new User("written", "name", "city"));
+                assertThat(repository.selectUserAsync("written").toCompletableFuture().get(10, TimeUnit.SECONDS))
+                    .isEqualTo(new User("written", "name", "city"));
+                assertThat(simulator.getRequestCount()).isEqualTo(requestCount);
+
+                assertThat(repository.findUser("other")).isEqualTo(new User("other", "n", "c"));
+                assertThat(repository.findUser("other")).isEqualTo(new User("other", "n", "c"));
+                assertThat(repository.findUser("missing")).isNull();
+                assertThat(simulator.getRequestCount()).isEqualTo(requestCount + 2);
+
+                final UserCache.Stats stats = cache.stats();
+
+                assertThat(stats.getHitCount()).isEqualTo(3L);
+                assertThat(stats.getMissCount()).isEqualTo(2L);
+                assertThat(stats.getMeanLoadNanos()).isPositive();
+                assertThat(stats.getSavedNanos()).isPositive();
+
+                // An uncached read goes to the cluster and neither counts against nor fills the cache
+
+                final CompletionStage<User> uncached = repository.selectUserUncachedAsync("written");
+                assertThat(uncached.toCompletableFuture().get(10, TimeUnit.SECONDS))
+                    .isEqualTo(new User("written", "name", "city"));
+                assertThat(simulator.getRequestCount()).isEqualTo(requestCount + 3);
+                assertThat(cache.stats().getHitCount()).isEqualTo(3L);
+                assertThat(cache.stats().getMissCount()).isEqualTo(2L);
+            }
+        }
+    }
+}
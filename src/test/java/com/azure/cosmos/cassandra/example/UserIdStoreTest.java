@@ -0,0 +1,126 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Verifies that {@link UserIdStore} merges striped segments, shards them, and honors its memory budget.
+ */
+public class UserIdStoreTest {
+
+    /**
+     * Verifies that IDs appended from several threads are all present after sealing and are covered by shards.
+     *
+     * @throws InterruptedException If interrupted while waiting for appending threads.
+     */
+    @Test
+    public void mergesAndShardsSegments() throws InterruptedException {
+
+        final int threadCount = 4;
+        final int idsPerThread = UserIdStore.CHUNK_CAPACITY + 10;
+        final UserIdStore store = new UserIdStore(64L * 1024 * 1024);
+        final Thread[] threads = new Thread[threadCount];
+
+        for (int t = 0; t < threadCount; t++) {
+            final long thread = t;
+            threads[t] = new Thread(() -> {
+                for (long i = 0; i < idsPerThread; i++) {
+                    store.append(thread, i);
+                }
+            });
+            threads[t].start();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThatThrownBy(() -> store.size()).isInstanceOf(IllegalStateException.class);
+        store.seal();
+        assertThat(store.size()).isEqualTo((long) threadCount * idsPerThread);
+
+        final Set<String> seen = new HashSet<>();
+        final AtomicLong expectedIndex = new AtomicLong();
+
+        for (int shard = 0; shard < 3; shard++) {
+            final long[] bounds = store.shard(shard, 3);
+            assertThat(bounds[0]).isEqualTo(expectedIndex.get());
+            store.forEach(bounds[0], bounds[1], (index, mostSignificantBits, leastSignificantBits) -> {
+                assertThat(index).isEqualTo(expectedIndex.getAndIncrement());
+                assertThat(store.getMostSignificantBits(index)).isEqualTo(mostSignificantBits);
+                assertThat(store.getLeastSignificantBits(index)).isEqualTo(leastSignificantBits);
+                seen.add(mostSignificantBits + ":" + leastSignificantBits);
+            });
+        }
+
+        assertThat(seen).hasSize(threadCount * idsPerThread);
+        assertThatThrownBy(() -> store.append(0L, 0L)).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Verifies that ten thousand virtual threads, one per client, fit within the default budget without dropping IDs.
+     *
+     * @throws InterruptedException If interrupted while waiting for appending threads.
+     */
+    @Test
+    public void storesIdsFromManyVirtualThreads() throws InterruptedException {
+
+        assumeTrue(VirtualThreads.isSupported(), "virtual threads require Java 21 or later");
+
+        final int threadCount = 10_000;
+        final int idsPerThread = 5;
+        final UserIdStore store = new UserIdStore(LoadTestOptions.builder().build().getIdStoreBudgetMegabytes()
+            * 1024L * 1024L);
+        final ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+
+        for (int t = 0; t < threadCount; t++) {
+            final long thread = t;
+            executor.execute(() -> {
+                for (long i = 0; i < idsPerThread; i++) {
+                    store.append(thread, i);
+                }
+            });
+        }
+
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        store.seal();
+
+        assertThat(store.getDroppedCount()).isZero();
+        assertThat(store.size()).isEqualTo((long) threadCount * idsPerThread);
+        assertThat(store.getReservedBytes()).isLessThanOrEqualTo(
+            (long) (Stripes.COUNT + (threadCount * idsPerThread) / UserIdStore.CHUNK_CAPACITY)
+                * (16L * UserIdStore.CHUNK_CAPACITY + 16L));
+    }
+
+    /**
+     * Verifies that IDs beyond the memory budget are dropped and counted.
+     */
+    @Test
+    public void dropsIdsBeyondBudget() {
+
+        final UserIdStore store = new UserIdStore(2L * (16L * UserIdStore.CHUNK_CAPACITY + 16L));
+
+        for (long i = 0; i < 3L * UserIdStore.CHUNK_CAPACITY; i++) {
+            store.append(i, -i);
+        }
+
+        store.seal();
+
+        assertThat(store.size()).isEqualTo(2L * UserIdStore.CHUNK_CAPACITY);
+        assertThat(store.getDroppedCount()).isEqualTo(UserIdStore.CHUNK_CAPACITY);
+        assertThat(store.getLeastSignificantBits(store.size() - 1)).isEqualTo(1L - 2L * UserIdStore.CHUNK_CAPACITY);
+    }
+}
@@ -0,0 +1,135 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.StatementRegistry.Operation;
+import com.azure.cosmos.cassandra.example.simulator.CqlSimulator;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.servererrors.InvalidQueryException;
+import com.datastax.oss.driver.api.core.servererrors.SyntaxError;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that a {@link UserRepository} prepares a statement again only when the server rejects it as stale, and only
+ * once however many requests find it invalidated.
+ */
+public class UserRepositoryTest {
+
+    private static final String KEYSPACE = "uprofile";
+    private static final String TABLE = "user";
+
+    /**
+     * Verifies that a statement is prepared again once after its table is dropped and that an error preparing it is
+     * rethrown without another retry.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void repreparesOnlyStaleStatements() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator);
+                 StatementRegistry statements = new StatementRegistry(KEYSPACE, TABLE)) {
+
+                final UserRepository repository = new UserRepository(session, statements);
+
+                new SchemaBootstrapper(session, KEYSPACE, TABLE, Backoff.ofSeconds(10)).bootstrap(
+                    "{ 'class' : 'SimpleStrategy', 'replication_factor' : 1 }", false);
+                repository.prepareStatements();
+
+                // Once the table is gone, a statement is prepared again before the error is reported
+
+                session.execute("DROP TABLE " + statements.getQualifiedTableName());
+
+                assertThatThrownBy(() -> repository.insertUser("user-0", "name", "city"))
+                    .isInstanceOf(InvalidQueryException.class)
+                    .hasMessageContaining("unconfigured table");
+
+                assertThat(statements.getReprepareCount()).isEqualTo(1L);
+
+                // A statement that cannot be prepared is not retried
+
+                assertThatThrownBy(() -> repository.insertUserAsync("user-1", "name", "city").toCompletableFuture()
+                    .get(1, TimeUnit.MINUTES))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(InvalidQueryException.class);
+
+                assertThat(statements.getReprepareCount()).isEqualTo(2L);
+            }
+        }
+    }
+
+    /**
+     * Verifies that concurrent binds of an invalidated statement share a single prepare request.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void repreparesInvalidatedStatementsOnce() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator);
+                 StatementRegistry statements = new StatementRegistry(KEYSPACE, TABLE)) {
+
+                new SchemaBootstrapper(session, KEYSPACE, TABLE, Backoff.ofSeconds(10)).bootstrap(
+                    "{ 'class' : 'SimpleStrategy', 'replication_factor' : 1 }", false);
+                statements.prepareAll(session);
+                statements.invalidate(Operation.INSERT_USER);
+
+                final List<CompletableFuture<BoundStatement>> binds = new ArrayList<>();
+
+                for (int i = 0; i < 100; i++) {
+                    binds.add(statements.bindAsync(Operation.INSERT_USER, "city", "user-" + i, "name")
+                        .toCompletableFuture());
+                }
+
+                CompletableFuture.allOf(binds.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.MINUTES);
+                assertThat(statements.getReprepareCount()).isEqualTo(1L);
+            }
+        }
+    }
+
+    /**
+     * Verifies that a prepared statement is marked as stale only by an invalid query error raised after the schema
+     * changed, and never by an invalid query error raised against an unchanged schema.
+     */
+    @Test
+    public void recognizesStaleStatements() {
+        assertThat(UserRepository.isStale(new InvalidQueryException(null, "unconfigured table user"), 0L, 1L))
+            .isTrue();
+        assertThat(UserRepository.isStale(new InvalidQueryException(null, "unconfigured table user"), 1L, 1L))
+            .isFalse();
+        assertThat(UserRepository.isStale(new InvalidQueryException(null, "Undefined column name user_x"), 1L, 1L))
+            .isFalse();
+        assertThat(UserRepository.isStale(new SyntaxError(null, "unconfigured table user"), 0L, 1L)).isFalse();
+        assertThat(UserRepository.isStale(new IllegalStateException("unconfigured table user"), 0L, 1L)).isFalse();
+    }
+
+    private static CqlSession connect(final CqlSimulator simulator) {
+        return CqlSession.builder()
+            .withConfigLoader(DriverConfigLoader.fromMap(OptionsMap.driverDefaults()))
+            .addContactPoints(simulator.getContactPoints())
+            .withLocalDatacenter("datacenter1")
+            .build();
+    }
+}
@@ -0,0 +1,120 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.simulator.CqlSimulator;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that {@link UserRowMapper} maps rows of the user table by column index, one row at a time or a page at a
+ * time, against a {@link CqlSimulator simulated} account.
+ */
+public class UserRowMapperTest {
+
+    private static final String KEYSPACE = "uprofile";
+    private static final String TABLE = "user";
+
+    /**
+     * Verifies that columns are found wherever they are selected, that pages are decoded into reused column arrays, and
+     * that the repository's paged reads and scans deliver every user.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void mapsRowsAndPagesByIndex() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = CqlSession.builder()
+                .withConfigLoader(DriverConfigLoader.fromMap(OptionsMap.driverDefaults()))
+                .addContactPoints(simulator.getContactPoints())
+                .withLocalDatacenter("datacenter1")
+                .build()) {
+
+                final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE, TABLE));
+
+                new SchemaBootstrapper(session, KEYSPACE, TABLE, Backoff.ofSeconds(10)).bootstrap(
+                    "{ 'class' : 'SimpleStrategy', 'replication_factor' : 1 }", false);
+                repository.prepareStatements();
+
+                for (int i = 0; i < 40; i++) {
+                    repository.insertUser("user-" + i, "name-" + i, i % 2 == 0 ? "city" : null);
+                }
+
+                // Columns are mapped by index, whatever order they are selected in
+
+                final ResultSet resultSet = session.execute(SimpleStatement.newInstance(
+                    "SELECT user_bcity, user_id, user_name FROM " + KEYSPACE + "." + TABLE).setPageSize(16));
+
+                final UserRowMapper mapper = UserRowMapper.of(resultSet.getColumnDefinitions());
+                final Row first = resultSet.one();
+
+                assertThat(mapper.isFor(first.getColumnDefinitions())).isTrue();
+                assertThat(mapper.map(first)).isEqualTo(new User(first.getString("user_id"),
+                    first.getString("user_name"), first.getString("user_bcity")));
+
+                final List<Row> rows = new ArrayList<>();
+                resultSet.forEach(rows::add);
+
+                final UserRowMapper.Page page = new UserRowMapper.Page(4);
+
+                assertThat(mapper.mapPage(rows, page)).isEqualTo(39);
+                assertThat(page.toUser(38)).isEqualTo(mapper.map(rows.get(38)));
+                assertThat(page.matches(0, mapper.map(rows.get(0)))).isTrue();
+                assertThat(mapper.mapPage(rows.subList(0, 2), page)).isEqualTo(2);
+                assertThat(page.getId(1)).isEqualTo(rows.get(1).getString("user_id"));
+                assertThatThrownBy(() -> page.getId(2)).isInstanceOf(IndexOutOfBoundsException.class);
+
+                assertThatThrownBy(() -> UserRowMapper.of(session.execute(
+                    "SELECT user_id, user_name FROM " + KEYSPACE + "." + TABLE).getColumnDefinitions()))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("user_bcity");
+
+                // The repository's typed and paged reads
+
+                assertThat(repository.selectUser("user-3")).isEqualTo(new User("user-3", "name-3", null));
+
+                final List<User> users = new ArrayList<>();
+
+                assertThat(repository.selectUsersAsync(Arrays.asList("user-1", "user-2", "no-such-user"), found -> {
+                    for (int i = 0; i < found.size(); i++) {
+                        users.add(found.toUser(i));
+                    }
+                }).toCompletableFuture().join()).isEqualTo(2L);
+
+                assertThat(users).containsExactlyInAnyOrder(
+                    new User("user-1", "name-1", null),
+                    new User("user-2", "name-2", "city"));
+
+                final Set<String> scanned = ConcurrentHashMap.newKeySet();
+
+                assertThat(repository.scanner(8, 4).orElseThrow(IllegalStateException::new).scanPages(found -> {
+                    for (int i = 0; i < found.size(); i++) {
+                        scanned.add(found.getId(i));
+                    }
+                }, (completedRanges, totalRanges, rowCount) -> { }).toCompletableFuture().join()).isEqualTo(40L);
+
+                assertThat(scanned).hasSize(40).contains("user-0", "user-39");
+            }
+        }
+    }
+}
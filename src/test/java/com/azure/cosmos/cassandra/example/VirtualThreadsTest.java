@@ -0,0 +1,81 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that {@link VirtualThreads} and the {@link LoadTestOptions.Mode#VIRTUAL_THREADS virtual-threads} mode are
+ * available exactly when the running JVM supports virtual threads.
+ */
+public class VirtualThreadsTest {
+
+    /**
+     * Verifies that virtual threads are used on Java 21 or later and rejected with a clear message on earlier versions.
+     *
+     * @throws ExecutionException   If a task run on a virtual thread fails.
+     * @throws InterruptedException If interrupted while waiting for a task run on a virtual thread.
+     * @throws TimeoutException     If a task run on a virtual thread does not complete in time.
+     */
+    @Test
+    public void detectsSupport() throws ExecutionException, InterruptedException, TimeoutException {
+
+        final String version = System.getProperty("java.specification.version");
+        final boolean expected = !version.startsWith("1.") && Integer.parseInt(version) >= 21;
+
+        assertThat(VirtualThreads.isSupported()).isEqualTo(expected);
+
+        final LoadTestOptions.Builder builder = LoadTestOptions.builder().mode(LoadTestOptions.Mode.VIRTUAL_THREADS);
+
+        if (expected) {
+            final ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            assertThat(executor.submit(() -> Thread.currentThread().toString()).get(1, TimeUnit.MINUTES))
+                .startsWith("VirtualThread");
+            executor.shutdown();
+            assertThat(builder.build().getMode()).isEqualTo(LoadTestOptions.Mode.VIRTUAL_THREADS);
+        } else {
+            assertThatThrownBy(VirtualThreads::newVirtualThreadPerTaskExecutor)
+                .isInstanceOf(UnsupportedOperationException.class)
+                .hasMessageContaining("Java 21");
+            assertThatThrownBy(builder::build)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("virtual-threads");
+        }
+    }
+
+    /**
+     * Verifies that a comma-separated list of modes is parsed in order and copied by {@link LoadTestOptions#toBuilder}.
+     */
+    @Test
+    public void parsesModeList() {
+
+        assertThat(LoadTestOptions.Mode.parseList(" threads, ASYNC,,open-loop ")).containsExactly(
+            LoadTestOptions.Mode.THREADS,
+            LoadTestOptions.Mode.ASYNC,
+            LoadTestOptions.Mode.OPEN_LOOP);
+
+        assertThat(LoadTestOptions.Mode.parseList("")).isEmpty();
+        assertThat(LoadTestOptions.Mode.VIRTUAL_THREADS.toString()).isEqualTo("virtual-threads");
+
+        final LoadTestOptions options = LoadTestOptions.builder()
+            .compareModes(LoadTestOptions.Mode.parseList("async,threads"))
+            .threadCount(7)
+            .build();
+
+        final LoadTestOptions copy = options.toBuilder().mode(LoadTestOptions.Mode.ASYNC).build();
+
+        assertThat(copy.getCompareModes()).isEqualTo(options.getCompareModes());
+        assertThat(copy.getThreadCount()).isEqualTo(7);
+        assertThat(copy.getMode()).isEqualTo(LoadTestOptions.Mode.ASYNC);
+        assertThat(copy.toString()).isEqualTo(options.toString().replace("mode=threads", "mode=async"));
+    }
+}
@@ -0,0 +1,166 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.WorkloadProfile.Operation;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that {@link WorkloadProfile workload profiles} are read from HOCON with the expected fallbacks and
+ * validation, and that {@link LoadTestOptions} takes its defaults from them.
+ */
+public class WorkloadProfileTest {
+
+    /**
+     * Verifies that the bundled profiles parse and fall back to the defaults.
+     */
+    @Test
+    public void readsBundledProfiles() {
+
+        final WorkloadProfile defaults = WorkloadProfile.defaults();
+
+        assertThat(defaults.getThreadCount()).isEqualTo(40);
+        assertThat(defaults.getOperationsPerThread()).isEqualTo(5);
+        assertThat(defaults.getDuration()).isEqualTo(Duration.ZERO);
+
+        final WorkloadProfile profile = WorkloadProfile.load("hot-partitions", null);
+
+        assertThat(profile.getName()).isEqualTo("hot-partitions");
+        assertThat(profile.getDuration()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(profile.getKeyDistribution()).isEqualTo(KeyDistribution.ZIPFIAN);
+        assertThat(profile.getZipfianExponent()).isEqualTo(1.2);
+        assertThat(profile.getOperationsPerThread()).isEqualTo(defaults.getOperationsPerThread());
+
+        // A profile's mix replaces the default mix rather than merging with it
+
+        assertThat(profile.getReadWeight()).isEqualTo(50.0);
+        assertThat(profile.getInsertWeight()).isZero();
+        assertThat(profile.getUpdateWeight()).isEqualTo(50.0);
+
+        for (final String name : new String[] { "read-heavy", "balanced", "latest", "wide-rows" }) {
+            assertThat(WorkloadProfile.load(name, null).getName()).isEqualTo(name);
+        }
+    }
+
+    /**
+     * Verifies that a profile file adds to and overrides the bundled profiles.
+     *
+     * @param directory A temporary directory for the profile file.
+     *
+     * @throws Exception If the profile file cannot be written.
+     */
+    @Test
+    public void layersProfileFile(@TempDir final Path directory) throws Exception {
+
+        final Path file = directory.resolve("workloads.conf");
+
+        Files.write(file, ("workloads {\n"
+            + "  production { threads = 8, duration = 30s, preload = 100, mix { read = 9, update = 1 } }\n"
+            + "  read-heavy { threads = 2 }\n"
+            + "}\n").getBytes(StandardCharsets.UTF_8));
+
+        final WorkloadProfile production = WorkloadProfile.load("production", file.toString());
+
+        assertThat(production.getThreadCount()).isEqualTo(8);
+        assertThat(production.getDuration()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(production.getKeyDistribution()).isEqualTo(KeyDistribution.UNIFORM);
+        assertThat(WorkloadProfile.load("read-heavy", file.toString()).getThreadCount()).isEqualTo(2);
+
+        assertThatThrownBy(() -> WorkloadProfile.load("production", directory.resolve("missing.conf").toString()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith(LoadTestOptions.PROPERTY_PREFIX + "workload-file: ");
+    }
+
+    /**
+     * Verifies that missing profiles and invalid values are reported with their paths.
+     */
+    @Test
+    public void rejectsInvalidProfiles() {
+
+        final Config defaults = ConfigFactory.parseResources(WorkloadProfile.RESOURCE_NAME);
+
+        assertThatThrownBy(() -> WorkloadProfile.fromConfig("missing", defaults))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("workloads.missing: no such workload profile");
+
+        assertThatThrownBy(() -> fromString("threads = 0"))
+            .hasMessage("workloads.test.threads: expected a positive value, not 0");
+
+        assertThatThrownBy(() -> fromString("key-distribution = gaussian"))
+            .hasMessageStartingWith("workloads.test.key-distribution: expected uniform, zipfian, or latest");
+
+        assertThatThrownBy(() -> fromString("mix { read = 1 }"))
+            .hasMessageStartingWith("workloads.test.preload: expected a positive value when the mix has no inserts");
+
+        assertThatThrownBy(() -> fromString("mix { read = -1, insert = 1 }"))
+            .hasMessageStartingWith("workloads.test.mix.read: expected a non-negative number");
+
+        assertThatThrownBy(() -> fromString("duration = soon"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("duration");
+    }
+
+    /**
+     * Verifies that operations are selected in proportion to the weights of the mix.
+     */
+    @Test
+    public void selectsOperationsByWeight() {
+
+        final WorkloadProfile profile = fromString("preload = 10, mix { read = 70, insert = 10, update = 20 }");
+        final Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+        final Random random = new Random(11);
+
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(profile.selectOperation(random), 1, Integer::sum);
+        }
+
+        assertThat(counts.get(Operation.READ)).isBetween(69_000, 71_000);
+        assertThat(counts.get(Operation.INSERT)).isBetween(9_500, 10_500);
+        assertThat(counts.get(Operation.UPDATE)).isBetween(19_000, 21_000);
+    }
+
+    /**
+     * Verifies that a workload supplies the load test defaults it shares with the classic load test, and that those
+     * defaults may still be overridden.
+     */
+    @Test
+    public void suppliesLoadTestDefaults() {
+
+        final WorkloadProfile profile = WorkloadProfile.load("wide-rows", null);
+
+        assertThat(LoadTestOptions.builder().build().getThreadCount())
+            .isEqualTo(WorkloadProfile.defaults().getThreadCount());
+
+        final LoadTestOptions options = LoadTestOptions.builder().workload(profile).threadCount(3).build();
+
+        assertThat(options.getWorkload()).isSameAs(profile);
+        assertThat(options.getThreadCount()).isEqualTo(3);
+        assertThat(options.getPayloadSize()).isEqualTo(16384);
+        assertThat(options.toString()).contains("workload=wide-rows");
+
+        assertThatThrownBy(() -> LoadTestOptions.builder().workload(profile).mode(LoadTestOptions.Mode.ASYNC).build())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith(LoadTestOptions.PROPERTY_PREFIX + "workload: requires threads");
+    }
+
+    private static WorkloadProfile fromString(final String profile) {
+        final Config config = ConfigFactory.parseString("workloads.test { " + profile + " }")
+            .withFallback(ConfigFactory.parseResources(WorkloadProfile.RESOURCE_NAME));
+        return WorkloadProfile.fromConfig("test", config);
+    }
+}
@@ -0,0 +1,171 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.simulator.CqlSimulator;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that {@link WorkloadRunner} preloads keys and then issues a profile's mix of operations against a
+ * {@link CqlSimulator simulated} account.
+ */
+public class WorkloadRunnerTest {
+
+    private static final String KEYSPACE = "uprofile";
+    private static final String TABLE = "user";
+
+    /**
+     * Verifies that a fixed number of operations is issued and that every key written is counted.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void runsOperationCountBoundedProfile() throws Exception {
+
+        final WorkloadProfile profile = WorkloadProfile.fromConfig("test", ConfigFactory.parseString(
+            "workloads.test { threads = 4, operations-per-thread = 50, preload = 100, payload-size = 16, "
+                + "key-distribution = zipfian, mix { read = 60, insert = 20, update = 20 } }")
+            .withFallback(ConfigFactory.parseResources(WorkloadProfile.RESOURCE_NAME)));
+
+        final LoadTestOptions options = LoadTestOptions.builder().workload(profile).dataPoolSize(16).build();
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final UserRepository repository = createRepository(session);
+                final LatencyRecorder writeLatency = new LatencyRecorder("write");
+                final LatencyRecorder readLatency = new LatencyRecorder("read");
+                final WorkloadRunner runner = new WorkloadRunner(repository, options, writeLatency, readLatency);
+
+                assertThat(runner.preload()).isTrue();
+                assertThat(repository.selectUserCount()).isEqualTo(100L);
+
+                final WorkloadRunner.Result result = runner.run();
+
+                assertThat(result.isFinished()).isTrue();
+                assertThat(result.getErrorCount()).isZero();
+                assertThat(result.getOperationCount()).isEqualTo(200L);
+                assertThat(result.getReadCount()).isPositive();
+                assertThat(result.getInsertCount()).isPositive();
+                assertThat(result.getUpdateCount()).isPositive();
+                assertThat(result.getKeyCount()).isEqualTo(100L + result.getInsertCount());
+                assertThat(repository.selectUserCount()).isEqualTo(result.getKeyCount());
+                assertThat(readLatency.getTotalHistogram().getTotalCount()).isEqualTo(result.getReadCount());
+                assertThat(writeLatency.getTotalHistogram().getTotalCount())
+                    .isEqualTo(result.getInsertCount() + result.getUpdateCount());
+            }
+        }
+    }
+
+    /**
+     * Verifies that a duration-bounded profile runs for its duration.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void runsDurationBoundedProfile() throws Exception {
+
+        final WorkloadProfile profile = WorkloadProfile.fromConfig("test", ConfigFactory.parseString(
+            "workloads.test { threads = 2, duration = 500ms, preload = 10, target-rate = 100, "
+                + "key-distribution = latest, mix { read = 1, update = 1 } }")
+            .withFallback(ConfigFactory.parseResources(WorkloadProfile.RESOURCE_NAME)));
+
+        final LoadTestOptions options = LoadTestOptions.builder().workload(profile).build();
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final WorkloadRunner runner = new WorkloadRunner(createRepository(session), options,
+                    new LatencyRecorder("write"), new LatencyRecorder("read"));
+
+                runner.preload();
+                final WorkloadRunner.Result result = runner.run();
+
+                // Paced at 100 ops/sec for half a second, the clients issue about 50 operations
+
+                assertThat(result.getElapsedNanos()).isGreaterThanOrEqualTo(500_000_000L);
+                assertThat(result.getOperationCount()).isBetween(30L, 60L);
+                assertThat(result.getInsertCount()).isZero();
+                assertThat(result.getKeyCount()).isEqualTo(10L);
+                assertThat(result.getReadMissCount()).isZero();
+            }
+        }
+    }
+
+    /**
+     * Verifies that warm-up operations are issued but neither recorded nor counted.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void warmsUpWithoutMeasuring() throws Exception {
+
+        final WorkloadProfile profile = WorkloadProfile.fromConfig("test", ConfigFactory.parseString(
+            "workloads.test { threads = 2, operations-per-thread = 10, preload = 10, mix { read = 1, update = 1 } }")
+            .withFallback(ConfigFactory.parseResources(WorkloadProfile.RESOURCE_NAME)));
+
+        final LoadTestOptions options = LoadTestOptions.builder().workload(profile).warmUpOperations(30).build();
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final LatencyRecorder writeLatency = new LatencyRecorder("write");
+                final LatencyRecorder readLatency = new LatencyRecorder("read");
+                final WorkloadRunner runner = new WorkloadRunner(createRepository(session), options, writeLatency,
+                    readLatency);
+
+                runner.preload();
+
+                final long requestCount = simulator.getRequestCount();
+
+                assertThat(runner.warmUp()).isEqualTo(30L);
+                assertThat(simulator.getRequestCount()).isGreaterThanOrEqualTo(requestCount + 30);
+                assertThat(writeLatency.getTotalHistogram().getTotalCount()).isZero();
+                assertThat(readLatency.getTotalHistogram().getTotalCount()).isZero();
+
+                final WorkloadRunner.Result result = runner.run();
+
+                assertThat(result.getOperationCount()).isEqualTo(20L);
+                assertThat(writeLatency.getTotalHistogram().getTotalCount() + readLatency.getTotalHistogram()
+                    .getTotalCount()).isEqualTo(20L);
+            }
+        }
+    }
+
+    private static CqlSession connect(final CqlSimulator simulator) {
+        return CqlSession.builder()
+            .withConfigLoader(DriverConfigLoader.fromMap(OptionsMap.driverDefaults()))
+            .addContactPoints(simulator.getContactPoints())
+            .withLocalDatacenter("datacenter1")
+            .build();
+    }
+
+    private static UserRepository createRepository(final CqlSession session) {
+
+        final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE, TABLE));
+
+        repository.createKeyspace("CREATE KEYSPACE IF NOT EXISTS " + KEYSPACE + " WITH REPLICATION = { "
+            + "'class' : 'SimpleStrategy', 'replication_factor' : 1 }");
+        repository.createTable("CREATE TABLE " + KEYSPACE + "." + TABLE + " (user_id text PRIMARY KEY,"
+            + "user_name text,user_bcity text,user_payload text)");
+        repository.prepareStatements();
+        return repository;
+    }
+}
@@ -0,0 +1,249 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example;
+
+import com.azure.cosmos.cassandra.example.simulator.CqlSimulator;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that a {@link WriteBehindBuffer} coalesces, flushes, and throttles writes to a {@link CqlSimulator
+ * simulated} account.
+ */
+public class WriteBehindBufferTest {
+
+    private static final String KEYSPACE = "uprofile";
+    private static final String TABLE = "user";
+
+    /**
+     * Verifies that repeated writes to a queued user are coalesced into one insert of the latest values, that the
+     * buffer is flushed once {@code flushSize} users are queued, and that draining flushes the rest.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void coalescesAndFlushesBySize() throws Exception {
+
+        try (CqlSimulator simulator = new CqlSimulator(SimulatorOptions.builder().port(0).build())) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final UserRepository repository = bootstrap(session);
+
+                try (WriteBehindBuffer buffer = new WriteBehindBuffer(repository, 100, 10, 1, TimeUnit.HOURS)) {
+
+                    final CompletionStage<Void> first = buffer.write(new UserRow("user-0", "first", "city", null));
+                    final CompletionStage<Void> last = buffer.write(new UserRow("user-0", "last", "city", null));
+
+                    assertThat(buffer.getCoalescedCount()).isEqualTo(1L);
+                    assertThat(last).isSameAs(first);
+
+                    final List<CompletableFuture<Void>> writes = new ArrayList<>();
+
+                    for (int i = 1; i < 10; i++) {
+                        writes.add(buffer.write(new UserRow("user-" + i, "name-" + i, "city", null))
+                            .toCompletableFuture());
+                    }
+
+                    // The tenth distinct user fills a flush; nothing waits for the hour-long flush interval
+
+                    CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.MINUTES);
+                    assertThat(first.toCompletableFuture().get(1, TimeUnit.MINUTES)).isNull();
+
+                    final CompletableFuture<Void> straggler = buffer.write(new UserRow("user-10", "name-10", "city",
+                        null)).toCompletableFuture();
+
+                    Thread.sleep(200L);
+                    assertThat(straggler).isNotDone();
+
+                    assertThat(buffer.drain(1, TimeUnit.MINUTES)).isTrue();
+                    assertThat(straggler).isDone();
+                    assertThat(buffer.getWrittenCount()).isEqualTo(11L);
+                    assertThat(buffer.getFailedCount()).isZero();
+                    assertThat(buffer.getBatchCount() + buffer.getSingleCount()).isBetween(2L, 11L);
+                }
+
+                assertThat(repository.selectUserCount()).isEqualTo(11L);
+                assertThat(repository.findUser("user-0")).isEqualTo(new User("user-0", "last", "city"));
+            }
+        }
+    }
+
+    /**
+     * Verifies that a full buffer makes writers wait for room, rejecting a write whose timeout elapses first, and that
+     * a closed buffer rejects writes.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void blocksWritersWhileFull() throws Exception {
+
+        final SimulatorOptions options = SimulatorOptions.builder()
+            .port(0)
+            .regions(Collections.singletonList(new SimulatorOptions.Region("datacenter1", 200)))
+            .build();
+
+        try (CqlSimulator simulator = new CqlSimulator(options)) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final UserRepository repository = bootstrap(session);
+                final WriteBehindBuffer buffer = new WriteBehindBuffer(repository, 2, 2, 1, TimeUnit.HOURS);
+
+                buffer.write(new UserRow("user-0", "name-0", "city", null));
+                buffer.write(new UserRow("user-1", "name-1", "city", null));
+
+                // Both users are being written, which takes 200 ms, so there is no room for a third
+
+                assertThatThrownBy(() -> buffer.write(new UserRow("user-2", "name-2", "city", null), 50,
+                    TimeUnit.MILLISECONDS).toCompletableFuture().join())
+                    .hasCauseInstanceOf(RejectedExecutionException.class);
+
+                final CompletionStage<Void> admitted = buffer.write(new UserRow("user-2", "name-2", "city", null));
+
+                assertThat(buffer.getWrittenCount()).isEqualTo(2L);
+
+                buffer.close();
+
+                assertThat(admitted.toCompletableFuture()).isDone();
+                assertThat(buffer.getWrittenCount()).isEqualTo(3L);
+                assertThatThrownBy(() -> buffer.write(new UserRow("user-3", "name-3", "city", null)))
+                    .isInstanceOf(IllegalStateException.class);
+            }
+        }
+    }
+
+    /**
+     * Verifies that closing a buffer that cannot drain in time returns after the close timeout rather than waiting for
+     * the cluster, counting the users it left being written as abandoned.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void abandonsUndrainedUsersOnClose() throws Exception {
+
+        final SimulatorOptions options = SimulatorOptions.builder()
+            .port(0)
+            .regions(Collections.singletonList(new SimulatorOptions.Region("datacenter1", 1000)))
+            .build();
+
+        try (CqlSimulator simulator = new CqlSimulator(options)) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final UserRepository repository = bootstrap(session);
+                final WriteBehindBuffer buffer = new WriteBehindBuffer(repository, 10, 10, 1, TimeUnit.HOURS, 100,
+                    TimeUnit.MILLISECONDS);
+
+                final List<CompletableFuture<Void>> writes = new ArrayList<>();
+
+                for (int i = 0; i < 3; i++) {
+                    writes.add(buffer.write(new UserRow("user-" + i, "name-" + i, "city", null))
+                        .toCompletableFuture());
+                }
+
+                // Each write takes a second, so the buffer cannot drain within the 100 ms close timeout
+
+                final long startNanos = System.nanoTime();
+                buffer.close();
+
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)).isLessThan(900L);
+                assertThat(buffer.getAbandonedCount()).isEqualTo(3L);
+                assertThat(buffer.getWrittenCount()).isZero();
+                assertThat(writes).noneMatch(CompletableFuture::isDone);
+                assertThatThrownBy(() -> buffer.write(new UserRow("user-3", "name-3", "city", null)))
+                    .isInstanceOf(IllegalStateException.class);
+            }
+        }
+    }
+
+    /**
+     * Verifies that a writer that was waiting for room when the buffer closed has its write failed rather than queued
+     * where no flush will ever take it.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void failsWritersAdmittedAfterClose() throws Exception {
+
+        final SimulatorOptions options = SimulatorOptions.builder()
+            .port(0)
+            .regions(Collections.singletonList(new SimulatorOptions.Region("datacenter1", 500)))
+            .build();
+
+        try (CqlSimulator simulator = new CqlSimulator(options)) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator)) {
+
+                final UserRepository repository = bootstrap(session);
+                final WriteBehindBuffer buffer = new WriteBehindBuffer(repository, 1, 1, 1, TimeUnit.HOURS, 100,
+                    TimeUnit.MILLISECONDS);
+
+                final CompletionStage<Void> first = buffer.write(new UserRow("user-0", "name-0", "city", null));
+                final CompletableFuture<CompletionStage<Void>> second = new CompletableFuture<>();
+
+                final Thread writer = new Thread(() -> {
+                    try {
+                        second.complete(buffer.write(new UserRow("user-1", "name-1", "city", null)));
+                    } catch (final Throwable error) {
+                        second.completeExceptionally(error);
+                    }
+                });
+
+                writer.start();
+
+                // The only permit is held by the first user, which takes 500 ms to write
+
+                while (writer.getState() != Thread.State.TIMED_WAITING) {
+                    Thread.sleep(1L);
+                }
+
+                buffer.close();
+
+                assertThatThrownBy(() -> second.get(1, TimeUnit.MINUTES).toCompletableFuture().get(1, TimeUnit.MINUTES))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+                assertThat(first.toCompletableFuture().get(1, TimeUnit.MINUTES)).isNull();
+                assertThat(buffer.getAbandonedCount()).isEqualTo(1L);
+            }
+        }
+    }
+
+    private static UserRepository bootstrap(final CqlSession session) throws InterruptedException {
+        final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE, TABLE));
+        new SchemaBootstrapper(session, KEYSPACE, TABLE, Backoff.ofSeconds(30)).bootstrap(
+            "{ 'class' : 'SimpleStrategy', 'replication_factor' : 1 }", false);
+        repository.prepareStatements();
+        return repository;
+    }
+
+    private static CqlSession connect(final CqlSimulator simulator) {
+        return CqlSession.builder()
+            .withConfigLoader(DriverConfigLoader.fromMap(OptionsMap.driverDefaults()))
+            .addContactPoints(simulator.getContactPoints())
+            .withLocalDatacenter("datacenter1")
+            .build();
+    }
+}
@@ -0,0 +1,171 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.cosmos.cassandra.example.simulator;
+
+import com.azure.cosmos.cassandra.example.StatementRegistry;
+import com.azure.cosmos.cassandra.example.User;
+import com.azure.cosmos.cassandra.example.UserRepository;
+import com.azure.cosmos.cassandra.example.simulator.SimulatorOptions.Region;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.OptionsMap;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that the {@link CqlSimulator simulator} serves the application's statements through the DataStax Java
+ * Driver, delays responses by region, and throttles requests beyond its provisioned throughput.
+ */
+public class CqlSimulatorTest {
+
+    private static final String KEYSPACE = "uprofile";
+    private static final String TABLE = "user";
+
+    /**
+     * Verifies that the user repository can create, populate, and query the user table in a simulated account.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void servesUserRepository() throws Exception {
+
+        final SimulatorOptions options = SimulatorOptions.builder()
+            .port(0)
+            .regions(Region.parseList("West US=0,East US=0"))
+            .build();
+
+        try (CqlSimulator simulator = new CqlSimulator(options)) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator, "West US")) {
+
+                assertThat(session.getMetadata().getNodes().values())
+                    .extracting(Node::getDatacenter)
+                    .containsExactlyInAnyOrder("West US", "East US");
+
+                final UserRepository repository = new UserRepository(session, new StatementRegistry(KEYSPACE, TABLE));
+
+                repository.createKeyspace("CREATE KEYSPACE IF NOT EXISTS " + KEYSPACE + " WITH REPLICATION = { "
+                    + "'class' : 'NetworkTopologyStrategy', 'datacenter1' : 1 }");
+                repository.dropTable("DROP TABLE IF EXISTS " + KEYSPACE + "." + TABLE);
+                repository.createTable("CREATE TABLE " + KEYSPACE + "." + TABLE + " (user_id text PRIMARY KEY,"
+                    + "user_name text,user_bcity text,user_payload text)");
+                repository.prepareStatements();
+
+                final int userCount = 200;
+
+                for (int i = 0; i < userCount; i++) {
+                    repository.insertUser("user-" + i, "name-" + i, "city-" + (i % 10));
+                }
+
+                final User user = repository.selectUserAsync("user-42").toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+                assertThat(user).isNotNull();
+                assertThat(user.getName()).isEqualTo("name-42");
+                assertThat(user.getCity()).isEqualTo("city-2");
+
+                final List<User> users = repository.selectUsersAsync(Arrays.asList("user-1", "user-2", "missing"))
+                    .toCompletableFuture()
+                    .get(10, TimeUnit.SECONDS);
+
+                assertThat(users).extracting(User::getId).containsExactlyInAnyOrder("user-1", "user-2");
+                assertThat(repository.selectUserCount()).isEqualTo(userCount);
+                assertThat(repository.countUsers(16, 4)).isEqualTo(userCount);
+            }
+
+            assertThat(simulator.getRequestUnits()).isGreaterThanOrEqualTo(200 * options.getWriteCharge());
+            assertThat(simulator.getThrottledCount()).isZero();
+        }
+    }
+
+    /**
+     * Verifies that requests beyond the provisioned throughput fail with a {@code RetryAfterMs} hint.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void throttlesRequestsBeyondProvisionedThroughput() throws Exception {
+
+        final SimulatorOptions options = SimulatorOptions.builder()
+            .port(0)
+            .requestUnitsPerSecond(10.0)
+            .writeCharge(5.0)
+            .build();
+
+        try (CqlSimulator simulator = new CqlSimulator(options)) {
+
+            simulator.start();
+
+            try (CqlSession session = connect(simulator, "datacenter1")) {
+
+                session.execute("CREATE KEYSPACE ks WITH REPLICATION = { 'class' : 'SimpleStrategy', "
+                    + "'replication_factor' : 1 }");
+                session.execute("CREATE TABLE ks.t (id text PRIMARY KEY, value text)");
+
+                assertThatThrownBy(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        session.execute(SimpleStatement.newInstance("INSERT INTO ks.t (id, value) VALUES (?, ?)",
+                            "id-" + i, "value").setIdempotent(false));
+                    }
+                }).isInstanceOf(OverloadedException.class).hasMessageContaining("RetryAfterMs=");
+            }
+
+            assertThat(simulator.getThrottledCount()).isPositive();
+        }
+    }
+
+    /**
+     * Verifies that responses are delayed by the latency of the region that serves them.
+     *
+     * @throws Exception If the simulator cannot be started.
+     */
+    @Test
+    public void delaysResponsesByRegionLatency() throws Exception {
+
+        final SimulatorOptions options = SimulatorOptions.builder()
+            .port(0)
+            .regions(Region.parseList("West US=0,East US=100"))
+            .build();
+
+        try (CqlSimulator simulator = new CqlSimulator(options)) {
+
+            simulator.start();
+
+            final List<Long> elapsedMillis = new ArrayList<>();
+
+            for (final String region : Arrays.asList("West US", "East US")) {
+                try (CqlSession session = connect(simulator, region)) {
+                    final long start = System.nanoTime();
+                    session.execute("SELECT release_version FROM system.local");
+                    elapsedMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            }
+
+            assertThat(elapsedMillis.get(1)).isGreaterThanOrEqualTo(100L);
+            assertThat(elapsedMillis.get(1)).isGreaterThan(elapsedMillis.get(0));
+        }
+    }
+
+    private static CqlSession connect(final CqlSimulator simulator, final String localDatacenter) {
+
+        // The driver defaults leave out the Cosmos extensions and application.conf, which expect an account
+
+        return CqlSession.builder()
+            .withConfigLoader(DriverConfigLoader.fromMap(OptionsMap.driverDefaults()))
+            .addContactPoints(simulator.getContactPoints())
+            .withLocalDatacenter(localDatacenter)
+            .build();
+    }
+}